@@ -385,6 +385,10 @@ public class OConfigurationHandler {
         currentConfiguredEdge.setLogical((boolean) currentEdgeInfo.field("isLogical"));
       }
 
+      if (currentEdgeInfo.field("isLightweight") != null) {
+        currentConfiguredEdge.setLightweight((boolean) currentEdgeInfo.field("isLightweight"));
+      }
+
       // extract and set configured properties
       List<OConfiguredProperty> configuredProperties = this.extractProperties(currentEdgeInfo, configuredEdgeClassName);
       currentConfiguredEdge.setConfiguredProperties(configuredProperties);
@@ -643,6 +647,11 @@ public class OConfigurationHandler {
 
       currEdgeInfoDoc.field("isLogical", currConfiguredEdge.isLogical());
 
+      // written only when enabled, as it's an optional field
+      if (currConfiguredEdge.isLightweight()) {
+        currEdgeInfoDoc.field("isLightweight", true);
+      }
+
             /*
              * Setting properties
              */
@@ -914,6 +923,7 @@ public class OConfigurationHandler {
       }
 
       currConfiguredEdgeClass.setLogical(isLogicalEdge);
+      currConfiguredEdgeClass.setLightweight(currEdgeType.isLightweight());
 
       // building configured properties
       List<OConfiguredProperty> configuredProperties = new LinkedList<OConfiguredProperty>();
@@ -34,10 +34,12 @@ public class OConfiguredEdgeClass extends OConfiguredClass {
   private OSplittingEdgeInformation     splittingEdgeInfo;             // mandatory
 
   private boolean isLogical;                                       // optional
+  private boolean isLightweight;                                   // optional
 
   public OConfiguredEdgeClass(String edgeName, OConfiguration globalConfiguration) {
     super(edgeName, globalConfiguration);
     this.isLogical = false;
+    this.isLightweight = false;
   }
 
   public List<OEdgeMappingInformation> getMappings() {
@@ -63,4 +65,12 @@ public class OConfiguredEdgeClass extends OConfiguredClass {
   public void setLogical(boolean logical) {
     this.isLogical = logical;
   }
+
+  public boolean isLightweight() {
+    return this.isLightweight;
+  }
+
+  public void setLightweight(boolean lightweight) {
+    this.isLightweight = lightweight;
+  }
 }
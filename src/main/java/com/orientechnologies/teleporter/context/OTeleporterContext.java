@@ -20,6 +20,7 @@
 
 package com.orientechnologies.teleporter.context;
 
+import com.orientechnologies.orient.output.OOutputStreamManager;
 import com.orientechnologies.orient.output.OPluginMessageHandler;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
 import com.orientechnologies.teleporter.nameresolver.ONameResolver;
@@ -40,6 +41,9 @@ public class OTeleporterContext {
 
   private static OTeleporterContext instance = null;
 
+  // context of the source imported by the current thread (and by the threads it starts) when several sources are imported
+  private static final InheritableThreadLocal<OTeleporterContext> sourceInstance = new InheritableThreadLocal<OTeleporterContext>();
+
   private OTeleporterStatistics  statistics;
   private OPluginMessageHandler messageHandler;
   private ODriverDataTypeHandler dataTypeHandler;
@@ -47,12 +51,18 @@ public class OTeleporterContext {
   private String                 driverDependencyPath;
   private String                 executionStrategy;
   private ODBQueryEngine         dbQueryEngine;
+  private OTeleporterSettings    settings;
 
   private OTeleporterContext() {
     this.statistics = new OTeleporterStatistics();
+    this.settings = new OTeleporterSettings();
   }
 
   public static OTeleporterContext getInstance() {
+    OTeleporterContext sourceContext = sourceInstance.get();
+    if (sourceContext != null) {
+      return sourceContext;
+    }
     if (instance == null) {
       instance = new OTeleporterContext();
     }
@@ -64,6 +74,30 @@ public class OTeleporterContext {
     return instance;
   }
 
+  /**
+   * Builds the context of a source imported concurrently with other sources: message handler, settings and driver dependency path
+   * are shared with this context, while statistics and query engine are its own.
+   */
+  public OTeleporterContext buildSourceContext() {
+    OTeleporterContext sourceContext = new OTeleporterContext();
+    sourceContext.setMessageHandler(this.messageHandler);
+    sourceContext.setSettings(this.settings);
+    sourceContext.setDriverDependencyPath(this.driverDependencyPath);
+    sourceContext.setExecutionStrategy(this.executionStrategy);
+    return sourceContext;
+  }
+
+  /**
+   * Makes getInstance return the passed context in the current thread and in the threads it starts.
+   */
+  public static void bindSourceContext(OTeleporterContext sourceContext) {
+    sourceInstance.set(sourceContext);
+  }
+
+  public static void unbindSourceContext() {
+    sourceInstance.remove();
+  }
+
   public OTeleporterStatistics getStatistics() {
     return this.statistics;
   }
@@ -120,6 +154,14 @@ public class OTeleporterContext {
     this.dbQueryEngine = dbQueryEngine;
   }
 
+  public OTeleporterSettings getSettings() {
+    return this.settings;
+  }
+
+  public void setSettings(OTeleporterSettings settings) {
+    this.settings = settings;
+  }
+
   /**
    * Prints the error message for a caught exception according to a level passed as argument. It's composed of:
    * - defined error message
@@ -156,6 +198,35 @@ public class OTeleporterContext {
     return message;
   }
 
+  /**
+   * Returns true if the messages of the passed level ("debug", "info", "warn", "error") are printed by the current message
+   * handler.
+   *
+   * @param level
+   *
+   * @return
+   */
+  public boolean isLevelEnabled(String level) {
+
+    int outputLevel = this.messageHandler.getOutputManagerLevel();
+    if (outputLevel == OOutputStreamManager.BLANK_LEVEL) {
+      return false;
+    }
+
+    switch (level) {
+    case "debug":
+      return outputLevel <= OOutputStreamManager.DEBUG_LEVEL;
+    case "info":
+      return outputLevel <= OOutputStreamManager.INFO_LEVEL;
+    case "warn":
+      return outputLevel <= OOutputStreamManager.WARNING_LEVEL;
+    case "error":
+      return outputLevel <= OOutputStreamManager.ERROR_LEVEL;
+    default:
+      return false;
+    }
+  }
+
   /**
    * Builds the exception stack trace and prints it according to a level passed as argument.
    *
@@ -0,0 +1,206 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning settings of a Teleporter execution, chosen through the command line arguments.
+ * Default values reproduce the standard sequential migration.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OTeleporterSettings {
+
+  public static final String BLUEPRINTS_SINK = "blueprints";
+  public static final String DOCUMENT_SINK   = "document";
+  public static final String REMOTE_SINK     = "remote";
+
+  public static final String DIRECT_SCHEMA_WRITING  = "direct";
+  public static final String BATCHED_SCHEMA_WRITING = "batched";
+
+  private int     workerThreads;       // number of threads writing into the target graph where the import supports it
+  private String  sink;                // API adopted to write vertices and edges: "blueprints", "document" or "remote"
+  private boolean lightweightEdges;    // if true all the edges without properties are written as lightweight edges
+  private String  dumpDirectory;       // if not null the source records are dumped in this directory instead of being imported
+  private String  loadDirectory;       // if not null the source records are loaded from the dump in this directory
+  private double  estimateSamplePercentage;   // if greater than 0 the migration is estimated sampling this percentage of each entity
+  private int     minBatchSize;        // lower limit of the fetch and commit sizes chosen while importing a table
+  private int     maxBatchSize;        // upper limit of the fetch and commit sizes, equal to minBatchSize to pin them
+  private String  sourcesPath;         // JSON file listing the sources to import concurrently into the same graph
+  private boolean concurrentSources;   // true while several sources are imported concurrently into the same graph
+  private List<String> partitionUrls;   // further target databases the vertices are partitioned over, by hash of their key
+  private String  deadLetterPath;      // if not null the failing rows are written in this file and the import goes on
+  private String  replayPath;          // if not null only the rows of this dead-letter file are imported
+  private boolean verify;              // if true the migrated graph is compared with the source once the import is complete
+  private String  schemaWriting;       // "direct" or "batched" schema commands, if null they are batched against remote targets only
+  private boolean snapshotReads;       // if true all the reads of the source share the snapshot taken when the migration starts
+  private String  spillDirectory;      // directory of the key to RID maps spilled on disk, the system temp directory if null
+
+  public OTeleporterSettings() {
+    this.workerThreads = 1;
+    this.sink = BLUEPRINTS_SINK;
+    this.lightweightEdges = false;
+    this.minBatchSize = 100;
+    this.maxBatchSize = 10000;
+    this.partitionUrls = new ArrayList<String>();
+  }
+
+  public int getWorkerThreads() {
+    return this.workerThreads;
+  }
+
+  public void setWorkerThreads(int workerThreads) {
+    this.workerThreads = workerThreads;
+  }
+
+  public String getSink() {
+    return this.sink;
+  }
+
+  public void setSink(String sink) {
+    this.sink = sink;
+  }
+
+  public boolean isLightweightEdges() {
+    return this.lightweightEdges;
+  }
+
+  public void setLightweightEdges(boolean lightweightEdges) {
+    this.lightweightEdges = lightweightEdges;
+  }
+
+  public String getDumpDirectory() {
+    return this.dumpDirectory;
+  }
+
+  public void setDumpDirectory(String dumpDirectory) {
+    this.dumpDirectory = dumpDirectory;
+  }
+
+  public String getLoadDirectory() {
+    return this.loadDirectory;
+  }
+
+  public void setLoadDirectory(String loadDirectory) {
+    this.loadDirectory = loadDirectory;
+  }
+
+  public double getEstimateSamplePercentage() {
+    return this.estimateSamplePercentage;
+  }
+
+  public void setEstimateSamplePercentage(double estimateSamplePercentage) {
+    this.estimateSamplePercentage = estimateSamplePercentage;
+  }
+
+  public int getMinBatchSize() {
+    return this.minBatchSize;
+  }
+
+  public void setMinBatchSize(int minBatchSize) {
+    this.minBatchSize = minBatchSize;
+  }
+
+  public int getMaxBatchSize() {
+    return this.maxBatchSize;
+  }
+
+  public void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public String getSourcesPath() {
+    return this.sourcesPath;
+  }
+
+  public void setSourcesPath(String sourcesPath) {
+    this.sourcesPath = sourcesPath;
+  }
+
+  public boolean isConcurrentSources() {
+    return this.concurrentSources;
+  }
+
+  public void setConcurrentSources(boolean concurrentSources) {
+    this.concurrentSources = concurrentSources;
+  }
+
+  public List<String> getPartitionUrls() {
+    return this.partitionUrls;
+  }
+
+  public void setPartitionUrls(List<String> partitionUrls) {
+    this.partitionUrls = partitionUrls;
+  }
+
+  public String getDeadLetterPath() {
+    return this.deadLetterPath;
+  }
+
+  public void setDeadLetterPath(String deadLetterPath) {
+    this.deadLetterPath = deadLetterPath;
+  }
+
+  public String getReplayPath() {
+    return this.replayPath;
+  }
+
+  public void setReplayPath(String replayPath) {
+    this.replayPath = replayPath;
+  }
+
+  public boolean isVerify() {
+    return this.verify;
+  }
+
+  public void setVerify(boolean verify) {
+    this.verify = verify;
+  }
+
+  public String getSpillDirectory() {
+    return this.spillDirectory;
+  }
+
+  public void setSpillDirectory(String spillDirectory) {
+    this.spillDirectory = spillDirectory;
+  }
+
+  public String getSchemaWriting() {
+    return this.schemaWriting;
+  }
+
+  public void setSchemaWriting(String schemaWriting) {
+    this.schemaWriting = schemaWriting;
+  }
+
+  public boolean isSnapshotReads() {
+    return this.snapshotReads;
+  }
+
+  public void setSnapshotReads(boolean snapshotReads) {
+    this.snapshotReads = snapshotReads;
+  }
+
+}
@@ -20,9 +20,13 @@
 
 package com.orientechnologies.teleporter.context;
 
+import com.orientechnologies.teleporter.ui.OProgressSampler;
+import com.orientechnologies.teleporter.ui.OProgressSnapshot;
 import com.orientechnologies.teleporter.ui.OStatisticsListener;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Collects and updates statistics about the Drakkar execution state.
@@ -73,6 +77,11 @@ public class OTeleporterStatistics {
   public volatile int  orientAddedEdges;
   public volatile Date startWork4Time;
 
+  // Batch sizes chosen for each imported vertex type and number of full batches committed
+  public volatile Map<String, Integer> vertexType2fetchSize;
+  public volatile Map<String, Integer> vertexType2commitSize;
+  public volatile Map<String, Integer> vertexType2batches;
+
   // Logical Relationships
   public volatile int  totalNumberOfLogicalRelationships;
   public volatile int  doneLogicalRelationships;
@@ -81,17 +90,26 @@ public class OTeleporterStatistics {
   public volatile Date startWork5Time;
 
   // Warnings and Error Messages
+  public static final int MAX_ERROR_MESSAGES = 100;   // only a sample of the error messages is kept in memory
   public volatile Set<String> warningMessages;
   public volatile Set<String> errorMessages;
+  public volatile int         omittedErrorMessages;
+
+  // Rows written in the dead-letter file
+  public volatile int  deadLetterRows;
 
   // Listeners
   private volatile List<OStatisticsListener> listeners;
 
+  // Asynchronous progress sampling
+  private volatile OProgressSampler  sampler;
+  private volatile OProgressSnapshot progressSnapshot;
+
   public OTeleporterStatistics() {
     this.init();
-    this.warningMessages = new HashSet<String>();
-    this.errorMessages = new HashSet<String>();
-    this.listeners = new ArrayList<OStatisticsListener>();
+    this.warningMessages = Collections.synchronizedSet(new HashSet<String>());
+    this.errorMessages = Collections.synchronizedSet(new HashSet<String>());
+    this.listeners = new CopyOnWriteArrayList<OStatisticsListener>();
   }
 
   private void init() {
@@ -120,18 +138,44 @@ public class OTeleporterStatistics {
     this.analyzedRecords = 0;
     this.orientAddedVertices = 0;
     this.orientAddedEdges = 0;
+    this.deadLetterRows = 0;
+
+    this.vertexType2fetchSize = new ConcurrentHashMap<String, Integer>();
+    this.vertexType2commitSize = new ConcurrentHashMap<String, Integer>();
+    this.vertexType2batches = new ConcurrentHashMap<String, Integer>();
 
     this.totalNumberOfLogicalRelationships = 0;
     this.doneLogicalRelationships = 0;
     this.leftVerticesCurrentLogicalRelationship = 0;
     this.doneLeftVerticesCurrentLogicalRelationship = 0;
 
+    this.progressSnapshot = null;
   }
 
   public void reset() {
     this.init();
   }
 
+  /**
+   * Adds an error message if the sample kept in memory is not full yet, otherwise it just counts it.
+   */
+  public void addErrorMessage(String message) {
+    synchronized (this.errorMessages) {
+      if (this.errorMessages.size() < MAX_ERROR_MESSAGES || this.errorMessages.contains(message)) {
+        this.errorMessages.add(message);
+      } else {
+        this.omittedErrorMessages++;
+      }
+    }
+  }
+
+  /**
+   * Thread-safe counterpart of orientAddedEdges++, used when edges are written by several threads.
+   */
+  public synchronized void incrementOrientAddedEdges() {
+    this.orientAddedEdges++;
+  }
+
   /*
    * Publisher-Subscribers
    */
@@ -140,12 +184,50 @@ public class OTeleporterStatistics {
     this.listeners.add(listener);
   }
 
+  /**
+   * Notifies the listeners about a change of state. When a progress sampler is running the sample is requested to the sampler
+   * thread, which updates the listeners without blocking the caller; otherwise they are updated synchronously.
+   */
   public void notifyListeners() {
+    OProgressSampler currentSampler = this.sampler;
+    if (currentSampler != null) {
+      currentSampler.sampleNow();
+    } else {
+      this.publishToListeners();
+    }
+  }
+
+  public void publishToListeners() {
     for (OStatisticsListener listener : this.listeners) {
       listener.updateOnEvent(this);
     }
   }
 
+  /**
+   * Starts sampling the statistics every intervalMillis milliseconds from a dedicated thread.
+   */
+  public synchronized void startProgressSampling(long intervalMillis) {
+    if (this.sampler == null) {
+      this.sampler = new OProgressSampler(this, intervalMillis);
+      this.sampler.start();
+    }
+  }
+
+  public synchronized void stopProgressSampling() {
+    if (this.sampler != null) {
+      this.sampler.stop();
+      this.sampler = null;
+    }
+  }
+
+  public OProgressSnapshot getProgressSnapshot() {
+    return this.progressSnapshot;
+  }
+
+  public void setProgressSnapshot(OProgressSnapshot progressSnapshot) {
+    this.progressSnapshot = progressSnapshot;
+  }
+
 
   /*
    *  toString methods
@@ -179,7 +261,18 @@ public class OTeleporterStatistics {
     s += "\nAdded Vertices on OrientDB: " + this.orientAddedVertices;
     s += "\nUpdated Vertices on OrientDB: " + this.orientUpdatedVertices;
     s += "\nAdded Edges on OrientDB: " + this.orientAddedEdges;
+    if (this.deadLetterRows > 0) {
+      s += "\nRows written in the dead-letter file: " + this.deadLetterRows;
+    }
+
+    return s;
+  }
 
+  public String batchSizes() {
+    String s = "Batch Sizes (fetch/commit)";
+    for (String vertexType : new TreeSet<String>(this.vertexType2commitSize.keySet())) {
+      s += "\n" + vertexType + ": " + this.vertexType2fetchSize.get(vertexType) + "/" + this.vertexType2commitSize.get(vertexType);
+    }
     return s;
   }
 
@@ -187,6 +280,9 @@ public class OTeleporterStatistics {
     String s = "\n\nSUMMARY\n\n";
     s += this.sourceDbSchemaBuildingProgress() + "\n\n" + this.orientSchemaWritingProgress() + "\n\n" + this.importingProgress()
         + "\n\n";
+    if (this.vertexType2commitSize.size() > 0) {
+      s += this.batchSizes() + "\n\n";
+    }
 
     // printing error messages
     if (this.errorMessages.size() > 0) {
@@ -194,6 +290,9 @@ public class OTeleporterStatistics {
       for (String message : this.errorMessages) {
         s += message + "\n";
       }
+      if (this.omittedErrorMessages > 0) {
+        s += "... and " + this.omittedErrorMessages + " more error messages.\n";
+      }
     }
 
     s += "\n\n";
@@ -23,10 +23,12 @@ package com.orientechnologies.teleporter.http.handler;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.output.OPluginMessageHandler;
 import com.orientechnologies.orient.server.OServer;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
 import com.orientechnologies.teleporter.exception.OTeleporterIOException;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
 import com.orientechnologies.teleporter.main.OTeleporter;
+import com.orientechnologies.teleporter.ui.OProgressSnapshot;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
 import java.io.ByteArrayOutputStream;
@@ -160,6 +162,14 @@ public class OTeleporterJob implements Callable<ODocument> {
       String lastBatchLog = extractBatchLog();
       status.field("log", lastBatchLog);
 
+      // last progress published by the sampler
+      if (this.status == Status.RUNNING) {
+        OProgressSnapshot progress = OTeleporterContext.getInstance().getStatistics().getProgressSnapshot();
+        if (progress != null) {
+          status.field("progress", progress.toDocument());
+        }
+      }
+
       if (this.status == Status.FINISHED) {
         listener.notifyAll();
       }
@@ -93,6 +93,56 @@ public class OCommonQueryBuilder implements OQueryBuilder {
     return query;
   }
 
+  /**
+   * Fetches only the passed columns of the entity. If no columns are passed all the columns are fetched.
+   *
+   * @param entity
+   * @param columns
+   *
+   * @return
+   */
+  @Override
+  public String getRecordsByEntity(OEntity entity, List<String> columns) {
+    return "select " + this.buildProjection(entity, columns) + this.buildFromClause(entity);
+  }
+
+  protected String buildProjection(OEntity entity, List<String> columns) {
+
+    if (columns == null || columns.isEmpty())
+      return "*";
+
+    StringBuilder projection = new StringBuilder();
+    for (String column : columns) {
+      if (projection.length() > 0)
+        projection.append(", ");
+      projection.append(this.buildColumnProjection(entity, column));
+    }
+    return projection.toString();
+  }
+
+  /**
+   * Projects a single column of the entity. DBMS-specific query builders override it to convert the values of some types in the
+   * query.
+   *
+   * @param entity
+   * @param column
+   *
+   * @return
+   */
+  protected String buildColumnProjection(OEntity entity, String column) {
+    return this.quote + column + this.quote;
+  }
+
+  protected String buildFromClause(OEntity entity) {
+
+    String entitySchema = entity.getSchemaName();
+
+    if (entitySchema != null)
+      return " from " + entitySchema + "." + this.quote + entity.getName() + this.quote;
+    else
+      return " from " + this.quote + entity.getName() + this.quote;
+  }
+
   @Override
   public String getRecordsFromMultipleEntities(List<OEntity> mappedEntities, String[][] columns) {
     String query;
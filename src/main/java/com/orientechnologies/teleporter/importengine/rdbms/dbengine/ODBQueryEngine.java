@@ -46,6 +46,7 @@ public class ODBQueryEngine implements ODataSourceQueryEngine {
 
   private OQueryBuilderFactory queryBuilderFactory;
   private OQueryBuilder        queryBuilder;
+  private volatile OSourceSnapshot snapshot;   // point in time read by all the queries on the source, null to read the latest data
 
   public ODBQueryEngine(String driver) {
     this.queryBuilderFactory = new OQueryBuilderFactory();
@@ -81,6 +82,24 @@ public class ODBQueryEngine implements ODataSourceQueryEngine {
     return this.executeQuery(query, sourceDBInfo);
   }
 
+  public OQueryResult getRecordsByEntity(OEntity entity, List<String> columns) {
+
+    OSourceDatabaseInfo sourceDBInfo = entity.getSourceDataseInfo();
+    String query = queryBuilder.getRecordsByEntity(entity, columns);
+    return this.executeQuery(query, sourceDBInfo);
+  }
+
+  /**
+   * Fetches at most maxRows records of the entity, in the order the source database returns them. The limit is applied through
+   * the JDBC statement, so it doesn't depend on the SQL dialect.
+   */
+  public OQueryResult getSampleRecordsByEntity(OEntity entity, int maxRows) {
+
+    OSourceDatabaseInfo sourceDBInfo = entity.getSourceDataseInfo();
+    String query = queryBuilder.getRecordsByEntity(entity);
+    return this.executeQuery(query, sourceDBInfo, maxRows);
+  }
+
   public OQueryResult getRecordsFromMultipleEntities(List<OEntity> mappedEntities, String[][] columns) {
 
     OSourceDatabaseInfo sourceDBInfo = mappedEntities.get(0)
@@ -125,7 +144,34 @@ public class ODBQueryEngine implements ODataSourceQueryEngine {
     return this.executeQuery(query, sourceDBInfo);
   }
 
+  /**
+   * Takes a snapshot of the source database, read by all the following queries on it until endSnapshot is called, whatever
+   * connection or thread they are executed by.
+   */
+  public void beginSnapshot(OSourceDatabaseInfo sourceDBInfo) {
+    this.endSnapshot();
+    this.snapshot = OSourceSnapshot.take(sourceDBInfo);
+  }
+
+  public void endSnapshot() {
+    if (this.snapshot != null) {
+      this.snapshot.close();
+      this.snapshot = null;
+    }
+  }
+
+  public OSourceSnapshot getSnapshot() {
+    return this.snapshot;
+  }
+
   public OQueryResult executeQuery(String query, OSourceDatabaseInfo sourceDBInfo) {
+    return this.executeQuery(query, sourceDBInfo, 0);
+  }
+
+  /**
+   * @param maxRows limit of the fetched rows, 0 for no limit
+   */
+  protected OQueryResult executeQuery(String query, OSourceDatabaseInfo sourceDBInfo, int maxRows) {
 
     ResultSet result = null;
     Connection dbConnection = null;
@@ -139,7 +185,12 @@ public class ODBQueryEngine implements ODataSourceQueryEngine {
         OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
         OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
       }
+      OSourceSnapshot currentSnapshot = this.snapshot;
+      if (currentSnapshot != null && currentSnapshot.isSnapshotOf(sourceDBInfo)) {
+        currentSnapshot.prepare(dbConnection);
+      }
       statement = dbConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setMaxRows(maxRows);
       result = statement.executeQuery(query);
 
     } catch (SQLException e) {
@@ -23,8 +23,11 @@ package com.orientechnologies.teleporter.importengine.rdbms.dbengine;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.model.dbschema.OAttribute;
 import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.persistence.handler.ODBMSDataTypeHandler;
+import com.orientechnologies.teleporter.persistence.handler.ODriverDataTypeHandler;
 
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Query Builder for PostgreSQL DBMS. It extends the OCommonQueryBuilder class and overrides only the needed methods.
@@ -34,27 +37,68 @@ import java.util.List;
  */
 public class OPostgreSQLQueryBuilder extends OCommonQueryBuilder {
 
-  public String buildGeospatialQuery(OEntity entity, List<String> geospatialTypes, OTeleporterContext context) {
+  /**
+   * Projects the geospatial columns as WKB so that they are converted without parsing WKT text. When all the columns are fetched
+   * the geometries come in their hex-encoded EWKB text form.
+   *
+   * @param entity
+   * @param column
+   *
+   * @return
+   */
+  @Override
+  protected String buildColumnProjection(OEntity entity, String column) {
 
-    String query = "select ";
+    OAttribute attribute = entity.getAttributeByName(column);
+    if (attribute != null && this.isGeospatial(attribute.getDataType()))
+      return this.buildBinaryGeometry(column, attribute.getDataType());
+    return super.buildColumnProjection(entity, column);
+  }
 
+  public String buildGeospatialQuery(OEntity entity, List<String> geospatialTypes, OTeleporterContext context) {
+
+    StringBuilder projection = new StringBuilder();
     for (OAttribute currentAttribute : entity.getAllAttributes()) {
+      if (projection.length() > 0)
+        projection.append(", ");
       if (this.isGeospatial(geospatialTypes, currentAttribute.getDataType()))
-        query += "ST_AsText(" + quote + currentAttribute.getName() + quote + ") as " + currentAttribute.getName() + ",";
+        projection.append(this.buildBinaryGeometry(currentAttribute.getName(), currentAttribute.getDataType()));
       else
-        query += quote + currentAttribute.getName() + quote + ",";
+        projection.append(super.buildColumnProjection(entity, currentAttribute.getName()));
     }
 
-    query = query.substring(0, query.length() - 1);
+    return "select " + projection + this.buildFromClause(entity);
+  }
 
-    String entitySchema = entity.getSchemaName();
+  /**
+   * Projects the geospatial column as WKB, keeping the column name as label. Boxes are cast to geometries and only the geometry
+   * of a geometry dump is kept.
+   */
+  private String buildBinaryGeometry(String column, String type) {
 
-    if (entitySchema != null)
-      query += " from " + entitySchema + "." + quote + entity.getName() + quote;
-    else
-      query += " from " + quote + entity.getName() + quote;
+    String quotedColumn = this.quote + column + this.quote;
+    String geometry;
+
+    switch (type.toLowerCase(Locale.ENGLISH)) {
+    case "box2d":
+    case "box3d":
+      geometry = quotedColumn + "::geometry";
+      break;
+    case "geometry_dump":
+      geometry = "(" + quotedColumn + ").geom";
+      break;
+    default:
+      geometry = quotedColumn;
+      break;
+    }
+
+    return "ST_AsBinary(" + geometry + ") as " + quotedColumn;
+  }
 
-    return query;
+  private boolean isGeospatial(String type) {
+    ODriverDataTypeHandler handler = OTeleporterContext.getInstance().getDataTypeHandler();
+    return handler instanceof ODBMSDataTypeHandler && ((ODBMSDataTypeHandler) handler).geospatialImplemented
+        && ((ODBMSDataTypeHandler) handler).isGeospatial(type);
   }
 
   public boolean isGeospatial(List<String> geospatialTypes, String type) {
@@ -40,6 +40,8 @@ public interface OQueryBuilder {
 
   String getRecordsByEntity(OEntity entity);
 
+  String getRecordsByEntity(OEntity entity, List<String> columns);
+
   String getRecordsFromMultipleEntities(List<OEntity> mappedEntities, String[][] columns);
 
   String getRecordsFromSingleTableByDiscriminatorValue(String discriminatorColumn, String currentDiscriminatorValue,
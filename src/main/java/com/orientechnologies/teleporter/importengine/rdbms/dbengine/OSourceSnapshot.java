@@ -0,0 +1,220 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dbengine;
+
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
+import com.orientechnologies.teleporter.persistence.util.ODBSourceConnection;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Point in time shared by all the connections reading a source database, so that the records read by different queries, even
+ * concurrent ones, are consistent with each other (a foreign key never references a row written after the referencing one was
+ * read). The snapshot is taken when the migration starts and is shared according to the dialect:
+ * - PostgreSQL: a coordinator connection opens a repeatable read transaction and exports its snapshot through
+ * pg_export_snapshot(), each connection opens a repeatable read transaction adopting it through SET TRANSACTION SNAPSHOT. The
+ * coordinator transaction stays open until the snapshot is closed.
+ * - Oracle: the current SCN is read once, each connection enables flashback queries at that SCN through DBMS_FLASHBACK (the
+ * source user needs the EXECUTE privilege on it, and the undo retention must cover the migration).
+ * - other dialects, SQL Server and MySQL included, can't share a snapshot among sessions: their snapshot isolation and consistent
+ * snapshot transactions are bound to a single session, and each query of the migration runs on its own connection. In this case
+ * each query reads a state consistent at statement level, the reads are not coordinated and a warning is reported.
+ * If the snapshot can't be taken the migration goes on with the uncoordinated reads as well.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OSourceSnapshot {
+
+  private static final Pattern SNAPSHOT_ID_PATTERN = Pattern.compile("[0-9A-Fa-f]+(-[0-9A-Fa-f]+)+");
+
+  private final OSourceDatabaseInfo sourceDBInfo;
+  private Connection coordinator;   // PostgreSQL connection holding the exported snapshot
+  private String     snapshotId;    // PostgreSQL exported snapshot
+  private long       scn;           // Oracle system change number, -1 if not taken
+
+  private OSourceSnapshot(OSourceDatabaseInfo sourceDBInfo) {
+    this.sourceDBInfo = sourceDBInfo;
+    this.scn = -1;
+  }
+
+  /**
+   * Takes the snapshot of the source database.
+   */
+  public static OSourceSnapshot take(OSourceDatabaseInfo sourceDBInfo) {
+
+    Connection connection = null;
+    if (!getDialect(sourceDBInfo).equals("none")) {
+      connection = ODBSourceConnection.getConnection(sourceDBInfo);
+    }
+    return take(sourceDBInfo, connection);
+  }
+
+  /**
+   * Takes the snapshot of the source database through the passed connection. For PostgreSQL the connection becomes the
+   * coordinator and it's closed with the snapshot, for Oracle it's closed once the SCN is read.
+   *
+   * @param connection can be null if the dialect of the source doesn't support shared snapshots.
+   */
+  public static OSourceSnapshot take(OSourceDatabaseInfo sourceDBInfo, Connection connection) {
+
+    String dialect = getDialect(sourceDBInfo);
+    OSourceSnapshot snapshot = new OSourceSnapshot(sourceDBInfo);
+    try {
+      if (dialect.equals("postgresql")) {
+        snapshot.exportPostgreSQLSnapshot(connection);
+      } else if (dialect.equals("oracle")) {
+        snapshot.readOracleSCN(connection);
+      }
+    } catch (SQLException e) {
+      String mess = "The snapshot of the source database can't be taken, the source is read without a shared snapshot.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "warn");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+      snapshot.close();
+    }
+
+    if (!snapshot.isShared()) {
+      OTeleporterContext.getInstance().getStatistics().warningMessages.add("The source " + sourceDBInfo.getSourceIdName()
+          + " doesn't support snapshots shared among connections: each query reads the data committed when it starts.");
+    }
+    return snapshot;
+  }
+
+  /**
+   * @return true if the connections read all the same point in time.
+   */
+  public boolean isShared() {
+    return this.snapshotId != null || this.scn >= 0;
+  }
+
+  public boolean isSnapshotOf(OSourceDatabaseInfo sourceDBInfo) {
+    return this.sourceDBInfo.getUrl().equals(sourceDBInfo.getUrl());
+  }
+
+  /**
+   * Makes the connection read the snapshot. It must be called before any query is executed on the connection.
+   */
+  public void prepare(Connection connection) throws SQLException {
+
+    if (this.snapshotId != null) {
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      Statement statement = connection.createStatement();
+      try {
+        statement.execute("SET TRANSACTION SNAPSHOT '" + this.snapshotId + "'");
+      } finally {
+        statement.close();
+      }
+    } else if (this.scn >= 0) {
+      CallableStatement statement = connection.prepareCall("{call DBMS_FLASHBACK.ENABLE_AT_SYSTEM_CHANGE_NUMBER(?)}");
+      try {
+        statement.setLong(1, this.scn);
+        statement.execute();
+      } finally {
+        statement.close();
+      }
+    }
+  }
+
+  /**
+   * Releases the snapshot: the connections opened later read the latest committed data.
+   */
+  public void close() {
+
+    if (this.coordinator != null) {
+      try {
+        this.coordinator.rollback();
+        this.coordinator.close();
+      } catch (SQLException e) {
+        String mess = "";
+        OTeleporterContext.getInstance().printExceptionMessage(e, mess, "debug");
+      }
+      this.coordinator = null;
+    }
+    this.snapshotId = null;
+    this.scn = -1;
+  }
+
+  private static String getDialect(OSourceDatabaseInfo sourceDBInfo) {
+
+    switch (sourceDBInfo.getDriverName()) {
+
+    case "org.postgresql.Driver":
+      return "postgresql";
+
+    case "oracle.jdbc.driver.OracleDriver":
+    case "oracle.jdbc.OracleDriver":
+      return "oracle";
+
+    default:
+      return "none";
+    }
+  }
+
+  /**
+   * The exported snapshot id is concatenated in the SET TRANSACTION SNAPSHOT statement, as the statement doesn't accept
+   * parameters: it's adopted only if it has the format of the ids returned by pg_export_snapshot() (e.g. '00000003-0000001B-1').
+   */
+  private void exportPostgreSQLSnapshot(Connection connection) throws SQLException {
+
+    this.coordinator = connection;
+    this.coordinator.setAutoCommit(false);
+    this.coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+    Statement statement = this.coordinator.createStatement();
+    try {
+      ResultSet result = statement.executeQuery("select pg_export_snapshot()");
+      String exportedId = result.next() ? result.getString(1) : null;
+      if (exportedId == null || !SNAPSHOT_ID_PATTERN.matcher(exportedId).matches()) {
+        throw new SQLException("Unexpected id of the exported snapshot: " + exportedId);
+      }
+      this.snapshotId = exportedId;
+    } finally {
+      statement.close();
+    }
+  }
+
+  private void readOracleSCN(Connection connection) throws SQLException {
+
+    try {
+      Statement statement = connection.createStatement();
+      try {
+        ResultSet result = statement.executeQuery("select DBMS_FLASHBACK.GET_SYSTEM_CHANGE_NUMBER from DUAL");
+        long currentScn = result.next() ? result.getLong(1) : -1;
+        if (currentScn <= 0) {
+          throw new SQLException("Unexpected system change number: " + currentScn);
+        }
+        this.scn = currentScn;
+      } finally {
+        statement.close();
+      }
+    } finally {
+      connection.close();
+    }
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.deadletter;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.model.dbschema.OAttribute;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the source rows whose import failed, so that the migration can go on with the next rows and the failed ones can be
+ * re-imported later through the -replay argument. Each row is written as a single-line JSON document with the following fields:
+ * - entities: names of the source entities the row was read from
+ * - vertexType: the vertex class the row is imported into, null for the rows of the join tables aggregated into edges
+ * - phase: "vertex" if the row failed while being upserted as vertex, "edges" if it failed while its relationships were imported
+ * - key: source attributes and values identifying the row
+ * - exception: class and message of the raised exception
+ * A logical relationship failing as a whole is written as a row with the two related entities, "edges" phase and no key.
+ * The rows of hierarchical bags, join tables and logical relationships are collected but not replayed: they are kept in the file.
+ * The rows are written into a temporary file, which replaces the dead-letter file only when the migration completes: a replay
+ * reading the same file can be aborted without losing the rows still to replay.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODeadLetterSink {
+
+  public static final String VERTEX_PHASE = "vertex";
+  public static final String EDGES_PHASE  = "edges";
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final String path;
+  private final String tempPath;
+  private       Writer writer;
+  private       int    rows;
+
+  /**
+   * Opens the temporary file collecting the rows. The dead-letter file is left untouched until the sink is closed.
+   */
+  public ODeadLetterSink(String path) {
+    this.path = path;
+    this.tempPath = path + ".tmp";
+    try {
+      this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.tempPath, false), UTF8));
+    } catch (IOException e) {
+      String mess = "Problem encountered while opening the dead-letter file " + this.tempPath;
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+  public String getPath() {
+    return this.path;
+  }
+
+  public synchronized int getRows() {
+    return this.rows;
+  }
+
+  public void write(List<String> entities, String vertexType, String phase, Map<String, String> key, Exception e) {
+
+    ODocument row = new ODocument();
+    row.field("entities", entities);
+    row.field("vertexType", vertexType);
+    row.field("phase", phase);
+    row.field("key", key);
+    String exception = e.getClass().getName();
+    if (e.getMessage() != null) {
+      exception += " - " + e.getMessage();
+    }
+    row.field("exception", exception);
+    this.write(row);
+  }
+
+  /**
+   * Writes a row as it is, e.g. a row read from a previous dead-letter file that could not be replayed.
+   */
+  public synchronized void write(ODocument row) {
+
+    try {
+      this.writer.write(row.toJSON());
+      this.writer.write('\n');
+      // the rows are few and must survive a crash of the migration
+      this.writer.flush();
+      this.rows++;
+      OTeleporterContext.getInstance().getStatistics().deadLetterRows = this.rows;
+    } catch (IOException ioe) {
+      String mess = "Problem encountered while writing the dead-letter file " + this.tempPath;
+      OTeleporterContext.getInstance().printExceptionMessage(ioe, mess, "error");
+      throw new OTeleporterRuntimeException(ioe);
+    }
+  }
+
+  /**
+   * Closes the sink. If the migration completed the collected rows replace the dead-letter file, otherwise the dead-letter file
+   * is left as it was and the collected rows are kept in the temporary file.
+   *
+   * @param completed true if the migration completed
+   */
+  public synchronized void close(boolean completed) {
+    try {
+      this.writer.close();
+    } catch (IOException e) {
+      String mess = "Problem encountered while closing the dead-letter file " + this.tempPath;
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      return;
+    }
+
+    if (!completed) {
+      OTeleporterContext.getInstance().getMessageHandler().warn(this,
+          "\nThe migration was interrupted: %s was left unchanged, the rows collected so far are kept in %s.\n", this.path,
+          this.tempPath);
+      return;
+    }
+    Path source = Paths.get(this.tempPath);
+    Path target = Paths.get(this.path);
+    try {
+      try {
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      String mess = "Problem encountered while replacing the dead-letter file " + this.path + " with " + this.tempPath;
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+    }
+  }
+
+  /**
+   * @return the primary key attributes of the entity and their values in the record, identifying the row
+   */
+  public static Map<String, String> readPrimaryKey(ResultSet record, OEntity entity) {
+
+    Map<String, String> key = new LinkedHashMap<String, String>();
+    if (entity.getPrimaryKey() != null) {
+      for (OAttribute attribute : entity.getPrimaryKey().getInvolvedAttributes()) {
+        try {
+          key.put(attribute.getName(), record.getString(attribute.getName()));
+        } catch (SQLException e) {
+          key.put(attribute.getName(), null);
+        }
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Reads all the rows of a dead-letter file.
+   */
+  public static List<ODocument> read(String path) {
+
+    List<ODocument> rows = new ArrayList<ODocument>();
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), UTF8));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().length() > 0) {
+          ODocument row = new ODocument();
+          row.fromJSON(line);
+          rows.add(row);
+        }
+      }
+    } catch (IOException e) {
+      String mess = "Problem encountered while reading the dead-letter file " + path;
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      throw new OTeleporterRuntimeException(e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          // nothing to do
+        }
+      }
+    }
+    return rows;
+  }
+}
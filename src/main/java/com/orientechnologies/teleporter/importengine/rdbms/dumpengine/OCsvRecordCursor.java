@@ -0,0 +1,87 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Cursor over the records of an entity provided as a CSV file, read through an OMappedCsvReader. The first line contains the
+ * column names.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OCsvRecordCursor extends OFileRecordCursor {
+
+  private File             csvFile;
+  private OMappedCsvReader reader;
+
+  public OCsvRecordCursor(File csvFile) {
+    this(csvFile, null, null);
+  }
+
+  public OCsvRecordCursor(File csvFile, String[] filterColumns, String[] filterValues) {
+    super(filterColumns, filterValues);
+    this.csvFile = csvFile;
+  }
+
+  @Override
+  protected Object[] fetchNextRecord() throws IOException {
+
+    if (this.reader == null) {
+      this.reader = new OMappedCsvReader(this.csvFile);
+      super.setColumns(this.reader.readHeader());
+    }
+    String[] fields = this.reader.readRecord();
+    if (fields == null) {
+      return null;
+    }
+    return toColumnCount(fields, super.getColumns().length);
+  }
+
+  /**
+   * Missing trailing fields are read as null.
+   */
+  static Object[] toColumnCount(String[] fields, int columnCount) {
+    Object[] values = new Object[columnCount];
+    System.arraycopy(fields, 0, values, 0, Math.min(fields.length, columnCount));
+    return values;
+  }
+
+  @Override
+  protected void closeSource() throws IOException {
+    if (this.reader != null) {
+      try {
+        this.reader.close();
+      } finally {
+        this.reader = null;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "OCsvRecordCursor[" + this.csvFile + "]";
+  }
+
+}
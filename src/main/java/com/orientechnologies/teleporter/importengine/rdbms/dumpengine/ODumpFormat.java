@@ -0,0 +1,71 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.io.File;
+
+/**
+ * Layout of a dump of the source database.
+ * The dump directory contains the snapshot of the source database schema and a directory for each entity, where the records
+ * are written in gzip compressed chunks. Each chunk starts with the number of columns and their names (in the column order of
+ * the entity), then each record is preceded by RECORD_MARKER and each value by a tag declaring whether it's null, a string, a
+ * binary value or a timestamp. Strings and binary values are preceded by their length, timestamps are written as milliseconds
+ * since the epoch followed by the nanoseconds, so that the instant of a timestamp with time zone is kept. The chunk ends with
+ * END_MARKER.
+ * Alternatively the records of an entity can be provided as a CSV file named after the entity, placed in the dump directory: the
+ * first line contains the column names, quoting follows RFC 4180 and an empty unquoted field is read as null.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODumpFormat {
+
+  public static final String SCHEMA_SNAPSHOT_FILE_NAME = "schema.json";
+  public static final String CHUNK_FILE_EXTENSION      = ".dump.gz";
+  public static final int    RECORDS_PER_CHUNK         = 100000;
+  public static final String CSV_FILE_EXTENSION        = ".csv";
+
+  public static final byte END_MARKER    = 0;
+  public static final byte RECORD_MARKER = 1;
+
+  public static final byte NULL_VALUE      = 0;
+  public static final byte STRING_VALUE    = 1;
+  public static final byte BINARY_VALUE    = 2;
+  public static final byte TIMESTAMP_VALUE = 3;
+
+  public static File getSchemaSnapshotFile(String dumpDirectory) {
+    return new File(dumpDirectory, SCHEMA_SNAPSHOT_FILE_NAME);
+  }
+
+  public static File getEntityDirectory(String dumpDirectory, String entityName) {
+    return new File(dumpDirectory, entityName);
+  }
+
+  public static File getCsvFile(String dumpDirectory, String entityName) {
+    return new File(dumpDirectory, entityName + CSV_FILE_EXTENSION);
+  }
+
+  public static File getChunkFile(File entityDirectory, int chunkIndex) {
+    return new File(entityDirectory, String.format("%06d", chunkIndex) + CHUNK_FILE_EXTENSION);
+  }
+
+}
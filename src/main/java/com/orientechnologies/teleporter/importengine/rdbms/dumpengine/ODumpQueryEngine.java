@@ -0,0 +1,491 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.model.dbschema.OAttribute;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.model.dbschema.OHierarchicalBag;
+import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
+import com.orientechnologies.teleporter.persistence.util.OQueryResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of ODataSourceQueryEngine fetching the records from local files, so no connection to the source database is
+ * opened. The records of each entity are read from the CSV file named after the entity when present in the dump directory,
+ * otherwise from the chunks written by the ODumpWriter; the schema comes from the schema snapshot.
+ * Records are fetched by entity and by discriminator value filtering the records while they are read. Records fetched by id
+ * from a CSV file are read seeking to their position, kept in an index built at the first lookup on the entity; records in the
+ * chunks are kept in an index by key built at the first lookup, as the compressed chunks can't be sought. Queries joining several
+ * entities are performed in memory through hash joins, reading each entity once.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODumpQueryEngine extends ODBQueryEngine {
+
+  private static final char KEY_SEPARATOR = '\u0000';
+
+  private String                         dumpDirectory;
+  private Map<String, Map<String, Long>> keyIndexes;     // entity name and key columns -> record positions in the CSV file
+  private Map<String, OMappedCsvReader>  csvReaders;     // entity name -> reader adopted for the lookups by key
+  private Map<String, Map<String, Object[]>> recordIndexes;  // entity name and key columns -> dumped records by key
+  private Map<String, String[]>              dumpedColumns;  // entity name -> columns of the dumped records
+
+  public ODumpQueryEngine(String driver, String dumpDirectory) {
+    super(driver);
+    this.dumpDirectory = dumpDirectory;
+    this.keyIndexes = new HashMap<String, Map<String, Long>>();
+    this.csvReaders = new HashMap<String, OMappedCsvReader>();
+    this.recordIndexes = new HashMap<String, Map<String, Object[]>>();
+    this.dumpedColumns = new HashMap<String, String[]>();
+  }
+
+  @Override
+  public OQueryResult getRecordById(OEntity entity, String[] propertyOfKey, String[] valueOfKey) {
+
+    File csvFile = ODumpFormat.getCsvFile(this.dumpDirectory, entity.getName());
+    try {
+      if (!csvFile.exists()) {
+        return this.getDumpedRecordById(entity, propertyOfKey, valueOfKey);
+      }
+
+      Map<String, Long> keyIndex = this.getKeyIndex(entity.getName(), csvFile, propertyOfKey);
+      OMappedCsvReader reader = this.csvReaders.get(entity.getName());
+      String[] columns = reader.readHeader();
+      List<Object[]> records = new ArrayList<Object[]>(1);
+      Long position = keyIndex.get(buildKey(valueOfKey));
+      if (position != null) {
+        reader.seek(position);
+        records.add(OCsvRecordCursor.toColumnCount(reader.readRecord(), columns.length));
+      }
+      return this.buildQueryResult(new OMaterializedRecordCursor(columns, records));
+    } catch (IOException | SQLException e) {
+      String mess = "Problem encountered during the lookup of a record of " + entity.getName() + " by key.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+  @Override
+  public OQueryResult getRecordsByEntity(OEntity entity) {
+    return this.buildQueryResult(this.openCursor(entity, null, null));
+  }
+
+  /**
+   * All the columns are available, the columns to import are picked by name.
+   */
+  @Override
+  public OQueryResult getRecordsByEntity(OEntity entity, List<String> columns) {
+    return this.getRecordsByEntity(entity);
+  }
+
+  /**
+   * Records are read in the file order, the caller stops reading after maxRows records.
+   */
+  @Override
+  public OQueryResult getSampleRecordsByEntity(OEntity entity, int maxRows) {
+    return this.getRecordsByEntity(entity);
+  }
+
+  @Override
+  public OQueryResult getRecordsFromSingleTableByDiscriminatorValue(String discriminatorColumn, String currentDiscriminatorValue,
+      OEntity entity) {
+    return this.buildQueryResult(
+        this.openCursor(entity, new String[] { discriminatorColumn }, new String[] { currentDiscriminatorValue }));
+  }
+
+  @Override
+  public OQueryResult getEntityTypeFromSingleTable(String discriminatorColumn, OEntity entity, String[] propertyOfKey,
+      String[] valueOfKey) {
+    return this.getRecordById(entity, propertyOfKey, valueOfKey);
+  }
+
+  @Override
+  public OQueryResult countTableRecords(OSourceDatabaseInfo sourceDBInfo, String currentTableName, String currentTableSchema) {
+    throw new OTeleporterRuntimeException("Records are counted when the dump is written, counting is not supported on a dump.");
+  }
+
+  /**
+   * Full outer join of the entities, each one joined with the previous one on the aggregation columns.
+   */
+  @Override
+  public OQueryResult getRecordsFromMultipleEntities(List<OEntity> mappedEntities, String[][] columns) {
+
+    try {
+      List<String> joinedColumns = new ArrayList<String>();
+      List<Object[]> joinedRecords = this.readRecords(this.openCursor(mappedEntities.get(0), null, null), joinedColumns);
+      int previousEntityOffset = 0;
+
+      for (int i = 1; i < mappedEntities.size(); i++) {
+        int[] leftKeyIndexes = new int[columns[i - 1].length];
+        for (int k = 0; k < leftKeyIndexes.length; k++) {
+          leftKeyIndexes[k] = previousEntityOffset + indexOf(joinedColumns.subList(previousEntityOffset, joinedColumns.size()),
+              columns[i - 1][k]);
+        }
+        previousEntityOffset = joinedColumns.size();
+        joinedRecords = this.join(joinedRecords, leftKeyIndexes, joinedColumns, this.openCursor(mappedEntities.get(i), null, null),
+            columns[i], true);
+      }
+      return this.buildQueryResult(new OMaterializedRecordCursor(joinedColumns.toArray(new String[joinedColumns.size()]),
+          joinedRecords));
+    } catch (SQLException e) {
+      String mess = "Problem encountered during the aggregation of the records of " + mappedEntities + ".";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+  /**
+   * Left join of the root entity with each entity of the hierarchy on the primary key. Each entity of the hierarchy is read once
+   * into an index by key, then the joined records are built in a single pass over the records of the root entity.
+   */
+  @Override
+  public OQueryResult buildAggregateTableFromHierarchicalBag(OHierarchicalBag bag) {
+
+    OEntity rootEntity = bag.getDepth2entities().get(0).iterator().next();
+
+    try {
+      List<String> joinedColumns = new ArrayList<String>();
+      List<Object[]> rootRecords = this.readRecords(this.openCursor(rootEntity, null, null), joinedColumns);
+      int rootWidth = joinedColumns.size();
+
+      List<OAttribute> rootKey = rootEntity.getPrimaryKey().getInvolvedAttributes();
+      int[] rootKeyIndexes = new int[rootKey.size()];
+      for (int k = 0; k < rootKeyIndexes.length; k++) {
+        rootKeyIndexes[k] = indexOf(joinedColumns, rootKey.get(k).getName());
+      }
+
+      List<Map<String, Object[]>> entityIndexes = new ArrayList<Map<String, Object[]>>();
+      List<Integer> entityWidths = new ArrayList<Integer>();
+      for (int i = 1; i < bag.getDepth2entities().size(); i++) {
+        Iterator<OEntity> it = bag.getDepth2entities().get(i).iterator();
+        while (it.hasNext()) {
+          OEntity currentEntity = it.next();
+          List<OAttribute> currentKey = currentEntity.getPrimaryKey().getInvolvedAttributes();
+          String[] currentKeyColumns = new String[currentKey.size()];
+          for (int k = 0; k < currentKeyColumns.length; k++) {
+            currentKeyColumns[k] = currentKey.get(k).getName();
+          }
+          List<String> currentColumns = new ArrayList<String>();
+          entityIndexes.add(this.indexRecords(this.openCursor(currentEntity, null, null), currentKeyColumns, currentColumns));
+          entityWidths.add(currentColumns.size());
+          joinedColumns.addAll(currentColumns);
+        }
+      }
+
+      List<Object[]> joinedRecords = new ArrayList<Object[]>(rootRecords.size());
+      for (int j = 0; j < rootRecords.size(); j++) {
+        Object[] rootRecord = rootRecords.set(j, null);    // root records already joined are released
+        Object[] joinedRecord = new Object[joinedColumns.size()];
+        System.arraycopy(rootRecord, 0, joinedRecord, 0, Math.min(rootRecord.length, rootWidth));
+        String key = buildKey(rootRecord, rootKeyIndexes);
+        int offset = rootWidth;
+        for (int i = 0; i < entityIndexes.size(); i++) {
+          Object[] entityRecord = key != null ? entityIndexes.get(i).get(key) : null;
+          if (entityRecord != null) {
+            System.arraycopy(entityRecord, 0, joinedRecord, offset, Math.min(entityRecord.length, entityWidths.get(i)));
+          }
+          offset += entityWidths.get(i);
+        }
+        joinedRecords.add(joinedRecord);
+      }
+      return this.buildQueryResult(new OMaterializedRecordCursor(joinedColumns.toArray(new String[joinedColumns.size()]),
+          joinedRecords));
+    } catch (SQLException e) {
+      String mess = "Problem encountered during the aggregation of the hierarchy of " + rootEntity.getName() + ".";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+  @Override
+  public OQueryResult executeQuery(String query, OSourceDatabaseInfo sourceDBInfo) {
+    throw new OTeleporterRuntimeException("Queries are not supported on a dump: " + query);
+  }
+
+  private OFileRecordCursor openCursor(OEntity entity, String[] filterColumns, String[] filterValues) {
+
+    File csvFile = ODumpFormat.getCsvFile(this.dumpDirectory, entity.getName());
+    if (csvFile.exists()) {
+      return new OCsvRecordCursor(csvFile, filterColumns, filterValues);
+    }
+    return new ODumpRecordCursor(ODumpFormat.getEntityDirectory(this.dumpDirectory, entity.getName()), filterColumns,
+        filterValues);
+  }
+
+  /**
+   * Looks the record up in the index of the dumped records of the entity, built reading all its chunks at the first lookup.
+   */
+  private OQueryResult getDumpedRecordById(OEntity entity, String[] propertyOfKey, String[] valueOfKey) throws SQLException {
+
+    String indexName = entity.getName() + Arrays.toString(propertyOfKey);
+    Map<String, Object[]> recordIndex = this.recordIndexes.get(indexName);
+    if (recordIndex == null) {
+      List<String> columns = new ArrayList<String>();
+      recordIndex = this.indexRecords(this.openCursor(entity, null, null), propertyOfKey, columns);
+      this.recordIndexes.put(indexName, recordIndex);
+      this.dumpedColumns.put(entity.getName(), columns.toArray(new String[columns.size()]));
+    }
+
+    List<Object[]> records = new ArrayList<Object[]>(1);
+    Object[] record = recordIndex.get(buildKey(valueOfKey));
+    if (record != null) {
+      records.add(record);
+    }
+    return this.buildQueryResult(new OMaterializedRecordCursor(this.dumpedColumns.get(entity.getName()), records));
+  }
+
+  /**
+   * Reads all the records of the cursor into an index by key, appending its columns to the passed ones. When a key is repeated the
+   * first record is kept, records with a null key value are skipped.
+   */
+  private Map<String, Object[]> indexRecords(OFileRecordCursor cursor, String[] keyColumns, List<String> columns)
+      throws SQLException {
+
+    Map<String, Object[]> recordIndex = new HashMap<String, Object[]>();
+    try {
+      int[] keyIndexes = null;
+      while (cursor.next()) {
+        if (keyIndexes == null) {
+          keyIndexes = new int[keyColumns.length];
+          for (int k = 0; k < keyIndexes.length; k++) {
+            keyIndexes[k] = cursor.getColumnIndex(keyColumns[k]);
+          }
+        }
+        Object[] record = cursor.getCurrentValues();
+        String key = buildKey(record, keyIndexes);
+        if (key != null && !recordIndex.containsKey(key)) {
+          recordIndex.put(key, record);
+        }
+      }
+      if (cursor.getColumns() != null) {
+        columns.addAll(Arrays.asList(cursor.getColumns()));
+      }
+    } finally {
+      cursor.close();
+    }
+    return recordIndex;
+  }
+
+  /**
+   * Reads all the records of the cursor, appending its columns to the passed ones.
+   */
+  private List<Object[]> readRecords(OFileRecordCursor cursor, List<String> columns) throws SQLException {
+
+    List<Object[]> records = new ArrayList<Object[]>();
+    try {
+      while (cursor.next()) {
+        records.add(cursor.getCurrentValues());
+      }
+      if (cursor.getColumns() != null) {
+        columns.addAll(Arrays.asList(cursor.getColumns()));
+      }
+    } finally {
+      cursor.close();
+    }
+    return records;
+  }
+
+  /**
+   * Hash join of the left records with the records of the right cursor, whose columns are appended to the left ones. The right
+   * records are read straight into the hash table. Left records without a match are kept with null values; right records without
+   * a match are kept only in the full outer join.
+   */
+  private List<Object[]> join(List<Object[]> leftRecords, int[] leftKeyIndexes, List<String> leftColumns,
+      OFileRecordCursor rightCursor, String[] rightKeyColumns, boolean fullOuterJoin) throws SQLException {
+
+    int leftWidth = leftColumns.size();
+
+    // each bucket holds the right records with the same key, the first slot flags whether the bucket was matched
+    Map<String, List<Object[]>> key2rightRecords = new HashMap<String, List<Object[]>>();
+    List<Object[]> unmatchableRightRecords = new ArrayList<Object[]>();
+    List<String> rightColumns = new ArrayList<String>();
+    try {
+      int[] rightKeyIndexes = null;
+      while (rightCursor.next()) {
+        if (rightKeyIndexes == null) {
+          rightKeyIndexes = new int[rightKeyColumns.length];
+          for (int k = 0; k < rightKeyIndexes.length; k++) {
+            rightKeyIndexes[k] = rightCursor.getColumnIndex(rightKeyColumns[k]);
+          }
+        }
+        Object[] rightRecord = rightCursor.getCurrentValues();
+        String key = buildKey(rightRecord, rightKeyIndexes);
+        if (key == null) {
+          unmatchableRightRecords.add(rightRecord);
+          continue;
+        }
+        List<Object[]> bucket = key2rightRecords.get(key);
+        if (bucket == null) {
+          bucket = new ArrayList<Object[]>(2);
+          bucket.add(null);
+          key2rightRecords.put(key, bucket);
+        }
+        bucket.add(rightRecord);
+      }
+      if (rightCursor.getColumns() != null) {
+        rightColumns.addAll(Arrays.asList(rightCursor.getColumns()));
+      }
+    } finally {
+      rightCursor.close();
+    }
+    int rightWidth = rightColumns.size();
+
+    List<Object[]> joinedRecords = new ArrayList<Object[]>(leftRecords.size());
+    for (int i = 0; i < leftRecords.size(); i++) {
+      Object[] leftRecord = leftRecords.set(i, null);    // left records already joined are released
+      String key = buildKey(leftRecord, leftKeyIndexes);
+      List<Object[]> bucket = key != null ? key2rightRecords.get(key) : null;
+      if (bucket == null) {
+        joinedRecords.add(concat(leftRecord, leftWidth, null, rightWidth));
+        continue;
+      }
+      bucket.set(0, leftRecord);
+      for (int j = 1; j < bucket.size(); j++) {
+        joinedRecords.add(concat(leftRecord, leftWidth, bucket.get(j), rightWidth));
+      }
+    }
+
+    if (fullOuterJoin) {
+      for (List<Object[]> bucket : key2rightRecords.values()) {
+        if (bucket.get(0) == null) {
+          for (int j = 1; j < bucket.size(); j++) {
+            joinedRecords.add(concat(null, leftWidth, bucket.get(j), rightWidth));
+          }
+        }
+      }
+      for (Object[] rightRecord : unmatchableRightRecords) {
+        joinedRecords.add(concat(null, leftWidth, rightRecord, rightWidth));
+      }
+    }
+
+    leftColumns.addAll(rightColumns);
+    return joinedRecords;
+  }
+
+  private static Object[] concat(Object[] leftRecord, int leftWidth, Object[] rightRecord, int rightWidth) {
+    Object[] record = new Object[leftWidth + rightWidth];
+    if (leftRecord != null) {
+      System.arraycopy(leftRecord, 0, record, 0, Math.min(leftRecord.length, leftWidth));
+    }
+    if (rightRecord != null) {
+      System.arraycopy(rightRecord, 0, record, leftWidth, Math.min(rightRecord.length, rightWidth));
+    }
+    return record;
+  }
+
+  private static int indexOf(List<String> columns, String column) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i).equalsIgnoreCase(column)) {
+        return i;
+      }
+    }
+    throw new OTeleporterRuntimeException("Column " + column + " not found in the dumped columns " + columns + ".");
+  }
+
+  /**
+   * @return the key of the record, null if one of the key values is null (such records never match)
+   */
+  private static String buildKey(Object[] record, int[] keyIndexes) {
+    StringBuilder key = new StringBuilder();
+    for (int index : keyIndexes) {
+      Object value = index < record.length ? record[index] : null;
+      if (value == null) {
+        return null;
+      }
+      if (value instanceof byte[]) {
+        value = Arrays.toString((byte[]) value);
+      }
+      key.append(value).append(KEY_SEPARATOR);
+    }
+    return key.toString();
+  }
+
+  private static String buildKey(String[] values) {
+    return buildKey((Object[]) values, buildIdentityIndexes(values.length));
+  }
+
+  private static int[] buildIdentityIndexes(int length) {
+    int[] indexes = new int[length];
+    for (int i = 0; i < length; i++) {
+      indexes[i] = i;
+    }
+    return indexes;
+  }
+
+  /**
+   * Builds at the first lookup the index from the key to the position of the record in the CSV file.
+   */
+  private Map<String, Long> getKeyIndex(String entityName, File csvFile, String[] propertyOfKey) throws IOException {
+
+    String indexName = entityName + Arrays.toString(propertyOfKey);
+    Map<String, Long> keyIndex = this.keyIndexes.get(indexName);
+    if (keyIndex != null) {
+      return keyIndex;
+    }
+
+    OMappedCsvReader reader = this.csvReaders.get(entityName);
+    if (reader == null) {
+      reader = new OMappedCsvReader(csvFile);
+      this.csvReaders.put(entityName, reader);
+    }
+    List<String> columns = Arrays.asList(reader.readHeader());
+    int[] keyIndexes = new int[propertyOfKey.length];
+    for (int k = 0; k < keyIndexes.length; k++) {
+      keyIndexes[k] = indexOf(columns, propertyOfKey[k]);
+    }
+
+    keyIndex = new HashMap<String, Long>();
+    long position = reader.getPosition();
+    String[] fields = reader.readRecord();
+    while (fields != null) {
+      String key = buildKey(fields, keyIndexes);
+      if (key != null && !keyIndex.containsKey(key)) {
+        keyIndex.put(key, position);
+      }
+      position = reader.getPosition();
+      fields = reader.readRecord();
+    }
+    this.keyIndexes.put(indexName, keyIndex);
+    return keyIndex;
+  }
+
+  private OQueryResult buildQueryResult(OFileRecordCursor cursor) {
+    return new OQueryResult(null, null, cursor);
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cursor over the records dumped for an entity by the ODumpWriter. Chunks are read one at a time.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODumpRecordCursor extends OFileRecordCursor {
+
+  private File[]          chunkFiles;
+  private int             nextChunkIndex;
+  private int             columnCount;
+  private DataInputStream input;
+
+  public ODumpRecordCursor(File entityDirectory) {
+    this(entityDirectory, null, null);
+  }
+
+  public ODumpRecordCursor(File entityDirectory, String[] filterColumns, String[] filterValues) {
+    super(filterColumns, filterValues);
+    File[] chunkFiles = entityDirectory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(ODumpFormat.CHUNK_FILE_EXTENSION);
+      }
+    });
+    if (chunkFiles == null) {
+      chunkFiles = new File[0];
+    }
+    Arrays.sort(chunkFiles);
+    this.chunkFiles = chunkFiles;
+    this.nextChunkIndex = 0;
+  }
+
+  @Override
+  protected Object[] fetchNextRecord() throws IOException {
+
+    while (true) {
+      if (this.input == null) {
+        if (!this.openNextChunk()) {
+          return null;
+        }
+      }
+      if (this.input.readByte() == ODumpFormat.END_MARKER) {
+        this.input.close();
+        this.input = null;
+        continue;
+      }
+      Object[] values = new Object[this.columnCount];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = this.readValue();
+      }
+      return values;
+    }
+  }
+
+  private boolean openNextChunk() throws IOException {
+
+    if (this.nextChunkIndex >= this.chunkFiles.length) {
+      return false;
+    }
+    File chunkFile = this.chunkFiles[this.nextChunkIndex++];
+    this.input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(chunkFile))));
+
+    // header: the columns in the column order of the entity
+    this.columnCount = this.input.readInt();
+    String[] columns = new String[this.columnCount];
+    for (int i = 0; i < this.columnCount; i++) {
+      columns[i] = this.input.readUTF();
+    }
+    super.setColumns(columns);
+    return true;
+  }
+
+  private Object readValue() throws IOException {
+
+    byte tag = this.input.readByte();
+    if (tag == ODumpFormat.NULL_VALUE) {
+      return null;
+    }
+    if (tag == ODumpFormat.TIMESTAMP_VALUE) {
+      Timestamp timestamp = new Timestamp(this.input.readLong());
+      timestamp.setNanos(this.input.readInt());
+      return timestamp;
+    }
+    byte[] bytes = new byte[this.input.readInt()];
+    this.input.readFully(bytes);
+    if (tag == ODumpFormat.BINARY_VALUE) {
+      return bytes;
+    }
+    return new String(bytes, UTF8);
+  }
+
+  @Override
+  protected void closeSource() throws IOException {
+    if (this.input != null) {
+      try {
+        this.input.close();
+      } finally {
+        this.input = null;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ODumpRecordCursor" + Arrays.toString(this.chunkFiles);
+  }
+
+}
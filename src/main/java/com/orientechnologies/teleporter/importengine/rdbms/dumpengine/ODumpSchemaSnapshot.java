@@ -0,0 +1,251 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterStatistics;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.model.dbschema.*;
+import com.orientechnologies.teleporter.util.OFileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the source database schema written along with a dump, so the schema can be rebuilt when the dump is loaded without
+ * accessing the source database. It keeps what is read from the source database metadata: entities, attributes, primary and foreign
+ * keys, and the number of records dumped for each entity.
+ * The schema is captured as soon as it's built from the metadata, before the migration configuration changes it, and written when
+ * the dump is complete. The password to access the source database is never written.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODumpSchemaSnapshot {
+
+  private String    dumpDirectory;
+  private ODocument snapshot;         // captured schema, null until capture is called
+
+  public ODumpSchemaSnapshot(String dumpDirectory) {
+    this.dumpDirectory = dumpDirectory;
+  }
+
+  public void capture(ODataBaseSchema dataBaseSchema, OSourceDatabaseInfo sourceDBInfo) {
+
+    ODocument snapshot = new ODocument();
+
+    ODocument source = new ODocument();
+    source.field("sourceIdName", sourceDBInfo.getSourceIdName());
+    source.field("driverName", sourceDBInfo.getDriverName());
+    source.field("url", sourceDBInfo.getUrl());
+    source.field("username", sourceDBInfo.getUsername());
+    snapshot.field("source", source);
+
+    snapshot.field("majorVersion", dataBaseSchema.getMajorVersion());
+    snapshot.field("minorVersion", dataBaseSchema.getMinorVersion());
+    snapshot.field("driverMajorVersion", dataBaseSchema.getDriverMajorVersion());
+    snapshot.field("driverMinorVersion", dataBaseSchema.getDriverMinorVersion());
+    snapshot.field("productName", dataBaseSchema.getProductName());
+    snapshot.field("productVersion", dataBaseSchema.getProductVersion());
+
+    List<ODocument> entities = new LinkedList<ODocument>();
+    for (OEntity currentEntity : dataBaseSchema.getEntities()) {
+      ODocument entity = new ODocument();
+      entity.field("name", currentEntity.getName());
+      entity.field("schemaName", currentEntity.getSchemaName());
+
+      List<ODocument> attributes = new LinkedList<ODocument>();
+      for (OAttribute currentAttribute : currentEntity.getAttributes()) {
+        ODocument attribute = new ODocument();
+        attribute.field("name", currentAttribute.getName());
+        attribute.field("ordinalPosition", currentAttribute.getOrdinalPosition());
+        attribute.field("dataType", currentAttribute.getDataType());
+        attributes.add(attribute);
+      }
+      entity.field("attributes", attributes);
+      entity.field("primaryKey", this.getAttributeNames(currentEntity.getPrimaryKey()));
+
+      List<ODocument> foreignKeys = new LinkedList<ODocument>();
+      for (OCanonicalRelationship currentRelationship : currentEntity.getOutCanonicalRelationships()) {
+        ODocument foreignKey = new ODocument();
+        foreignKey.field("parentEntity", currentRelationship.getParentEntity().getName());
+        foreignKey.field("attributes", this.getAttributeNames(currentRelationship.getForeignKey()));
+        foreignKeys.add(foreignKey);
+      }
+      entity.field("foreignKeys", foreignKeys);
+      entities.add(entity);
+    }
+    snapshot.field("entities", entities);
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * Writes the captured schema along with the number of records dumped for each entity.
+   *
+   * @param entityName2records
+   */
+  public void write(Map<String, Long> entityName2records) {
+
+    if (this.snapshot == null) {
+      throw new OTeleporterRuntimeException("The source database schema was not captured before the dump.");
+    }
+
+    List<ODocument> entities = this.snapshot.field("entities");
+    for (ODocument entity : entities) {
+      Long records = entityName2records.get((String) entity.field("name"));
+      entity.field("records", records != null ? records : 0L);
+    }
+
+    try {
+      File snapshotFile = ODumpFormat.getSchemaSnapshotFile(this.dumpDirectory);
+      OFileManager.writeFileFromText(this.snapshot.toJSON("prettyPrint"), snapshotFile.getPath(), false);
+    } catch (IOException e) {
+      String mess = "Problem encountered during the writing of the schema snapshot in " + this.dumpDirectory;
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+  /**
+   * @return the info of the dumped source database. The password is not available.
+   */
+  public OSourceDatabaseInfo readSourceDatabaseInfo() {
+
+    ODocument source = this.read().field("source");
+    return new OSourceDatabaseInfo((String) source.field("sourceIdName"), (String) source.field("driverName"),
+        (String) source.field("url"), (String) source.field("username"), null);
+  }
+
+  /**
+   * Rebuilds the source database schema from the snapshot, updating the statistics as the building starting from the source database
+   * metadata does.
+   *
+   * @param dataBaseSchema the schema to fill
+   * @param sourceDBInfo
+   */
+  public void buildDataBaseSchema(ODataBaseSchema dataBaseSchema, OSourceDatabaseInfo sourceDBInfo) {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    ODocument snapshot = this.read();
+
+    dataBaseSchema.setMajorVersion(((Number) snapshot.field("majorVersion")).intValue());
+    dataBaseSchema.setMinorVersion(((Number) snapshot.field("minorVersion")).intValue());
+    dataBaseSchema.setDriverMajorVersion(((Number) snapshot.field("driverMajorVersion")).intValue());
+    dataBaseSchema.setDriverMinorVersion(((Number) snapshot.field("driverMinorVersion")).intValue());
+    dataBaseSchema.setProductName((String) snapshot.field("productName"));
+    dataBaseSchema.setProductVersion((String) snapshot.field("productVersion"));
+
+    List<ODocument> entities = snapshot.field("entities");
+    statistics.totalNumberOfEntities = entities.size();
+
+    // entities, attributes and primary keys
+    int totalNumberOfRecords = 0;
+    for (ODocument entity : entities) {
+      OEntity currentEntity = new OEntity((String) entity.field("name"), (String) entity.field("schemaName"), sourceDBInfo);
+      List<ODocument> attributes = entity.field("attributes");
+      for (ODocument attribute : attributes) {
+        currentEntity.addAttribute(new OAttribute((String) attribute.field("name"),
+            ((Number) attribute.field("ordinalPosition")).intValue(), (String) attribute.field("dataType"), currentEntity));
+      }
+
+      OPrimaryKey pKey = new OPrimaryKey(currentEntity);
+      List<String> primaryKey = entity.field("primaryKey");
+      for (String attributeName : primaryKey) {
+        pKey.addAttribute(currentEntity.getAttributeByName(attributeName));
+      }
+      currentEntity.setPrimaryKey(pKey);
+      if (pKey.getInvolvedAttributes().size() == 0) {
+        statistics.warningMessages.add("It's not declared a primary key for the Entity " + currentEntity.getName()
+            + ", this might lead to issues during the migration or the sync executions " + "(the first importing is quite safe).");
+      }
+
+      dataBaseSchema.getEntities().add(currentEntity);
+      totalNumberOfRecords += ((Number) entity.field("records")).intValue();
+      statistics.builtEntities++;
+      statistics.totalNumberOfRecords = totalNumberOfRecords;
+    }
+
+    // out relationships
+    for (ODocument entity : entities) {
+      OEntity currentForeignEntity = dataBaseSchema.getEntityByName((String) entity.field("name"));
+      List<ODocument> foreignKeys = entity.field("foreignKeys");
+      for (ODocument foreignKey : foreignKeys) {
+        OEntity currentParentEntity = dataBaseSchema.getEntityByName((String) foreignKey.field("parentEntity"));
+        OCanonicalRelationship currentRelationship = new OCanonicalRelationship(currentForeignEntity, currentParentEntity);
+        OForeignKey currentFk = new OForeignKey(currentForeignEntity);
+        List<String> attributeNames = foreignKey.field("attributes");
+        for (String attributeName : attributeNames) {
+          currentFk.addAttribute(currentForeignEntity.getAttributeByName(attributeName));
+        }
+        currentRelationship.setPrimaryKey(currentParentEntity.getPrimaryKey());
+        currentRelationship.setForeignKey(currentFk);
+        currentForeignEntity.getForeignKeys().add(currentFk);
+        dataBaseSchema.getCanonicalRelationships().add(currentRelationship);
+        currentForeignEntity.getOutCanonicalRelationships().add(currentRelationship);
+        statistics.builtRelationships += 1;
+      }
+      statistics.entitiesAnalyzedForRelationship++;
+    }
+    statistics.totalNumberOfRelationships = dataBaseSchema.getCanonicalRelationships().size();
+
+    // in relationships
+    for (OCanonicalRelationship currentRelationship : dataBaseSchema.getCanonicalRelationships()) {
+      currentRelationship.getParentEntity().getInCanonicalRelationships().add(currentRelationship);
+    }
+  }
+
+  private List<String> getAttributeNames(OKey key) {
+
+    List<String> attributeNames = new ArrayList<String>();
+    if (key != null) {
+      for (OAttribute currentAttribute : key.getInvolvedAttributes()) {
+        attributeNames.add(currentAttribute.getName());
+      }
+    }
+    return attributeNames;
+  }
+
+  private ODocument read() {
+
+    ODocument snapshot;
+    File snapshotFile = ODumpFormat.getSchemaSnapshotFile(this.dumpDirectory);
+    try {
+      snapshot = OFileManager.buildJsonFromFile(snapshotFile.getPath());
+    } catch (IOException e) {
+      String mess = "Problem encountered during the reading of the schema snapshot in " + this.dumpDirectory;
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+    if (snapshot == null) {
+      throw new OTeleporterRuntimeException("No schema snapshot found in the dump directory " + this.dumpDirectory + ".");
+    }
+    return snapshot;
+  }
+
+}
@@ -0,0 +1,248 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import com.orientechnologies.orient.output.OOutputStreamManager;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterStatistics;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.model.dbschema.OAttribute;
+import com.orientechnologies.teleporter.model.dbschema.ODataBaseSchema;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.persistence.util.OQueryResult;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps the records of all the entities of the source database schema in a directory, according to the ODumpFormat, then writes the
+ * snapshot of the schema. Each entity is read with a single query, so the source database can be released as soon as the dump is
+ * complete and the dump can be loaded later, even several times, without accessing it again.
+ * The columns are fetched as for the import, so that the geometries come as WKB, and each value is written according to the type
+ * of its column: binary values as they are, timestamps as instants and the other values as strings.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODumpWriter {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final int TIMESTAMP_WITH_TIMEZONE = 2014;    // java.sql.Types.TIMESTAMP_WITH_TIMEZONE, JDBC 4.2
+
+  private String dumpDirectory;
+
+  public ODumpWriter(String dumpDirectory) {
+    this.dumpDirectory = dumpDirectory;
+  }
+
+  public void dump(ODataBaseSchema dataBaseSchema, ODumpSchemaSnapshot schemaSnapshot, ODBQueryEngine dbQueryEngine) {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    statistics.startWork4Time = new Date();
+    statistics.runningStepNumber = 4;
+
+    Map<String, Long> entityName2records = new LinkedHashMap<String, Long>();
+    for (OEntity currentEntity : dataBaseSchema.getEntities()) {
+
+      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nDumping '%s' entity...\n", currentEntity.getName());
+      }
+
+      OQueryResult queryResult = null;
+      try {
+        List<String> columns = new ArrayList<String>();
+        for (OAttribute attribute : currentEntity.getAttributes()) {
+          columns.add(attribute.getName());
+        }
+        queryResult = dbQueryEngine.getRecordsByEntity(currentEntity, columns);
+        long records = this.dumpRecords(queryResult.getResult(), currentEntity);
+        entityName2records.put(currentEntity.getName(), records);
+      } catch (Exception e) {
+        String mess = "Problem encountered during the dump of the entity " + currentEntity.getName();
+        OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+        OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+        throw new OTeleporterRuntimeException(e);
+      } finally {
+        if (queryResult != null) {
+          queryResult.closeAll();
+        }
+      }
+
+      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .debug(this, "\n%s records of '%s' entity dumped.\n", entityName2records.get(currentEntity.getName()),
+                currentEntity.getName());
+      }
+    }
+
+    schemaSnapshot.write(entityName2records);
+    statistics.notifyListeners();
+    statistics.runningStepNumber = -1;
+  }
+
+  /**
+   * Writes the records in chunks of ODumpFormat.RECORDS_PER_CHUNK records, replacing the chunks of a previous dump.
+   *
+   * @return the number of dumped records
+   */
+  private long dumpRecords(ResultSet records, OEntity entity) throws SQLException, IOException {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+
+    File entityDirectory = ODumpFormat.getEntityDirectory(this.dumpDirectory, entity.getName());
+    this.deletePreviousChunks(entityDirectory);
+    entityDirectory.mkdirs();
+
+    ResultSetMetaData metaData = records.getMetaData();
+    int columnCount = metaData.getColumnCount();
+    String[] columns = new String[columnCount];
+    byte[] columnTags = new byte[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      columns[i] = metaData.getColumnLabel(i + 1);    // the label of the projected column, e.g. of a geometry fetched as WKB
+      columnTags[i] = this.getValueTag(metaData.getColumnType(i + 1));
+    }
+
+    long dumpedRecords = 0;
+    int chunkIndex = 0;
+    DataOutputStream output = null;
+    try {
+      while (records.next()) {
+        if (output == null) {
+          output = this.openChunk(ODumpFormat.getChunkFile(entityDirectory, chunkIndex++), columns);
+        }
+        output.writeByte(ODumpFormat.RECORD_MARKER);
+        for (int i = 0; i < columnCount; i++) {
+          if (columnTags[i] == ODumpFormat.BINARY_VALUE) {
+            this.writeValue(output, records.getBytes(i + 1), ODumpFormat.BINARY_VALUE);
+          } else if (columnTags[i] == ODumpFormat.TIMESTAMP_VALUE) {
+            this.writeTimestamp(output, records.getTimestamp(i + 1));
+          } else {
+            String value = records.getString(i + 1);
+            this.writeValue(output, value != null ? value.getBytes(UTF8) : null, ODumpFormat.STRING_VALUE);
+          }
+        }
+        dumpedRecords++;
+        statistics.analyzedRecords++;
+
+        if (dumpedRecords % ODumpFormat.RECORDS_PER_CHUNK == 0) {
+          this.closeChunk(output);
+          output = null;
+        }
+      }
+    } finally {
+      if (output != null) {
+        this.closeChunk(output);
+      }
+    }
+    return dumpedRecords;
+  }
+
+  private DataOutputStream openChunk(File chunkFile, String[] columns) throws IOException {
+
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(chunkFile))));
+    output.writeInt(columns.length);
+    for (String column : columns) {
+      output.writeUTF(column);
+    }
+    return output;
+  }
+
+  private void closeChunk(DataOutputStream output) throws IOException {
+    output.writeByte(ODumpFormat.END_MARKER);
+    output.close();
+  }
+
+  private void writeValue(DataOutputStream output, byte[] value, byte tag) throws IOException {
+
+    if (value == null) {
+      output.writeByte(ODumpFormat.NULL_VALUE);
+    } else {
+      output.writeByte(tag);
+      output.writeInt(value.length);
+      output.write(value);
+    }
+  }
+
+  private void writeTimestamp(DataOutputStream output, Timestamp value) throws IOException {
+
+    if (value == null) {
+      output.writeByte(ODumpFormat.NULL_VALUE);
+    } else {
+      output.writeByte(ODumpFormat.TIMESTAMP_VALUE);
+      output.writeLong(value.getTime());
+      output.writeInt(value.getNanos());
+    }
+  }
+
+  /**
+   * @return the tag the values of a column of the passed JDBC type are written with
+   */
+  private byte getValueTag(int columnType) {
+
+    switch (columnType) {
+    case Types.BINARY:
+    case Types.VARBINARY:
+    case Types.LONGVARBINARY:
+    case Types.BLOB:
+      return ODumpFormat.BINARY_VALUE;
+    case Types.TIMESTAMP:
+    case TIMESTAMP_WITH_TIMEZONE:
+      return ODumpFormat.TIMESTAMP_VALUE;
+    default:
+      return ODumpFormat.STRING_VALUE;
+    }
+  }
+
+  private void deletePreviousChunks(File entityDirectory) {
+
+    File[] previousChunks = entityDirectory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(ODumpFormat.CHUNK_FILE_EXTENSION);
+      }
+    });
+    if (previousChunks != null) {
+      for (File previousChunk : previousChunks) {
+        previousChunk.delete();
+      }
+    }
+  }
+
+}
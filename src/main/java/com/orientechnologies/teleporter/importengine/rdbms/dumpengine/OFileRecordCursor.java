@@ -0,0 +1,450 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Forward-only cursor over records read from local files, exposed as a read-only ResultSet so the records can be imported
+ * exactly as the ones fetched from the source database. Records can be filtered on the values of some columns.
+ * Just the getters adopted during the import are supported. The values read from files are converted from their string
+ * representation, as the JDBC drivers do when getString is called, while the values already typed (e.g. the ones copied from the
+ * records of the source database or the timestamps of a dump) are returned as they are.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public abstract class OFileRecordCursor extends OReadOnlyResultSet {
+
+  protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private String[]             columns;
+  private Map<String, Integer> column2index;
+  private Object[]             currentValues;     // String, byte[], typed value or null for each column
+  private boolean              lastValueWasNull;
+  private boolean              closed;
+  private String[]             filterColumns;
+  private String[]             filterValues;
+
+  /**
+   * @param filterColumns columns whose values must match the filter values, null to get all the records
+   * @param filterValues
+   */
+  protected OFileRecordCursor(String[] filterColumns, String[] filterValues) {
+    this.filterColumns = filterColumns;
+    this.filterValues = filterValues;
+  }
+
+  /**
+   * @return the values of the next record, null if the records are finished
+   */
+  protected abstract Object[] fetchNextRecord() throws IOException;
+
+  protected abstract void closeSource() throws IOException;
+
+  /**
+   * Sets the columns of the records, looked up ignoring the case as the JDBC drivers do. When a name is repeated the first column
+   * is picked.
+   */
+  protected void setColumns(String[] columns) {
+    this.columns = columns;
+    this.column2index = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+    for (int i = columns.length - 1; i >= 0; i--) {
+      this.column2index.put(columns[i], i);
+    }
+  }
+
+  public String[] getColumns() {
+    return this.columns;
+  }
+
+  public Object[] getCurrentValues() {
+    return this.currentValues;
+  }
+
+  @Override
+  public boolean next() throws SQLException {
+
+    if (this.closed) {
+      throw new SQLException("Cursor closed.");
+    }
+    try {
+      Object[] values = this.fetchNextRecord();
+      while (values != null) {
+        this.currentValues = values;
+        if (this.matchesFilter()) {
+          return true;
+        }
+        values = this.fetchNextRecord();
+      }
+      this.currentValues = null;
+      return false;
+    } catch (IOException e) {
+      throw new SQLException("Problem encountered during the reading of the records.", e);
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+
+    this.closed = true;
+    this.currentValues = null;
+    try {
+      this.closeSource();
+    } catch (IOException e) {
+      throw new SQLException(e);
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  @Override
+  public boolean wasNull() {
+    return this.lastValueWasNull;
+  }
+
+  @Override
+  public int findColumn(String columnLabel) throws SQLException {
+    return this.getColumnIndex(columnLabel) + 1;
+  }
+
+  /**
+   * Records are read from local files as they are consumed.
+   */
+  @Override
+  public void setFetchSize(int rows) {
+  }
+
+  @Override
+  public int getFetchSize() {
+    return 0;
+  }
+
+  @Override
+  public int getType() {
+    return ResultSet.TYPE_FORWARD_ONLY;
+  }
+
+  @Override
+  public int getConcurrency() {
+    return ResultSet.CONCUR_READ_ONLY;
+  }
+
+  @Override
+  public Object getObject(int columnIndex) throws SQLException {
+    return this.getValue(columnIndex);
+  }
+
+  @Override
+  public Object getObject(String columnLabel) throws SQLException {
+    return this.getValue(columnLabel);
+  }
+
+  @Override
+  public String getString(int columnIndex) throws SQLException {
+    return this.getStringValue(columnIndex);
+  }
+
+  @Override
+  public String getString(String columnLabel) throws SQLException {
+    return this.getStringValue(columnLabel);
+  }
+
+  @Override
+  public byte[] getBytes(int columnIndex) throws SQLException {
+    return this.getBytesValue(columnIndex);
+  }
+
+  @Override
+  public byte[] getBytes(String columnLabel) throws SQLException {
+    return this.getBytesValue(columnLabel);
+  }
+
+  @Override
+  public boolean getBoolean(int columnIndex) throws SQLException {
+    return this.getBooleanValue(columnIndex);
+  }
+
+  @Override
+  public boolean getBoolean(String columnLabel) throws SQLException {
+    return this.getBooleanValue(columnLabel);
+  }
+
+  @Override
+  public short getShort(int columnIndex) throws SQLException {
+    Number value = this.getNumberValue(columnIndex);
+    return value != null ? value.shortValue() : 0;
+  }
+
+  @Override
+  public short getShort(String columnLabel) throws SQLException {
+    Number value = this.getNumberValue(columnLabel);
+    return value != null ? value.shortValue() : 0;
+  }
+
+  @Override
+  public int getInt(int columnIndex) throws SQLException {
+    Number value = this.getNumberValue(columnIndex);
+    return value != null ? value.intValue() : 0;
+  }
+
+  @Override
+  public int getInt(String columnLabel) throws SQLException {
+    Number value = this.getNumberValue(columnLabel);
+    return value != null ? value.intValue() : 0;
+  }
+
+  @Override
+  public long getLong(int columnIndex) throws SQLException {
+    Number value = this.getNumberValue(columnIndex);
+    return value != null ? value.longValue() : 0L;
+  }
+
+  @Override
+  public long getLong(String columnLabel) throws SQLException {
+    Number value = this.getNumberValue(columnLabel);
+    return value != null ? value.longValue() : 0L;
+  }
+
+  @Override
+  public float getFloat(int columnIndex) throws SQLException {
+    Number value = this.getNumberValue(columnIndex);
+    return value != null ? value.floatValue() : 0f;
+  }
+
+  @Override
+  public float getFloat(String columnLabel) throws SQLException {
+    Number value = this.getNumberValue(columnLabel);
+    return value != null ? value.floatValue() : 0f;
+  }
+
+  @Override
+  public double getDouble(int columnIndex) throws SQLException {
+    Number value = this.getNumberValue(columnIndex);
+    return value != null ? value.doubleValue() : 0d;
+  }
+
+  @Override
+  public double getDouble(String columnLabel) throws SQLException {
+    Number value = this.getNumberValue(columnLabel);
+    return value != null ? value.doubleValue() : 0d;
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+    return this.getBigDecimalValue(columnIndex);
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+    return this.getBigDecimalValue(columnLabel);
+  }
+
+  @Override
+  public Date getDate(int columnIndex) throws SQLException {
+    return this.getDateValue(columnIndex);
+  }
+
+  @Override
+  public Date getDate(String columnLabel) throws SQLException {
+    return this.getDateValue(columnLabel);
+  }
+
+  @Override
+  public Time getTime(int columnIndex) throws SQLException {
+    return this.getTimeValue(columnIndex);
+  }
+
+  @Override
+  public Time getTime(String columnLabel) throws SQLException {
+    return this.getTimeValue(columnLabel);
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex) throws SQLException {
+    return this.getTimestampValue(columnIndex);
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel) throws SQLException {
+    return this.getTimestampValue(columnLabel);
+  }
+
+  private boolean matchesFilter() throws SQLException {
+
+    if (this.filterColumns == null) {
+      return true;
+    }
+    for (int i = 0; i < this.filterColumns.length; i++) {
+      Object value = this.currentValues[this.getColumnIndex(this.filterColumns[i])];
+      if (value == null || !value.toString().equals(this.filterValues[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param column 1-based index or label of the column
+   * @return the 0-based index of the column in the records
+   */
+  public int getColumnIndex(Object column) throws SQLException {
+
+    if (this.column2index == null) {
+      throw new SQLException("No record available.");
+    }
+    if (column instanceof Integer) {
+      int index = (Integer) column - 1;
+      if (index < 0 || index >= this.columns.length) {
+        throw new SQLException("Column index " + column + " out of range.");
+      }
+      return index;
+    }
+    Integer index = this.column2index.get((String) column);
+    if (index == null) {
+      throw new SQLException("Column " + column + " not found.");
+    }
+    return index;
+  }
+
+  private Object getValue(Object column) throws SQLException {
+
+    if (this.currentValues == null) {
+      throw new SQLException("No current record: next was not called or the records are finished.");
+    }
+    int index = this.getColumnIndex(column);
+    Object value = index < this.currentValues.length ? this.currentValues[index] : null;
+    this.lastValueWasNull = value == null;
+    return value;
+  }
+
+  private String getStringValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value instanceof byte[]) {
+      return new String((byte[]) value, UTF8);
+    }
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    }
+    return value != null ? value.toString() : null;
+  }
+
+  private byte[] getBytesValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value != null && !(value instanceof byte[])) {
+      return this.getStringValue(column).getBytes(UTF8);
+    }
+    return (byte[]) value;
+  }
+
+  private boolean getBooleanValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).intValue() != 0;
+    }
+    String booleanValue = this.getStringValue(column);
+    return booleanValue != null && (booleanValue.equalsIgnoreCase("true") || booleanValue.equalsIgnoreCase("t") || booleanValue
+        .equals("1") || booleanValue.equalsIgnoreCase("y"));
+  }
+
+  /**
+   * @return the numeric value as typed by the driver, or parsed from its string representation
+   */
+  private Number getNumberValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    String numberValue = this.getStringValue(column);
+    return numberValue != null ? new BigDecimal(numberValue) : null;
+  }
+
+  private BigDecimal getBigDecimalValue(Object column) throws SQLException {
+
+    Number value = this.getNumberValue(column);
+    if (value == null || value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    }
+    if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(value.doubleValue());
+    }
+    return new BigDecimal(value.toString());
+  }
+
+  private Date getDateValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value instanceof java.util.Date) {
+      return value instanceof Date ? (Date) value : new Date(((java.util.Date) value).getTime());
+    }
+    String dateValue = this.getStringValue(column);
+    return dateValue != null ? Date.valueOf(dateValue.length() > 10 ? dateValue.substring(0, 10) : dateValue) : null;
+  }
+
+  private Time getTimeValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value instanceof java.util.Date) {
+      return value instanceof Time ? (Time) value : new Time(((java.util.Date) value).getTime());
+    }
+    String timeValue = this.getStringValue(column);
+    if (timeValue != null && timeValue.length() > 8) {
+      timeValue = timeValue.substring(timeValue.indexOf(' ') + 1, timeValue.indexOf(' ') + 9);    // time of a timestamp
+    }
+    return timeValue != null ? Time.valueOf(timeValue) : null;
+  }
+
+  private Timestamp getTimestampValue(Object column) throws SQLException {
+
+    Object value = this.getValue(column);
+    if (value instanceof java.util.Date) {
+      return value instanceof Timestamp ? (Timestamp) value : new Timestamp(((java.util.Date) value).getTime());
+    }
+    String timestampValue = this.getStringValue(column);
+    if (timestampValue != null && timestampValue.length() == 10) {
+      timestampValue += " 00:00:00";    // date without time
+    }
+    return timestampValue != null ? Timestamp.valueOf(timestampValue) : null;
+  }
+
+}
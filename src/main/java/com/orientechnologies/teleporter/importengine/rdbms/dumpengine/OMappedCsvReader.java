@@ -0,0 +1,182 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of CSV records (RFC 4180) mapping the file in memory one region at a time, so the records are parsed straight from the
+ * page cache and a record can be read again seeking to its position.
+ * An empty unquoted field is read as null, an empty quoted field as an empty string.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMappedCsvReader {
+
+  private static final long    MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+  private static final Charset UTF8               = Charset.forName("UTF-8");
+
+  private RandomAccessFile file;
+  private FileChannel      channel;
+  private long             fileSize;
+  private MappedByteBuffer region;
+  private long             regionStart;
+  private long             position;
+  private String[]         header;
+  private long             firstRecordPosition;
+
+  public OMappedCsvReader(File csvFile) throws IOException {
+    this.file = new RandomAccessFile(csvFile, "r");
+    this.channel = this.file.getChannel();
+    this.fileSize = this.channel.size();
+    this.position = 0;
+  }
+
+  /**
+   * Reads the header the first time, then moves to the first record.
+   *
+   * @return the column names in the first line
+   */
+  public String[] readHeader() throws IOException {
+    if (this.header == null) {
+      this.position = 0;
+      this.header = this.readRecord();
+      if (this.header == null) {
+        throw new IOException("Header line missing in the CSV file.");
+      }
+      this.firstRecordPosition = this.position;
+    }
+    this.position = this.firstRecordPosition;
+    return this.header;
+  }
+
+  /**
+   * @return the position of the next record
+   */
+  public long getPosition() {
+    return this.position;
+  }
+
+  public void seek(long position) {
+    this.position = position;
+  }
+
+  /**
+   * @return the fields of the next record, null if the file is finished. Empty lines are skipped.
+   */
+  public String[] readRecord() throws IOException {
+
+    List<String> fields = new ArrayList<String>();
+    ByteArrayOutputStream field = new ByteArrayOutputStream();
+    boolean quotedField = false;
+    boolean insideQuotes = false;
+
+    int c = this.read();
+    if (c == -1) {
+      return null;
+    }
+
+    while (true) {
+      if (insideQuotes) {
+        if (c == -1) {
+          throw new IOException("Unterminated quoted field at the end of the file.");
+        }
+        if (c == '"') {
+          int next = this.read();
+          if (next == '"') {
+            field.write('"');
+          } else {
+            insideQuotes = false;
+            if (next != -1) {
+              this.position--;
+            }
+          }
+        } else {
+          field.write(c);
+        }
+      } else if (c == '"' && field.size() == 0 && !quotedField) {
+        quotedField = true;
+        insideQuotes = true;
+      } else if (c == ',') {
+        fields.add(this.buildField(field, quotedField));
+        field.reset();
+        quotedField = false;
+      } else if (c == '\n' || c == '\r' || c == -1) {
+        if (c == '\r') {
+          int next = this.read();
+          if (next != '\n' && next != -1) {
+            this.position--;
+          }
+        }
+        if (fields.isEmpty() && field.size() == 0 && !quotedField) {
+          // empty line
+          c = this.read();
+          if (c == -1) {
+            return null;
+          }
+          continue;
+        }
+        fields.add(this.buildField(field, quotedField));
+        return fields.toArray(new String[fields.size()]);
+      } else {
+        field.write(c);
+      }
+      c = this.read();
+    }
+  }
+
+  private String buildField(ByteArrayOutputStream field, boolean quotedField) {
+    if (field.size() == 0 && !quotedField) {
+      return null;
+    }
+    return new String(field.toByteArray(), UTF8);
+  }
+
+  private int read() throws IOException {
+
+    if (this.position >= this.fileSize) {
+      return -1;
+    }
+    if (this.region == null || this.position < this.regionStart || this.position >= this.regionStart + this.region.limit()) {
+      this.regionStart = this.position;
+      this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, this.regionStart,
+          Math.min(MAPPED_REGION_SIZE, this.fileSize - this.regionStart));
+    }
+    return this.region.get((int) (this.position++ - this.regionStart)) & 0xFF;
+  }
+
+  public void close() throws IOException {
+    this.region = null;
+    this.channel.close();
+    this.file.close();
+  }
+
+}
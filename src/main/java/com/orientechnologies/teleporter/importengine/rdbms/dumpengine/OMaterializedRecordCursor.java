@@ -0,0 +1,65 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.util.List;
+
+/**
+ * Cursor over records already held in memory, such as the ones built joining the records of several entities or a record fetched
+ * by key.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMaterializedRecordCursor extends OFileRecordCursor {
+
+  private List<Object[]> records;
+  private int            nextRecordIndex;
+  private int            size;
+
+  public OMaterializedRecordCursor(String[] columns, List<Object[]> records) {
+    super(null, null);
+    super.setColumns(columns);
+    this.records = records;
+    this.nextRecordIndex = 0;
+    this.size = records.size();
+  }
+
+  @Override
+  protected Object[] fetchNextRecord() {
+    if (this.nextRecordIndex < this.size) {
+      return this.records.set(this.nextRecordIndex++, null);    // records already read are released
+    }
+    return null;
+  }
+
+  @Override
+  protected void closeSource() {
+    this.records = null;
+  }
+
+  @Override
+  public String toString() {
+    return "OMaterializedRecordCursor[" + this.size + " records]";
+  }
+
+}
@@ -0,0 +1,1018 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.dumpengine;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Base of the read-only ResultSet implementations over records not coming from a JDBC driver: every method throws
+ * SQLFeatureNotSupportedException, the implementations override just the ones they support.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public abstract class OReadOnlyResultSet implements ResultSet {
+
+  protected SQLFeatureNotSupportedException notSupported(String method) {
+    return new SQLFeatureNotSupportedException("Method " + method + " not supported on " + this + ".");
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException(this + " is not a wrapper for " + iface.getName() + ".");
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(this);
+  }
+
+  @Override
+  public boolean next() throws SQLException {
+    throw this.notSupported("next");
+  }
+
+  @Override
+  public void close() throws SQLException {
+    throw this.notSupported("close");
+  }
+
+  @Override
+  public boolean wasNull() throws SQLException {
+    throw this.notSupported("wasNull");
+  }
+
+  @Override
+  public String getString(int columnIndex) throws SQLException {
+    throw this.notSupported("getString");
+  }
+
+  @Override
+  public boolean getBoolean(int columnIndex) throws SQLException {
+    throw this.notSupported("getBoolean");
+  }
+
+  @Override
+  public byte getByte(int columnIndex) throws SQLException {
+    throw this.notSupported("getByte");
+  }
+
+  @Override
+  public short getShort(int columnIndex) throws SQLException {
+    throw this.notSupported("getShort");
+  }
+
+  @Override
+  public int getInt(int columnIndex) throws SQLException {
+    throw this.notSupported("getInt");
+  }
+
+  @Override
+  public long getLong(int columnIndex) throws SQLException {
+    throw this.notSupported("getLong");
+  }
+
+  @Override
+  public float getFloat(int columnIndex) throws SQLException {
+    throw this.notSupported("getFloat");
+  }
+
+  @Override
+  public double getDouble(int columnIndex) throws SQLException {
+    throw this.notSupported("getDouble");
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+    throw this.notSupported("getBigDecimal");
+  }
+
+  @Override
+  public byte[] getBytes(int columnIndex) throws SQLException {
+    throw this.notSupported("getBytes");
+  }
+
+  @Override
+  public Date getDate(int columnIndex) throws SQLException {
+    throw this.notSupported("getDate");
+  }
+
+  @Override
+  public Time getTime(int columnIndex) throws SQLException {
+    throw this.notSupported("getTime");
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex) throws SQLException {
+    throw this.notSupported("getTimestamp");
+  }
+
+  @Override
+  public InputStream getAsciiStream(int columnIndex) throws SQLException {
+    throw this.notSupported("getAsciiStream");
+  }
+
+  @Override
+  public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+    throw this.notSupported("getUnicodeStream");
+  }
+
+  @Override
+  public InputStream getBinaryStream(int columnIndex) throws SQLException {
+    throw this.notSupported("getBinaryStream");
+  }
+
+  @Override
+  public String getString(String columnLabel) throws SQLException {
+    throw this.notSupported("getString");
+  }
+
+  @Override
+  public boolean getBoolean(String columnLabel) throws SQLException {
+    throw this.notSupported("getBoolean");
+  }
+
+  @Override
+  public byte getByte(String columnLabel) throws SQLException {
+    throw this.notSupported("getByte");
+  }
+
+  @Override
+  public short getShort(String columnLabel) throws SQLException {
+    throw this.notSupported("getShort");
+  }
+
+  @Override
+  public int getInt(String columnLabel) throws SQLException {
+    throw this.notSupported("getInt");
+  }
+
+  @Override
+  public long getLong(String columnLabel) throws SQLException {
+    throw this.notSupported("getLong");
+  }
+
+  @Override
+  public float getFloat(String columnLabel) throws SQLException {
+    throw this.notSupported("getFloat");
+  }
+
+  @Override
+  public double getDouble(String columnLabel) throws SQLException {
+    throw this.notSupported("getDouble");
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+    throw this.notSupported("getBigDecimal");
+  }
+
+  @Override
+  public byte[] getBytes(String columnLabel) throws SQLException {
+    throw this.notSupported("getBytes");
+  }
+
+  @Override
+  public Date getDate(String columnLabel) throws SQLException {
+    throw this.notSupported("getDate");
+  }
+
+  @Override
+  public Time getTime(String columnLabel) throws SQLException {
+    throw this.notSupported("getTime");
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel) throws SQLException {
+    throw this.notSupported("getTimestamp");
+  }
+
+  @Override
+  public InputStream getAsciiStream(String columnLabel) throws SQLException {
+    throw this.notSupported("getAsciiStream");
+  }
+
+  @Override
+  public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+    throw this.notSupported("getUnicodeStream");
+  }
+
+  @Override
+  public InputStream getBinaryStream(String columnLabel) throws SQLException {
+    throw this.notSupported("getBinaryStream");
+  }
+
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    throw this.notSupported("getWarnings");
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {
+    throw this.notSupported("clearWarnings");
+  }
+
+  @Override
+  public String getCursorName() throws SQLException {
+    throw this.notSupported("getCursorName");
+  }
+
+  @Override
+  public ResultSetMetaData getMetaData() throws SQLException {
+    throw this.notSupported("getMetaData");
+  }
+
+  @Override
+  public Object getObject(int columnIndex) throws SQLException {
+    throw this.notSupported("getObject");
+  }
+
+  @Override
+  public Object getObject(String columnLabel) throws SQLException {
+    throw this.notSupported("getObject");
+  }
+
+  @Override
+  public int findColumn(String columnLabel) throws SQLException {
+    throw this.notSupported("findColumn");
+  }
+
+  @Override
+  public Reader getCharacterStream(int columnIndex) throws SQLException {
+    throw this.notSupported("getCharacterStream");
+  }
+
+  @Override
+  public Reader getCharacterStream(String columnLabel) throws SQLException {
+    throw this.notSupported("getCharacterStream");
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+    throw this.notSupported("getBigDecimal");
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+    throw this.notSupported("getBigDecimal");
+  }
+
+  @Override
+  public boolean isBeforeFirst() throws SQLException {
+    throw this.notSupported("isBeforeFirst");
+  }
+
+  @Override
+  public boolean isAfterLast() throws SQLException {
+    throw this.notSupported("isAfterLast");
+  }
+
+  @Override
+  public boolean isFirst() throws SQLException {
+    throw this.notSupported("isFirst");
+  }
+
+  @Override
+  public boolean isLast() throws SQLException {
+    throw this.notSupported("isLast");
+  }
+
+  @Override
+  public void beforeFirst() throws SQLException {
+    throw this.notSupported("beforeFirst");
+  }
+
+  @Override
+  public void afterLast() throws SQLException {
+    throw this.notSupported("afterLast");
+  }
+
+  @Override
+  public boolean first() throws SQLException {
+    throw this.notSupported("first");
+  }
+
+  @Override
+  public boolean last() throws SQLException {
+    throw this.notSupported("last");
+  }
+
+  @Override
+  public int getRow() throws SQLException {
+    throw this.notSupported("getRow");
+  }
+
+  @Override
+  public boolean absolute(int row) throws SQLException {
+    throw this.notSupported("absolute");
+  }
+
+  @Override
+  public boolean relative(int rows) throws SQLException {
+    throw this.notSupported("relative");
+  }
+
+  @Override
+  public boolean previous() throws SQLException {
+    throw this.notSupported("previous");
+  }
+
+  @Override
+  public void setFetchDirection(int direction) throws SQLException {
+    throw this.notSupported("setFetchDirection");
+  }
+
+  @Override
+  public int getFetchDirection() throws SQLException {
+    throw this.notSupported("getFetchDirection");
+  }
+
+  @Override
+  public void setFetchSize(int rows) throws SQLException {
+    throw this.notSupported("setFetchSize");
+  }
+
+  @Override
+  public int getFetchSize() throws SQLException {
+    throw this.notSupported("getFetchSize");
+  }
+
+  @Override
+  public int getType() throws SQLException {
+    throw this.notSupported("getType");
+  }
+
+  @Override
+  public int getConcurrency() throws SQLException {
+    throw this.notSupported("getConcurrency");
+  }
+
+  @Override
+  public boolean rowUpdated() throws SQLException {
+    throw this.notSupported("rowUpdated");
+  }
+
+  @Override
+  public boolean rowInserted() throws SQLException {
+    throw this.notSupported("rowInserted");
+  }
+
+  @Override
+  public boolean rowDeleted() throws SQLException {
+    throw this.notSupported("rowDeleted");
+  }
+
+  @Override
+  public void updateNull(int columnIndex) throws SQLException {
+    throw this.notSupported("updateNull");
+  }
+
+  @Override
+  public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+    throw this.notSupported("updateBoolean");
+  }
+
+  @Override
+  public void updateByte(int columnIndex, byte x) throws SQLException {
+    throw this.notSupported("updateByte");
+  }
+
+  @Override
+  public void updateShort(int columnIndex, short x) throws SQLException {
+    throw this.notSupported("updateShort");
+  }
+
+  @Override
+  public void updateInt(int columnIndex, int x) throws SQLException {
+    throw this.notSupported("updateInt");
+  }
+
+  @Override
+  public void updateLong(int columnIndex, long x) throws SQLException {
+    throw this.notSupported("updateLong");
+  }
+
+  @Override
+  public void updateFloat(int columnIndex, float x) throws SQLException {
+    throw this.notSupported("updateFloat");
+  }
+
+  @Override
+  public void updateDouble(int columnIndex, double x) throws SQLException {
+    throw this.notSupported("updateDouble");
+  }
+
+  @Override
+  public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+    throw this.notSupported("updateBigDecimal");
+  }
+
+  @Override
+  public void updateString(int columnIndex, String x) throws SQLException {
+    throw this.notSupported("updateString");
+  }
+
+  @Override
+  public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+    throw this.notSupported("updateBytes");
+  }
+
+  @Override
+  public void updateDate(int columnIndex, Date x) throws SQLException {
+    throw this.notSupported("updateDate");
+  }
+
+  @Override
+  public void updateTime(int columnIndex, Time x) throws SQLException {
+    throw this.notSupported("updateTime");
+  }
+
+  @Override
+  public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+    throw this.notSupported("updateTimestamp");
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+    throw this.notSupported("updateAsciiStream");
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+    throw this.notSupported("updateBinaryStream");
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+    throw this.notSupported("updateCharacterStream");
+  }
+
+  @Override
+  public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+    throw this.notSupported("updateObject");
+  }
+
+  @Override
+  public void updateObject(int columnIndex, Object x) throws SQLException {
+    throw this.notSupported("updateObject");
+  }
+
+  @Override
+  public void updateNull(String columnLabel) throws SQLException {
+    throw this.notSupported("updateNull");
+  }
+
+  @Override
+  public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+    throw this.notSupported("updateBoolean");
+  }
+
+  @Override
+  public void updateByte(String columnLabel, byte x) throws SQLException {
+    throw this.notSupported("updateByte");
+  }
+
+  @Override
+  public void updateShort(String columnLabel, short x) throws SQLException {
+    throw this.notSupported("updateShort");
+  }
+
+  @Override
+  public void updateInt(String columnLabel, int x) throws SQLException {
+    throw this.notSupported("updateInt");
+  }
+
+  @Override
+  public void updateLong(String columnLabel, long x) throws SQLException {
+    throw this.notSupported("updateLong");
+  }
+
+  @Override
+  public void updateFloat(String columnLabel, float x) throws SQLException {
+    throw this.notSupported("updateFloat");
+  }
+
+  @Override
+  public void updateDouble(String columnLabel, double x) throws SQLException {
+    throw this.notSupported("updateDouble");
+  }
+
+  @Override
+  public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+    throw this.notSupported("updateBigDecimal");
+  }
+
+  @Override
+  public void updateString(String columnLabel, String x) throws SQLException {
+    throw this.notSupported("updateString");
+  }
+
+  @Override
+  public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+    throw this.notSupported("updateBytes");
+  }
+
+  @Override
+  public void updateDate(String columnLabel, Date x) throws SQLException {
+    throw this.notSupported("updateDate");
+  }
+
+  @Override
+  public void updateTime(String columnLabel, Time x) throws SQLException {
+    throw this.notSupported("updateTime");
+  }
+
+  @Override
+  public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+    throw this.notSupported("updateTimestamp");
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+    throw this.notSupported("updateAsciiStream");
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+    throw this.notSupported("updateBinaryStream");
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader x, int length) throws SQLException {
+    throw this.notSupported("updateCharacterStream");
+  }
+
+  @Override
+  public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+    throw this.notSupported("updateObject");
+  }
+
+  @Override
+  public void updateObject(String columnLabel, Object x) throws SQLException {
+    throw this.notSupported("updateObject");
+  }
+
+  @Override
+  public void insertRow() throws SQLException {
+    throw this.notSupported("insertRow");
+  }
+
+  @Override
+  public void updateRow() throws SQLException {
+    throw this.notSupported("updateRow");
+  }
+
+  @Override
+  public void deleteRow() throws SQLException {
+    throw this.notSupported("deleteRow");
+  }
+
+  @Override
+  public void refreshRow() throws SQLException {
+    throw this.notSupported("refreshRow");
+  }
+
+  @Override
+  public void cancelRowUpdates() throws SQLException {
+    throw this.notSupported("cancelRowUpdates");
+  }
+
+  @Override
+  public void moveToInsertRow() throws SQLException {
+    throw this.notSupported("moveToInsertRow");
+  }
+
+  @Override
+  public void moveToCurrentRow() throws SQLException {
+    throw this.notSupported("moveToCurrentRow");
+  }
+
+  @Override
+  public Statement getStatement() throws SQLException {
+    throw this.notSupported("getStatement");
+  }
+
+  @Override
+  public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+    throw this.notSupported("getObject");
+  }
+
+  @Override
+  public Ref getRef(int columnIndex) throws SQLException {
+    throw this.notSupported("getRef");
+  }
+
+  @Override
+  public Blob getBlob(int columnIndex) throws SQLException {
+    throw this.notSupported("getBlob");
+  }
+
+  @Override
+  public Clob getClob(int columnIndex) throws SQLException {
+    throw this.notSupported("getClob");
+  }
+
+  @Override
+  public Array getArray(int columnIndex) throws SQLException {
+    throw this.notSupported("getArray");
+  }
+
+  @Override
+  public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+    throw this.notSupported("getObject");
+  }
+
+  @Override
+  public Ref getRef(String columnLabel) throws SQLException {
+    throw this.notSupported("getRef");
+  }
+
+  @Override
+  public Blob getBlob(String columnLabel) throws SQLException {
+    throw this.notSupported("getBlob");
+  }
+
+  @Override
+  public Clob getClob(String columnLabel) throws SQLException {
+    throw this.notSupported("getClob");
+  }
+
+  @Override
+  public Array getArray(String columnLabel) throws SQLException {
+    throw this.notSupported("getArray");
+  }
+
+  @Override
+  public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+    throw this.notSupported("getDate");
+  }
+
+  @Override
+  public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+    throw this.notSupported("getDate");
+  }
+
+  @Override
+  public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+    throw this.notSupported("getTime");
+  }
+
+  @Override
+  public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+    throw this.notSupported("getTime");
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+    throw this.notSupported("getTimestamp");
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+    throw this.notSupported("getTimestamp");
+  }
+
+  @Override
+  public URL getURL(int columnIndex) throws SQLException {
+    throw this.notSupported("getURL");
+  }
+
+  @Override
+  public URL getURL(String columnLabel) throws SQLException {
+    throw this.notSupported("getURL");
+  }
+
+  @Override
+  public void updateRef(int columnIndex, Ref x) throws SQLException {
+    throw this.notSupported("updateRef");
+  }
+
+  @Override
+  public void updateRef(String columnLabel, Ref x) throws SQLException {
+    throw this.notSupported("updateRef");
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, Blob x) throws SQLException {
+    throw this.notSupported("updateBlob");
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, Blob x) throws SQLException {
+    throw this.notSupported("updateBlob");
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Clob x) throws SQLException {
+    throw this.notSupported("updateClob");
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Clob x) throws SQLException {
+    throw this.notSupported("updateClob");
+  }
+
+  @Override
+  public void updateArray(int columnIndex, Array x) throws SQLException {
+    throw this.notSupported("updateArray");
+  }
+
+  @Override
+  public void updateArray(String columnLabel, Array x) throws SQLException {
+    throw this.notSupported("updateArray");
+  }
+
+  @Override
+  public RowId getRowId(int columnIndex) throws SQLException {
+    throw this.notSupported("getRowId");
+  }
+
+  @Override
+  public RowId getRowId(String columnLabel) throws SQLException {
+    throw this.notSupported("getRowId");
+  }
+
+  @Override
+  public void updateRowId(int columnIndex, RowId x) throws SQLException {
+    throw this.notSupported("updateRowId");
+  }
+
+  @Override
+  public void updateRowId(String columnLabel, RowId x) throws SQLException {
+    throw this.notSupported("updateRowId");
+  }
+
+  @Override
+  public int getHoldability() throws SQLException {
+    throw this.notSupported("getHoldability");
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    throw this.notSupported("isClosed");
+  }
+
+  @Override
+  public void updateNString(int columnIndex, String x) throws SQLException {
+    throw this.notSupported("updateNString");
+  }
+
+  @Override
+  public void updateNString(String columnLabel, String x) throws SQLException {
+    throw this.notSupported("updateNString");
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, NClob x) throws SQLException {
+    throw this.notSupported("updateNClob");
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, NClob x) throws SQLException {
+    throw this.notSupported("updateNClob");
+  }
+
+  @Override
+  public NClob getNClob(int columnIndex) throws SQLException {
+    throw this.notSupported("getNClob");
+  }
+
+  @Override
+  public NClob getNClob(String columnLabel) throws SQLException {
+    throw this.notSupported("getNClob");
+  }
+
+  @Override
+  public SQLXML getSQLXML(int columnIndex) throws SQLException {
+    throw this.notSupported("getSQLXML");
+  }
+
+  @Override
+  public SQLXML getSQLXML(String columnLabel) throws SQLException {
+    throw this.notSupported("getSQLXML");
+  }
+
+  @Override
+  public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+    throw this.notSupported("updateSQLXML");
+  }
+
+  @Override
+  public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+    throw this.notSupported("updateSQLXML");
+  }
+
+  @Override
+  public String getNString(int columnIndex) throws SQLException {
+    throw this.notSupported("getNString");
+  }
+
+  @Override
+  public String getNString(String columnLabel) throws SQLException {
+    throw this.notSupported("getNString");
+  }
+
+  @Override
+  public Reader getNCharacterStream(int columnIndex) throws SQLException {
+    throw this.notSupported("getNCharacterStream");
+  }
+
+  @Override
+  public Reader getNCharacterStream(String columnLabel) throws SQLException {
+    throw this.notSupported("getNCharacterStream");
+  }
+
+  @Override
+  public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateNCharacterStream");
+  }
+
+  @Override
+  public void updateNCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateNCharacterStream");
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+    throw this.notSupported("updateAsciiStream");
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+    throw this.notSupported("updateBinaryStream");
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateCharacterStream");
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+    throw this.notSupported("updateAsciiStream");
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+    throw this.notSupported("updateBinaryStream");
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateCharacterStream");
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException {
+    throw this.notSupported("updateBlob");
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException {
+    throw this.notSupported("updateBlob");
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateClob");
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateClob");
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateNClob");
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, Reader x, long length) throws SQLException {
+    throw this.notSupported("updateNClob");
+  }
+
+  @Override
+  public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+    throw this.notSupported("updateNCharacterStream");
+  }
+
+  @Override
+  public void updateNCharacterStream(String columnLabel, Reader x) throws SQLException {
+    throw this.notSupported("updateNCharacterStream");
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+    throw this.notSupported("updateAsciiStream");
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+    throw this.notSupported("updateBinaryStream");
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+    throw this.notSupported("updateCharacterStream");
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+    throw this.notSupported("updateAsciiStream");
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+    throw this.notSupported("updateBinaryStream");
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader x) throws SQLException {
+    throw this.notSupported("updateCharacterStream");
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+    throw this.notSupported("updateBlob");
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, InputStream x) throws SQLException {
+    throw this.notSupported("updateBlob");
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Reader x) throws SQLException {
+    throw this.notSupported("updateClob");
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Reader x) throws SQLException {
+    throw this.notSupported("updateClob");
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, Reader x) throws SQLException {
+    throw this.notSupported("updateNClob");
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, Reader x) throws SQLException {
+    throw this.notSupported("updateNClob");
+  }
+
+  @Override
+  public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+    throw this.notSupported("getObject");
+  }
+
+  @Override
+  public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+    throw this.notSupported("getObject");
+  }
+
+}
@@ -0,0 +1,240 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.estimator;
+
+import com.orientechnologies.teleporter.util.OFunctionsHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projection of a migration built by the OMigrationEstimator from a sample of the source records.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMigrationEstimate {
+
+  private double                     samplePercentage;
+  private int                        workerThreads;
+  private long                       sourceRows;
+  private long                       sampledRows;
+  private long                       vertices;
+  private long                       edges;
+  private long                       vertexBytes;
+  private long                       edgeBytes;
+  private long                       indexBytes;
+  private long                       keyCacheHeapBytes;
+  private long                       readMillis;
+  private long                       writeMillis;
+  private List<ORelationshipFanOut>  fanOuts;
+
+  public OMigrationEstimate(double samplePercentage, int workerThreads) {
+    this.samplePercentage = samplePercentage;
+    this.workerThreads = workerThreads;
+    this.fanOuts = new ArrayList<ORelationshipFanOut>();
+  }
+
+  public double getSamplePercentage() {
+    return this.samplePercentage;
+  }
+
+  public int getWorkerThreads() {
+    return this.workerThreads;
+  }
+
+  public long getSourceRows() {
+    return this.sourceRows;
+  }
+
+  public void setSourceRows(long sourceRows) {
+    this.sourceRows = sourceRows;
+  }
+
+  public long getSampledRows() {
+    return this.sampledRows;
+  }
+
+  public void setSampledRows(long sampledRows) {
+    this.sampledRows = sampledRows;
+  }
+
+  public long getVertices() {
+    return this.vertices;
+  }
+
+  public void setVertices(long vertices) {
+    this.vertices = vertices;
+  }
+
+  public long getEdges() {
+    return this.edges;
+  }
+
+  public void setEdges(long edges) {
+    this.edges = edges;
+  }
+
+  public long getVertexBytes() {
+    return this.vertexBytes;
+  }
+
+  public void setVertexBytes(long vertexBytes) {
+    this.vertexBytes = vertexBytes;
+  }
+
+  public long getEdgeBytes() {
+    return this.edgeBytes;
+  }
+
+  public void setEdgeBytes(long edgeBytes) {
+    this.edgeBytes = edgeBytes;
+  }
+
+  public long getIndexBytes() {
+    return this.indexBytes;
+  }
+
+  public void setIndexBytes(long indexBytes) {
+    this.indexBytes = indexBytes;
+  }
+
+  public long getDiskBytes() {
+    return this.vertexBytes + this.edgeBytes + this.indexBytes;
+  }
+
+  public long getKeyCacheHeapBytes() {
+    return this.keyCacheHeapBytes;
+  }
+
+  public void setKeyCacheHeapBytes(long keyCacheHeapBytes) {
+    this.keyCacheHeapBytes = keyCacheHeapBytes;
+  }
+
+  public long getReadMillis() {
+    return this.readMillis;
+  }
+
+  public void setReadMillis(long readMillis) {
+    this.readMillis = readMillis;
+  }
+
+  public long getWriteMillis() {
+    return this.writeMillis;
+  }
+
+  public void setWriteMillis(long writeMillis) {
+    this.writeMillis = writeMillis;
+  }
+
+  public long getWallTimeMillis() {
+    return this.readMillis + this.writeMillis;
+  }
+
+  public List<ORelationshipFanOut> getFanOuts() {
+    return this.fanOuts;
+  }
+
+  public String toString() {
+    String s = "\n\nMIGRATION ESTIMATE (sample of " + this.samplePercentage + "% of each entity)\n\n";
+    s += "Source Rows: " + this.sourceRows + " (" + this.sampledRows + " sampled)";
+    s += "\nExpected Vertices: " + this.vertices;
+    s += "\nExpected Edges: " + this.edges;
+    s += "\n\nForeign Key Fan-out (children per parent key in the sample)";
+    for (ORelationshipFanOut fanOut : this.fanOuts) {
+      s += "\n" + fanOut;
+    }
+    s += "\n\nExpected Bytes on Disk: " + formatBytes(this.getDiskBytes()) + " (vertices " + formatBytes(this.vertexBytes)
+        + ", edges " + formatBytes(this.edgeBytes) + ", indexes " + formatBytes(this.indexBytes) + ")";
+    s += "\nExpected Heap for the Key Caches: " + formatBytes(this.keyCacheHeapBytes);
+    s += "\nProjected Wall Time: " + OFunctionsHandler.getHMSFormat(this.getWallTimeMillis()) + " with " + this.workerThreads
+        + " worker threads (source reading " + OFunctionsHandler.getHMSFormat(this.readMillis) + ", writing " + OFunctionsHandler
+        .getHMSFormat(this.writeMillis) + ")\n";
+    return s;
+  }
+
+  private static String formatBytes(long bytes) {
+    if (bytes < 1024) {
+      return bytes + " B";
+    }
+    int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+    return String.format("%.1f %sB", (double) bytes / (1L << (unit * 10)), " KMGTPE".charAt(unit));
+  }
+
+  /**
+   * Distribution of the number of children referencing the same parent key through a foreign key, computed on the sample.
+   */
+  public static class ORelationshipFanOut {
+
+    private String relationship;
+    private int    parents;
+    private double average;
+    private int    median;
+    private int    percentile90;
+    private int    max;
+
+    public ORelationshipFanOut(String relationship, List<Integer> sortedChildrenPerParent) {
+      this.relationship = relationship;
+      this.parents = sortedChildrenPerParent.size();
+      if (this.parents > 0) {
+        long children = 0;
+        for (int count : sortedChildrenPerParent) {
+          children += count;
+        }
+        this.average = (double) children / this.parents;
+        this.median = sortedChildrenPerParent.get((this.parents - 1) / 2);
+        this.percentile90 = sortedChildrenPerParent.get((int) Math.ceil(this.parents * 0.9) - 1);
+        this.max = sortedChildrenPerParent.get(this.parents - 1);
+      }
+    }
+
+    public String getRelationship() {
+      return this.relationship;
+    }
+
+    public int getParents() {
+      return this.parents;
+    }
+
+    public double getAverage() {
+      return this.average;
+    }
+
+    public int getMedian() {
+      return this.median;
+    }
+
+    public int getPercentile90() {
+      return this.percentile90;
+    }
+
+    public int getMax() {
+      return this.max;
+    }
+
+    public String toString() {
+      return String.format("%s: %d parents, avg %.2f, p50 %d, p90 %d, max %d", this.relationship, this.parents, this.average,
+          this.median, this.percentile90, this.max);
+    }
+  }
+
+}
@@ -0,0 +1,391 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.estimator;
+
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.teleporter.context.OOutputStreamManager;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OVertexResolver;
+import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
+import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEVClassMapper;
+import com.orientechnologies.teleporter.model.dbschema.OAttribute;
+import com.orientechnologies.teleporter.model.dbschema.OCanonicalRelationship;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.model.graphmodel.OEdgeType;
+import com.orientechnologies.teleporter.persistence.util.OQueryResult;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphNoTx;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.nio.charset.Charset;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the size and the duration of a migration without importing the records: each entity is counted and a sample of its
+ * records is read, then the numbers are extrapolated to the whole entity.
+ * The sample is made of the first records returned by the source database, so values correlated with the physical order of the
+ * rows may be skewed. The write rate is calibrated writing a small batch of vertices and edges in the target database, removed
+ * right after; the byte sizes follow the record layout of the OrientDB binary serialization.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMigrationEstimator {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final int MIN_SAMPLE_ROWS = 1000;     // rows sampled for each entity when the percentage gives less
+
+  // storage layout
+  private static final int RECORD_OVERHEAD_BYTES      = 32;   // record header, class and position in the cluster
+  private static final int FIELD_OVERHEAD_BYTES       = 4;    // property id and value length
+  private static final int LINK_BYTES                 = 12;   // a RID in a link or in a ridbag
+  private static final int EDGE_RECORD_BYTES          = RECORD_OVERHEAD_BYTES + 2 * LINK_BYTES;
+  private static final int INDEX_ENTRY_OVERHEAD_BYTES = 24;
+
+  // heap taken by an entry of the OVertexResolver cache: map entry, key string and RID
+  private static final int CACHE_ENTRY_HEAP_BYTES = 32 + 40 + 32;
+
+  // write rate calibration
+  private static final int    CALIBRATION_ELEMENTS     = 1000;
+  private static final String CALIBRATION_VERTEX_CLASS = "TeleporterEstimateVertex";
+  private static final String CALIBRATION_EDGE_CLASS   = "TeleporterEstimateEdge";
+
+  private double samplePercentage;
+
+  public OMigrationEstimator(double samplePercentage) {
+    this.samplePercentage = samplePercentage;
+  }
+
+  public OMigrationEstimate estimate(OER2GraphMapper mapper, ODBQueryEngine dbQueryEngine, String outOrientGraphUri) {
+
+    OTeleporterSettings settings = OTeleporterContext.getInstance().getSettings();
+    OMigrationEstimate estimate = new OMigrationEstimate(this.samplePercentage, settings.getWorkerThreads());
+
+    long sourceRows = 0;
+    long sampledRows = 0;
+    double vertices = 0;
+    double edges = 0;
+    double parallelEdges = 0;      // edges written by the parallel writers
+    double vertexBytes = 0;
+    double edgeBytes = 0;
+    double indexBytes = 0;
+    double cachedKeys = 0;
+    double cachedKeyChars = 0;
+    double readNanos = 0;
+    double payloadBytes = 0;
+
+    try {
+      Map<OEntity, OEntitySample> entity2sample = new HashMap<OEntity, OEntitySample>();
+      for (OEntity entity : mapper.getDataBaseSchema().getEntities()) {
+        List<OEVClassMapper> classMappers = mapper.getEVClassMappersByEntity(entity);
+        if (classMappers == null || classMappers.isEmpty()) {
+          continue;   // not imported
+        }
+        OEntitySample sample = this.sampleEntity(entity, mapper, dbQueryEngine);
+        entity2sample.put(entity, sample);
+        sourceRows += sample.rows;
+        sampledRows += sample.sampledRows;
+        readNanos += sample.scale() * sample.readNanos;
+        payloadBytes += sample.rows * sample.averagePayloadBytes();
+
+        if (entity.isAggregableJoinTable()) {
+          // each row becomes an edge between the two referenced vertices
+          edges += sample.rows;
+          edgeBytes += sample.rows * (EDGE_RECORD_BYTES + sample.averagePayloadBytes() + 2 * LINK_BYTES);
+          if (settings.getWorkerThreads() > 1) {
+            parallelEdges += sample.rows;
+          }
+          continue;
+        }
+
+        vertices += sample.rows * classMappers.size();
+        vertexBytes += sample.rows * (classMappers.size() * RECORD_OVERHEAD_BYTES + sample.averagePayloadBytes());
+        if (!entity.getPrimaryKey().getInvolvedAttributes().isEmpty()) {
+          indexBytes += sample.rows * (sample.averageKeyBytes() + INDEX_ENTRY_OVERHEAD_BYTES);
+        }
+
+        for (OCanonicalRelationship relationship : entity.getOutCanonicalRelationships()) {
+          OEdgeType edgeType = mapper.getRelationship2edgeType().get(relationship);
+          Integer childrenWithParent = sample.relationship2children.get(relationship);
+          if (edgeType == null || childrenWithParent == null || sample.sampledRows == 0) {
+            continue;
+          }
+          double relationshipEdges = sample.rows * ((double) childrenWithParent / sample.sampledRows);
+          edges += relationshipEdges;
+          boolean lightweight = (settings.isLightweightEdges() || edgeType.isLightweight()) && edgeType.getAllProperties().isEmpty();
+          edgeBytes += relationshipEdges * ((lightweight ? 0 : EDGE_RECORD_BYTES) + 2 * LINK_BYTES);
+
+          // each distinct parent looked up while writing the edges is cached by the vertex resolver
+          double distinctParents = relationshipEdges / Math.max(1d, sample.averageChildrenPerParent(relationship));
+          cachedKeys += distinctParents;
+          cachedKeyChars += distinctParents * (relationship.getParentEntity().getName().length() + sample
+              .averageParentKeyChars(relationship));
+        }
+      }
+
+      for (OEntitySample sample : entity2sample.values()) {
+        for (Map.Entry<OCanonicalRelationship, List<Integer>> entry : sample.relationship2fanOut.entrySet()) {
+          estimate.getFanOuts().add(new OMigrationEstimate.ORelationshipFanOut(
+              entry.getKey().getForeignEntity().getName() + " -> " + entry.getKey().getParentEntity().getName(),
+              entry.getValue()));
+        }
+      }
+
+      // the cache stops growing at MAX_CACHED_KEYS entries
+      double cachedEntries = Math.min(cachedKeys, OVertexResolver.MAX_CACHED_KEYS);
+      double averageKeyChars = cachedKeys > 0 ? cachedKeyChars / cachedKeys : 0;
+      estimate.setKeyCacheHeapBytes((long) (cachedEntries * (CACHE_ENTRY_HEAP_BYTES + 2 * averageKeyChars)));
+
+      // write rate of the target database
+      int averagePayloadBytes = sourceRows > 0 ? (int) (payloadBytes / sourceRows) : 0;
+      long[] calibration = this.calibrateWrites(outOrientGraphUri, averagePayloadBytes);
+      double vertexNanos = (double) calibration[0] / CALIBRATION_ELEMENTS;
+      double edgeNanos = (double) calibration[1] / CALIBRATION_ELEMENTS;
+      double writeNanos = vertices * vertexNanos + (edges - parallelEdges) * edgeNanos
+          + parallelEdges * edgeNanos / settings.getWorkerThreads();
+
+      estimate.setSourceRows(sourceRows);
+      estimate.setSampledRows(sampledRows);
+      estimate.setVertices(Math.round(vertices));
+      estimate.setEdges(Math.round(edges));
+      estimate.setVertexBytes(Math.round(vertexBytes));
+      estimate.setEdgeBytes(Math.round(edgeBytes));
+      estimate.setIndexBytes(Math.round(indexBytes));
+      estimate.setReadMillis(Math.round(readNanos / 1000000));
+      estimate.setWriteMillis(Math.round(writeNanos / 1000000));
+
+    } catch (SQLException e) {
+      String mess = "Problem encountered during the sampling of the source records.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+
+    return estimate;
+  }
+
+  private OEntitySample sampleEntity(OEntity entity, OER2GraphMapper mapper, ODBQueryEngine dbQueryEngine) throws SQLException {
+
+    OEntitySample sample = new OEntitySample();
+
+    OQueryResult countResult = dbQueryEngine
+        .countTableRecords(entity.getSourceDataseInfo(), entity.getName(), entity.getSchemaName());
+    ResultSet count = countResult.getResult();
+    if (count.next()) {
+      sample.rows = count.getLong(1);
+    }
+    countResult.closeAll();
+
+    int sampleSize = (int) Math.min(sample.rows, Math.max(MIN_SAMPLE_ROWS, Math.ceil(sample.rows * this.samplePercentage / 100)));
+    if (sampleSize == 0) {
+      return sample;
+    }
+
+    List<String> keyColumns = new ArrayList<String>();
+    for (OAttribute attribute : entity.getPrimaryKey().getInvolvedAttributes()) {
+      keyColumns.add(attribute.getName());
+    }
+    Map<OCanonicalRelationship, Map<String, Integer>> relationship2parentKeys = new HashMap<OCanonicalRelationship, Map<String, Integer>>();
+    for (OCanonicalRelationship relationship : entity.getOutCanonicalRelationships()) {
+      relationship2parentKeys.put(relationship, new HashMap<String, Integer>());
+      sample.relationship2children.put(relationship, 0);
+    }
+
+    long start = System.nanoTime();
+    OQueryResult queryResult = dbQueryEngine.getSampleRecordsByEntity(entity, sampleSize);
+    try {
+      ResultSet records = queryResult.getResult();
+      ResultSetMetaData metaData = records.getMetaData();
+      int columnCount = metaData.getColumnCount();
+      boolean[] binaryColumns = new boolean[columnCount];
+      boolean[] keyColumnFlags = new boolean[columnCount];
+      for (int i = 0; i < columnCount; i++) {
+        int columnType = metaData.getColumnType(i + 1);
+        binaryColumns[i] =
+            columnType == Types.BINARY || columnType == Types.VARBINARY || columnType == Types.LONGVARBINARY || columnType == Types.BLOB;
+        keyColumnFlags[i] = keyColumns.contains(metaData.getColumnName(i + 1));
+      }
+
+      while (sample.sampledRows < sampleSize && records.next()) {
+        sample.sampledRows++;
+        for (int i = 0; i < columnCount; i++) {
+          long valueBytes;
+          if (binaryColumns[i]) {
+            byte[] value = records.getBytes(i + 1);
+            valueBytes = value != null ? value.length : -1;
+          } else {
+            String value = records.getString(i + 1);
+            valueBytes = value != null ? value.getBytes(UTF8).length : -1;
+          }
+          if (valueBytes >= 0) {
+            sample.payloadBytes += valueBytes + FIELD_OVERHEAD_BYTES;
+            if (keyColumnFlags[i]) {
+              sample.keyBytes += valueBytes;
+            }
+          }
+        }
+
+        for (OCanonicalRelationship relationship : entity.getOutCanonicalRelationships()) {
+          String parentKey = this.buildParentKey(records, relationship);
+          if (parentKey != null) {
+            sample.relationship2children.put(relationship, sample.relationship2children.get(relationship) + 1);
+            Map<String, Integer> parentKeys = relationship2parentKeys.get(relationship);
+            Integer children = parentKeys.get(parentKey);
+            parentKeys.put(parentKey, children == null ? 1 : children + 1);
+          }
+        }
+      }
+    } finally {
+      queryResult.closeAll();
+    }
+    sample.readNanos = System.nanoTime() - start;
+
+    for (Map.Entry<OCanonicalRelationship, Map<String, Integer>> entry : relationship2parentKeys.entrySet()) {
+      List<Integer> fanOut = new ArrayList<Integer>(entry.getValue().values());
+      Collections.sort(fanOut);
+      sample.relationship2fanOut.put(entry.getKey(), fanOut);
+      long parentKeyChars = 0;
+      for (String parentKey : entry.getValue().keySet()) {
+        parentKeyChars += parentKey.length();
+      }
+      sample.relationship2parentKeyChars.put(entry.getKey(), parentKeyChars);
+    }
+
+    if (OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+      OTeleporterContext.getInstance().getMessageHandler()
+          .debug(this, "\n%s: %s rows, %s sampled.\n", entity.getName(), sample.rows, sample.sampledRows);
+    }
+    return sample;
+  }
+
+  /**
+   * @return the values of the foreign key, null if one of them is null (no edge is built)
+   */
+  private String buildParentKey(ResultSet records, OCanonicalRelationship relationship) throws SQLException {
+    StringBuilder parentKey = new StringBuilder();
+    for (OAttribute attribute : relationship.getFromColumns()) {
+      String value = records.getString(attribute.getName());
+      if (value == null) {
+        return null;
+      }
+      parentKey.append(value);
+    }
+    return parentKey.toString();
+  }
+
+  /**
+   * Writes and then removes CALIBRATION_ELEMENTS vertices, with a payload of the passed size, and as many edges.
+   *
+   * @return the nanoseconds spent writing the vertices and the edges
+   */
+  private long[] calibrateWrites(String outOrientGraphUri, int payloadBytes) {
+
+    OrientGraphFactory factory = new OrientGraphFactory(outOrientGraphUri, "admin", "admin");
+    OrientGraphNoTx orientGraph = factory.getNoTx();
+    orientGraph.setStandardElementConstraints(false);
+    try {
+      orientGraph.createVertexType(CALIBRATION_VERTEX_CLASS);
+      orientGraph.createEdgeType(CALIBRATION_EDGE_CLASS);
+      char[] payload = new char[payloadBytes];
+      Arrays.fill(payload, 'x');
+      String payloadValue = new String(payload);
+
+      OrientVertex[] vertices = new OrientVertex[CALIBRATION_ELEMENTS];
+      long start = System.nanoTime();
+      for (int i = 0; i < CALIBRATION_ELEMENTS; i++) {
+        vertices[i] = orientGraph.addVertex("class:" + CALIBRATION_VERTEX_CLASS, "payload", payloadValue);
+      }
+      long vertexNanos = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < CALIBRATION_ELEMENTS; i++) {
+        orientGraph.addEdge(null, vertices[i], vertices[(i + 1) % CALIBRATION_ELEMENTS], CALIBRATION_EDGE_CLASS);
+      }
+      long edgeNanos = System.nanoTime() - start;
+
+      return new long[] { vertexNanos, edgeNanos };
+    } finally {
+      if (orientGraph.getVertexType(CALIBRATION_VERTEX_CLASS) != null) {
+        orientGraph.command(new OCommandSQL("delete vertex " + CALIBRATION_VERTEX_CLASS)).execute();
+        orientGraph.dropVertexType(CALIBRATION_VERTEX_CLASS);
+      }
+      if (orientGraph.getEdgeType(CALIBRATION_EDGE_CLASS) != null) {
+        orientGraph.dropEdgeType(CALIBRATION_EDGE_CLASS);
+      }
+      orientGraph.shutdown();
+    }
+  }
+
+  /**
+   * Figures collected reading the sample of an entity.
+   */
+  private static class OEntitySample {
+
+    private long rows;
+    private long sampledRows;
+    private long readNanos;
+    private long payloadBytes;
+    private long keyBytes;
+
+    private Map<OCanonicalRelationship, Integer>       relationship2children       = new HashMap<OCanonicalRelationship, Integer>();
+    private Map<OCanonicalRelationship, List<Integer>> relationship2fanOut         = new HashMap<OCanonicalRelationship, List<Integer>>();
+    private Map<OCanonicalRelationship, Long>          relationship2parentKeyChars = new HashMap<OCanonicalRelationship, Long>();
+
+    private double scale() {
+      return this.sampledRows > 0 ? (double) this.rows / this.sampledRows : 0;
+    }
+
+    private double averagePayloadBytes() {
+      return this.sampledRows > 0 ? (double) this.payloadBytes / this.sampledRows : 0;
+    }
+
+    private double averageKeyBytes() {
+      return this.sampledRows > 0 ? (double) this.keyBytes / this.sampledRows : 0;
+    }
+
+    private double averageChildrenPerParent(OCanonicalRelationship relationship) {
+      List<Integer> fanOut = this.relationship2fanOut.get(relationship);
+      Integer children = this.relationship2children.get(relationship);
+      return fanOut != null && !fanOut.isEmpty() ? (double) children / fanOut.size() : 1;
+    }
+
+    private double averageParentKeyChars(OCanonicalRelationship relationship) {
+      List<Integer> fanOut = this.relationship2fanOut.get(relationship);
+      Long parentKeyChars = this.relationship2parentKeyChars.get(relationship);
+      return fanOut != null && !fanOut.isEmpty() ? (double) parentKeyChars / fanOut.size() : 0;
+    }
+  }
+
+}
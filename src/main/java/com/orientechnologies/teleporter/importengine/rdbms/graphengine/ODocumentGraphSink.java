@@ -0,0 +1,145 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientEdge;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes vertices and edges directly through the document API of the graph database, without the Blueprints element wrappers.
+ * Records are built with the same layout adopted by Blueprints (heavyweight edges referenced by the ridbags "out_[EdgeClass]" and
+ * "in_[EdgeClass]" of the two vertices), so the resulting graph is the same produced by OrientBaseGraph.addVertex and addEdge.
+ * Schema classes are resolved once per database and then cached, as with partitioned outputs the same sink writes into several
+ * databases, each one with its own cluster ids. The target database is made active on the current thread before each write.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ODocumentGraphSink {
+
+  private final Map<String, OClass> classesByName;    // keyed by database URL and class name
+
+  public ODocumentGraphSink() {
+    this.classesByName = new ConcurrentHashMap<String, OClass>();
+  }
+
+  /**
+   * Adds a vertex, stored in the given cluster of its class if not null.
+   */
+  public OrientVertex addVertex(OrientBaseGraph orientGraph, String vertexClassName, String clusterName,
+      Map<String, Object> properties) {
+
+    orientGraph.makeActive();
+    ODocument vertexDocument = new ODocument(this.getSchemaClass(orientGraph, vertexClassName));
+    if (properties != null) {
+      vertexDocument.fields(properties);
+    }
+    this.save(vertexDocument, clusterName);
+    return new OrientVertex(orientGraph, vertexDocument);
+  }
+
+  /**
+   * Adds an edge and its properties saving the edge record just once, then links it in the ridbags of the two vertices.
+   * The edge record is stored in the given cluster of its class if not null.
+   */
+  public OrientEdge addEdge(OrientBaseGraph orientGraph, OrientVertex outVertex, OrientVertex inVertex, String edgeClassName,
+      String clusterName, Map<String, Object> properties) {
+
+    orientGraph.makeActive();
+    ODocument outVertexDocument = outVertex.getRecord();
+    ODocument inVertexDocument = inVertex.getRecord();
+
+    ODocument edgeDocument = new ODocument(this.getSchemaClass(orientGraph, edgeClassName));
+    edgeDocument.field(OrientBaseGraph.CONNECTION_OUT, outVertexDocument.getIdentity());
+    edgeDocument.field(OrientBaseGraph.CONNECTION_IN, inVertexDocument.getIdentity());
+    if (properties != null) {
+      edgeDocument.fields(properties);
+    }
+    this.save(edgeDocument, clusterName);
+
+    this.addToRidBag(outVertexDocument, OrientBaseGraph.CONNECTION_OUT_PREFIX + edgeClassName, edgeDocument);
+    outVertexDocument.save();
+    this.addToRidBag(inVertexDocument, OrientBaseGraph.CONNECTION_IN_PREFIX + edgeClassName, edgeDocument);
+    inVertexDocument.save();
+
+    return new OrientEdge(orientGraph, edgeDocument);
+  }
+
+  /**
+   * Adds a lightweight edge: no edge record is created, each vertex is linked directly in the ridbag of the other one.
+   */
+  public void addLightweightEdge(OrientBaseGraph orientGraph, OrientVertex outVertex, OrientVertex inVertex,
+      String edgeClassName) {
+
+    orientGraph.makeActive();
+    ODocument outVertexDocument = outVertex.getRecord();
+    ODocument inVertexDocument = inVertex.getRecord();
+
+    this.addToRidBag(outVertexDocument, OrientBaseGraph.CONNECTION_OUT_PREFIX + edgeClassName, inVertexDocument);
+    outVertexDocument.save();
+    this.addToRidBag(inVertexDocument, OrientBaseGraph.CONNECTION_IN_PREFIX + edgeClassName, outVertexDocument);
+    inVertexDocument.save();
+  }
+
+  private void save(ODocument document, String clusterName) {
+    if (clusterName != null) {
+      document.save(clusterName);
+    } else {
+      document.save();
+    }
+  }
+
+  private void addToRidBag(ODocument vertexDocument, String fieldName, ODocument linkedDocument) {
+
+    ORidBag ridBag = vertexDocument.field(fieldName);
+    if (ridBag == null) {
+      ridBag = new ORidBag();
+      vertexDocument.field(fieldName, ridBag);
+    }
+    ridBag.add(linkedDocument);
+  }
+
+  private OClass getSchemaClass(OrientBaseGraph orientGraph, String className) {
+
+    ODatabaseDocument database = orientGraph.getRawGraph();
+    String key = database.getURL() + "|" + className;
+    OClass schemaClass = this.classesByName.get(key);
+    if (schemaClass == null) {
+      schemaClass = database.getMetadata().getSchema().getClass(className);
+      if (schemaClass == null) {
+        throw new OTeleporterRuntimeException("Class '" + className + "' not found in the schema of the target database.");
+      }
+      this.classesByName.put(key, schemaClass);
+    }
+    return schemaClass;
+  }
+
+}
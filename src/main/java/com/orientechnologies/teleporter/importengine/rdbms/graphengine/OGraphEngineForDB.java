@@ -21,11 +21,13 @@
 package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
 
 import com.orientechnologies.orient.core.exception.OValidationException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.output.OOutputStreamManager;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
 import com.orientechnologies.teleporter.mapper.rdbms.OAggregatorEdge;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
 import com.orientechnologies.teleporter.model.dbschema.OAttribute;
@@ -37,6 +39,7 @@ import com.orientechnologies.teleporter.model.graphmodel.OModelProperty;
 import com.orientechnologies.teleporter.model.graphmodel.OVertexType;
 import com.orientechnologies.teleporter.persistence.handler.ODBMSDataTypeHandler;
 import com.orientechnologies.teleporter.util.OFunctionsHandler;
+import com.orientechnologies.teleporter.writer.OGraphModelWriter;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -59,12 +62,121 @@ import java.util.*;
 
 public class OGraphEngineForDB {
 
+  private static final int  LOGICAL_RELATIONSHIP_BATCH_SIZE = 1000;
+  private static final char JOIN_KEY_SEPARATOR              = '\u0000';
+
   private OER2GraphMapper      mapper;
   private ODBMSDataTypeHandler handler;
+  private ODocumentGraphSink   documentSink;    // null if the writes go through Blueprints
+  private ORemoteGraphSink     remoteSink;      // null if the writes are not batched for a remote target
+  private Set<String>          lightweightEdgeTypes;
+  private ThreadLocal<Integer> writerIndex;     // index of the writer cluster the current thread is pinned to, if any
+  private OGraphPartitioner    partitioner;     // null if the output is not partitioned over several databases
+  private volatile boolean     parallelWriters; // true while several writers of this source upsert the same classes
 
   public OGraphEngineForDB(OER2GraphMapper mapper, ODBMSDataTypeHandler handler) {
     this.mapper = mapper;
     this.handler = handler;
+
+    OTeleporterSettings settings = OTeleporterContext.getInstance().getSettings();
+    if (OTeleporterSettings.DOCUMENT_SINK.equals(settings.getSink())) {
+      this.documentSink = new ODocumentGraphSink();
+    } else if (OTeleporterSettings.REMOTE_SINK.equals(settings.getSink())) {
+      this.remoteSink = new ORemoteGraphSink();
+    }
+
+    // edges are written as lightweight edges only if they can't have properties
+    this.lightweightEdgeTypes = new HashSet<String>();
+    for (OEdgeType edgeType : mapper.getGraphModel().getEdgesType()) {
+      if ((settings.isLightweightEdges() || edgeType.isLightweight()) && edgeType.getAllProperties().isEmpty()) {
+        this.lightweightEdgeTypes.add(edgeType.getName());
+      }
+    }
+
+    this.writerIndex = new ThreadLocal<Integer>();
+  }
+
+  /**
+   * Pins the current thread to the writer clusters with the given index: vertices and edges added by the thread are stored
+   * in the cluster of their class dedicated to that writer, so parallel writers don't contend on the same cluster.
+   * Writer clusters are created by the OGraphModelWriter according to the number of worker threads.
+   *
+   * @param writerIndex
+   */
+  public void pinCurrentThreadToWriterCluster(int writerIndex) {
+    this.writerIndex.set(writerIndex);
+  }
+
+  public void unpinCurrentThread() {
+    this.writerIndex.remove();
+  }
+
+  /**
+   * Sets whether several writers of this source are upserting vertices of the same classes: meanwhile lookups and inserts are made
+   * atomic as when several sources are imported concurrently.
+   */
+  public void setParallelWriters(boolean parallelWriters) {
+    this.parallelWriters = parallelWriters;
+  }
+
+  private boolean isSharingGraph() {
+    return this.parallelWriters || OTeleporterContext.getInstance().getSettings().isConcurrentSources();
+  }
+
+  /**
+   * Partitions the output over the databases of the passed partitioner: each vertex is written and looked up in the database
+   * chosen by the hash of its key, the edges between vertices of different databases are recorded by the partitioner.
+   *
+   * @param partitioner
+   */
+  public void setPartitioner(OGraphPartitioner partitioner) {
+    this.partitioner = partitioner;
+  }
+
+  public OGraphPartitioner getPartitioner() {
+    return this.partitioner;
+  }
+
+  /**
+   * Closes the batch committed by the current thread: the vertices it kept by key are forgotten.
+   */
+  public void endBatch() {
+    if (this.remoteSink != null) {
+      this.remoteSink.endBatch();
+    }
+  }
+
+  /**
+   * @return the graph of the current thread on the partition of the vertex with the passed key values, the passed graph if the
+   * output is not partitioned.
+   */
+  public OrientBaseGraph getPartitionGraph(OrientBaseGraph orientGraph, String[] keyValues) {
+    if (this.partitioner == null) {
+      return orientGraph;
+    }
+    return this.partitioner.getGraph(orientGraph, this.partitioner.partitionOf(keyValues));
+  }
+
+  private OrientBaseGraph getPartitionGraph(OrientBaseGraph orientGraph, int partition) {
+    if (this.partitioner == null) {
+      return orientGraph;
+    }
+    return this.partitioner.getGraph(orientGraph, partition);
+  }
+
+  private int getPartitionsCount() {
+    return this.partitioner == null ? 1 : this.partitioner.getPartitionsCount();
+  }
+
+  /**
+   * @return the name of the writer cluster of the class the current thread is pinned to, null if the thread is not pinned.
+   */
+  private String getWriterClusterName(String className) {
+    Integer currentWriterIndex = this.writerIndex.get();
+    if (currentWriterIndex == null) {
+      return null;
+    }
+    return OGraphModelWriter.getWriterClusterName(className, currentWriterIndex);
   }
 
   /**
@@ -77,7 +189,8 @@ public class OGraphEngineForDB {
   public boolean alreadyFullImportedInOrient(OrientBaseGraph orientGraph, ResultSet record, OVertexType vertexType,
       Set<String> propertiesOfIndex) throws SQLException {
 
-    String propsAndValuesOfKey = "";
+    String[] propertyOfKey = null;
+    String[] valueOfKey = null;
 
     try {
 
@@ -95,8 +208,8 @@ public class OGraphEngineForDB {
         }
       }
 
-      String[] propertyOfKey = new String[propertiesOfIndex.size()];
-      String[] valueOfKey = new String[propertiesOfIndex.size()];
+      propertyOfKey = new String[propertiesOfIndex.size()];
+      valueOfKey = new String[propertiesOfIndex.size()];
 
       int cont = 0;
       for (String property : propertiesOfIndex) {
@@ -109,16 +222,6 @@ public class OGraphEngineForDB {
         cont++;
       }
 
-      String s = "Keys and values in the lookup (upsertVisitedVertex):\t";
-      for (int i = 0; i < propertyOfKey.length; i++) {
-        propsAndValuesOfKey += propertyOfKey[i] + ":" + valueOfKey[i] + ",";
-      }
-      if (propsAndValuesOfKey.length() > 0)
-        propsAndValuesOfKey = propsAndValuesOfKey.substring(0, propsAndValuesOfKey.length() - 1);
-      else
-        propsAndValuesOfKey = "no identifier for the current record.";
-      s += propsAndValuesOfKey;
-
       // lookup
       OrientVertex vertex = this.getVertexByIndexedKey(orientGraph, propertyOfKey, valueOfKey, vertexType.getName());
 
@@ -128,11 +231,10 @@ public class OGraphEngineForDB {
 
     } catch (Exception e) {
       String mess = "Problem encountered during the visit of an inserted vertex. Vertex Type: " + vertexType.getName()
-          + ";\tOriginal Record: " + propsAndValuesOfKey;
+          + ";\tOriginal Record: " + describeKey(propertyOfKey, valueOfKey);
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
-      if (orientGraph != null)
-        orientGraph.shutdown();
+      this.shutdownOnFailure(orientGraph);
       throw new OTeleporterRuntimeException(e);
     }
     return false;
@@ -153,14 +255,35 @@ public class OGraphEngineForDB {
 
     OrientVertex vertex = null;
 
+    orientGraph = this.getPartitionGraph(orientGraph, values);
+    boolean batched = this.remoteSink != null && this.remoteSink.isBatched(orientGraph);
+    if (batched) {
+      vertex = this.remoteSink.getVertex(vertexClassName, values);
+      if (vertex != null) {
+        return vertex;
+      }
+    }
+
     Iterator<Vertex> iterator = orientGraph.getVertices(vertexClassName, keys, values).iterator();
 
     if (iterator.hasNext())
       vertex = (OrientVertex) iterator.next();
 
+    if (batched && vertex != null) {
+      this.remoteSink.putVertex(vertexClassName, values, vertex);
+    }
     return vertex;
   }
 
+  /**
+   * Keeps the vertex just added by key until the end of the batch, when the writes are batched for a remote target.
+   */
+  private void registerAddedVertex(OrientBaseGraph orientGraph, String vertexClassName, String[] values, OrientVertex vertex) {
+    if (this.remoteSink != null && vertex != null && this.remoteSink.isBatched(orientGraph)) {
+      this.remoteSink.putVertex(vertexClassName, values, vertex);
+    }
+  }
+
   /**
    * @param record
    */
@@ -170,7 +293,8 @@ public class OGraphEngineForDB {
     OrientVertex vertex = null;
     String[] propertyOfKey = null;
     String[] valueOfKey = null;
-    String propsAndValuesOfKey = "";
+    boolean keyLocked = false;
+    ORID lockedVertex = null;
 
     try {
 
@@ -205,23 +329,27 @@ public class OGraphEngineForDB {
         valueOfKey[cont] = currentValue;
         cont++;
       }
+      orientGraph = this.getPartitionGraph(orientGraph, valueOfKey);
 
-      String s = "Keys and values in the lookup (upsertVisitedVertex):\t";
-      for (int i = 0; i < propertyOfKey.length; i++) {
-        propsAndValuesOfKey += propertyOfKey[i] + ":" + valueOfKey[i] + ",";
-      }
-      if (propsAndValuesOfKey.length() > 0)
-        propsAndValuesOfKey = propsAndValuesOfKey.substring(0, propsAndValuesOfKey.length() - 1);
-      else
-        propsAndValuesOfKey = "no identifier for the current record.";
-      s += propsAndValuesOfKey;
-      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\n" + s + "\n");
+      if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .debug(this, "\nKeys and values in the lookup (upsertVisitedVertex):\t%s\n", describeKey(propertyOfKey, valueOfKey));
       }
 
       // lookup (only if properties and values are different from null)
-      if (propertyOfKey.length > 0 && valueOfKey.length > 0)
+      if (propertyOfKey.length > 0 && valueOfKey.length > 0) {
+        // sources imported concurrently, or parallel writers, could upsert the same vertex: lookup and insert must be atomic
+        if (this.isSharingGraph()) {
+          OSharedGraphLocks.getInstance().lockKey(vertexType.getName(), valueOfKey);
+          keyLocked = true;
+        }
         vertex = this.getVertexByIndexedKey(orientGraph, propertyOfKey, valueOfKey, vertexType.getName());
+        if (keyLocked && vertex != null) {
+          // the edges of the vertex could be updated by other writers meanwhile
+          this.lockVerticesOfEdge(vertex, vertex);
+          lockedVertex = vertex.getIdentity();
+        }
+      }
 
       // extraction of inherited and not inherited properties from the record (through "getAllProperties()" method)
       Map<String, Object> properties = new LinkedHashMap<String, Object>();
@@ -242,7 +370,7 @@ public class OGraphEngineForDB {
           } catch (Exception e) {
             String mess =
                 "Problem encountered during the extraction of the values from the records. Vertex Type: " + vertexType.getName()
-                    + ";\tProperty: " + currentPropertyName + ";\tRecord: " + propsAndValuesOfKey;
+                    + ";\tProperty: " + currentPropertyName + ";\tRecord: " + describeKey(propertyOfKey, valueOfKey);
             OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
             OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
           }
@@ -255,8 +383,11 @@ public class OGraphEngineForDB {
       if (vertex == null) {
         String classAndClusterName = vertexType.getName();
         vertex = this.addVertexToGraph(orientGraph, classAndClusterName, properties);
+        if (propertyOfKey.length > 0) {
+          this.registerAddedVertex(orientGraph, vertexType.getName(), valueOfKey, vertex);
+        }
         statistics.orientAddedVertices++;
-        if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+        if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
           OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nLoaded properties: %s\n", properties.toString());
           OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew vertex inserted (all props set): %s\n", vertex.toString());
         }
@@ -286,7 +417,7 @@ public class OGraphEngineForDB {
           // setting new properties and save
           this.setElementProperties(vertex, properties);
           vertex.save();
-          if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+          if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
             OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nLoaded properties: %s\n", properties.toString());
             OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew vertex inserted (all props set): %s\n", vertex.toString());
           }
@@ -341,7 +472,7 @@ public class OGraphEngineForDB {
             // setting new properties and save
             this.setElementProperties(vertex, properties);
             statistics.orientUpdatedVertices++;
-            if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+            if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
               OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nLoaded properties: %s\n", properties.toString());
               OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew vertex upserted (all props set): %s\n", vertex.toString());
             }
@@ -350,12 +481,18 @@ public class OGraphEngineForDB {
       }
     } catch (Exception e) {
       String mess = "Problem encountered during the migration of the records. Vertex Type: " + vertexType.getName() + ";\tRecord: "
-          + propsAndValuesOfKey;
+          + describeKey(propertyOfKey, valueOfKey);
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
-      if (orientGraph != null)
-        orientGraph.shutdown();
+      this.shutdownOnFailure(orientGraph);
       throw new OTeleporterRuntimeException(e);
+    } finally {
+      if (lockedVertex != null) {
+        OSharedGraphLocks.getInstance().unlockVertices(lockedVertex, lockedVertex);
+      }
+      if (keyLocked) {
+        OSharedGraphLocks.getInstance().unlockKey(vertexType.getName(), valueOfKey);
+      }
     }
 
     return vertex;
@@ -379,21 +516,13 @@ public class OGraphEngineForDB {
     } else if (currentPropertyType.equals("BINARY")) {
       currentBinaryValue = record.getBytes(this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName));
       properties.put(currentPropertyName, currentBinaryValue);
-    } else if (currentPropertyType.equals("BOOLEAN")) {
-      currentAttributeValue = record
-          .getString(this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName));
-
-      switch (currentAttributeValue) {
+    }
 
-      case "t":
-        properties.put(currentPropertyName, "true");
-        break;
-      case "f":
-        properties.put(currentPropertyName, "false");
-        break;
-      default:
-        break;
-      }
+    // GEOSPATIAL: the geometries are fetched as WKB, so they are checked before the embedded JSON values
+    else if (handler.geospatialImplemented && handler.isGeospatial(currentOriginalType)) {
+      currentBinaryValue = record.getBytes(this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName));
+      ODocument currentEmbeddedValue = this.handler.convertGeospatialToDocument(currentBinaryValue);
+      properties.put(currentPropertyName, currentEmbeddedValue);
     }
 
     // JSON
@@ -402,19 +531,10 @@ public class OGraphEngineForDB {
           .getString(this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName));
       ODocument currentEmbeddedValue = this.handler.convertJSONToDocument(currentPropertyName, currentAttributeValue);
       properties.put(currentPropertyName, currentEmbeddedValue);
-    }
-
-    // GEOSPATIAL
-    else if (handler.geospatialImplemented && handler.isGeospatial(currentOriginalType)) {
-      currentAttributeValue = record
-          .getString(this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName));
-      //						currentEmbeddedValue = OShapeFactory.INSTANCE.toDoc(currentAttributeValue);  // to change with transformation from wkt (currentAttrValue) into embedded
-      ODocument currentEmbeddedValue = null;
-      properties.put(currentPropertyName, currentEmbeddedValue);
     } else {
-      currentAttributeValue = record
-          .getString(this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName));
-      properties.put(currentPropertyName, currentAttributeValue);
+      Object currentValue = this.getTypedAttributeValue(record,
+          this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, currentPropertyName), currentPropertyType);
+      properties.put(currentPropertyName, currentValue);
     }
 
   }
@@ -437,20 +557,13 @@ public class OGraphEngineForDB {
     } else if (currentPropertyType.equals("BINARY")) {
       currentBinaryValue = record.getBytes(this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName));
       properties.put(currentPropertyName, currentBinaryValue);
-    } else if (currentPropertyType.equals("BOOLEAN")) {
-      currentAttributeValue = record.getString(this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName));
-
-      switch (currentAttributeValue) {
+    }
 
-      case "t":
-        properties.put(currentPropertyName, "true");
-        break;
-      case "f":
-        properties.put(currentPropertyName, "false");
-        break;
-      default:
-        break;
-      }
+    // GEOSPATIAL: the geometries are fetched as WKB, so they are checked before the embedded JSON values
+    else if (handler.geospatialImplemented && handler.isGeospatial(currentOriginalType)) {
+      currentBinaryValue = record.getBytes(this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName));
+      ODocument currentEmbeddedValue = this.handler.convertGeospatialToDocument(currentBinaryValue);
+      properties.put(currentPropertyName, currentEmbeddedValue);
     }
 
     // JSON
@@ -458,19 +571,59 @@ public class OGraphEngineForDB {
       currentAttributeValue = record.getString(this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName));
       ODocument currentEmbeddedValue = this.handler.convertJSONToDocument(currentPropertyName, currentAttributeValue);
       properties.put(currentPropertyName, currentEmbeddedValue);
+    } else {
+      Object currentValue = this.getTypedAttributeValue(record,
+          this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName), currentPropertyType);
+      properties.put(currentPropertyName, currentValue);
     }
 
-    // GEOSPATIAL
-    else if (handler.geospatialImplemented && handler.isGeospatial(currentOriginalType)) {
-      currentAttributeValue = record.getString(this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName));
-      //						currentEmbeddedValue = OShapeFactory.INSTANCE.toDoc(currentAttributeValue);  // to change with transformation from wkt (currentAttrValue) into embedded
-      ODocument currentEmbeddedValue = null;
-      properties.put(currentPropertyName, currentEmbeddedValue);
-    } else {
-      currentAttributeValue = record.getString(this.mapper.getAttributeNameByEdgeTypeAndProperty(edgeType, currentPropertyName));
-      properties.put(currentPropertyName, currentAttributeValue);
+  }
+
+  /**
+   * Reads the value of the attribute through the JDBC getter correspondent to the OrientDB type, so that native values
+   * (and not their string representations) are set in the graph elements. Null is returned for SQL NULL values.
+   *
+   * @param record
+   * @param attributeName
+   * @param currentPropertyType
+   *
+   * @return
+   *
+   * @throws SQLException
+   */
+  private Object getTypedAttributeValue(ResultSet record, String attributeName, String currentPropertyType) throws SQLException {
+
+    Object value;
+
+    switch (currentPropertyType) {
+    case "BOOLEAN":
+      value = record.getBoolean(attributeName);
+      break;
+    case "SHORT":
+      value = record.getShort(attributeName);
+      break;
+    case "INTEGER":
+      value = record.getInt(attributeName);
+      break;
+    case "LONG":
+      value = record.getLong(attributeName);
+      break;
+    case "FLOAT":
+      value = record.getFloat(attributeName);
+      break;
+    case "DOUBLE":
+      value = record.getDouble(attributeName);
+      break;
+    case "DECIMAL":
+      return record.getBigDecimal(attributeName);
+    default:
+      return record.getString(attributeName);
     }
 
+    // primitive getters return 0 or false for SQL NULL values
+    if (record.wasNull())
+      return null;
+    return value;
   }
 
   /**
@@ -506,6 +659,10 @@ public class OGraphEngineForDB {
         return Arrays.equals(oldPropertyBinary, newPropertyBinary);
       } else if (currentPropertyType.equals("BOOLEAN")) {
 
+        if (oldProperty instanceof Boolean && newProperty instanceof Boolean)
+          return oldProperty.equals(newProperty);
+
+        // values written as strings by previous migrations
         if (oldProperty.toString().equalsIgnoreCase(newProperty.toString()))
           return true;
 
@@ -534,7 +691,12 @@ public class OGraphEngineForDB {
         // oldProperty : Date (year, month, day, hours, minutes, seconds, millis)
         return ((Date) oldProperty).equals((Date) newProperty);
       } else if (currentPropertyType.equals("DECIMAL")) {
+        if (oldProperty instanceof BigDecimal && newProperty instanceof BigDecimal)
+          return ((BigDecimal) oldProperty).compareTo((BigDecimal) newProperty) == 0;
         return oldProperty.equals(new BigDecimal(newProperty.toString()));
+      } else if (oldProperty.getClass() == newProperty.getClass() && newProperty instanceof Number) {
+        // native values on both sides: no parsing needed
+        return oldProperty.equals(newProperty);
       } else if (currentPropertyType.equals("DOUBLE")) {
         return oldProperty.equals(new Double(newProperty.toString()));
       } else if (currentPropertyType.equals("FLOAT")) {
@@ -579,7 +741,8 @@ public class OGraphEngineForDB {
       throws SQLException {
 
     OrientVertex currentInVertex = null;
-    String propsAndValuesOfKey = "";
+    String[] propertyOfKey = null;
+    String[] valueOfKey = null;
     String direction = relation.getDirection();
 
     try {
@@ -588,8 +751,8 @@ public class OGraphEngineForDB {
 
       // building keys and values for the lookup
       List<OAttribute> fromColumns = relation.getFromColumns();
-      String[] propertyOfKey = new String[fromColumns.size()];
-      String[] valueOfKey = new String[fromColumns.size()];
+      propertyOfKey = new String[fromColumns.size()];
+      valueOfKey = new String[fromColumns.size()];
 
       int index = 0;
       for (OAttribute foreignAttribute : fromColumns) {
@@ -599,17 +762,9 @@ public class OGraphEngineForDB {
         index++;
       }
 
-      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-        String s = "Keys and values in the lookup (upsertVisitedVertex):\t";
-        for (int i = 0; i < propertyOfKey.length; i++) {
-          propsAndValuesOfKey += propertyOfKey[i] + ":" + valueOfKey[i] + ",";
-        }
-        if (propsAndValuesOfKey.length() > 0)
-          propsAndValuesOfKey = propsAndValuesOfKey.substring(0, propsAndValuesOfKey.length() - 1);
-        else
-          propsAndValuesOfKey = "no identifier for the current record.";
-        s += propsAndValuesOfKey;
-        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\n" + s + "\n");
+      if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .debug(this, "\nKeys and values in the lookup (upsertVisitedVertex):\t%s\n", describeKey(propertyOfKey, valueOfKey));
       }
 
       // new vertex is added only if all the values in the foreign key are different from null
@@ -625,33 +780,47 @@ public class OGraphEngineForDB {
       // all values are different from null, thus vertex is searched in the graph and in case is added if not found.
       if (ok) {
 
-        currentInVertex = this.getVertexByIndexedKey(orientGraph, propertyOfKey, valueOfKey, currentInVertexType.getName());
+        // sources imported concurrently, or parallel writers, could reach the same vertex: lookup and insert must be atomic
+        boolean sharingGraph = this.isSharingGraph();
+        if (sharingGraph) {
+          OSharedGraphLocks.getInstance().lockKey(currentInVertexType.getName(), valueOfKey);
+        }
+        try {
+          currentInVertex = this.getVertexByIndexedKey(orientGraph, propertyOfKey, valueOfKey, currentInVertexType.getName());
 
-        /*
-         *  if the vertex is not already present in the graph it's built, set and inserted to the graph,
-         *  then the edge between the current-out-vertex and the current-in-vertex is added
-         */
-        if (currentInVertex == null) {
+          /*
+           *  if the vertex is not already present in the graph it's built, set and inserted to the graph,
+           *  then the edge between the current-out-vertex and the current-in-vertex is added
+           */
+          if (currentInVertex == null) {
 
-          Map<String, Object> partialProperties = new LinkedHashMap<String, Object>();
+            Map<String, Object> partialProperties = new LinkedHashMap<String, Object>();
 
-          // for each attribute in the foreign key belonging to the relationship, attribute name and correspondent value are added to a 'properties map'
-          for (int i = 0; i < propertyOfKey.length; i++) {
-            partialProperties.put(propertyOfKey[i], valueOfKey[i]);
-          }
+            // for each attribute in the foreign key belonging to the relationship, attribute name and correspondent value are added to a 'properties map'
+            for (int i = 0; i < propertyOfKey.length; i++) {
+              partialProperties.put(propertyOfKey[i], valueOfKey[i]);
+            }
 
-          String classAndClusterName = currentInVertexType.getName();
-          currentInVertex = this.addVertexToGraph(orientGraph, classAndClusterName, partialProperties);
-          statistics.orientAddedVertices++;
-          if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-            OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNEW Reached vertex (id:value) --> %s:%s\n", Arrays.toString(propertyOfKey), Arrays.toString(valueOfKey));
-            OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew vertex inserted (only pk props set): %s\n", currentInVertex.toString());
-          }
+            String classAndClusterName = currentInVertexType.getName();
+            currentInVertex = this
+                .addVertexToGraph(this.getPartitionGraph(orientGraph, valueOfKey), classAndClusterName, partialProperties);
+            this.registerAddedVertex(this.getPartitionGraph(orientGraph, valueOfKey), classAndClusterName, valueOfKey,
+                currentInVertex);
+            statistics.orientAddedVertices++;
+            if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+              OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNEW Reached vertex (id:value) --> %s:%s\n", Arrays.toString(propertyOfKey), Arrays.toString(valueOfKey));
+              OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew vertex inserted (only pk props set): %s\n", currentInVertex.toString());
+            }
 
-        } else {
-          if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-            OTeleporterContext.getInstance().getMessageHandler()
-                .debug(this, "\nNOT NEW Reached vertex, vertex %s:%s already present in the Orient Graph.\n", Arrays.toString(propertyOfKey), Arrays.toString(valueOfKey));
+          } else {
+            if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+              OTeleporterContext.getInstance().getMessageHandler()
+                  .debug(this, "\nNOT NEW Reached vertex, vertex %s:%s already present in the Orient Graph.\n", Arrays.toString(propertyOfKey), Arrays.toString(valueOfKey));
+            }
+          }
+        } finally {
+          if (sharingGraph) {
+            OSharedGraphLocks.getInstance().unlockKey(currentInVertexType.getName(), valueOfKey);
           }
         }
 
@@ -661,11 +830,10 @@ public class OGraphEngineForDB {
 
     } catch (Exception e) {
       String mess = "Problem encountered during the upsert of a reached vertex. Vertex Type: " + currentInVertexType.getName()
-          + ";\tOriginal Record: " + propsAndValuesOfKey;
+          + ";\tOriginal Record: " + describeKey(propertyOfKey, valueOfKey);
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
-      if (orientGraph != null)
-        orientGraph.shutdown();
+      this.shutdownOnFailure(orientGraph);
       throw new OTeleporterRuntimeException(e);
     }
 
@@ -673,7 +841,7 @@ public class OGraphEngineForDB {
   }
 
   /**
-   * Dead!
+   * Dead! Logical relationships are imported through connectVerticesOfLogicalRelationship.
    *
    * @param orientGraph
    * @param relation
@@ -685,7 +853,6 @@ public class OGraphEngineForDB {
   public void connectVertexToRelatedVertices(OrientBaseGraph orientGraph, OLogicalRelationship relation, Vertex currentOutVertex,
       OVertexType currentOutVertexType, OVertexType currentInVertexType, String edgeTypeName) {
 
-    String propsAndValuesOfKey = "";
     String direction = relation.getDirection();
 
     try {
@@ -706,17 +873,9 @@ public class OGraphEngineForDB {
         index++;
       }
 
-      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-        String s = "Keys and values in the lookup (upsertVisitedVertex):\t";
-        for (int i = 0; i < propertyOfKey.length; i++) {
-          propsAndValuesOfKey += propertyOfKey[i] + ":" + valueOfKey[i] + ",";
-        }
-        if (propsAndValuesOfKey.length() > 0)
-          propsAndValuesOfKey = propsAndValuesOfKey.substring(0, propsAndValuesOfKey.length() - 1);
-        else
-          propsAndValuesOfKey = "no identifier for the current record.";
-        s += propsAndValuesOfKey;
-        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\n" + s + "\n");
+      if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .debug(this, "\nKeys and values in the lookup (upsertVisitedVertex):\t%s\n", describeKey(propertyOfKey, valueOfKey));
       }
 
       // new vertex is added only if all the values in the foreign key are different from null
@@ -734,7 +893,8 @@ public class OGraphEngineForDB {
 
         int verticesCount = (int) orientGraph.getVertexType(currentInVertexType.getName()).count();
         OTeleporterContext.getInstance().getStatistics().leftVerticesCurrentLogicalRelationship = verticesCount;
-        Iterable<Vertex> inVertices = orientGraph.getVertices(currentInVertexType.getName(), propertyOfKey, valueOfKey);
+        Iterable<Vertex> inVertices = this.getPartitionGraph(orientGraph, valueOfKey)
+            .getVertices(currentInVertexType.getName(), propertyOfKey, valueOfKey);
 
         for (Vertex currentInVertex : inVertices) {
           this.insertEdge(orientGraph, (OrientVertex) currentOutVertex, (OrientVertex) currentInVertex, edgeTypeName, null,
@@ -756,9 +916,309 @@ public class OGraphEngineForDB {
 
   }
 
+  /**
+   * Connects all the vertices related through a logical relationship with a single hash join.
+   * The smaller of the two vertex classes is scanned once to build a hash table on the join properties, then the other class is
+   * streamed and each vertex probes the table, so each class is read just once and no lookup on (possibly not indexed)
+   * properties is performed. Edges are created in batches of LOGICAL_RELATIONSHIP_BATCH_SIZE.
+   *
+   * @param orientGraph
+   * @param relation
+   * @param foreignVertexType vertex type mapping the foreign entity of the relationship
+   * @param parentVertexType  vertex type mapping the parent entity of the relationship
+   * @param edgeTypeName
+   */
+  public void connectVerticesOfLogicalRelationship(OrientBaseGraph orientGraph, OLogicalRelationship relation,
+      OVertexType foreignVertexType, OVertexType parentVertexType, String edgeTypeName) {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    String direction = relation.getDirection();
+
+    try {
+
+      // join properties on both sides
+      List<OAttribute> fromColumns = relation.getFromColumns();
+      List<OAttribute> toColumns = relation.getToColumns();
+      String[] foreignProperties = new String[fromColumns.size()];
+      String[] parentProperties = new String[toColumns.size()];
+      List<String> excludedColumns = new ArrayList<String>();
+      for (int i = 0; i < fromColumns.size(); i++) {
+        foreignProperties[i] = mapper.getIncludedPropertyNameByVertexTypeAndAttribute(foreignVertexType, fromColumns.get(i).getName());
+        parentProperties[i] = mapper.getIncludedPropertyNameByVertexTypeAndAttribute(parentVertexType, toColumns.get(i).getName());
+        if (foreignProperties[i] == null) {
+          excludedColumns.add(relation.getForeignEntity().getName() + "." + fromColumns.get(i).getName());
+        }
+        if (parentProperties[i] == null) {
+          excludedColumns.add(relation.getParentEntity().getName() + "." + toColumns.get(i).getName());
+        }
+      }
+
+      // a join column excluded by the configuration is not written on the vertices, so no vertex has a complete join key
+      if (!excludedColumns.isEmpty()) {
+        String warning = "The logical relationship between " + relation.getForeignEntity().getName() + " and " + relation
+            .getParentEntity().getName() + " lost the join columns " + excludedColumns
+            + ", excluded from the migration by the configuration: no '" + edgeTypeName + "' edges are built.";
+        OTeleporterContext.getInstance().getMessageHandler().warn(this, "\n%s\n", warning);
+        statistics.warningMessages.add(warning);
+        return;
+      }
+
+      // the smaller class is the build side, the other one is streamed as probe side
+      int partitions = this.getPartitionsCount();
+      long foreignVerticesCount = 0;
+      long parentVerticesCount = 0;
+      long edgesCount = 0;
+      for (int partition = 0; partition < partitions; partition++) {
+        OrientBaseGraph partitionGraph = this.getPartitionGraph(orientGraph, partition);
+        foreignVerticesCount += partitionGraph.getVertexType(foreignVertexType.getName()).count();
+        parentVerticesCount += partitionGraph.getVertexType(parentVertexType.getName()).count();
+        if (!this.lightweightEdgeTypes.contains(edgeTypeName)) {
+          edgesCount += partitionGraph.getEdgeType(edgeTypeName).count();
+        }
+      }
+      boolean buildOnParentSide = parentVerticesCount <= foreignVerticesCount;
+
+      String buildClassName = buildOnParentSide ? parentVertexType.getName() : foreignVertexType.getName();
+      String probeClassName = buildOnParentSide ? foreignVertexType.getName() : parentVertexType.getName();
+      String[] buildProperties = buildOnParentSide ? parentProperties : foreignProperties;
+      String[] probeProperties = buildOnParentSide ? foreignProperties : parentProperties;
+
+      if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .debug(this, "\nJoining '%s' (build side) and '%s' (probe side) to build '%s' edges.\n", buildClassName, probeClassName,
+                edgeTypeName);
+      }
+
+      // build phase (a hash table for each partition of the output, as RIDs are unique within a partition only)
+      List<Map<String, List<ORID>>> buildSides = new ArrayList<Map<String, List<ORID>>>(partitions);
+      for (int partition = 0; partition < partitions; partition++) {
+        Map<String, List<ORID>> buildSide = new HashMap<String, List<ORID>>();
+        for (Vertex currentVertex : this.getPartitionGraph(orientGraph, partition).getVerticesOfClass(buildClassName, false)) {
+          String joinKey = this.buildJoinKey(currentVertex, buildProperties);
+          if (joinKey != null) {
+            List<ORID> matchingVertices = buildSide.get(joinKey);
+            if (matchingVertices == null) {
+              matchingVertices = new ArrayList<ORID>(1);
+              buildSide.put(joinKey, matchingVertices);
+            }
+            matchingVertices.add(((OrientVertex) currentVertex).getIdentity());
+          }
+        }
+        buildSides.add(buildSide);
+      }
+
+      // if the edge class is still empty no duplicate check is needed when the edges are added (lightweight edges are not counted)
+      boolean upsertNeeded = this.lightweightEdgeTypes.contains(edgeTypeName) || edgesCount > 0;
+
+      // probe phase
+      statistics.leftVerticesCurrentLogicalRelationship = (int) (buildOnParentSide ? foreignVerticesCount : parentVerticesCount);
+      statistics.doneLeftVerticesCurrentLogicalRelationship = 0;
+
+      List<ORID[]> pendingEdges = new ArrayList<ORID[]>(LOGICAL_RELATIONSHIP_BATCH_SIZE);
+      List<int[]> pendingEdgesPartitions = new ArrayList<int[]>(LOGICAL_RELATIONSHIP_BATCH_SIZE);
+      for (int probePartition = 0; probePartition < partitions; probePartition++) {
+        OrientBaseGraph probeGraph = this.getPartitionGraph(orientGraph, probePartition);
+        for (Vertex currentVertex : probeGraph.getVerticesOfClass(probeClassName, false)) {
+          String joinKey = this.buildJoinKey(currentVertex, probeProperties);
+          if (joinKey != null) {
+            ORID probeVertexId = ((OrientVertex) currentVertex).getIdentity();
+            for (int buildPartition = 0; buildPartition < partitions; buildPartition++) {
+              List<ORID> matchingVertices = buildSides.get(buildPartition).get(joinKey);
+              if (matchingVertices != null) {
+                for (ORID buildVertexId : matchingVertices) {
+                  // each pair is stored as [foreign vertex, parent vertex], together with the partitions of the two vertices
+                  if (buildOnParentSide) {
+                    pendingEdges.add(new ORID[] { probeVertexId, buildVertexId });
+                    pendingEdgesPartitions.add(new int[] { probePartition, buildPartition });
+                  } else {
+                    pendingEdges.add(new ORID[] { buildVertexId, probeVertexId });
+                    pendingEdgesPartitions.add(new int[] { buildPartition, probePartition });
+                  }
+                }
+              }
+            }
+          }
+          if (pendingEdges.size() >= LOGICAL_RELATIONSHIP_BATCH_SIZE) {
+            this.flushLogicalRelationshipEdges(orientGraph, pendingEdges, pendingEdgesPartitions, edgeTypeName, direction,
+                upsertNeeded);
+            probeGraph.makeActive();
+          }
+          statistics.doneLeftVerticesCurrentLogicalRelationship++;
+        }
+      }
+      this.flushLogicalRelationshipEdges(orientGraph, pendingEdges, pendingEdgesPartitions, edgeTypeName, direction, upsertNeeded);
+
+    } catch (OTeleporterRuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      String mess = "Problem encountered during the connection of the vertices related through a logical relationship. foreignVertexType: "
+          + foreignVertexType.getName() + ", parentVertexType: " + parentVertexType.getName();
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      this.shutdownOnFailure(orientGraph);
+      throw new OTeleporterRuntimeException(e);
+    }
+
+  }
+
+  /**
+   * Adds the edges collected during the probe phase of a logical relationship join and clears the batch.
+   * Each pending edge is a pair [foreign vertex, parent vertex], the direction of the relationship is applied when the edge is added.
+   */
+  private void flushLogicalRelationshipEdges(OrientBaseGraph orientGraph, List<ORID[]> pendingEdges,
+      List<int[]> pendingEdgesPartitions, String edgeTypeName, String direction, boolean upsertNeeded) {
+
+    for (int i = 0; i < pendingEdges.size(); i++) {
+      ORID[] pendingEdge = pendingEdges.get(i);
+      int[] pendingEdgePartitions = pendingEdgesPartitions.get(i);
+      OrientVertex foreignVertex = this.getPartitionGraph(orientGraph, pendingEdgePartitions[0]).getVertex(pendingEdge[0]);
+      OrientVertex parentVertex = this.getPartitionGraph(orientGraph, pendingEdgePartitions[1]).getVertex(pendingEdge[1]);
+      if (upsertNeeded) {
+        this.upsertEdge(orientGraph, foreignVertex, parentVertex, edgeTypeName, null, direction);
+      } else {
+        this.insertEdge(orientGraph, foreignVertex, parentVertex, edgeTypeName, null, direction);
+      }
+    }
+    pendingEdges.clear();
+    pendingEdgesPartitions.clear();
+  }
+
+  /**
+   * Builds the key used to match two vertices in a logical relationship join. Values are normalized to their string
+   * representation, as the join columns of the two entities may have been mapped onto different types.
+   *
+   * @return the key or null if at least one of the join properties is null.
+   */
+  private String buildJoinKey(Vertex vertex, String[] properties) {
+
+    if (properties.length == 1) {
+      return this.normalizeJoinValue(vertex.getProperty(properties[0]));
+    }
+
+    StringBuilder joinKey = new StringBuilder();
+    for (String property : properties) {
+      String value = this.normalizeJoinValue(vertex.getProperty(property));
+      if (value == null) {
+        return null;
+      }
+      joinKey.append(value).append(JOIN_KEY_SEPARATOR);
+    }
+    return joinKey.toString();
+  }
+
+  private String normalizeJoinValue(Object value) {
+
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).stripTrailingZeros().toPlainString();
+    }
+    return value.toString();
+  }
+
   public void upsertEdge(OrientBaseGraph orientGraph, OrientVertex currentOutVertex, OrientVertex currentInVertex, String edgeType,
       Map<String, Object> properties, String direction) {
 
+    if (this.isSharingGraph()) {
+      this.lockVerticesOfEdge(currentOutVertex, currentInVertex);
+      try {
+        this.doUpsertEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, direction);
+      } finally {
+        OSharedGraphLocks.getInstance().unlockVertices(currentOutVertex.getIdentity(), currentInVertex.getIdentity());
+      }
+    } else {
+      this.doUpsertEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, direction);
+    }
+  }
+
+  /**
+   * Adds an edge without checking whether it's already present.
+   *
+   * @param orientGraph
+   * @param currentOutVertex
+   * @param currentInVertex
+   * @param edgeType
+   * @param properties
+   * @param direction
+   */
+  public void insertEdge(OrientBaseGraph orientGraph, OrientVertex currentOutVertex, OrientVertex currentInVertex, String edgeType,
+      Map<String, Object> properties, String direction) {
+
+    if (this.isSharingGraph()) {
+      this.lockVerticesOfEdge(currentOutVertex, currentInVertex);
+      try {
+        this.doInsertEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, direction);
+      } finally {
+        OSharedGraphLocks.getInstance().unlockVertices(currentOutVertex.getIdentity(), currentInVertex.getIdentity());
+      }
+    } else {
+      this.doInsertEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, direction);
+    }
+  }
+
+  /**
+   * Locks both the vertices of an edge against the other writers, then reloads them as their edge lists may have
+   * been updated meanwhile.
+   */
+  private void lockVerticesOfEdge(OrientVertex currentOutVertex, OrientVertex currentInVertex) {
+
+    OSharedGraphLocks.getInstance().lockVertices(currentOutVertex.getIdentity(), currentInVertex.getIdentity());
+    try {
+      this.reloadVertex(currentOutVertex);
+      this.reloadVertex(currentInVertex);
+    } catch (RuntimeException e) {
+      OSharedGraphLocks.getInstance().unlockVertices(currentOutVertex.getIdentity(), currentInVertex.getIdentity());
+      throw e;
+    }
+  }
+
+  private void reloadVertex(OrientVertex vertex) {
+    if (vertex.getIdentity().isPersistent()) {
+      if (this.partitioner != null) {
+        // the vertex may belong to a database different from the active one
+        vertex.getGraph().makeActive();
+      }
+      vertex.getRecord().reload();
+    }
+  }
+
+  /**
+   * Records the edge in the side structure of the partitioner if its vertices belong to different partitions.
+   *
+   * @return true if the vertices belong to different partitions
+   */
+  private boolean handledAsCrossPartitionEdge(OrientBaseGraph orientGraph, OrientVertex currentOutVertex,
+      OrientVertex currentInVertex, String edgeType, Map<String, Object> properties, String direction, boolean checkPresence) {
+
+    if (this.partitioner == null || this.partitioner.partitionOf(currentOutVertex) == this.partitioner.partitionOf(currentInVertex)) {
+      return false;
+    }
+
+    boolean recorded = false;
+    if (direction != null && direction.equals("direct")) {
+      recorded = this.partitioner
+          .recordCrossPartitionEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, checkPresence);
+    } else if (direction != null && direction.equals("inverse")) {
+      recorded = this.partitioner
+          .recordCrossPartitionEdge(orientGraph, currentInVertex, currentOutVertex, edgeType, properties, checkPresence);
+    }
+    if (recorded) {
+      OTeleporterContext.getInstance().getStatistics().incrementOrientAddedEdges();
+    }
+    return true;
+  }
+
+  private void doUpsertEdge(OrientBaseGraph orientGraph, OrientVertex currentOutVertex, OrientVertex currentInVertex, String edgeType,
+      Map<String, Object> properties, String direction) {
+
+    if (this.handledAsCrossPartitionEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, direction, true)) {
+      return;
+    }
+    if (this.partitioner != null) {
+      orientGraph = this.partitioner.getGraph(orientGraph, this.partitioner.partitionOf(currentOutVertex));
+    }
+
     try {
 
       boolean edgeAlreadyPresent = false;
@@ -777,33 +1237,31 @@ public class OGraphEngineForDB {
           }
         }
         if (edgeAlreadyPresent) {
-          if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+          if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
             OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nEdge between '%s' and '%s' already present.\n", currentOutVertex.toString(), currentInVertex.toString());
           }
         } else {
           OrientEdge edge = null;
           if (direction != null && direction.equals("direct")) {
-            edge = this.addEdgeToGraph(orientGraph, null, currentOutVertex, currentInVertex, edgeType);
+            edge = this.addEdgeToGraph(orientGraph, currentOutVertex, currentInVertex, edgeType, properties);
           } else if (direction != null && direction.equals("inverse")) {
-            edge = this.addEdgeToGraph(orientGraph, null, currentInVertex, currentOutVertex, edgeType);
+            edge = this.addEdgeToGraph(orientGraph, currentInVertex, currentOutVertex, edgeType, properties);
           }
-          this.setElementProperties(edge, properties);
-          statistics.orientAddedEdges++;
-          if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-            OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew edge inserted: %s\n", edge.toString());
+          statistics.incrementOrientAddedEdges();
+          if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+            OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew edge inserted: %s\n", String.valueOf(edge));
           }
         }
       } else {
         OrientEdge edge = null;
         if (direction != null && direction.equals("direct")) {
-          edge = this.addEdgeToGraph(orientGraph, null, currentOutVertex, currentInVertex, edgeType);
+          edge = this.addEdgeToGraph(orientGraph, currentOutVertex, currentInVertex, edgeType, properties);
         } else if (direction != null && direction.equals("inverse")) {
-          edge = this.addEdgeToGraph(orientGraph, null, currentInVertex, currentOutVertex, edgeType);
+          edge = this.addEdgeToGraph(orientGraph, currentInVertex, currentOutVertex, edgeType, properties);
         }
-        this.setElementProperties(edge, properties);
-        statistics.orientAddedEdges++;
-        if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-          OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew edge inserted: %s\n", edge.toString());
+        statistics.incrementOrientAddedEdges();
+        if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+          OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew edge inserted: %s\n", String.valueOf(edge));
         }
       }
     } catch (Exception e) {
@@ -811,39 +1269,33 @@ public class OGraphEngineForDB {
           "Problem encountered during the upsert of an edge. Vertex-out: " + currentOutVertex + ";\tVertex-in: " + currentInVertex;
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
-      if (orientGraph != null)
-        orientGraph.shutdown();
+      this.shutdownOnFailure(orientGraph);
       throw new OTeleporterRuntimeException(e);
     }
   }
 
-  /**
-   * Dead!
-   *
-   * @param orientGraph
-   * @param currentOutVertex
-   * @param currentInVertex
-   * @param edgeType
-   * @param properties
-   * @param direction
-   */
-  public void insertEdge(OrientBaseGraph orientGraph, OrientVertex currentOutVertex, OrientVertex currentInVertex, String edgeType,
+  private void doInsertEdge(OrientBaseGraph orientGraph, OrientVertex currentOutVertex, OrientVertex currentInVertex, String edgeType,
       Map<String, Object> properties, String direction) {
 
+    if (this.handledAsCrossPartitionEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, properties, direction, false)) {
+      return;
+    }
+    if (this.partitioner != null) {
+      orientGraph = this.partitioner.getGraph(orientGraph, this.partitioner.partitionOf(currentOutVertex));
+    }
+
     OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
 
     try {
       OrientEdge edge = null;
       if (direction != null && direction.equals("direct")) {
-        edge = this.addEdgeToGraph(orientGraph, null, currentOutVertex, currentInVertex, edgeType);
+        edge = this.addEdgeToGraph(orientGraph, currentOutVertex, currentInVertex, edgeType, properties);
       } else if (direction != null && direction.equals("inverse")) {
-        edge = this.addEdgeToGraph(orientGraph, null, currentInVertex, currentOutVertex, edgeType);
+        edge = this.addEdgeToGraph(orientGraph, currentInVertex, currentOutVertex, edgeType, properties);
       }
-      this.setElementProperties(edge, properties);
-      statistics.orientAddedEdges++;
-      statistics.doneLeftVerticesCurrentLogicalRelationship++;
-      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
-        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew edge inserted: %s\n", edge.toString());
+      statistics.incrementOrientAddedEdges();
+      if (OTeleporterContext.getInstance().isLevelEnabled("debug")) {
+        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nNew edge inserted: %s\n", String.valueOf(edge));
       }
 
     } catch (Exception e) {
@@ -851,8 +1303,7 @@ public class OGraphEngineForDB {
           "Problem encountered during the insert of an edge. Vertex-out: " + currentOutVertex + ";\tVertex-in: " + currentInVertex;
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
-      if (orientGraph != null)
-        orientGraph.shutdown();
+      this.shutdownOnFailure(orientGraph);
       throw new OTeleporterRuntimeException(e);
     }
   }
@@ -860,6 +1311,22 @@ public class OGraphEngineForDB {
   public void upsertAggregatorEdge(OrientBaseGraph orientGraph, ResultSet jointTableRecord, OEntity joinTable,
       OAggregatorEdge aggregatorEdge) throws SQLException {
 
+    OJoinTableRow joinTableRow = this.extractJoinTableRow(jointTableRecord, joinTable, aggregatorEdge);
+    this.upsertAggregatorEdge(orientGraph, joinTableRow, null);
+  }
+
+  /**
+   * Extracts from a join table record the keys of the two vertices to connect and the properties of the aggregator edge.
+   * It doesn't access the graph, so a failure leaves the graph of the caller untouched.
+   *
+   * @param jointTableRecord
+   * @param joinTable
+   * @param aggregatorEdge
+   *
+   * @return the extracted row, it doesn't hold any reference to the record.
+   */
+  public OJoinTableRow extractJoinTableRow(ResultSet jointTableRecord, OEntity joinTable, OAggregatorEdge aggregatorEdge) {
+
     try {
 
       Iterator<OCanonicalRelationship> it = joinTable.getOutCanonicalRelationships().iterator();
@@ -895,18 +1362,14 @@ public class OGraphEngineForDB {
       // String direction
       String direction = joinTable.getDirectionOfN2NRepresentedRelationship();
 
-      OrientVertex currentOutVertex;
-      OrientVertex currentInVertex;
+      String outVertexClassName;
+      String inVertexClassName;
       if (direction.equals("direct")) {
-        currentOutVertex = this
-            .getVertexByIndexedKey(orientGraph, keysOutVertex, valuesOutVertex, aggregatorEdge.getOutVertexClassName());
-        currentInVertex = this
-            .getVertexByIndexedKey(orientGraph, keysInVertex, valuesInVertex, aggregatorEdge.getInVertexClassName());
+        outVertexClassName = aggregatorEdge.getOutVertexClassName();
+        inVertexClassName = aggregatorEdge.getInVertexClassName();
       } else {
-        currentOutVertex = this
-            .getVertexByIndexedKey(orientGraph, keysOutVertex, valuesOutVertex, aggregatorEdge.getInVertexClassName());
-        currentInVertex = this
-            .getVertexByIndexedKey(orientGraph, keysInVertex, valuesInVertex, aggregatorEdge.getOutVertexClassName());
+        outVertexClassName = aggregatorEdge.getInVertexClassName();
+        inVertexClassName = aggregatorEdge.getOutVertexClassName();
       }
 
       // extracting edge properties from the join table
@@ -935,26 +1398,94 @@ public class OGraphEngineForDB {
         }
       }
 
-      this.upsertEdge(orientGraph, currentOutVertex, currentInVertex, aggregatorEdge.getEdgeType().getName(), properties,
-          direction);
+      // the key of the record is kept only to identify it in the dead-letter file, if the row fails
+      Map<String, String> key = null;
+      if (OTeleporterContext.getInstance().getSettings().getDeadLetterPath() != null) {
+        key = ODeadLetterSink.readPrimaryKey(jointTableRecord, joinTable);
+      }
+      return new OJoinTableRow(joinTable.getName(), key, keysOutVertex, valuesOutVertex, outVertexClassName, keysInVertex,
+          valuesInVertex, inVertexClassName, edgeType.getName(), properties, direction);
 
     } catch (Exception e) {
       String mess = "";
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
-      if (orientGraph != null)
-        orientGraph.shutdown();
       throw new OTeleporterRuntimeException(e);
     }
   }
 
+  /**
+   * Upserts the aggregator edge corresponding to a join table row.
+   * If a resolver is passed the two vertices are resolved through it, and when the resolver is shared by several writers
+   * both the vertices are locked and reloaded before the edge is added.
+   * The graph is left open on failure: it can be shared by several writers, so it's shut down by the strategy owning it.
+   *
+   * @param orientGraph
+   * @param joinTableRow
+   * @param resolver     can be null, in that case the vertices are looked up in the graph.
+   */
+  public void upsertAggregatorEdge(OrientBaseGraph orientGraph, OJoinTableRow joinTableRow, OVertexResolver resolver) {
+
+    try {
+
+      OrientVertex currentOutVertex;
+      OrientVertex currentInVertex;
+      if (resolver != null) {
+        currentOutVertex = resolver.resolve(orientGraph, this, joinTableRow.getOutVertexClassName(), joinTableRow.getKeysOutVertex(),
+            joinTableRow.getValuesOutVertex());
+        currentInVertex = resolver.resolve(orientGraph, this, joinTableRow.getInVertexClassName(), joinTableRow.getKeysInVertex(),
+            joinTableRow.getValuesInVertex());
+      } else {
+        currentOutVertex = this.getVertexByIndexedKey(orientGraph, joinTableRow.getKeysOutVertex(), joinTableRow.getValuesOutVertex(),
+            joinTableRow.getOutVertexClassName());
+        currentInVertex = this.getVertexByIndexedKey(orientGraph, joinTableRow.getKeysInVertex(), joinTableRow.getValuesInVertex(),
+            joinTableRow.getInVertexClassName());
+      }
+
+      if (resolver != null && resolver.isShared()) {
+        ORID outVertexId = currentOutVertex.getIdentity();
+        ORID inVertexId = currentInVertex.getIdentity();
+        resolver.lock(outVertexId, inVertexId);
+        try {
+          // other writers may have updated the edge lists of the two vertices meanwhile
+          currentOutVertex.getRecord().reload();
+          currentInVertex.getRecord().reload();
+          this.upsertEdge(orientGraph, currentOutVertex, currentInVertex, joinTableRow.getEdgeTypeName(), joinTableRow.getProperties(),
+              joinTableRow.getDirection());
+        } finally {
+          resolver.unlock(outVertexId, inVertexId);
+        }
+      } else {
+        this.upsertEdge(orientGraph, currentOutVertex, currentInVertex, joinTableRow.getEdgeTypeName(), joinTableRow.getProperties(),
+            joinTableRow.getDirection());
+      }
+
+    } catch (OTeleporterRuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      String mess = "";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "error");
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+
   private OrientVertex addVertexToGraph(OrientBaseGraph orientGraph, String classAndClusterName, Map<String, Object> properties) {
 
     try {
-      if (classAndClusterName != null)
+      if (classAndClusterName != null) {
+        String clusterName = this.getWriterClusterName(classAndClusterName);
+        if (this.documentSink != null) {
+          return this.documentSink.addVertex(orientGraph, classAndClusterName, clusterName, properties);
+        }
+        if (clusterName != null) {
+          return orientGraph.addVertex("class:" + classAndClusterName + ",cluster:" + clusterName, properties);
+        }
         return orientGraph.addVertex("class:" + classAndClusterName, properties);
+      }
     } catch (OValidationException e) {
-      OTeleporterContext.getInstance().getStatistics().errorMessages.add(e.getMessage());
+      OTeleporterContext.getInstance().getStatistics().addErrorMessage(e.getMessage());
     }
     return null;
   }
@@ -965,17 +1496,69 @@ public class OGraphEngineForDB {
     try {
       return orientGraph.addEdge(id, currentOutVertex, currentInVertex, edgeType);
     } catch (OValidationException e) {
-      OTeleporterContext.getInstance().getStatistics().errorMessages.add(e.getMessage());
+      OTeleporterContext.getInstance().getStatistics().addErrorMessage(e.getMessage());
     }
     return null;
   }
 
+  /**
+   * Adds an edge and sets its properties, through the document sink if enabled.
+   */
+  private OrientEdge addEdgeToGraph(OrientBaseGraph orientGraph, OrientVertex currentOutVertex, OrientVertex currentInVertex,
+      String edgeType, Map<String, Object> properties) {
+
+    if (this.lightweightEdgeTypes.contains(edgeType) && (properties == null || properties.isEmpty())) {
+      return this.addLightweightEdgeToGraph(orientGraph, currentOutVertex, currentInVertex, edgeType);
+    }
+
+    if (this.documentSink != null) {
+      try {
+        return this.documentSink.addEdge(orientGraph, currentOutVertex, currentInVertex, edgeType, this.getWriterClusterName(edgeType),
+            properties);
+      } catch (OValidationException e) {
+        OTeleporterContext.getInstance().getStatistics().addErrorMessage(e.getMessage());
+      }
+      return null;
+    }
+
+    String clusterName = this.getWriterClusterName(edgeType);
+    Object id = clusterName != null ? "cluster:" + clusterName : null;
+    OrientEdge edge = this.addEdgeToGraph(orientGraph, id, currentOutVertex, currentInVertex, edgeType);
+    if (edge != null && properties != null) {
+      this.setElementProperties(edge, properties);
+    }
+    return edge;
+  }
+
+  /**
+   * Adds a lightweight edge. Blueprints creates lightweight edges according to a graph setting, so it's enabled just for the
+   * current insert.
+   *
+   * @return the added edge, null if it was written through the document sink.
+   */
+  private OrientEdge addLightweightEdgeToGraph(OrientBaseGraph orientGraph, OrientVertex currentOutVertex,
+      OrientVertex currentInVertex, String edgeType) {
+
+    if (this.documentSink != null) {
+      this.documentSink.addLightweightEdge(orientGraph, currentOutVertex, currentInVertex, edgeType);
+      return null;
+    }
+
+    boolean useLightweightEdges = orientGraph.isUseLightweightEdges();
+    orientGraph.setUseLightweightEdges(true);
+    try {
+      return this.addEdgeToGraph(orientGraph, null, currentOutVertex, currentInVertex, edgeType);
+    } finally {
+      orientGraph.setUseLightweightEdges(useLightweightEdges);
+    }
+  }
+
   private void setElementProperties(OrientElement element, Map<String, Object> properties) {
 
     try {
       element.setProperties(properties);
     } catch (OValidationException e) {
-      OTeleporterContext.getInstance().getStatistics().errorMessages.add(e.getMessage());
+      OTeleporterContext.getInstance().getStatistics().addErrorMessage(e.getMessage());
     }
 
   }
@@ -992,4 +1575,34 @@ public class OGraphEngineForDB {
     currentOutVertex.setProperties(updatedProps);
 
   }
+
+  /**
+   * Shuts the graph down before a row failure is propagated. When the failed rows are collected in a dead-letter file the graph is
+   * left open, as the import goes on with the next row.
+   */
+  private void shutdownOnFailure(OrientBaseGraph orientGraph) {
+    if (orientGraph != null && OTeleporterContext.getInstance().getSettings().getDeadLetterPath() == null) {
+      orientGraph.shutdown();
+    }
+  }
+
+  /**
+   * Builds the "property:value" description of a record key, used in the debug and error messages. It's called only when a
+   * message is actually printed.
+   */
+  private static String describeKey(String[] propertyOfKey, String[] valueOfKey) {
+
+    if (propertyOfKey == null || valueOfKey == null || propertyOfKey.length == 0) {
+      return "no identifier for the current record.";
+    }
+
+    StringBuilder description = new StringBuilder();
+    for (int i = 0; i < propertyOfKey.length; i++) {
+      if (i > 0) {
+        description.append(',');
+      }
+      description.append(propertyOfKey[i]).append(':').append(valueOfKey[i]);
+    }
+    return description.toString();
+  }
 }
@@ -0,0 +1,201 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.util.*;
+
+/**
+ * Routes the vertices over several target databases (partitions) according to a hash of their external key, so that the same
+ * vertex is always written and looked up in the same partition. The first partition is the target database of the migration,
+ * where the migration configuration is kept too.
+ * Edges between vertices of different partitions can't be stored as OrientDB edges: they are recorded as documents of the
+ * CROSS_PARTITION_EDGE_CLASS class in the partition of their out-vertex, each one holding the edge class, the out-vertex, the
+ * partition and the RID of the in-vertex and the edge properties.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OGraphPartitioner {
+
+  public static final String CROSS_PARTITION_EDGE_CLASS = "OCrossPartitionEdge";
+
+  private final List<String>                       partitionUrls;
+  private final List<OrientGraphFactory>           factories;
+  private final ThreadLocal<OrientBaseGraph[]>     threadGraphs;      // graphs are bound to the thread opening them
+  private final Map<OrientBaseGraph, Integer>      graph2partition;
+  private final List<OrientBaseGraph>              openedGraphs;
+
+  /**
+   * @param partitionUrls URLs of the target databases, the first one is the target database of the migration.
+   */
+  public OGraphPartitioner(List<String> partitionUrls) {
+    this.partitionUrls = new ArrayList<String>(partitionUrls);
+    this.factories = new ArrayList<OrientGraphFactory>();
+    for (String partitionUrl : this.partitionUrls) {
+      this.factories.add(new OrientGraphFactory(partitionUrl, "admin", "admin"));
+    }
+    this.threadGraphs = new ThreadLocal<OrientBaseGraph[]>();
+    this.graph2partition = Collections.synchronizedMap(new IdentityHashMap<OrientBaseGraph, Integer>());
+    this.openedGraphs = Collections.synchronizedList(new ArrayList<OrientBaseGraph>());
+  }
+
+  public int getPartitionsCount() {
+    return this.partitionUrls.size();
+  }
+
+  public List<String> getPartitionUrls() {
+    return this.partitionUrls;
+  }
+
+  /**
+   * Returns the partition of the vertex identified by the passed external key values.
+   */
+  public int partitionOf(String[] keyValues) {
+    return (this.hash(keyValues) & 0x7fffffff) % this.partitionUrls.size();
+  }
+
+  /**
+   * Returns the partition of a vertex loaded or added through a graph of this partitioner. Vertices loaded through any other
+   * graph belong to the target database of the migration, the first partition.
+   */
+  public int partitionOf(OrientVertex vertex) {
+    Integer partition = this.graph2partition.get(vertex.getGraph());
+    return partition != null ? partition : 0;
+  }
+
+  /**
+   * Hash of the external key values: String.hashCode is specified by the JDK, so the routing is the same in every run and a
+   * synchronization finds each vertex in the partition it was written to.
+   */
+  protected int hash(String[] keyValues) {
+    return Arrays.hashCode(keyValues);
+  }
+
+  /**
+   * Returns the graph of the current thread on the passed partition and makes it active. The graph of the first partition is the
+   * one passed by the caller, the graphs of the other partitions are opened on first use.
+   *
+   * @param targetGraph graph of the current thread on the target database of the migration
+   */
+  public OrientBaseGraph getGraph(OrientBaseGraph targetGraph, int partition) {
+
+    OrientBaseGraph graph;
+    if (partition == 0) {
+      graph = targetGraph;
+    } else {
+      OrientBaseGraph[] graphs = this.threadGraphs.get();
+      if (graphs == null) {
+        graphs = new OrientBaseGraph[this.partitionUrls.size()];
+        this.threadGraphs.set(graphs);
+      }
+      if (graphs[partition] == null || graphs[partition].isClosed()) {
+        graphs[partition] = this.factories.get(partition).getNoTx();
+        graphs[partition].getRawGraph().declareIntent(new OIntentMassiveInsert());
+        graphs[partition].setStandardElementConstraints(false);
+        this.graph2partition.put(graphs[partition], partition);
+        this.openedGraphs.add(graphs[partition]);
+      }
+      graph = graphs[partition];
+    }
+    graph.makeActive();
+    return graph;
+  }
+
+  /**
+   * Records an edge between vertices of different partitions in the partition of the out-vertex.
+   *
+   * @param checkPresence if true the edge is not recorded when already present
+   *
+   * @return true if the edge was recorded
+   */
+  public boolean recordCrossPartitionEdge(OrientBaseGraph targetGraph, OrientVertex outVertex, OrientVertex inVertex,
+      String edgeType, Map<String, Object> properties, boolean checkPresence) {
+
+    int inPartition = this.partitionOf(inVertex);
+    String inVertexId = inVertex.getIdentity().toString();
+    ORID outVertexId = outVertex.getIdentity();
+    OrientBaseGraph graph = this.getGraph(targetGraph, this.partitionOf(outVertex));
+
+    if (checkPresence) {
+      List<ODocument> presentEdges = graph.getRawGraph().query(new OSQLSynchQuery<ODocument>(
+          "select from " + CROSS_PARTITION_EDGE_CLASS + " where out = ? and label = ? and inPartition = ? and in = ?"),
+          outVertexId, edgeType, inPartition, inVertexId);
+      if (!presentEdges.isEmpty()) {
+        return false;
+      }
+    }
+
+    ODocument crossPartitionEdge = new ODocument(CROSS_PARTITION_EDGE_CLASS);
+    crossPartitionEdge.field("label", edgeType);
+    crossPartitionEdge.field("out", outVertexId);
+    crossPartitionEdge.field("inPartition", inPartition);
+    crossPartitionEdge.field("in", inVertexId);
+    if (properties != null && !properties.isEmpty()) {
+      crossPartitionEdge.field("properties", new LinkedHashMap<String, Object>(properties), OType.EMBEDDEDMAP);
+    }
+    graph.getRawGraph().save(crossPartitionEdge);
+    return true;
+  }
+
+  /**
+   * Creates the class of the cross-partition edges, if not present, in the database of the passed graph.
+   */
+  public static void createCrossPartitionEdgeClass(OrientBaseGraph orientGraph) {
+
+    OSchema schema = orientGraph.getRawGraph().getMetadata().getSchema();
+    if (!schema.existsClass(CROSS_PARTITION_EDGE_CLASS)) {
+      OClass crossPartitionEdgeClass = schema.createClass(CROSS_PARTITION_EDGE_CLASS);
+      crossPartitionEdgeClass.createProperty("label", OType.STRING);
+      crossPartitionEdgeClass.createProperty("out", OType.LINK);
+      crossPartitionEdgeClass.createProperty("inPartition", OType.INTEGER);
+      crossPartitionEdgeClass.createProperty("in", OType.STRING);
+      crossPartitionEdgeClass.createIndex(CROSS_PARTITION_EDGE_CLASS + ".out", OClass.INDEX_TYPE.NOTUNIQUE_HASH_INDEX, "out");
+    }
+  }
+
+  /**
+   * Closes the graphs opened on the partitions by all the threads.
+   */
+  public void shutdown() {
+    synchronized (this.openedGraphs) {
+      for (OrientBaseGraph graph : this.openedGraphs) {
+        if (!graph.isClosed()) {
+          graph.shutdown();
+        }
+      }
+      this.openedGraphs.clear();
+    }
+    this.graph2partition.clear();
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import java.util.Map;
+
+/**
+ * Values extracted from a join table record, ready to be written as an aggregator edge.
+ * Decouples the reading of the join table from the writing of the edges, so that the rows can be handed over to other threads.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OJoinTableRow {
+
+  private String              joinTableName;
+  private Map<String, String> key;              // primary key of the join table record
+  private String[]            keysOutVertex;
+  private String[]            valuesOutVertex;
+  private String              outVertexClassName;
+  private String[]            keysInVertex;
+  private String[]            valuesInVertex;
+  private String              inVertexClassName;
+  private String              edgeTypeName;
+  private Map<String, Object> properties;
+  private String              direction;
+
+  public OJoinTableRow(String joinTableName, Map<String, String> key, String[] keysOutVertex, String[] valuesOutVertex,
+      String outVertexClassName, String[] keysInVertex, String[] valuesInVertex, String inVertexClassName, String edgeTypeName,
+      Map<String, Object> properties, String direction) {
+    this.joinTableName = joinTableName;
+    this.key = key;
+    this.keysOutVertex = keysOutVertex;
+    this.valuesOutVertex = valuesOutVertex;
+    this.outVertexClassName = outVertexClassName;
+    this.keysInVertex = keysInVertex;
+    this.valuesInVertex = valuesInVertex;
+    this.inVertexClassName = inVertexClassName;
+    this.edgeTypeName = edgeTypeName;
+    this.properties = properties;
+    this.direction = direction;
+  }
+
+  public String getJoinTableName() {
+    return this.joinTableName;
+  }
+
+  public Map<String, String> getKey() {
+    return this.key;
+  }
+
+  public String[] getKeysOutVertex() {
+    return this.keysOutVertex;
+  }
+
+  public String[] getValuesOutVertex() {
+    return this.valuesOutVertex;
+  }
+
+  public String getOutVertexClassName() {
+    return this.outVertexClassName;
+  }
+
+  public String[] getKeysInVertex() {
+    return this.keysInVertex;
+  }
+
+  public String[] getValuesInVertex() {
+    return this.valuesInVertex;
+  }
+
+  public String getInVertexClassName() {
+    return this.inVertexClassName;
+  }
+
+  public String getEdgeTypeName() {
+    return this.edgeTypeName;
+  }
+
+  public Map<String, Object> getProperties() {
+    return this.properties;
+  }
+
+  public String getDirection() {
+    return this.direction;
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes into the target graph the aggregator edges of the join table rows taken from a queue, through its own graph instance.
+ * Several writers can run in parallel sharing the same OVertexResolver. The writer stops when END_OF_ROWS is taken
+ * or at the first failure, which is kept to be rethrown by the thread feeding the queue. If a dead-letter sink is passed the
+ * failed rows are written there and the writer goes on with the next ones.
+ * Each writer is pinned to its own cluster of the edge classes it writes into.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OJoinTableRowWriter implements Runnable {
+
+  public static final OJoinTableRow END_OF_ROWS = new OJoinTableRow(null, null, null, null, null, null, null, null, null, null,
+      null);
+
+  private final BlockingQueue<OJoinTableRow> rows;
+  private final OrientGraphFactory           factory;
+  private final OGraphEngineForDB            graphEngine;
+  private final OVertexResolver              resolver;
+  private final int                          writerIndex;
+  private final ODeadLetterSink              deadLetterSink;    // null if a failed row stops the writer
+  private volatile Exception                 failure;
+
+  public OJoinTableRowWriter(BlockingQueue<OJoinTableRow> rows, OrientGraphFactory factory, OGraphEngineForDB graphEngine,
+      OVertexResolver resolver, int writerIndex, ODeadLetterSink deadLetterSink) {
+    this.rows = rows;
+    this.factory = factory;
+    this.graphEngine = graphEngine;
+    this.resolver = resolver;
+    this.writerIndex = writerIndex;
+    this.deadLetterSink = deadLetterSink;
+  }
+
+  @Override
+  public void run() {
+
+    OrientBaseGraph orientGraph = this.factory.getNoTx();
+    orientGraph.getRawGraph().declareIntent(new OIntentMassiveInsert());
+    orientGraph.setStandardElementConstraints(false);
+    this.graphEngine.pinCurrentThreadToWriterCluster(this.writerIndex);
+
+    try {
+      OJoinTableRow currentRow = this.rows.take();
+      while (currentRow != END_OF_ROWS) {
+        try {
+          this.graphEngine.upsertAggregatorEdge(orientGraph, currentRow, this.resolver);
+        } catch (RuntimeException e) {
+          if (this.deadLetterSink == null) {
+            throw e;
+          }
+          this.deadLetterSink.write(Collections.singletonList(currentRow.getJoinTableName()), null, ODeadLetterSink.EDGES_PHASE,
+              currentRow.getKey(), e);
+        }
+        currentRow = this.rows.take();
+      }
+    } catch (Exception e) {
+      this.failure = e;
+    } finally {
+      this.graphEngine.unpinCurrentThread();
+      if (!orientGraph.isClosed()) {
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  public BlockingQueue<OJoinTableRow> getRows() {
+    return this.rows;
+  }
+
+  public Exception getFailure() {
+    return this.failure;
+  }
+
+}
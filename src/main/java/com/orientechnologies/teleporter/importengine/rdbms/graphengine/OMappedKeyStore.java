@@ -0,0 +1,278 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Key to RID store kept in memory-mapped files, so that its size is bounded by the local disk and not by the heap.
+ * It's an open addressing hash table with fixed-size slots, sized once from the expected number of keys: each slot holds a 64-bit
+ * fingerprint of the key and the RID. The slots are split in segments of at most SLOTS_PER_SEGMENT slots, each one mapped from
+ * its own file, and the probing of a key never leaves its segment, so each segment is guarded by its own lock.
+ * The key itself is not stored: the RIDs of two keys with the same fingerprint are kept in different slots and both returned for
+ * each of the keys, so the caller must check the returned RIDs.
+ * The files are unmapped and deleted by close().
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMappedKeyStore {
+
+  public static final int   SLOT_SIZE         = 20;        // fingerprint (8 bytes), cluster id (4 bytes), cluster position (8 bytes)
+  public static final int   SLOTS_PER_SEGMENT = 1 << 25;   // about 640 MB mapped by each segment
+  private static final int  MIN_SLOTS         = 1 << 10;
+  private static final double LOAD_FACTOR     = 0.7;       // the capacity is sized to keep the expected keys under this load
+  private static final double MAX_LOAD        = 0.9;       // over this load a segment doesn't accept new keys anymore
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME        = 0x100000001b3L;
+
+  private final File               directory;
+  private final int                slotsPerSegment;
+  private final MappedByteBuffer[] segments;
+  private final File[]             files;
+  private final int[]              usedSlots;
+  private final int                maxUsedSlots;
+
+  /**
+   * @param directory    directory hosting the files of the store
+   * @param expectedKeys number of keys the store is sized for
+   */
+  public OMappedKeyStore(File directory, long expectedKeys) {
+
+    long slots = MIN_SLOTS;
+    while (slots < expectedKeys / LOAD_FACTOR) {
+      slots <<= 1;
+    }
+    this.slotsPerSegment = (int) Math.min(slots, SLOTS_PER_SEGMENT);
+    int numberOfSegments = (int) (slots / this.slotsPerSegment);
+    this.maxUsedSlots = (int) (this.slotsPerSegment * MAX_LOAD);
+
+    this.directory = directory;
+    this.segments = new MappedByteBuffer[numberOfSegments];
+    this.files = new File[numberOfSegments];
+    this.usedSlots = new int[numberOfSegments];
+
+    try {
+      directory.mkdirs();
+      for (int i = 0; i < numberOfSegments; i++) {
+        this.files[i] = File.createTempFile("teleporter-keys-", ".map", directory);
+        this.files[i].deleteOnExit();
+        RandomAccessFile file = new RandomAccessFile(this.files[i], "rw");
+        try {
+          long size = (long) this.slotsPerSegment * SLOT_SIZE;
+          file.setLength(size);
+          // the mapping stays valid after the channel is closed
+          this.segments[i] = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+          file.close();
+        }
+      }
+    } catch (IOException e) {
+      this.close();
+      throw new OTeleporterRuntimeException(e);
+    }
+  }
+
+  /**
+   * Stores the RID of the key. The slots of the fingerprint are probed up to the first empty one, so the RIDs of other keys with
+   * the same fingerprint are kept, while a RID already stored for the fingerprint is not stored twice.
+   *
+   * @return false if the segment of the key is full and the key was not stored.
+   */
+  public boolean put(String key, ORID rid) {
+
+    long fingerprint = fingerprint(key);
+    int segmentIndex = this.segmentIndex(fingerprint);
+    MappedByteBuffer segment = this.segments[segmentIndex];
+    int mask = this.slotsPerSegment - 1;
+    this.checkMapped(segment, segmentIndex);
+
+    synchronized (segment) {
+      this.checkMapped(segment, segmentIndex);
+      int slot = (int) fingerprint & mask;
+      while (true) {
+        int offset = slot * SLOT_SIZE;
+        long current = segment.getLong(offset);
+        if (current == 0) {
+          if (this.usedSlots[segmentIndex] >= this.maxUsedSlots) {
+            return false;
+          }
+          this.usedSlots[segmentIndex]++;
+          segment.putLong(offset, fingerprint);
+          segment.putInt(offset + 8, rid.getClusterId());
+          segment.putLong(offset + 12, rid.getClusterPosition());
+          return true;
+        }
+        if (current == fingerprint && segment.getInt(offset + 8) == rid.getClusterId()
+            && segment.getLong(offset + 12) == rid.getClusterPosition()) {
+          return true;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+  }
+
+  /**
+   * Linear probing inside the segment up to the first empty slot, which is always found as the segment never fills up.
+   *
+   * @return the RIDs stored for the key and for the keys with the same fingerprint, empty if not present.
+   */
+  public List<ORID> get(String key) {
+
+    long fingerprint = fingerprint(key);
+    int segmentIndex = this.segmentIndex(fingerprint);
+    MappedByteBuffer segment = this.segments[segmentIndex];
+    int mask = this.slotsPerSegment - 1;
+    this.checkMapped(segment, segmentIndex);
+    List<ORID> rids = new ArrayList<ORID>(1);
+
+    synchronized (segment) {
+      this.checkMapped(segment, segmentIndex);
+      int slot = (int) fingerprint & mask;
+      while (true) {
+        int offset = slot * SLOT_SIZE;
+        long current = segment.getLong(offset);
+        if (current == 0) {
+          return rids;
+        }
+        if (current == fingerprint) {
+          rids.add(new ORecordId(segment.getInt(offset + 8), segment.getLong(offset + 12)));
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+  }
+
+  public long size() {
+    long size = 0;
+    for (int i = 0; i < this.segments.length; i++) {
+      synchronized (this.segments[i]) {
+        size += this.usedSlots[i];
+      }
+    }
+    return size;
+  }
+
+  public long capacity() {
+    return (long) this.slotsPerSegment * this.segments.length;
+  }
+
+  public File getDirectory() {
+    return this.directory;
+  }
+
+  /**
+   * Unmaps and deletes the files of the store. The store can't be used anymore.
+   */
+  public void close() {
+    for (int i = 0; i < this.files.length; i++) {
+      if (this.segments[i] != null) {
+        MappedByteBuffer segment = this.segments[i];
+        synchronized (segment) {
+          this.segments[i] = null;
+          unmap(segment);
+        }
+      }
+      if (this.files[i] != null) {
+        this.files[i].delete();
+      }
+    }
+  }
+
+  /**
+   * An unmapped segment must not be accessed anymore, the JVM would crash: the check is repeated once the lock of the segment is
+   * held, as close() could have unmapped it in the meanwhile.
+   */
+  private void checkMapped(MappedByteBuffer segment, int segmentIndex) {
+    if (segment == null || this.segments[segmentIndex] != segment) {
+      throw new OTeleporterRuntimeException("The key store is closed.");
+    }
+  }
+
+  /**
+   * Releases the mapping right away instead of waiting for the buffer to be garbage collected, since a file still mapped can't be
+   * deleted on some platforms (e.g. Windows) and keeps its disk space on the others. The cleaner is reached by reflection, as it
+   * isn't part of the public API: the unsafe invokeCleaner on Java 9 and later, the cleaner of the direct buffer on Java 8. If
+   * neither is available the mapping is released by the garbage collector.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (Exception e) {
+      // not available before Java 9
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (Exception e) {
+      // left to the garbage collector
+    }
+  }
+
+  /**
+   * The slot is chosen through the low bits of the fingerprint, the segment through the high ones.
+   */
+  private int segmentIndex(long fingerprint) {
+    return (int) ((fingerprint >>> 32) % this.segments.length);
+  }
+
+  /**
+   * FNV-1a hash of the key, followed by a final mixing so that the low bits used for the slots are well distributed.
+   * 0 marks the empty slots, so it's never returned.
+   */
+  private static long fingerprint(String key) {
+
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash != 0 ? hash : 1;
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sink optimized for targets reached through the remote protocol, where each write and each lookup is a round trip.
+ * The graph is transactional: the vertices and edges written in a batch are buffered by the client and sent to the server in a
+ * single request when the batch is committed. The vertices looked up or added during the batch are kept by key, so the following
+ * lookups of the same keys in the batch, as the in-vertices reached by several records, are resolved without further requests.
+ * The vertices are forgotten at each commit, so the heap taken is bounded by the batch size.
+ * Each thread keeps its own vertices, as they belong to the graph instance of the thread.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ORemoteGraphSink {
+
+  private static final char KEY_SEPARATOR = '\u0000';
+
+  private final ThreadLocal<Map<String, OrientVertex>> batchVertices;
+
+  public ORemoteGraphSink() {
+    this.batchVertices = new ThreadLocal<Map<String, OrientVertex>>() {
+      @Override
+      protected Map<String, OrientVertex> initialValue() {
+        return new HashMap<String, OrientVertex>();
+      }
+    };
+  }
+
+  /**
+   * Opens the transactional graph the batches are written through.
+   */
+  public static OrientBaseGraph openGraph(OrientGraphFactory factory) {
+    return factory.getTx();
+  }
+
+  /**
+   * @return true if the writes on the graph are buffered until the batch is committed, so its vertices can be kept by key.
+   */
+  public boolean isBatched(OrientBaseGraph orientGraph) {
+    return orientGraph instanceof TransactionalGraph;
+  }
+
+  /**
+   * @return the vertex with the passed key values looked up or added in the current batch, null if not present.
+   */
+  public OrientVertex getVertex(String vertexClassName, String[] values) {
+    return this.batchVertices.get().get(this.buildKey(vertexClassName, values));
+  }
+
+  public void putVertex(String vertexClassName, String[] values, OrientVertex vertex) {
+    this.batchVertices.get().put(this.buildKey(vertexClassName, values), vertex);
+  }
+
+  /**
+   * Forgets the vertices of the batch just committed by the current thread.
+   */
+  public void endBatch() {
+    this.batchVertices.get().clear();
+  }
+
+  private String buildKey(String vertexClassName, String[] values) {
+    StringBuilder key = new StringBuilder(vertexClassName);
+    for (String value : values) {
+      key.append(KEY_SEPARATOR).append(value);
+    }
+    return key.toString();
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.id.ORID;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks shared by all the writers of the JVM, coordinating the threads that write in the same graph:
+ * - the key locks serialize the upserts of a vertex (lookup, then insert or update) with the same class and key values, so that
+ * sources imported concurrently don't insert the same vertex twice;
+ * - the vertex locks serialize the updates of the edge lists of a vertex: a writer holds the locks of both the vertices of an
+ * edge while adding it. Key locks are always acquired before vertex locks.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OSharedGraphLocks {
+
+  private static final int LOCK_STRIPES = 1024;
+
+  private static final OSharedGraphLocks instance = new OSharedGraphLocks();
+
+  private final ReentrantLock[] keyLocks;
+  private final ReentrantLock[] vertexLocks;
+
+  private OSharedGraphLocks() {
+    this.keyLocks = new ReentrantLock[LOCK_STRIPES];
+    this.vertexLocks = new ReentrantLock[LOCK_STRIPES];
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      this.keyLocks[i] = new ReentrantLock();
+      this.vertexLocks[i] = new ReentrantLock();
+    }
+  }
+
+  public static OSharedGraphLocks getInstance() {
+    return instance;
+  }
+
+  public void lockKey(String className, String[] values) {
+    this.keyLocks[this.keyStripeOf(className, values)].lock();
+  }
+
+  public void unlockKey(String className, String[] values) {
+    this.keyLocks[this.keyStripeOf(className, values)].unlock();
+  }
+
+  /**
+   * Acquires the locks of the two vertices, always in the same order to avoid deadlocks between writers.
+   */
+  public void lockVertices(ORID first, ORID second) {
+    int firstStripe = this.vertexStripeOf(first);
+    int secondStripe = this.vertexStripeOf(second);
+    this.vertexLocks[Math.min(firstStripe, secondStripe)].lock();
+    if (firstStripe != secondStripe) {
+      this.vertexLocks[Math.max(firstStripe, secondStripe)].lock();
+    }
+  }
+
+  public void unlockVertices(ORID first, ORID second) {
+    int firstStripe = this.vertexStripeOf(first);
+    int secondStripe = this.vertexStripeOf(second);
+    if (firstStripe != secondStripe) {
+      this.vertexLocks[Math.max(firstStripe, secondStripe)].unlock();
+    }
+    this.vertexLocks[Math.min(firstStripe, secondStripe)].unlock();
+  }
+
+  private int keyStripeOf(String className, String[] values) {
+    int hash = className.toLowerCase().hashCode() * 31 + Arrays.hashCode(values);
+    return (hash & 0x7fffffff) % LOCK_STRIPES;
+  }
+
+  private int vertexStripeOf(ORID rid) {
+    return (rid.hashCode() & 0x7fffffff) % LOCK_STRIPES;
+  }
+
+}
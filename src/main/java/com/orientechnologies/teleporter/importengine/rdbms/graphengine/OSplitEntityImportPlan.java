@@ -0,0 +1,273 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
+import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
+import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEEClassMapper;
+import com.orientechnologies.teleporter.model.dbschema.OCanonicalRelationship;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.model.graphmodel.OEdgeType;
+import com.orientechnologies.teleporter.model.graphmodel.OModelProperty;
+import com.orientechnologies.teleporter.model.graphmodel.OVertexType;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decisions taken once for a split entity (1 entity mapped with several vertex classes) and applied to each of its records:
+ * the relationships each vertex class navigates, the vertices joined by each splitting-edge and the types of the edge properties.
+ * The plan is immutable, so it can be shared by several writers importing the records of the same entity in parallel.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OSplitEntityImportPlan {
+
+  private final OEntity                  entity;
+  private final OVertexType[]            vertexTypes;
+  private final boolean[]                navigate;                    // true if the vertex of the vertex type navigates the relationships
+  private final OCanonicalRelationship[] relationships;               // relationships outgoing from the entity
+  private final OVertexType[]            relationshipInVertexTypes;
+  private final String[]                 relationshipEdgeTypes;
+  private final String[]                 splittingEdgeTypes;
+  private final OEdgeType[]              splittingEdgeModelTypes;
+  private final int[]                    splittingEdgeOutVertices;    // index of the out-vertex type of each splitting-edge
+  private final int[]                    splittingEdgeInVertices;     // index of the in-vertex type of each splitting-edge
+  private final String[][]               edgePropertyNames;
+  private final String[][]               edgePropertyTypes;
+  private final String[][]               edgePropertyOriginalTypes;
+
+  public OSplitEntityImportPlan(OEntity entity, List<OVertexType> mappedVertices, OER2GraphMapper mapper) {
+
+    this.entity = entity;
+    this.vertexTypes = mappedVertices.toArray(new OVertexType[mappedVertices.size()]);
+
+    // relationships navigated from the vertices of the entity
+    List<OCanonicalRelationship> navigatedRelationships = new ArrayList<OCanonicalRelationship>();
+    List<OVertexType> inVertexTypes = new ArrayList<OVertexType>();
+    List<String> edgeTypes = new ArrayList<String>();
+    for (OCanonicalRelationship currentRelationship : entity.getOutCanonicalRelationships()) {
+      OEntity currentParentEntity = mapper.getDataBaseSchema().getEntityByName(currentRelationship.getParentEntity().getName());
+      OEdgeType edgeType = mapper.getRelationship2edgeType().get(currentRelationship);
+      if (edgeType != null) {
+        navigatedRelationships.add(currentRelationship);
+        inVertexTypes.add(mapper.getVertexTypeByEntityAndRelationship(currentParentEntity, currentRelationship));
+        edgeTypes.add(edgeType.getName());
+      }
+    }
+    this.relationships = navigatedRelationships.toArray(new OCanonicalRelationship[navigatedRelationships.size()]);
+    this.relationshipInVertexTypes = inVertexTypes.toArray(new OVertexType[inVertexTypes.size()]);
+    this.relationshipEdgeTypes = edgeTypes.toArray(new String[edgeTypes.size()]);
+
+    // a vertex type navigates the relationships if it's the out-vertex type of a direct edge or the in-vertex type of an inverse one
+    this.navigate = new boolean[this.vertexTypes.length];
+    for (int i = 0; i < this.vertexTypes.length; i++) {
+      for (OCanonicalRelationship currentRelationship : entity.getAllOutCanonicalRelationships()) {
+        OEdgeType currEdgeType = mapper.getRelationship2edgeType().get(currentRelationship);
+        if (currEdgeType != null) {
+          if ((currentRelationship.getDirection().equals("direct") && this.vertexTypes[i].getOutEdgesType().contains(currEdgeType)) || (
+              currentRelationship.getDirection().equals("inverse") && this.vertexTypes[i].getInEdgesType().contains(currEdgeType))) {
+            this.navigate[i] = true;
+            break;
+          }
+        }
+      }
+    }
+
+    // checking that: total number of edges = number of mapped vertices -1
+    List<OEEClassMapper> classMappers = mapper.getEEClassMappersByEntity(entity);
+    int numberOfEdges = classMappers.size();
+    int numberOfVertices = this.vertexTypes.length;
+    if (numberOfEdges != numberOfVertices - 1) {
+      OTeleporterContext.getInstance().getMessageHandler().error(this,
+          "There are %s edges-type and %s vertices-type detected for the split entity %s. "
+              + "For a correct splitting you must have: total number of edges = number of mapped vertices -1.", numberOfEdges,
+          numberOfVertices, entity.getName());
+      throw new OTeleporterRuntimeException();
+    }
+
+    this.splittingEdgeTypes = new String[numberOfEdges];
+    this.splittingEdgeModelTypes = new OEdgeType[numberOfEdges];
+    this.splittingEdgeOutVertices = new int[numberOfEdges];
+    this.splittingEdgeInVertices = new int[numberOfEdges];
+    this.edgePropertyNames = new String[numberOfEdges][];
+    this.edgePropertyTypes = new String[numberOfEdges][];
+    this.edgePropertyOriginalTypes = new String[numberOfEdges][];
+    for (int i = 0; i < numberOfEdges; i++) {
+      OEdgeType currentEdgeType = classMappers.get(i).getEdgeType();
+      this.splittingEdgeTypes[i] = currentEdgeType.getName();
+      this.splittingEdgeModelTypes[i] = currentEdgeType;
+      this.splittingEdgeOutVertices[i] = this.indexOfVertexType(currentEdgeType.getOutVertexType().getName());
+      this.splittingEdgeInVertices[i] = this.indexOfVertexType(currentEdgeType.getInVertexType().getName());
+
+      List<OModelProperty> properties = new ArrayList<OModelProperty>();
+      for (OModelProperty currentProperty : currentEdgeType.getAllProperties()) {
+        if (currentProperty.isIncludedInMigration()) {
+          properties.add(currentProperty);
+        }
+      }
+      this.edgePropertyNames[i] = new String[properties.size()];
+      this.edgePropertyTypes[i] = new String[properties.size()];
+      this.edgePropertyOriginalTypes[i] = new String[properties.size()];
+      for (int j = 0; j < properties.size(); j++) {
+        OModelProperty currentProperty = properties.get(j);
+        this.edgePropertyNames[i][j] = currentProperty.getName();
+        this.edgePropertyTypes[i][j] = OTeleporterContext.getInstance().getDataTypeHandler()
+            .resolveType(currentProperty.getOriginalType().toLowerCase(Locale.ENGLISH)).toString();
+        this.edgePropertyOriginalTypes[i][j] = currentProperty.getOriginalType();
+      }
+    }
+  }
+
+  private int indexOfVertexType(String vertexTypeName) {
+    for (int i = 0; i < this.vertexTypes.length; i++) {
+      if (this.vertexTypes[i].getName().equals(vertexTypeName)) {
+        return i;
+      }
+    }
+    OTeleporterContext.getInstance().getMessageHandler()
+        .error(this, "The '%s' vertex type is not mapped with the split entity %s.", vertexTypeName, this.entity.getName());
+    throw new OTeleporterRuntimeException();
+  }
+
+  public OEntity getEntity() {
+    return this.entity;
+  }
+
+  /**
+   * @return a buffer for the vertices built from a record, to be reused for all the records imported by the same thread
+   */
+  public OrientVertex[] newVertexBuffer() {
+    return new OrientVertex[this.vertexTypes.length];
+  }
+
+  /**
+   * Imports the record as a vertex for each vertex class, with the relationships of the entity, then connects the vertices
+   * through the splitting-edges.
+   *
+   * @param vertices buffer returned by newVertexBuffer
+   */
+  public void importRecord(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine, ResultSet record, OrientVertex[] vertices)
+      throws SQLException {
+    this.upsertVertices(orientGraph, graphEngine, record, vertices);
+    this.upsertEdges(orientGraph, graphEngine, record, vertices);
+  }
+
+  /**
+   * Builds a vertex from the record for each vertex class.
+   */
+  private void upsertVertices(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine, ResultSet record,
+      OrientVertex[] vertices) throws SQLException {
+    for (int i = 0; i < this.vertexTypes.length; i++) {
+      OVertexType currentVertexType = this.vertexTypes[i];
+      vertices[i] = (OrientVertex) graphEngine
+          .upsertVisitedVertex(orientGraph, record, currentVertexType, currentVertexType.getExternalKey());
+    }
+  }
+
+  /**
+   * Builds the edges of the relationships of the entity and the splitting edges between the vertices built from the record.
+   */
+  private void upsertEdges(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine, ResultSet record, OrientVertex[] vertices)
+      throws SQLException {
+
+    for (int i = 0; i < this.vertexTypes.length; i++) {
+
+      // navigating relationships outgoing from the entity: for each of them the correspondent edge is built and the in-vertex is
+      // upserted in the graph database
+      if (this.navigate[i]) {
+        for (int j = 0; j < this.relationships.length; j++) {
+          graphEngine.upsertReachedVertexWithEdge(orientGraph, record, this.relationships[j], vertices[i],
+              this.relationshipInVertexTypes[j], this.relationshipEdgeTypes[j]);
+        }
+      }
+    }
+
+    // adding coherently the splitting edges between the just added vertices
+    for (int i = 0; i < this.splittingEdgeTypes.length; i++) {
+      Map<String, Object> properties;
+      if (this.edgePropertyNames[i].length == 0) {
+        properties = Collections.emptyMap();
+      } else {
+        properties = new LinkedHashMap<String, Object>();
+        for (int j = 0; j < this.edgePropertyNames[i].length; j++) {
+          try {
+            graphEngine.extractPropertiesFromRecordIntoEdge(record, properties, this.edgePropertyTypes[i][j],
+                this.edgePropertyNames[i][j], this.edgePropertyOriginalTypes[i][j], this.splittingEdgeModelTypes[i]);
+          } catch (Exception e) {
+            String mess = "Problem encountered during the extraction of the values from the records. Edge Type: "
+                + this.splittingEdgeTypes[i] + ";\tProperty: " + this.edgePropertyNames[i][j];
+            OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+            OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+          }
+        }
+      }
+      graphEngine.upsertEdge(orientGraph, vertices[this.splittingEdgeOutVertices[i]], vertices[this.splittingEdgeInVertices[i]],
+          this.splittingEdgeTypes[i], properties, "direct");
+    }
+  }
+
+  /**
+   * Imports the record as importRecord does. If a dead-letter sink is passed a failure doesn't stop the import: the record is
+   * written into the sink and the next one can be imported.
+   *
+   * @param deadLetterSink null if a failure must be rethrown
+   */
+  public void importRecord(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine, ResultSet record, OrientVertex[] vertices,
+      ODeadLetterSink deadLetterSink) throws SQLException {
+
+    if (deadLetterSink == null) {
+      this.importRecord(orientGraph, graphEngine, record, vertices);
+      return;
+    }
+    String phase = ODeadLetterSink.VERTEX_PHASE;
+    try {
+      this.upsertVertices(orientGraph, graphEngine, record, vertices);
+      phase = ODeadLetterSink.EDGES_PHASE;
+      this.upsertEdges(orientGraph, graphEngine, record, vertices);
+    } catch (Exception e) {
+      deadLetterSink.write(Collections.singletonList(this.entity.getName()), this.vertexTypes[0].getName(), phase,
+          ODeadLetterSink.readPrimaryKey(record, this.entity), e);
+    }
+  }
+
+  /**
+   * Sets the vertex types of the entity as 'analyzed'.
+   */
+  public void setAnalyzed() {
+    for (OVertexType currentVertexType : this.vertexTypes) {
+      currentVertexType.setAnalyzedInLastMigration(true);
+    }
+  }
+
+}
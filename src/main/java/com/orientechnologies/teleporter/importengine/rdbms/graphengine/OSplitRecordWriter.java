@@ -0,0 +1,103 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.OMaterializedRecordCursor;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes into the target graph the records of a split entity taken in chunks from a queue, through its own graph instance and
+ * according to the import plan of the entity. Several writers can take the chunks from the same queue. The writer stops when
+ * END_OF_RECORDS is taken or at the first failure, which is kept to be rethrown by the thread feeding the queue. If a dead-letter
+ * sink is passed the failed records are written there and the writer goes on with the next ones.
+ * Each writer is pinned to its own cluster of the classes it writes into.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OSplitRecordWriter implements Runnable {
+
+  public static final List<Object[]> END_OF_RECORDS = new ArrayList<Object[]>(0);
+
+  private final BlockingQueue<List<Object[]>> records;
+  private final String[]                      columns;
+  private final OrientGraphFactory            factory;
+  private final OGraphEngineForDB             graphEngine;
+  private final OSplitEntityImportPlan        plan;
+  private final int                           writerIndex;
+  private final ODeadLetterSink               deadLetterSink;    // null if a failed record stops the writer
+  private volatile Exception                  failure;
+
+  public OSplitRecordWriter(BlockingQueue<List<Object[]>> records, String[] columns, OrientGraphFactory factory,
+      OGraphEngineForDB graphEngine, OSplitEntityImportPlan plan, int writerIndex, ODeadLetterSink deadLetterSink) {
+    this.records = records;
+    this.columns = columns;
+    this.factory = factory;
+    this.graphEngine = graphEngine;
+    this.plan = plan;
+    this.writerIndex = writerIndex;
+    this.deadLetterSink = deadLetterSink;
+  }
+
+  @Override
+  public void run() {
+
+    OrientBaseGraph orientGraph = this.factory.getNoTx();
+    orientGraph.getRawGraph().declareIntent(new OIntentMassiveInsert());
+    orientGraph.setStandardElementConstraints(false);
+    this.graphEngine.pinCurrentThreadToWriterCluster(this.writerIndex);
+    OrientVertex[] vertices = this.plan.newVertexBuffer();
+
+    try {
+      List<Object[]> currentChunk = this.records.take();
+      while (currentChunk != END_OF_RECORDS) {
+        ResultSet currentRecords = new OMaterializedRecordCursor(this.columns, currentChunk);
+        while (currentRecords.next()) {
+          this.plan.importRecord(orientGraph, this.graphEngine, currentRecords, vertices, this.deadLetterSink);
+        }
+        this.graphEngine.endBatch();
+        currentChunk = this.records.take();
+      }
+    } catch (Exception e) {
+      this.failure = e;
+    } finally {
+      this.graphEngine.unpinCurrentThread();
+      if (!orientGraph.isClosed()) {
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  public Exception getFailure() {
+    return this.failure;
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the key values of a vertex to its RID, caching the results so that the same vertex is looked up in the graph just once.
+ * The first MAX_CACHED_KEYS resolutions are cached in heap, the following ones spill into an OMappedKeyStore sized from the
+ * number of records counted while building the source schema, so the cache is bounded by the local disk and not by the heap.
+ * The spill files are deleted by close().
+ * An instance can be shared by several threads writing edges in the same graph: in that case the writers must hold the lock of
+ * both the vertices of an edge while adding it, so that the edge lists of a vertex are never updated concurrently. The locks are
+ * the vertex locks of OSharedGraphLocks, so writers of different sources are coordinated too.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OVertexResolver {
+
+  public static final int   MAX_CACHED_KEYS = 1000000;   // keys cached in heap, the further ones are spilled on disk
+  private static final char KEY_SEPARATOR   = '\u0000';
+
+  private final    ConcurrentHashMap<String, ORID> key2rid;
+  private final    boolean                         shared;
+  private volatile OMappedKeyStore                 spilledKey2rid;   // created when the heap cache is full
+
+  /**
+   * @param shared true if the resolver is used by several threads writing in the same graph.
+   */
+  public OVertexResolver(boolean shared) {
+    this.shared = shared;
+    this.key2rid = new ConcurrentHashMap<String, ORID>();
+  }
+
+  /**
+   * Returns the vertex of the class identified by the passed key values, null if not present.
+   * The vertices found in the spill store are checked against the key values, as the store returns the RIDs of the different keys
+   * with the same fingerprint too: if none of them matches the vertex is looked up in the index.
+   */
+  public OrientVertex resolve(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine, String vertexClassName, String[] keys,
+      String[] values) {
+
+    String cacheKey = this.buildCacheKey(vertexClassName, values);
+    ORID rid = this.key2rid.get(cacheKey);
+    if (rid != null) {
+      return graphEngine.getPartitionGraph(orientGraph, values).getVertex(rid);
+    }
+
+    OMappedKeyStore spilled = this.spilledKey2rid;
+    if (spilled != null) {
+      for (ORID spilledRid : spilled.get(cacheKey)) {
+        OrientVertex vertex = graphEngine.getPartitionGraph(orientGraph, values).getVertex(spilledRid);
+        if (vertex != null && this.hasKey(vertex, keys, values)) {
+          return vertex;
+        }
+      }
+    }
+
+    OrientVertex vertex = graphEngine.getVertexByIndexedKey(orientGraph, keys, values, vertexClassName);
+    if (vertex != null) {
+      if (this.key2rid.size() < MAX_CACHED_KEYS) {
+        this.key2rid.put(cacheKey, vertex.getIdentity());
+      } else {
+        this.getSpillStore().put(cacheKey, vertex.getIdentity());
+      }
+    }
+    return vertex;
+  }
+
+  /**
+   * Deletes the spill files, if any. The resolver can't be used anymore.
+   */
+  public synchronized void close() {
+    if (this.spilledKey2rid != null) {
+      this.spilledKey2rid.close();
+      this.spilledKey2rid = null;
+    }
+    this.key2rid.clear();
+  }
+
+  public boolean isShared() {
+    return this.shared;
+  }
+
+  /**
+   * Acquires the locks of the two vertices, always in the same order to avoid deadlocks between writers.
+   */
+  public void lock(ORID first, ORID second) {
+    OSharedGraphLocks.getInstance().lockVertices(first, second);
+  }
+
+  public void unlock(ORID first, ORID second) {
+    OSharedGraphLocks.getInstance().unlockVertices(first, second);
+  }
+
+  private synchronized OMappedKeyStore getSpillStore() {
+    if (this.spilledKey2rid == null) {
+      String spillDirectory = OTeleporterContext.getInstance().getSettings().getSpillDirectory();
+      if (spillDirectory == null) {
+        spillDirectory = System.getProperty("java.io.tmpdir");
+      }
+      // the records counted in step 1 bound the number of vertices
+      long expectedKeys = Math
+          .max(OTeleporterContext.getInstance().getStatistics().totalNumberOfRecords - MAX_CACHED_KEYS, MAX_CACHED_KEYS);
+      this.spilledKey2rid = new OMappedKeyStore(new File(spillDirectory), expectedKeys);
+    }
+    return this.spilledKey2rid;
+  }
+
+  /**
+   * The key values read from the source are converted to the types of the vertex properties, as the index lookup does, since
+   * their string representations can differ (e.g. dates, decimals with a different scale).
+   */
+  private boolean hasKey(OrientVertex vertex, String[] keys, String[] values) {
+    for (int i = 0; i < keys.length; i++) {
+      Object value = vertex.getProperty(keys[i]);
+      if (value == null || values[i] == null) {
+        return false;
+      }
+      Object convertedValue;
+      try {
+        convertedValue = OType.convert(values[i], value.getClass());
+      } catch (RuntimeException e) {
+        // not convertible, the vertex is looked up in the index
+        return false;
+      }
+      if (value instanceof BigDecimal && convertedValue instanceof BigDecimal) {
+        if (((BigDecimal) value).compareTo((BigDecimal) convertedValue) != 0) {
+          return false;
+        }
+      } else if (!value.equals(convertedValue)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String buildCacheKey(String vertexClassName, String[] values) {
+    StringBuilder cacheKey = new StringBuilder(vertexClassName);
+    for (String value : values) {
+      cacheKey.append(KEY_SEPARATOR).append(value);
+    }
+    return cacheKey.toString();
+  }
+
+}
@@ -0,0 +1,199 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.verifier;
+
+import com.orientechnologies.teleporter.util.OFunctionsHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of the comparison between the source database and the migrated graph performed by the OMigrationVerifier.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMigrationVerification {
+
+  private List<OClassCheck> classChecks;
+  private List<OEdgeCheck>  edgeChecks;
+  private List<String>      skipped;        // entities and edge classes that can't be compared one to one
+  private long              elapsedMillis;
+
+  public OMigrationVerification() {
+    this.classChecks = new ArrayList<OClassCheck>();
+    this.edgeChecks = new ArrayList<OEdgeCheck>();
+    this.skipped = new ArrayList<String>();
+  }
+
+  public List<OClassCheck> getClassChecks() {
+    return this.classChecks;
+  }
+
+  public List<OEdgeCheck> getEdgeChecks() {
+    return this.edgeChecks;
+  }
+
+  public List<String> getSkipped() {
+    return this.skipped;
+  }
+
+  public long getElapsedMillis() {
+    return this.elapsedMillis;
+  }
+
+  public void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  /**
+   * @return true if all the compared classes and edge classes match the source.
+   */
+  public boolean isSuccessful() {
+    for (OClassCheck classCheck : this.classChecks) {
+      if (!classCheck.matches()) {
+        return false;
+      }
+    }
+    for (OEdgeCheck edgeCheck : this.edgeChecks) {
+      if (!edgeCheck.matches()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public String toString() {
+    String s = "\n\nMIGRATION VERIFICATION: " + (this.isSuccessful() ? "PASSED" : "FAILED") + " in " + OFunctionsHandler
+        .getHMSFormat(this.elapsedMillis) + "\n\n";
+    s += "Vertex Classes (source rows/vertices, checksums)";
+    for (OClassCheck classCheck : this.classChecks) {
+      s += "\n" + classCheck;
+    }
+    s += "\n\nEdge Classes (expected/written edges)";
+    for (OEdgeCheck edgeCheck : this.edgeChecks) {
+      s += "\n" + edgeCheck;
+    }
+    if (!this.skipped.isEmpty()) {
+      s += "\n\nNot Verified";
+      for (String skippedElement : this.skipped) {
+        s += "\n" + skippedElement;
+      }
+    }
+    return s + "\n";
+  }
+
+  /**
+   * Comparison between an entity and the vertex class it's imported into.
+   */
+  public static class OClassCheck {
+
+    private String entityName;
+    private String vertexClassName;
+    private long   sourceRows;
+    private long   vertices;
+    private long   sourceChecksum;
+    private long   targetChecksum;
+
+    public OClassCheck(String entityName, String vertexClassName, long sourceRows, long vertices, long sourceChecksum,
+        long targetChecksum) {
+      this.entityName = entityName;
+      this.vertexClassName = vertexClassName;
+      this.sourceRows = sourceRows;
+      this.vertices = vertices;
+      this.sourceChecksum = sourceChecksum;
+      this.targetChecksum = targetChecksum;
+    }
+
+    public String getEntityName() {
+      return this.entityName;
+    }
+
+    public String getVertexClassName() {
+      return this.vertexClassName;
+    }
+
+    public long getSourceRows() {
+      return this.sourceRows;
+    }
+
+    public long getVertices() {
+      return this.vertices;
+    }
+
+    public long getSourceChecksum() {
+      return this.sourceChecksum;
+    }
+
+    public long getTargetChecksum() {
+      return this.targetChecksum;
+    }
+
+    public boolean matches() {
+      return this.sourceRows == this.vertices && this.sourceChecksum == this.targetChecksum;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s -> %s: %d/%d, %016x/%016x %s", this.entityName, this.vertexClassName, this.sourceRows, this.vertices,
+          this.sourceChecksum, this.targetChecksum, this.matches() ? "OK" : "MISMATCH");
+    }
+  }
+
+  /**
+   * Comparison between the edges expected from the canonical relationships and the edges written in an edge class.
+   */
+  public static class OEdgeCheck {
+
+    private String edgeClassName;
+    private long   expectedEdges;
+    private long   edges;
+
+    public OEdgeCheck(String edgeClassName, long expectedEdges, long edges) {
+      this.edgeClassName = edgeClassName;
+      this.expectedEdges = expectedEdges;
+      this.edges = edges;
+    }
+
+    public String getEdgeClassName() {
+      return this.edgeClassName;
+    }
+
+    public long getExpectedEdges() {
+      return this.expectedEdges;
+    }
+
+    public long getEdges() {
+      return this.edges;
+    }
+
+    public boolean matches() {
+      return this.expectedEdges == this.edges;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %d/%d %s", this.edgeClassName, this.expectedEdges, this.edges, this.matches() ? "OK" : "MISMATCH");
+    }
+  }
+
+}
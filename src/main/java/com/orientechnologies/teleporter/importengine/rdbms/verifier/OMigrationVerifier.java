@@ -0,0 +1,403 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.importengine.rdbms.verifier;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphPartitioner;
+import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
+import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEVClassMapper;
+import com.orientechnologies.teleporter.model.dbschema.OAttribute;
+import com.orientechnologies.teleporter.model.dbschema.OCanonicalRelationship;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.model.dbschema.ORelationship;
+import com.orientechnologies.teleporter.model.graphmodel.OEdgeType;
+import com.orientechnologies.teleporter.model.graphmodel.OModelProperty;
+import com.orientechnologies.teleporter.model.graphmodel.OVertexType;
+import com.orientechnologies.teleporter.persistence.util.OQueryResult;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphNoTx;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies a completed migration comparing the source database with the target graph. For each entity imported one to one into a
+ * vertex class it compares the source rows with the vertices, and an order-independent checksum of the key and property values
+ * of the rows with the same checksum computed on the vertices. For each edge class it compares the edges expected from the
+ * canonical relationships, that is the rows with a not null foreign key, with the written edges.
+ * Each entity is read with a single query and each cluster of the vertex classes, in the target database and in the eventual
+ * partitions, is scanned on its own: all the scans run in parallel.
+ * The checksums cover the string and integer properties, whose values are compared through their string representation; the
+ * properties of the other types are compared only through the counts.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OMigrationVerifier {
+
+  private static final long   FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long   FNV_PRIME        = 0x100000001b3L;
+  private static final String NULL_VALUE       = "\u0000";
+
+  private static final Set<OType> CHECKSUMMED_TYPES = EnumSet.of(OType.STRING, OType.INTEGER, OType.LONG, OType.SHORT, OType.BYTE);
+
+  private int threads;
+
+  public OMigrationVerifier(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  public OMigrationVerification verify(OER2GraphMapper mapper, ODBQueryEngine dbQueryEngine, String outOrientGraphUri) {
+
+    long start = System.currentTimeMillis();
+    OMigrationVerification verification = new OMigrationVerification();
+
+    List<String> graphUrls = new ArrayList<String>();
+    graphUrls.add(outOrientGraphUri);
+    graphUrls.addAll(OTeleporterContext.getInstance().getSettings().getPartitionUrls());
+    List<OrientGraphFactory> factories = new ArrayList<OrientGraphFactory>();
+    for (String graphUrl : graphUrls) {
+      factories.add(new OrientGraphFactory(graphUrl, "admin", "admin"));
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    try {
+
+      // entities imported one to one into a vertex class
+      Map<OEntity, OVertexType> entity2vertexType = new LinkedHashMap<OEntity, OVertexType>();
+      Map<OEntity, Map<String, String>> entity2checksummedProperties = new LinkedHashMap<OEntity, Map<String, String>>();
+      for (OEntity entity : mapper.getDataBaseSchema().getEntities()) {
+        List<OEVClassMapper> classMappers = mapper.getEVClassMappersByEntity(entity);
+        if (classMappers == null || classMappers.isEmpty()) {
+          continue;   // not imported
+        }
+        OVertexType vertexType = classMappers.get(0).getVertexType();
+        if (entity.getHierarchicalBag() != null || classMappers.size() > 1
+            || mapper.getEVClassMappersByVertex(vertexType).size() > 1) {
+          verification.getSkipped().add(entity.getName() + ": not imported one to one into a vertex class");
+          continue;
+        }
+        if (entity.isAggregableJoinTable() && !this.existsClass(factories.get(0), vertexType.getName())) {
+          continue;   // aggregated into edges
+        }
+        entity2vertexType.put(entity, vertexType);
+        entity2checksummedProperties.put(entity, this.getChecksummedProperties(vertexType, classMappers.get(0)));
+      }
+
+      // edge classes coming just from canonical relationships of the compared entities
+      Map<String, List<OCanonicalRelationship>> edgeClass2relationships = new TreeMap<String, List<OCanonicalRelationship>>();
+      List<String> notComparableEdgeClasses = new ArrayList<String>();
+      boolean lightweightEdges = OTeleporterContext.getInstance().getSettings().isLightweightEdges();
+      for (Map.Entry<ORelationship, OEdgeType> entry : mapper.getRelationship2edgeType().entrySet()) {
+        OEdgeType edgeType = entry.getValue();
+        if (edgeType == null || notComparableEdgeClasses.contains(edgeType.getName())) {
+          continue;
+        }
+        boolean lightweight = (lightweightEdges || edgeType.isLightweight()) && edgeType.getAllProperties().isEmpty();
+        if (lightweight || !(entry.getKey() instanceof OCanonicalRelationship) || !entity2vertexType
+            .containsKey(entry.getKey().getForeignEntity())) {
+          notComparableEdgeClasses.add(edgeType.getName());
+          edgeClass2relationships.remove(edgeType.getName());
+          verification.getSkipped().add(edgeType.getName() + ": " + (lightweight ?
+              "lightweight edges" :
+              "edges not coming just from the canonical relationships of the compared entities"));
+          continue;
+        }
+        List<OCanonicalRelationship> relationships = edgeClass2relationships.get(edgeType.getName());
+        if (relationships == null) {
+          relationships = new ArrayList<OCanonicalRelationship>();
+          edgeClass2relationships.put(edgeType.getName(), relationships);
+        }
+        relationships.add((OCanonicalRelationship) entry.getKey());
+      }
+
+      // parallel scans of the entities and of the clusters of the vertex classes
+      Map<OEntity, Future<OSourceScan>> sourceScans = new LinkedHashMap<OEntity, Future<OSourceScan>>();
+      Map<OEntity, List<Future<long[]>>> targetScans = new LinkedHashMap<OEntity, List<Future<long[]>>>();
+      for (Map.Entry<OEntity, OVertexType> entry : entity2vertexType.entrySet()) {
+        OEntity entity = entry.getKey();
+        Map<String, String> checksummedProperties = entity2checksummedProperties.get(entity);
+        sourceScans.put(entity, pool.submit(this.sourceScan(entity, checksummedProperties, dbQueryEngine)));
+
+        List<Future<long[]>> clusterScans = new ArrayList<Future<long[]>>();
+        for (OrientGraphFactory factory : factories) {
+          for (String clusterName : this.getClusterNames(factory, entry.getValue().getName())) {
+            clusterScans.add(pool.submit(this.clusterScan(factory, clusterName, checksummedProperties)));
+          }
+        }
+        targetScans.put(entity, clusterScans);
+      }
+
+      // comparison
+      Map<OCanonicalRelationship, Long> relationship2rows = new LinkedHashMap<OCanonicalRelationship, Long>();
+      for (Map.Entry<OEntity, OVertexType> entry : entity2vertexType.entrySet()) {
+        OSourceScan sourceScan = sourceScans.get(entry.getKey()).get();
+        long vertices = 0;
+        long targetChecksum = 0;
+        for (Future<long[]> clusterScan : targetScans.get(entry.getKey())) {
+          long[] result = clusterScan.get();
+          vertices += result[0];
+          targetChecksum += result[1];
+        }
+        verification.getClassChecks().add(
+            new OMigrationVerification.OClassCheck(entry.getKey().getName(), entry.getValue().getName(), sourceScan.rows, vertices,
+                sourceScan.checksum, targetChecksum));
+        relationship2rows.putAll(sourceScan.relationship2rows);
+      }
+
+      for (Map.Entry<String, List<OCanonicalRelationship>> entry : edgeClass2relationships.entrySet()) {
+        long expectedEdges = 0;
+        for (OCanonicalRelationship relationship : entry.getValue()) {
+          Long rows = relationship2rows.get(relationship);
+          expectedEdges += rows != null ? rows : 0;
+        }
+        long edges = 0;
+        for (OrientGraphFactory factory : factories) {
+          edges += this.countEdges(factory, entry.getKey(), factories.size() > 1);
+        }
+        verification.getEdgeChecks().add(new OMigrationVerification.OEdgeCheck(entry.getKey(), expectedEdges, edges));
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OTeleporterRuntimeException(e);
+    } catch (ExecutionException e) {
+      String mess = "Problem encountered during the verification of the migration.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+      throw new OTeleporterRuntimeException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+      for (OrientGraphFactory factory : factories) {
+        factory.close();
+      }
+    }
+
+    verification.setElapsedMillis(System.currentTimeMillis() - start);
+    return verification;
+  }
+
+  /**
+   * @return the checksummed properties of the vertex type, sorted by name, each one with the attribute it comes from.
+   */
+  private Map<String, String> getChecksummedProperties(OVertexType vertexType, OEVClassMapper classMapper) {
+
+    Map<String, String> property2attribute = new TreeMap<String, String>();
+    for (OModelProperty property : vertexType.getAllProperties()) {
+      String attributeName = classMapper.getAttributeByProperty(property.getName());
+      if (!property.isIncludedInMigration() || attributeName == null) {
+        continue;
+      }
+      OType type = OTeleporterContext.getInstance().getDataTypeHandler()
+          .resolveType(property.getOriginalType().toLowerCase(Locale.ENGLISH));
+      if (CHECKSUMMED_TYPES.contains(type)) {
+        property2attribute.put(property.getName(), attributeName);
+      }
+    }
+    return property2attribute;
+  }
+
+  private Callable<OSourceScan> sourceScan(final OEntity entity, final Map<String, String> checksummedProperties,
+      final ODBQueryEngine dbQueryEngine) {
+
+    return new Callable<OSourceScan>() {
+      @Override
+      public OSourceScan call() throws SQLException {
+
+        OSourceScan scan = new OSourceScan();
+        List<OCanonicalRelationship> relationships = new ArrayList<OCanonicalRelationship>(entity.getOutCanonicalRelationships());
+        long[] relationshipRows = new long[relationships.size()];
+        String[] values = new String[checksummedProperties.size()];
+
+        OQueryResult queryResult = dbQueryEngine.getRecordsByEntity(entity);
+        try {
+          ResultSet records = queryResult.getResult();
+          while (records.next()) {
+            scan.rows++;
+            int i = 0;
+            for (String attributeName : checksummedProperties.values()) {
+              values[i++] = records.getString(attributeName);
+            }
+            scan.checksum += rowHash(checksummedProperties.keySet(), values);
+
+            for (int j = 0; j < relationships.size(); j++) {
+              boolean notNullForeignKey = true;
+              for (OAttribute foreignAttribute : relationships.get(j).getFromColumns()) {
+                if (records.getString(foreignAttribute.getName()) == null) {
+                  notNullForeignKey = false;
+                  break;
+                }
+              }
+              if (notNullForeignKey) {
+                relationshipRows[j]++;
+              }
+            }
+          }
+        } finally {
+          queryResult.closeAll();
+        }
+
+        for (int j = 0; j < relationships.size(); j++) {
+          scan.relationship2rows.put(relationships.get(j), relationshipRows[j]);
+        }
+        return scan;
+      }
+    };
+  }
+
+  private Callable<long[]> clusterScan(final OrientGraphFactory factory, final String clusterName,
+      final Map<String, String> checksummedProperties) {
+
+    return new Callable<long[]>() {
+      @Override
+      public long[] call() {
+
+        long vertices = 0;
+        long checksum = 0;
+        String[] values = new String[checksummedProperties.size()];
+
+        OrientGraphNoTx graph = factory.getNoTx();
+        try {
+          ODatabaseDocumentTx database = graph.getRawGraph();
+          for (ODocument vertex : database.browseCluster(clusterName, ODocument.class)) {
+            vertices++;
+            int i = 0;
+            for (String propertyName : checksummedProperties.keySet()) {
+              Object value = vertex.field(propertyName);
+              values[i++] = value != null ? value.toString() : null;
+            }
+            checksum += rowHash(checksummedProperties.keySet(), values);
+          }
+        } finally {
+          graph.shutdown();
+        }
+        return new long[] { vertices, checksum };
+      }
+    };
+  }
+
+  /**
+   * FNV-1a hash of the property names and values of a row. The checksum of a set of rows is the sum of their hashes, so it
+   * doesn't depend on the order the rows are read in.
+   */
+  private static long rowHash(Set<String> propertyNames, String[] values) {
+
+    long hash = FNV_OFFSET_BASIS;
+    int i = 0;
+    for (String propertyName : propertyNames) {
+      hash = hash(hash, propertyName);
+      hash = hash(hash, values[i] != null ? values[i] : NULL_VALUE);
+      i++;
+    }
+    return hash;
+  }
+
+  private static long hash(long hash, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    // separator
+    hash ^= 0xff;
+    hash *= FNV_PRIME;
+    return hash;
+  }
+
+  private boolean existsClass(OrientGraphFactory factory, String className) {
+    OrientGraphNoTx graph = factory.getNoTx();
+    try {
+      return graph.getRawGraph().getMetadata().getSchema().existsClass(className);
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  private List<String> getClusterNames(OrientGraphFactory factory, String className) {
+
+    List<String> clusterNames = new ArrayList<String>();
+    OrientGraphNoTx graph = factory.getNoTx();
+    try {
+      OClass oClass = graph.getRawGraph().getMetadata().getSchema().getClass(className);
+      if (oClass != null) {
+        for (int clusterId : oClass.getClusterIds()) {
+          clusterNames.add(graph.getRawGraph().getClusterNameById(clusterId));
+        }
+      }
+    } finally {
+      graph.shutdown();
+    }
+    return clusterNames;
+  }
+
+  /**
+   * Counts the edges of a class, including the edges crossing the partitions when the output is partitioned.
+   */
+  private long countEdges(OrientGraphFactory factory, String edgeClassName, boolean partitioned) {
+
+    OrientGraphNoTx graph = factory.getNoTx();
+    try {
+      ODatabaseDocumentTx database = graph.getRawGraph();
+      long edges = database.getMetadata().getSchema().existsClass(edgeClassName) ? database.countClass(edgeClassName) : 0;
+      if (partitioned && database.getMetadata().getSchema().existsClass(OGraphPartitioner.CROSS_PARTITION_EDGE_CLASS)) {
+        List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+            "select count(*) as count from " + OGraphPartitioner.CROSS_PARTITION_EDGE_CLASS + " where label = ?"), edgeClassName);
+        if (!result.isEmpty()) {
+          edges += ((Number) result.get(0).field("count")).longValue();
+        }
+      }
+      return edges;
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  /**
+   * Result of the scan of an entity.
+   */
+  private static class OSourceScan {
+
+    private long                              rows;
+    private long                              checksum;
+    private Map<OCanonicalRelationship, Long> relationship2rows = new LinkedHashMap<OCanonicalRelationship, Long>();
+  }
+
+}
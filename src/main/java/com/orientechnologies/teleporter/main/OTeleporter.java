@@ -33,20 +33,31 @@ import com.orientechnologies.orient.server.network.protocol.http.ONetworkProtoco
 import com.orientechnologies.orient.server.plugin.OServerPluginAbstract;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
+import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.exception.OTeleporterIOException;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
 import com.orientechnologies.teleporter.factory.OStrategyFactory;
 import com.orientechnologies.teleporter.http.OServerCommandTeleporter;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.ODumpQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.ODumpSchemaSnapshot;
 import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
 import com.orientechnologies.teleporter.strategy.OWorkflowStrategy;
 import com.orientechnologies.teleporter.ui.OProgressMonitor;
 import com.orientechnologies.teleporter.util.ODriverConfigurator;
+import com.orientechnologies.teleporter.util.OFileManager;
 import com.orientechnologies.teleporter.util.OMigrationConfigManager;
+import com.orientechnologies.teleporter.writer.OGraphModelWriter;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Main Class where the importing process starts.
@@ -82,7 +93,8 @@ public class OTeleporter extends OServerPluginAbstract {
 
     // Missing argument validation
 
-    if (args.length < 6) {
+    // loading a dump or reading the sources from a file the source access args are not needed
+    if (args.length < 6 && !Arrays.asList(args).contains("-load") && !Arrays.asList(args).contains("-sources")) {
       messageHandler.error(OTeleporter.class,
           "Syntax error, missing argument. Use:\n ./oteleporter.sh -jdriver <jdbc-driver> -jurl <jdbc-url> -juser <username> -jpasswd <password> -ourl <orientdb-url>.\n");
       throw new OTeleporterIOException();
@@ -169,6 +181,118 @@ public class OTeleporter extends OServerPluginAbstract {
       throw new OTeleporterIOException();
     }
 
+    if (arguments.get("-threads") != null) {
+      if (!arguments.get("-threads").matches("[1-9][0-9]*")) {
+        messageHandler.error(OTeleporter.class, "Not valid threads argument: a positive number of threads is expected.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-sink") != null) {
+      if (!(arguments.get("-sink").equals(OTeleporterSettings.BLUEPRINTS_SINK) || arguments.get("-sink")
+          .equals(OTeleporterSettings.DOCUMENT_SINK) || arguments.get("-sink").equals(OTeleporterSettings.REMOTE_SINK))) {
+        messageHandler.error(OTeleporter.class, "Not valid sink. Available sinks: 'blueprints', 'document', 'remote'.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-schemawriting") != null) {
+      if (!(arguments.get("-schemawriting").equals(OTeleporterSettings.DIRECT_SCHEMA_WRITING) || arguments.get("-schemawriting")
+          .equals(OTeleporterSettings.BATCHED_SCHEMA_WRITING))) {
+        messageHandler.error(OTeleporter.class, "Not valid schema writing. Available modes: 'direct', 'batched'.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-lightweight") != null) {
+      if (!(arguments.get("-lightweight").equals("true") || arguments.get("-lightweight").equals("false"))) {
+        messageHandler.error(OTeleporter.class, "Not valid lightweight argument: 'true' or 'false' expected.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-dump") != null && arguments.get("-load") != null) {
+      messageHandler.error(OTeleporter.class, "It's not possible to use both 'dump' and 'load' arguments.\n");
+      throw new OTeleporterIOException();
+    }
+
+    if (arguments.get("-load") != null) {
+      if (!new File(arguments.get("-load")).isDirectory()) {
+        messageHandler.error(OTeleporter.class, "Not valid load argument: the dump directory was not found.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-batchSize") != null) {
+      if (!arguments.get("-batchSize").matches("[1-9][0-9]*(:[1-9][0-9]*)?")) {
+        messageHandler.error(OTeleporter.class,
+            "Not valid batchSize argument: a size, or the min and max sizes in the <min>:<max> format, is expected.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-estimate") != null) {
+      if (!arguments.get("-estimate").matches("[0-9]+(\\.[0-9]+)?") || Double.parseDouble(arguments.get("-estimate")) <= 0
+          || Double.parseDouble(arguments.get("-estimate")) > 100) {
+        messageHandler.error(OTeleporter.class, "Not valid estimate argument: a sample percentage in (0,100] is expected.\n");
+        throw new OTeleporterIOException();
+      }
+      if (arguments.get("-dump") != null || arguments.get("-load") != null) {
+        messageHandler.error(OTeleporter.class, "It's not possible to use the 'estimate' argument with 'dump' or 'load'.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-sources") != null) {
+      if (!new File(arguments.get("-sources")).isFile()) {
+        messageHandler.error(OTeleporter.class, "Not valid sources argument: the sources file was not found.\n");
+        throw new OTeleporterIOException();
+      }
+      if (arguments.get("-dump") != null || arguments.get("-load") != null) {
+        messageHandler.error(OTeleporter.class, "It's not possible to use the 'sources' argument with 'dump' or 'load'.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-partitions") != null) {
+      if (Arrays.asList(arguments.get("-partitions").split(",")).contains(arguments.get("-ourl"))) {
+        messageHandler.error(OTeleporter.class,
+            "Not valid partitions argument: the URLs of the further databases must differ from the -ourl one.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-replay") != null) {
+      if (!new File(arguments.get("-replay")).isFile()) {
+        messageHandler.error(OTeleporter.class, "Not valid replay argument: the dead-letter file was not found.\n");
+        throw new OTeleporterIOException();
+      }
+      if (arguments.get("-dump") != null || arguments.get("-estimate") != null) {
+        messageHandler.error(OTeleporter.class, "It's not possible to use the 'replay' argument with 'dump' or 'estimate'.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-snapshot") != null) {
+      if (!(arguments.get("-snapshot").equals("true") || arguments.get("-snapshot").equals("false"))) {
+        messageHandler.error(OTeleporter.class, "Not valid snapshot argument: 'true' or 'false' expected.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if (arguments.get("-verify") != null) {
+      if (!(arguments.get("-verify").equals("true") || arguments.get("-verify").equals("false"))) {
+        messageHandler.error(OTeleporter.class, "Not valid verify argument: 'true' or 'false' expected.\n");
+        throw new OTeleporterIOException();
+      }
+    }
+
+    if ((arguments.get("-deadletter") != null || arguments.get("-replay") != null) && arguments.get("-sources") != null) {
+      messageHandler
+          .error(OTeleporter.class, "It's not possible to use the 'deadletter' or 'replay' arguments with 'sources'.\n");
+      throw new OTeleporterIOException();
+    }
+
     if (arguments.get("-conf") != null) {
       File file = new File(arguments.get("-conf"));
       try {
@@ -215,9 +339,65 @@ public class OTeleporter extends OServerPluginAbstract {
     }
     String configurationPath = arguments.get("-conf");
 
+    // Tuning arguments
+    OTeleporterSettings settings = new OTeleporterSettings();
+    if (arguments.get("-threads") != null) {
+      settings.setWorkerThreads(Integer.parseInt(arguments.get("-threads")));
+    }
+    if (arguments.get("-sink") != null) {
+      settings.setSink(arguments.get("-sink"));
+    }
+    if (arguments.get("-schemawriting") != null) {
+      settings.setSchemaWriting(arguments.get("-schemawriting"));
+    }
+    if (arguments.get("-lightweight") != null) {
+      settings.setLightweightEdges(Boolean.parseBoolean(arguments.get("-lightweight")));
+    }
+    if (arguments.get("-dump") != null) {
+      settings.setDumpDirectory(arguments.get("-dump"));
+    }
+    if (arguments.get("-load") != null) {
+      settings.setLoadDirectory(arguments.get("-load"));
+    }
+    if (arguments.get("-batchSize") != null) {
+      String[] batchSizes = arguments.get("-batchSize").split(":");
+      int minBatchSize = Integer.parseInt(batchSizes[0]);
+      int maxBatchSize = Integer.parseInt(batchSizes[batchSizes.length - 1]);
+      settings.setMinBatchSize(Math.min(minBatchSize, maxBatchSize));
+      settings.setMaxBatchSize(Math.max(minBatchSize, maxBatchSize));
+    }
+    if (arguments.get("-sources") != null) {
+      settings.setSourcesPath(arguments.get("-sources"));
+    }
+    if (arguments.get("-partitions") != null) {
+      settings.setPartitionUrls(new ArrayList<String>(Arrays.asList(arguments.get("-partitions").split(","))));
+    }
+    if (arguments.get("-estimate") != null) {
+      settings.setEstimateSamplePercentage(Double.parseDouble(arguments.get("-estimate")));
+    }
+    if (arguments.get("-deadletter") != null) {
+      settings.setDeadLetterPath(arguments.get("-deadletter"));
+    }
+    if (arguments.get("-replay") != null) {
+      settings.setReplayPath(arguments.get("-replay"));
+      // the rows failing again replace the replayed ones, unless another dead-letter file is chosen
+      if (settings.getDeadLetterPath() == null) {
+        settings.setDeadLetterPath(arguments.get("-replay"));
+      }
+    }
+    if (arguments.get("-spill") != null) {
+      settings.setSpillDirectory(arguments.get("-spill"));
+    }
+    if (arguments.get("-snapshot") != null) {
+      settings.setSnapshotReads(Boolean.parseBoolean(arguments.get("-snapshot")));
+    }
+    if (arguments.get("-verify") != null) {
+      settings.setVerify(Boolean.parseBoolean(arguments.get("-verify")));
+    }
+
     OTeleporter
         .execute(driver, jurl, username, password, outDbUrl, chosenStrategy, chosenMapper, xmlPath, nameResolver, outputLevel,
-            includedTables, excludedTables, configurationPath, messageHandler);
+            includedTables, excludedTables, configurationPath, messageHandler, settings);
   }
 
   /**
@@ -243,6 +423,23 @@ public class OTeleporter extends OServerPluginAbstract {
       String chosenMapper, String xmlPath, String nameResolver, String outputLevel, List<String> includedTables,
       List<String> excludedTables, String configurationPath, OPluginMessageHandler messageHandler) throws OTeleporterIOException {
 
+    execute(driver, jurl, username, password, outDbUrl, chosenStrategy, chosenMapper, xmlPath, nameResolver, outputLevel,
+        includedTables, excludedTables, configurationPath, messageHandler, new OTeleporterSettings());
+  }
+
+  /**
+   * Executes the import of the source DB in a OrientDB Graph through different parameters and the passed tuning settings.
+   *
+   * @param settings tuning settings of the execution
+   *
+   * @throws OTeleporterIOException
+   */
+
+  public static void execute(String driver, String jurl, String username, String password, String outDbUrl, String chosenStrategy,
+      String chosenMapper, String xmlPath, String nameResolver, String outputLevel, List<String> includedTables,
+      List<String> excludedTables, String configurationPath, OPluginMessageHandler messageHandler, OTeleporterSettings settings)
+      throws OTeleporterIOException {
+
     // trying to load the configuration starting from the input configurationPath
     ODocument migrationConfigDoc = null;
     String jsonMigrationConfig = null;
@@ -258,7 +455,7 @@ public class OTeleporter extends OServerPluginAbstract {
     }
 
     executeJob(driver, jurl, username, password, outDbUrl, chosenStrategy, chosenMapper, xmlPath, nameResolver, outputLevel,
-        includedTables, excludedTables, jsonMigrationConfig, messageHandler);
+        includedTables, excludedTables, jsonMigrationConfig, messageHandler, settings);
   }
 
   /**
@@ -285,10 +482,28 @@ public class OTeleporter extends OServerPluginAbstract {
       List<String> includedTables, List<String> excludedTables, String jsonMigrationConfig, OPluginMessageHandler messageHandler)
       throws OTeleporterIOException {
 
+    return executeJob(driver, jurl, username, password, outDbUrl, chosenStrategy, chosenMapper, xmlPath, nameResolver, outputLevel,
+        includedTables, excludedTables, jsonMigrationConfig, messageHandler, new OTeleporterSettings());
+  }
+
+  /**
+   * Executes the import of the source DB in a OrientDB Graph through different parameters and the passed tuning settings.
+   *
+   * @param settings tuning settings of the execution
+   *
+   * @throws OTeleporterIOException
+   */
+
+  public static ODocument executeJob(String driver, String jurl, String username, String password, String outDbUrl,
+      String chosenStrategy, String chosenMapper, String xmlPath, String nameResolver, String outputLevel,
+      List<String> includedTables, List<String> excludedTables, String jsonMigrationConfig, OPluginMessageHandler messageHandler,
+      OTeleporterSettings settings) throws OTeleporterIOException {
+
     // REGISTER THE BINARY RECORD SERIALIZER TO SUPPORT ANY OF THE EXTERNAL FIELDS
     ORecordSerializerFactory.instance().register("ORecordSerializerBinary", new ORecordSerializerBinary());
 
     OTeleporterContext.newInstance().setMessageHandler(messageHandler);
+    OTeleporterContext.getInstance().setSettings(settings);
 
 
     /**
@@ -325,7 +540,23 @@ public class OTeleporter extends OServerPluginAbstract {
     List<OSourceDatabaseInfo> sourcesInfo = null;
     boolean sourceInfoLoaded = false;
 
-    if (driver == null || jurl == null) {
+    if (settings.getSourcesPath() != null) {
+
+      // several sources, listed in a file with the same format of the sources info kept in the target database
+      try {
+        sourcesInfo = OMigrationConfigManager.extractSourceDatabaseInfo(OFileManager.buildJsonFromFile(settings.getSourcesPath()));
+      } catch (IOException e) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .error(OTeleporter.class, "The sources file %s could not be read.\n", settings.getSourcesPath());
+        throw new OTeleporterIOException(e);
+      }
+    } else if (settings.getLoadDirectory() != null) {
+
+      // loading a dump: the source info comes from the dump, the source database is not accessed
+      sourcesInfo = new LinkedList<OSourceDatabaseInfo>();
+      sourcesInfo.add(new ODumpSchemaSnapshot(settings.getLoadDirectory()).readSourceDatabaseInfo());
+      sourceInfoLoaded = true;
+    } else if (driver == null || jurl == null) {
 
       // try to get args from config files in the target orientdb db (if already present)
       ODocument sourcesInfoDoc = OMigrationConfigManager.loadSourceInfo(outDbUrl);
@@ -344,14 +575,16 @@ public class OTeleporter extends OServerPluginAbstract {
       sourcesInfo = new LinkedList<OSourceDatabaseInfo>();
       sourcesInfo.add(sourceDBInfo);
     }
-    // checking driver configuration
-    driverConfig.checkDriverConfiguration(sourcesInfo.get(0).getSourceIdName());
+    // checking driver configuration (when several sources are imported it's checked for each of them)
+    if (settings.getLoadDirectory() == null && sourcesInfo.size() == 1) {
+      driverConfig.checkDriverConfiguration(sourcesInfo.get(0).getSourceIdName());
+    }
 
     /**
      * Handling configuration files (source access info and migration configuration file)
      */
 
-    // fetching the first source access info (now Teleporter is conceived to accept just a source info for the migration)
+    // fetching the first source access info (when several sources are present they are migrated concurrently below)
     OSourceDatabaseInfo sourceInfo = sourcesInfo.get(0);
 
     // migration configuration
@@ -392,27 +625,44 @@ public class OTeleporter extends OServerPluginAbstract {
     if (outputLevel != null)
       messageHandler.setOutputManagerLevel(Integer.parseInt(outputLevel));
 
+    if (sourcesInfo.size() > 1) {
+      ODocument executionResult = executeSourcesConcurrently(sourcesInfo, driverConfig, outDbUrl, chosenStrategy, chosenMapper,
+          xmlPath, nameResolver, includedTables, excludedTables, migrationConfig);
+
+      // Disabling query scan threshold tip
+      OGlobalConfiguration.QUERY_SCAN_THRESHOLD_TIP.setValue(50000);
+
+      // Writing sources access info
+      if (!sourceInfoLoaded) {
+        OMigrationConfigManager.upsertSourceDatabaseInfo(sourcesInfo, outDbUrl);
+      }
+      // Writing last configuration
+      if (executionResult != null) {
+        OMigrationConfigManager.writeConfigurationInTargetDB(executionResult, outDbUrl);
+      }
+      return executionResult;
+    }
+
     // Progress Monitor initialization
     OProgressMonitor progressMonitor = new OProgressMonitor();
     progressMonitor.initialize();
 
     // DB Query engine building
-    ODBQueryEngine dbQueryEngine = new ODBQueryEngine(sourceInfo.getDriverName());
+    ODBQueryEngine dbQueryEngine;
+    if (settings.getLoadDirectory() != null) {
+      dbQueryEngine = new ODumpQueryEngine(sourceInfo.getDriverName(), settings.getLoadDirectory());
+    } else {
+      dbQueryEngine = new ODBQueryEngine(sourceInfo.getDriverName());
+    }
     OTeleporterContext.getInstance().setDbQueryEngine(dbQueryEngine);
 
     OWorkflowStrategy strategy = FACTORY.buildStrategy(driver, chosenStrategy);
     ODocument executionResult;
 
-    // Timer for statistics notifying
-    Timer timer = new Timer();
+    // Progress sampling: the listeners are updated from a dedicated thread
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
     try {
-      timer.scheduleAtFixedRate(new TimerTask() {
-
-        @Override
-        public void run() {
-          OTeleporterContext.getInstance().getStatistics().notifyListeners();
-        }
-      }, 0, 1000);
+      statistics.startProgressSampling(1000);
 
       // the last argument represents the nameResolver
       executionResult = strategy
@@ -432,12 +682,111 @@ public class OTeleporter extends OServerPluginAbstract {
       }
 
     } finally {
-      timer.cancel();
-
+      statistics.stopProgressSampling();
     }
     return executionResult;
   }
 
+  /**
+   * Migrates several sources concurrently into the same graph, one thread per source. Each source is imported with its own
+   * context (statistics, query engine, data type handler), while the writers of all the sources are coordinated by
+   * OSharedGraphLocks so that the vertices shared by different sources are inserted just once.
+   *
+   * @return the migration configuration resulting from the last source
+   */
+  private static ODocument executeSourcesConcurrently(List<OSourceDatabaseInfo> sourcesInfo, ODriverConfigurator driverConfig,
+      final String outDbUrl, final String chosenStrategy, final String chosenMapper, final String xmlPath, final String nameResolver,
+      final List<String> includedTables, final List<String> excludedTables, ODocument migrationConfig) {
+
+    OTeleporterContext mainContext = OTeleporterContext.getInstance();
+    OTeleporterSettings settings = mainContext.getSettings();
+
+    // drivers are configured sequentially, each source context takes the driver path configured just before building it
+    List<OTeleporterContext> sourceContexts = new ArrayList<OTeleporterContext>();
+    for (OSourceDatabaseInfo sourceInfo : sourcesInfo) {
+      driverConfig.checkDriverConfiguration(resolveDriverName(driverConfig, sourceInfo));
+      OTeleporterContext sourceContext = mainContext.buildSourceContext();
+      sourceContext.setDbQueryEngine(new ODBQueryEngine(sourceInfo.getDriverName()));
+      sourceContexts.add(sourceContext);
+    }
+
+    settings.setConcurrentSources(true);
+    ExecutorService executor = Executors.newFixedThreadPool(sourcesInfo.size());
+    try {
+      List<Future<ODocument>> results = new ArrayList<Future<ODocument>>();
+      for (int i = 0; i < sourcesInfo.size(); i++) {
+        final OSourceDatabaseInfo sourceInfo = sourcesInfo.get(i);
+        final OTeleporterContext sourceContext = sourceContexts.get(i);
+        final ODocument sourceMigrationConfig = migrationConfig != null ? migrationConfig.copy() : null;
+        results.add(executor.submit(new Callable<ODocument>() {
+
+          @Override
+          public ODocument call() throws Exception {
+            OTeleporterContext.bindSourceContext(sourceContext);
+
+            // Progress Monitor initialization, the sampler thread inherits the context of the source
+            OProgressMonitor progressMonitor = new OProgressMonitor();
+            progressMonitor.initialize();
+            OTeleporterStatistics statistics = sourceContext.getStatistics();
+            try {
+              statistics.startProgressSampling(1000);
+              OWorkflowStrategy strategy = FACTORY.buildStrategy(sourceInfo.getDriverName(), chosenStrategy);
+              return strategy.executeStrategy(sourceInfo, outDbUrl, chosenMapper, xmlPath, nameResolver, includedTables, excludedTables,
+                  sourceMigrationConfig);
+            } finally {
+              statistics.stopProgressSampling();
+              OTeleporterContext.unbindSourceContext();
+            }
+          }
+        }));
+      }
+
+      ODocument executionResult = null;
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          ODocument sourceResult = results.get(i).get();
+          if (sourceResult != null) {
+            executionResult = sourceResult;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new OTeleporterRuntimeException(e);
+        } catch (ExecutionException e) {
+          String mess = "Problem encountered during the migration of the source " + sourcesInfo.get(i).getSourceIdName() + ".";
+          mainContext.printExceptionMessage(e, mess, "error");
+          mainContext.printExceptionStackTrace(e, "error");
+          throw new OTeleporterRuntimeException(e.getCause());
+        }
+      }
+
+      // the properties no source includes are dropped once all the source models are merged
+      OGraphModelWriter.dropPropertiesOutOfMergedModels(outDbUrl);
+      for (String partitionUrl : settings.getPartitionUrls()) {
+        OGraphModelWriter.dropPropertiesOutOfMergedModels(partitionUrl);
+      }
+      return executionResult;
+    } finally {
+      executor.shutdownNow();
+      OGraphModelWriter.discardMergedModels();
+      settings.setConcurrentSources(false);
+    }
+  }
+
+  /**
+   * Returns the name of the DBMS of a source (e.g. 'PostgreSQL') starting from its driver class, as the source id name, which
+   * is the DBMS name when a single source is migrated, must be unique among several sources.
+   */
+  private static String resolveDriverName(ODriverConfigurator driverConfig, OSourceDatabaseInfo sourceInfo) {
+
+    String[] driverNames = { "Oracle", "SQLServer", "MySQL", "PostgreSQL", "HyperSQL" };
+    for (String driverName : driverNames) {
+      if (sourceInfo.getDriverName().equals(driverConfig.fetchDriverClassName(driverName))) {
+        return driverName;
+      }
+    }
+    return sourceInfo.getSourceIdName();
+  }
+
   public static ODocument execute(String driver, String jurl, String username, String password, String outDbUrl,
       String chosenStrategy, String chosenMapper, String xmlPath, String nameResolver, String outputLevel,
       List<String> includedTables, List<String> excludedTables, OPluginMessageHandler messageHandler) throws OTeleporterIOException {
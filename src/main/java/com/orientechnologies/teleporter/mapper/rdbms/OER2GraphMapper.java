@@ -23,9 +23,11 @@ package com.orientechnologies.teleporter.mapper.rdbms;
 import com.orientechnologies.orient.output.OOutputStreamManager;
 import com.orientechnologies.teleporter.configuration.api.*;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.ODumpSchemaSnapshot;
 import com.orientechnologies.teleporter.mapper.OSource2GraphMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEEClassMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEVClassMapper;
@@ -73,6 +75,9 @@ public class OER2GraphMapper extends OSource2GraphMapper {
   // supplementary migrationConfigDoc
   protected OConfiguration migrationConfig;
 
+  // snapshot of the source database schema captured when the records are going to be dumped
+  protected ODumpSchemaSnapshot dumpSchemaSnapshot;
+
   public final int DEFAULT_CLASS_MAPPER_INDEX = 0;
 
   public OER2GraphMapper(OSourceDatabaseInfo sourceDatabaseInfo, List<String> includedTables, List<String> excludedTables,
@@ -212,6 +217,16 @@ public class OER2GraphMapper extends OSource2GraphMapper {
     statistics.runningStepNumber = 1;
     statistics.notifyListeners();
 
+    OTeleporterSettings settings = OTeleporterContext.getInstance().getSettings();
+    if (settings.getLoadDirectory() != null) {
+
+      // loading a dump: the schema is rebuilt from its snapshot without accessing the source database
+      new ODumpSchemaSnapshot(settings.getLoadDirectory()).buildDataBaseSchema(this.dataBaseSchema, this.sourceDBInfo);
+      statistics.notifyListeners();
+      statistics.runningStepNumber = -1;
+      return;
+    }
+
     try {
 
       connection = ODBSourceConnection.getConnection(sourceDBInfo);
@@ -254,6 +269,15 @@ public class OER2GraphMapper extends OSource2GraphMapper {
 
       buildInRelationships();
 
+      /*
+       *  Capturing the schema before the migration configuration is applied, if the records are going to be dumped
+       */
+
+      if (settings.getDumpDirectory() != null) {
+        this.dumpSchemaSnapshot = new ODumpSchemaSnapshot(settings.getDumpDirectory());
+        this.dumpSchemaSnapshot.capture(this.dataBaseSchema, this.sourceDBInfo);
+      }
+
     } catch (SQLException e) {
       String mess = "";
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
@@ -1660,6 +1684,7 @@ public class OER2GraphMapper extends OSource2GraphMapper {
 
     // adding properties
     this.addPropertiesToEdgeTypeFromConfiguredClass(currentEdgeType, currentEdgeClass);
+    currentEdgeType.setLightweight(currentEdgeClass.isLightweight());
 
     // setting correct edge direction
 
@@ -1779,6 +1804,7 @@ public class OER2GraphMapper extends OSource2GraphMapper {
 
     // adding properties
     this.addPropertiesToEdgeTypeFromConfiguredClass(edgeType, currentEdgeClass);
+    edgeType.setLightweight(currentEdgeClass.isLightweight());
 
     // Rules updating for splitting edges
     String sourceTableName = splittingEdgeInfo.getSourceTable();
@@ -2010,6 +2036,10 @@ public class OER2GraphMapper extends OSource2GraphMapper {
     }
   }
 
+  public ODumpSchemaSnapshot getDumpSchemaSnapshot() {
+    return this.dumpSchemaSnapshot;
+  }
+
   public ODataBaseSchema getDataBaseSchema() {
     return this.dataBaseSchema;
   }
@@ -2105,6 +2135,26 @@ public class OER2GraphMapper extends OSource2GraphMapper {
     return propertyName;
   }
 
+  /**
+   * Returns the name of the property corresponding to the attribute in the vertex type, null if the attribute is not mapped or
+   * if the property is excluded from the migration by the configuration, as in that case it's not written on the vertices.
+   *
+   * @param vertexType
+   * @param attributeName
+   */
+  public String getIncludedPropertyNameByVertexTypeAndAttribute(OVertexType vertexType, String attributeName) {
+
+    String propertyName = this.getPropertyNameByVertexTypeAndAttribute(vertexType, attributeName);
+    if (propertyName == null) {
+      return null;
+    }
+    OModelProperty property = vertexType.getPropertyByNameAmongAll(propertyName);
+    if (property == null || !property.isIncludedInMigration()) {
+      return null;
+    }
+    return propertyName;
+  }
+
   public String getAttributeNameByEdgeTypeAndProperty(OEdgeType edgeType, String propertyName) {
 
     String attributeName = null;
@@ -2149,6 +2199,74 @@ public class OER2GraphMapper extends OSource2GraphMapper {
     return propertyName;
   }
 
+  /**
+   * It returns the names of the attributes of the entity actually read during the import of its records, that is:
+   * - attributes mapped with properties included in the migration (vertex and splitting-edge properties)
+   * - attributes mapped with the external key properties
+   * - attributes involved in the foreign keys of the outgoing canonical relationships
+   * The attributes are returned according to their ordinal position in the entity.
+   * It returns null if an attribute read during the import does not belong to the entity, so the caller can fetch whole records.
+   *
+   * @param entity
+   *
+   * @return
+   */
+
+  public List<String> getAttributesToImportByEntity(OEntity entity) {
+
+    Set<String> attributesToImport = new HashSet<String>();
+
+    List<OEVClassMapper> evClassMappers = this.getEVClassMappersByEntity(entity);
+    if (evClassMappers != null) {
+      for (OEVClassMapper classMapper : evClassMappers) {
+        OVertexType vertexType = classMapper.getVertexType();
+        for (OModelProperty currentProperty : vertexType.getAllProperties()) {
+
+          // join vertex types are not filtered because all their properties are copied on the aggregator edge
+          if (currentProperty.isIncludedInMigration() || vertexType.getExternalKey().contains(currentProperty.getName())
+              || vertexType.isFromJoinTable()) {
+            String attributeName = classMapper.getAttributeByProperty(currentProperty.getName());
+            if (attributeName != null) {
+              attributesToImport.add(attributeName);
+            }
+          }
+        }
+      }
+    }
+
+    List<OEEClassMapper> eeClassMappers = this.getEEClassMappersByEntity(entity);
+    if (eeClassMappers != null) {
+      for (OEEClassMapper classMapper : eeClassMappers) {
+        for (OModelProperty currentProperty : classMapper.getEdgeType().getAllProperties()) {
+          if (currentProperty.isIncludedInMigration()) {
+            String attributeName = classMapper.getAttributeByProperty(currentProperty.getName());
+            if (attributeName != null) {
+              attributesToImport.add(attributeName);
+            }
+          }
+        }
+      }
+    }
+
+    for (OCanonicalRelationship currentRelationship : entity.getAllOutCanonicalRelationships()) {
+      for (OAttribute foreignAttribute : currentRelationship.getFromColumns()) {
+        attributesToImport.add(foreignAttribute.getName());
+      }
+    }
+
+    List<String> orderedAttributes = new LinkedList<String>();
+    for (OAttribute currentAttribute : entity.getAllAttributes()) {
+      if (attributesToImport.remove(currentAttribute.getName())) {
+        orderedAttributes.add(currentAttribute.getName());
+      }
+    }
+
+    if (!attributesToImport.isEmpty() || orderedAttributes.isEmpty()) {
+      return null;
+    }
+    return orderedAttributes;
+  }
+
   /**
    * It returns the vertex type mapped with the aggregator edge correspondent to the original join table.
    *
@@ -34,6 +34,7 @@ public class OEdgeType extends OElementType {
   private OVertexType outVertexType;
   private int         numberRelationshipsRepresented;  // the number of relationships represented by the edge
   private boolean     isSplittingEdge;
+  private boolean     isLightweight;                   // edges without properties are written as lightweight edges
 
   public OEdgeType(String edgeType) {
     super(edgeType);
@@ -90,6 +91,14 @@ public class OEdgeType extends OElementType {
     isSplittingEdge = splittingEdge;
   }
 
+  public boolean isLightweight() {
+    return this.isLightweight;
+  }
+
+  public void setLightweight(boolean lightweight) {
+    this.isLightweight = lightweight;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -20,12 +20,16 @@
 
 package com.orientechnologies.teleporter.persistence.handler;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import com.orientechnologies.teleporter.persistence.util.OWKBGeometryReader;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
@@ -41,9 +45,11 @@ public class ODBMSDataTypeHandler implements ODriverDataTypeHandler {
   protected Map<String, OType> dbmsType2OrientType;
   public    boolean            jsonImplemented;
   public    boolean            geospatialImplemented;
+  private   Set<String>        unresolvedTypes;      // types already reported, resolveType is called for each imported value
 
   public ODBMSDataTypeHandler() {
     this.dbmsType2OrientType = this.fillTypesMap();
+    this.unresolvedTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     this.jsonImplemented = false;
     this.geospatialImplemented = false;
   }
@@ -63,9 +69,19 @@ public class ODBMSDataTypeHandler implements ODriverDataTypeHandler {
 
       // Undefined Types
     else {
+      this.warnUnresolvedType(type);
+      return OType.STRING;
+    }
+  }
+
+  /**
+   * Adds the warning about a type not convertible into any OrientDB type, building the message only the first time the type
+   * is met.
+   */
+  protected void warnUnresolvedType(String type) {
+    if (this.unresolvedTypes.add(type)) {
       OTeleporterContext.getInstance().getStatistics().warningMessages.add("The original type '" + type
           + "' is not convertible into any OrientDB type thus, in order to prevent data loss, it will be converted to the OrientDB Type String.");
-      return OType.STRING;
     }
   }
 
@@ -142,6 +158,20 @@ public class ODBMSDataTypeHandler implements ODriverDataTypeHandler {
     return document;
   }
 
+  /**
+   * Converts a geometry fetched as WKB, raw or hex-encoded, into the embedded document of the OrientDB spatial class.
+   *
+   * @param currentAttributeValue
+   *
+   * @return the embedded document, null if the value is null or not in the WKB format
+   */
+  public ODocument convertGeospatialToDocument(byte[] currentAttributeValue) {
+    if (!OWKBGeometryReader.isWKB(currentAttributeValue)) {
+      return null;
+    }
+    return new OWKBGeometryReader(currentAttributeValue).read();
+  }
+
   /**
    * @param currentOriginalType
    *
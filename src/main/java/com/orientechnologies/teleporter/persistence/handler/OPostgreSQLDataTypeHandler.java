@@ -23,6 +23,7 @@ package com.orientechnologies.teleporter.persistence.handler;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import com.orientechnologies.orient.core.metadata.schema.OType;
@@ -43,7 +44,7 @@ public class OPostgreSQLDataTypeHandler extends ODBMSDataTypeHandler {
     this.dbmsType2OrientType = this.fillTypesMap();
     this.geospatialTypes = this.fillGeospatialList();
     super.jsonImplemented = true;
-    super.geospatialImplemented = false;
+    super.geospatialImplemented = true;
   }
 
   private Map<String, OType> fillTypesMap() {
@@ -225,4 +226,9 @@ public class OPostgreSQLDataTypeHandler extends ODBMSDataTypeHandler {
     return geospatialTypes;
   }
 
+  @Override
+  public boolean isGeospatial(String currentOriginalType) {
+    return currentOriginalType != null && this.geospatialTypes.contains(currentOriginalType.toLowerCase(Locale.ENGLISH));
+  }
+
 }
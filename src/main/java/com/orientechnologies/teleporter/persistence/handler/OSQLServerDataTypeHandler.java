@@ -23,7 +23,6 @@ package com.orientechnologies.teleporter.persistence.handler;
 import java.util.HashMap;
 import java.util.Map;
 
-import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 
 /**
@@ -54,9 +53,7 @@ public class OSQLServerDataTypeHandler extends ODBMSDataTypeHandler {
 
       // Undefined Types
     else {
-      OTeleporterContext.getInstance().getStatistics().warningMessages.add(
-          "The original type '" + type + "' is not convertible into any OrientDB type thus, in order to prevent data loss, "
-              + "it will be converted to the OrientDB Type String.");
+      this.warnUnresolvedType(type);
       return OType.STRING;
     }
   }
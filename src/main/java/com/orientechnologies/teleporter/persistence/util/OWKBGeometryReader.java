@@ -0,0 +1,287 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.persistence.util;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a geometry in the Well-Known Binary format (WKB, extended WKB or ISO WKB) and converts it into the embedded document
+ * of the correspondent OrientDB spatial class (OPoint, OLineString, OPolygon, their multi variants and OGeometryCollection).
+ * The bytes are read in place, also when they are hex-encoded as in the text representation of the PostGIS geometries, so no
+ * intermediate buffer is allocated. Z and M ordinates and the SRID are not kept, as the OrientDB shapes are two-dimensional.
+ * One reader must be used for a single geometry.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OWKBGeometryReader {
+
+  private static final int WKB_POINT              = 1;
+  private static final int WKB_LINESTRING         = 2;
+  private static final int WKB_POLYGON            = 3;
+  private static final int WKB_MULTIPOINT         = 4;
+  private static final int WKB_MULTILINESTRING    = 5;
+  private static final int WKB_MULTIPOLYGON       = 6;
+  private static final int WKB_GEOMETRYCOLLECTION = 7;
+
+  private static final int EWKB_Z_FLAG    = 0x80000000;
+  private static final int EWKB_M_FLAG    = 0x40000000;
+  private static final int EWKB_SRID_FLAG = 0x20000000;
+
+  private final byte[]  wkb;
+  private final boolean hex;           // true if each byte is encoded by two hexadecimal characters
+  private final int     length;        // number of decoded bytes
+  private int           position;      // index of the next decoded byte
+  private boolean       littleEndian;
+  private int           dimensions;    // ordinates per coordinate of the geometry being read
+
+  public OWKBGeometryReader(byte[] wkb) {
+    this.wkb = wkb;
+    this.hex = isHexEncoded(wkb);
+    this.length = this.hex ? wkb.length / 2 : wkb.length;
+    this.position = 0;
+  }
+
+  /**
+   * @param value
+   *
+   * @return true if the value starts with a WKB byte order mark, raw or hex-encoded
+   */
+  public static boolean isWKB(byte[] value) {
+    if (value == null || value.length == 0) {
+      return false;
+    }
+    return value[0] == 0 || value[0] == 1 || isHexEncoded(value);
+  }
+
+  private static boolean isHexEncoded(byte[] value) {
+    return value.length > 1 && value[0] == '0' && (value[1] == '0' || value[1] == '1');
+  }
+
+  /**
+   * @return the embedded document of the geometry
+   *
+   * @throws IllegalArgumentException if the bytes are not a valid WKB geometry
+   */
+  public ODocument read() {
+    try {
+      ODocument geometry = this.readGeometry();
+      if (this.position != this.length) {
+        throw new IllegalArgumentException("Unexpected bytes after the end of the WKB geometry.");
+      }
+      return geometry;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated WKB geometry.", e);
+    }
+  }
+
+  private ODocument readGeometry() {
+
+    int type = this.readHeader();
+    ODocument geometry;
+
+    switch (type) {
+    case WKB_POINT:
+      geometry = new ODocument("OPoint");
+      geometry.field("coordinates", this.readCoordinate());
+      break;
+    case WKB_LINESTRING:
+      geometry = new ODocument("OLineString");
+      geometry.field("coordinates", this.readCoordinates());
+      break;
+    case WKB_POLYGON:
+      geometry = new ODocument("OPolygon");
+      geometry.field("coordinates", this.readRings());
+      break;
+    case WKB_MULTIPOINT:
+      geometry = new ODocument("OMultiPoint");
+      geometry.field("coordinates", this.readParts(WKB_POINT));
+      break;
+    case WKB_MULTILINESTRING:
+      geometry = new ODocument("OMultiLineString");
+      geometry.field("coordinates", this.readParts(WKB_LINESTRING));
+      break;
+    case WKB_MULTIPOLYGON:
+      geometry = new ODocument("OMultiPolygon");
+      geometry.field("coordinates", this.readParts(WKB_POLYGON));
+      break;
+    case WKB_GEOMETRYCOLLECTION:
+      int numGeometries = this.readCount();
+      List<ODocument> geometries = new ArrayList<ODocument>(numGeometries);
+      for (int i = 0; i < numGeometries; i++) {
+        geometries.add(this.readGeometry());
+      }
+      geometry = new ODocument("OGeometryCollection");
+      geometry.field("geometries", geometries);
+      break;
+    default:
+      throw new IllegalArgumentException("Unsupported WKB geometry type: " + type + ".");
+    }
+
+    return geometry;
+  }
+
+  /**
+   * Reads byte order, type and the eventual SRID of a geometry, setting the number of ordinates of its coordinates.
+   *
+   * @return the base geometry type, without dimension flags
+   */
+  private int readHeader() {
+
+    this.littleEndian = this.readByte() == 1;
+    int type = this.readInt();
+    this.dimensions = 2;
+
+    // extended WKB: dimensions and SRID are flagged in the high bits
+    if ((type & EWKB_SRID_FLAG) != 0) {
+      this.readInt();
+    }
+    if ((type & EWKB_Z_FLAG) != 0) {
+      this.dimensions++;
+    }
+    if ((type & EWKB_M_FLAG) != 0) {
+      this.dimensions++;
+    }
+    type &= 0x0FFFFFFF;
+
+    // ISO WKB: 1000 for Z, 2000 for M, 3000 for ZM
+    if (type > 1000) {
+      this.dimensions += (type / 1000 == 3) ? 2 : 1;
+      type %= 1000;
+    }
+    return type;
+  }
+
+  /**
+   * Reads the parts of a multi geometry, each one with its own header.
+   */
+  private List<Object> readParts(int partType) {
+    int numParts = this.readCount();
+    List<Object> parts = new ArrayList<Object>(numParts);
+    for (int i = 0; i < numParts; i++) {
+      int type = this.readHeader();
+      if (type != partType) {
+        throw new IllegalArgumentException(
+            "Unexpected WKB geometry type " + type + " in a multi geometry, expected type " + partType + ".");
+      }
+      switch (type) {
+      case WKB_POINT:
+        parts.add(this.readCoordinate());
+        break;
+      case WKB_LINESTRING:
+        parts.add(this.readCoordinates());
+        break;
+      default:
+        parts.add(this.readRings());
+        break;
+      }
+    }
+    return parts;
+  }
+
+  private List<List<List<Double>>> readRings() {
+    int numRings = this.readCount();
+    List<List<List<Double>>> rings = new ArrayList<List<List<Double>>>(numRings);
+    for (int i = 0; i < numRings; i++) {
+      rings.add(this.readCoordinates());
+    }
+    return rings;
+  }
+
+  private List<List<Double>> readCoordinates() {
+    int numPoints = this.readCount();
+    List<List<Double>> coordinates = new ArrayList<List<Double>>(numPoints);
+    for (int i = 0; i < numPoints; i++) {
+      coordinates.add(this.readCoordinate());
+    }
+    return coordinates;
+  }
+
+  private List<Double> readCoordinate() {
+    List<Double> coordinate = new ArrayList<Double>(2);
+    coordinate.add(this.readDouble());
+    coordinate.add(this.readDouble());
+    // Z and M ordinates are skipped
+    this.position += (this.dimensions - 2) * 8;
+    return coordinate;
+  }
+
+  /**
+   * Reads a number of elements, checking it against the remaining bytes so that corrupted counts don't cause huge allocations.
+   */
+  private int readCount() {
+    int count = this.readInt();
+    if (count < 0 || count > this.length - this.position) {
+      throw new IllegalArgumentException("Invalid element count in the WKB geometry: " + count + ".");
+    }
+    return count;
+  }
+
+  private double readDouble() {
+    long high = this.readInt() & 0xFFFFFFFFL;
+    long low = this.readInt() & 0xFFFFFFFFL;
+    long bits = this.littleEndian ? (low << 32) | high : (high << 32) | low;
+    return Double.longBitsToDouble(bits);
+  }
+
+  private int readInt() {
+    int b0 = this.readByte();
+    int b1 = this.readByte();
+    int b2 = this.readByte();
+    int b3 = this.readByte();
+    if (this.littleEndian) {
+      return (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+    }
+    return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+  }
+
+  private int readByte() {
+    if (this.position >= this.length) {
+      throw new ArrayIndexOutOfBoundsException(this.position);
+    }
+    int value;
+    if (this.hex) {
+      value = (hexDigit(this.wkb[2 * this.position]) << 4) | hexDigit(this.wkb[2 * this.position + 1]);
+    } else {
+      value = this.wkb[this.position] & 0xFF;
+    }
+    this.position++;
+    return value;
+  }
+
+  private static int hexDigit(byte c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    }
+    if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    }
+    throw new IllegalArgumentException("Invalid hexadecimal character in the WKB geometry: '" + (char) c + "'.");
+  }
+
+}
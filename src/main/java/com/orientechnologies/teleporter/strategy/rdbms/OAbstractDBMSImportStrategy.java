@@ -26,31 +26,49 @@ import com.orientechnologies.teleporter.configuration.api.OConfiguration;
 import com.orientechnologies.teleporter.configuration.api.OConfiguredVertexClass;
 import com.orientechnologies.teleporter.configuration.api.OSourceTable;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
 import com.orientechnologies.teleporter.factory.ODataTypeHandlerFactory;
 import com.orientechnologies.teleporter.factory.ONameResolverFactory;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.ODumpWriter;
+import com.orientechnologies.teleporter.importengine.rdbms.estimator.OMigrationEstimate;
+import com.orientechnologies.teleporter.importengine.rdbms.estimator.OMigrationEstimator;
 import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphEngineForDB;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphPartitioner;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.ORemoteGraphSink;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OSplitEntityImportPlan;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OSplitRecordWriter;
+import com.orientechnologies.teleporter.importengine.rdbms.verifier.OMigrationVerification;
+import com.orientechnologies.teleporter.importengine.rdbms.verifier.OMigrationVerifier;
 import com.orientechnologies.teleporter.mapper.OSource2GraphMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
-import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEEClassMapper;
+import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEVClassMapper;
 import com.orientechnologies.teleporter.model.OSourceInfo;
 import com.orientechnologies.teleporter.model.dbschema.*;
 import com.orientechnologies.teleporter.model.graphmodel.OEdgeType;
-import com.orientechnologies.teleporter.model.graphmodel.OModelProperty;
 import com.orientechnologies.teleporter.model.graphmodel.OVertexType;
 import com.orientechnologies.teleporter.nameresolver.ONameResolver;
 import com.orientechnologies.teleporter.persistence.handler.ODBMSDataTypeHandler;
 import com.orientechnologies.teleporter.persistence.util.OQueryResult;
 import com.orientechnologies.teleporter.strategy.OWorkflowStrategy;
 import com.orientechnologies.teleporter.util.OFunctionsHandler;
+import com.orientechnologies.teleporter.writer.OGraphModelWriter;
+import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Gabriele Ponzi
@@ -59,7 +77,12 @@ import java.util.*;
 
 public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
 
-  protected OER2GraphMapper mapper;
+  private static final int SPLIT_CHUNK_SIZE = 256;    // records of a split entity handed to a writer at once
+
+  protected OER2GraphMapper    mapper;
+  protected OMigrationEstimate migrationEstimate;
+  protected ODeadLetterSink    deadLetterSink;    // collects the rows whose import failed, null if failures abort the migration
+  protected OMigrationVerification migrationVerification;   // comparison of the migrated graph with the source, null if not verified
 
   public OAbstractDBMSImportStrategy() {
   }
@@ -107,8 +130,66 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
         .createSchemaMapper(sourceDBInfo, outOrientGraphUri, chosenMapper, xmlPath, nameResolver, handler, includedTables,
             excludedTables, migrationConfig);
 
-    // Step 4: Import
-    this.executeImport(sourceDBInfo, outOrientGraphUri, mapper, handler);
+    // Step 4: Import, estimate of the import, or dump of the source records to be loaded later
+    // when required all the source reads from here on, verification included, share the same point in time
+    ODBQueryEngine dbQueryEngine = OTeleporterContext.getInstance().getDbQueryEngine();
+    if (OTeleporterContext.getInstance().getSettings().isSnapshotReads()) {
+      dbQueryEngine.beginSnapshot(sourceDBInfo);
+    }
+    try {
+      this.executeSteps(sourceDBInfo, outOrientGraphUri, handler, globalStart);
+    } finally {
+      dbQueryEngine.endSnapshot();
+    }
+
+    // Building Graph Model mapping (for graph rendering too)
+    // It must remain until the config will follow a delta definition approach, and not a full definition approach
+    OConfiguration configuredGraph = configurationHandler.buildConfigurationFromMapper(this.mapper);
+    ODocument configuredGraphDoc = configurationHandler.buildJSONDocFromConfiguration(configuredGraph);
+
+    return configuredGraphDoc;
+  }
+
+  private void executeSteps(OSourceDatabaseInfo sourceDBInfo, String outOrientGraphUri, ODBMSDataTypeHandler handler,
+      Date globalStart) {
+
+    String dumpDirectory = OTeleporterContext.getInstance().getSettings().getDumpDirectory();
+    double estimateSamplePercentage = OTeleporterContext.getInstance().getSettings().getEstimateSamplePercentage();
+    if (estimateSamplePercentage > 0) {
+      this.migrationEstimate = new OMigrationEstimator(estimateSamplePercentage)
+          .estimate(this.mapper, OTeleporterContext.getInstance().getDbQueryEngine(), outOrientGraphUri);
+      OTeleporterContext.getInstance().getMessageHandler().info(this, this.migrationEstimate.toString());
+    } else if (dumpDirectory != null) {
+      new ODumpWriter(dumpDirectory).dump(this.mapper.getDataBaseSchema(), this.mapper.getDumpSchemaSnapshot(),
+          OTeleporterContext.getInstance().getDbQueryEngine());
+    } else {
+      OTeleporterSettings settings = OTeleporterContext.getInstance().getSettings();
+
+      // the rows to replay are read before the dead-letter sink is opened, as it can replace the same file
+      List<ODocument> rowsToReplay = null;
+      if (settings.getReplayPath() != null) {
+        rowsToReplay = ODeadLetterSink.read(settings.getReplayPath());
+      }
+      if (settings.getDeadLetterPath() != null) {
+        this.deadLetterSink = new ODeadLetterSink(settings.getDeadLetterPath());
+      }
+      boolean completed = false;
+      try {
+        if (rowsToReplay != null) {
+          this.replayDeadLetterRows(rowsToReplay, outOrientGraphUri, handler);
+        } else {
+          this.executeImport(sourceDBInfo, outOrientGraphUri, mapper, handler);
+        }
+        completed = true;
+      } finally {
+        if (this.deadLetterSink != null) {
+          this.deadLetterSink.close(completed);
+        }
+      }
+
+      // the spatial indexes are built once all the geometries are loaded
+      new OGraphModelWriter().writeSpatialIndexes(this.mapper.getGraphModel(), handler, outOrientGraphUri);
+    }
     OTeleporterContext.getInstance().getStatistics().notifyListeners();
     OTeleporterContext.getInstance().getMessageHandler().info(this, "\n");
     OTeleporterContext.getInstance().getStatistics().runningStepNumber = -1;
@@ -119,12 +200,49 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
         .info(this, "\n\nImporting complete in %s\n", OFunctionsHandler.getHMSFormat(globalStart, globalEnd));
     OTeleporterContext.getInstance().getMessageHandler().info(this, OTeleporterContext.getInstance().getStatistics().toString());
 
-    // Building Graph Model mapping (for graph rendering too)
-    // It must remain until the config will follow a delta definition approach, and not a full definition approach
-    OConfiguration configuredGraph = configurationHandler.buildConfigurationFromMapper(this.mapper);
-    ODocument configuredGraphDoc = configurationHandler.buildJSONDocFromConfiguration(configuredGraph);
+    // Step 5: Verification of the migrated graph against the source
+    if (estimateSamplePercentage <= 0 && dumpDirectory == null && OTeleporterContext.getInstance().getSettings().isVerify()) {
+      this.migrationVerification = new OMigrationVerifier(Runtime.getRuntime().availableProcessors())
+          .verify(this.mapper, OTeleporterContext.getInstance().getDbQueryEngine(), outOrientGraphUri);
+      OTeleporterContext.getInstance().getMessageHandler().info(this, this.migrationVerification.toString());
+    }
+  }
 
-    return configuredGraphDoc;
+  /**
+   * @return the estimate built by the last execution in estimate mode, null otherwise
+   */
+  public OMigrationEstimate getMigrationEstimate() {
+    return this.migrationEstimate;
+  }
+
+  /**
+   * @return the mapper built by the last execution
+   */
+  public OER2GraphMapper getMapper() {
+    return this.mapper;
+  }
+
+  /**
+   * @return the verification built by the last execution when the verification is enabled, null otherwise
+   */
+  public OMigrationVerification getMigrationVerification() {
+    return this.migrationVerification;
+  }
+
+  /**
+   * @return the partitioner routing the vertices over the target database and the further partition databases, null if the output
+   * is not partitioned.
+   */
+  protected OGraphPartitioner buildGraphPartitioner(String outOrientGraphUri) {
+
+    List<String> partitionUrls = OTeleporterContext.getInstance().getSettings().getPartitionUrls();
+    if (partitionUrls.isEmpty()) {
+      return null;
+    }
+    List<String> allPartitionUrls = new ArrayList<String>();
+    allPartitionUrls.add(outOrientGraphUri);
+    allPartitionUrls.addAll(partitionUrls);
+    return new OGraphPartitioner(allPartitionUrls);
   }
 
   protected abstract OConfigurationHandler buildConfigurationHandler();
@@ -159,24 +277,48 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
     OEdgeType edgeType;// for each entity in dbSchema all records are retrieved
     int numberOfAggregatedClasses = mappedEntities.size();
     if (numberOfAggregatedClasses == 1) {
-      queryResult = dbQueryEngine.getRecordsByEntity(mappedEntities.get(0));
+      OEntity entity = mappedEntities.get(0);
+      queryResult = dbQueryEngine.getRecordsByEntity(entity, this.mapper.getAttributesToImportByEntity(entity));
     } else {
       queryResult = dbQueryEngine.getRecordsFromMultipleEntities(mappedEntities, aggregationColumns);
     }
 
-    //if (handler.geospatialImplemented && super.hasGeospatialAttributes(entity, handler)) {
-    //  String query = handler.buildGeospatialQuery(entity);
-    //  queryResult = dbQueryEngine.executeQuery(query);
-    //}
-
     records = queryResult.getResult();
     ResultSet currentRecord = null;
 
+    // records are fetched and written in batches sized according to the observed latency and heap headroom
+    OAdaptiveBatchController batchController = this.newBatchController(records);
+
     // each record is imported as vertex in the orient graph
     while (records.next()) {
 
-      // upsert of the vertex
+      // upsert of the vertex and of its relationships
       currentRecord = records;
+      this.importRecord(orientGraph, graphEngine, mappedEntities, currentRecord, currentOutVertexType);
+
+      // Statistics updated
+      statistics.analyzedRecords += 1 * numberOfAggregatedClasses;
+
+      this.recordWritten(batchController, records, orientGraph, graphEngine);
+    }
+    this.commitBatch(orientGraph, graphEngine);
+    this.updateBatchStatistics(currentOutVertexType, batchController);
+
+    // closing resultset, connection and statement
+    queryResult.closeAll();
+
+    // setting the vertex type as 'analyzed'
+    currentOutVertexType.setAnalyzedInLastMigration(true);
+  }
+
+  /**
+   * Imports a record as vertex, then navigates the relationships outgoing from the mapped entities. If a dead-letter file is
+   * collecting the failed rows, a failure is recorded there and the import goes on with the next record.
+   */
+  private void importRecord(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine, List<OEntity> mappedEntities,
+      ResultSet currentRecord, OVertexType currentOutVertexType) throws SQLException {
+
+    if (this.deadLetterSink == null) {
       OrientVertex currentOutVertex = (OrientVertex) graphEngine
           .upsertVisitedVertex(orientGraph, currentRecord, currentOutVertexType, currentOutVertexType.getExternalKey());
 
@@ -184,16 +326,205 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
       // and all the in-vertices are upserted in the graph database
       this.navigateRelationshipsAndInsertReachableVertices(orientGraph, graphEngine, mappedEntities, currentRecord,
           currentOutVertexType, currentOutVertex);
+      return;
+    }
 
-      // Statistics updated
-      statistics.analyzedRecords += 1 * numberOfAggregatedClasses;
+    String phase = ODeadLetterSink.VERTEX_PHASE;
+    try {
+      OrientVertex currentOutVertex = (OrientVertex) graphEngine
+          .upsertVisitedVertex(orientGraph, currentRecord, currentOutVertexType, currentOutVertexType.getExternalKey());
+      phase = ODeadLetterSink.EDGES_PHASE;
+      this.navigateRelationshipsAndInsertReachableVertices(orientGraph, graphEngine, mappedEntities, currentRecord,
+          currentOutVertexType, currentOutVertex);
+    } catch (Exception e) {
+      List<String> entityNames = new ArrayList<String>();
+      for (OEntity entity : mappedEntities) {
+        entityNames.add(entity.getName());
+      }
+      this.deadLetterSink.write(entityNames, currentOutVertexType.getName(), phase,
+          this.readRecordKey(currentRecord, currentOutVertexType), e);
     }
+  }
 
-    // closing resultset, connection and statement
-    queryResult.closeAll();
+  /**
+   * @return the source attributes and values identifying the record.
+   */
+  private Map<String, String> readRecordKey(ResultSet record, OVertexType vertexType) {
+
+    Map<String, String> key = new LinkedHashMap<String, String>();
+    for (String property : vertexType.getExternalKey()) {
+      String attributeName = this.mapper.getAttributeNameByVertexTypeAndProperty(vertexType, property);
+      try {
+        key.put(attributeName, record.getString(attributeName));
+      } catch (SQLException e) {
+        key.put(attributeName, null);
+      }
+    }
+    return key;
+  }
 
-    // setting the vertex type as 'analyzed'
-    currentOutVertexType.setAnalyzedInLastMigration(true);
+  /**
+   * Re-imports the rows of a dead-letter file: each row is read again from its source entity through its key and imported with its
+   * relationships. The rows failing again, and the ones that can't be replayed, are written in the new dead-letter file.
+   */
+  protected void replayDeadLetterRows(List<ODocument> rows, String outOrientGraphUri, ODBMSDataTypeHandler handler) {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    statistics.startWork4Time = new Date();
+    statistics.runningStepNumber = 4;
+    statistics.totalNumberOfRecords = rows.size();
+
+    ODBQueryEngine dbQueryEngine = OTeleporterContext.getInstance().getDbQueryEngine();
+    OGraphEngineForDB graphEngine = new OGraphEngineForDB(this.mapper, handler);
+    OGraphPartitioner partitioner = this.buildGraphPartitioner(outOrientGraphUri);
+    graphEngine.setPartitioner(partitioner);
+
+    OrientGraphFactory factory = new OrientGraphFactory(outOrientGraphUri, "admin", "admin");
+    OrientBaseGraph orientGraph = factory.getNoTx();
+    orientGraph.setStandardElementConstraints(false);
+
+    Map<String, OSplitEntityImportPlan> splitEntityPlans = new HashMap<String, OSplitEntityImportPlan>();
+
+    try {
+      for (ODocument row : rows) {
+
+        List<String> entityNames = row.field("entities");
+        String vertexTypeName = row.field("vertexType");
+        OVertexType vertexType = vertexTypeName != null ? this.mapper.getGraphModel().getVertexTypeByName(vertexTypeName) : null;
+        OEntity entity = null;
+        if (entityNames != null && entityNames.size() == 1) {
+          entity = this.mapper.getDataBaseSchema().getEntityByName(entityNames.get(0));
+        }
+
+        // rows of aggregated entities, join tables, hierarchies or logical relationships, or of entities not mapped anymore,
+        // are kept for a later replay
+        if (vertexType == null || entity == null || entity.getHierarchicalBag() != null) {
+          statistics.warningMessages.add("The dead-letter row " + row.field("key") + " of " + entityNames
+              + " can't be replayed: it's kept in the dead-letter file.");
+          if (this.deadLetterSink != null) {
+            this.deadLetterSink.write(row);
+          }
+          statistics.analyzedRecords++;
+          continue;
+        }
+
+        Map<String, Object> key = this.readDeadLetterKey(row);
+        String[] propertyOfKey = key.keySet().toArray(new String[key.size()]);
+        String[] valueOfKey = new String[propertyOfKey.length];
+        for (int i = 0; i < propertyOfKey.length; i++) {
+          Object value = key.get(propertyOfKey[i]);
+          valueOfKey[i] = value != null ? value.toString() : null;
+        }
+
+        OQueryResult queryResult = dbQueryEngine.getRecordById(entity, propertyOfKey, valueOfKey);
+        try {
+          ResultSet record = queryResult.getResult();
+          List<OEVClassMapper> classMappers = this.mapper.getEVClassMappersByEntity(entity);
+          if (!record.next()) {
+            statistics.warningMessages.add("The dead-letter row " + key + " of " + entity.getName()
+                + " is not present in the source database anymore.");
+          } else if (classMappers != null && classMappers.size() > 1) {
+
+            // split entity: all the vertices of the record are imported again
+            OSplitEntityImportPlan plan = splitEntityPlans.get(entity.getName());
+            if (plan == null) {
+              List<OVertexType> mappedVertices = new ArrayList<OVertexType>();
+              for (OEVClassMapper classMapper : classMappers) {
+                mappedVertices.add(classMapper.getVertexType());
+              }
+              plan = new OSplitEntityImportPlan(entity, mappedVertices, this.mapper);
+              splitEntityPlans.put(entity.getName(), plan);
+            }
+            plan.importRecord(orientGraph, graphEngine, record, plan.newVertexBuffer(), this.deadLetterSink);
+          } else {
+            this.importRecord(orientGraph, graphEngine, Collections.singletonList(entity), record, vertexType);
+          }
+        } finally {
+          queryResult.closeAll();
+        }
+        statistics.analyzedRecords++;
+      }
+      statistics.deadLetterRows = this.deadLetterSink != null ? this.deadLetterSink.getRows() : 0;
+    } catch (SQLException e) {
+      String mess = "Problem encountered during the replay of the dead-letter rows.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+      throw new OTeleporterRuntimeException(e);
+    } finally {
+      orientGraph.shutdown();
+      if (partitioner != null) {
+        partitioner.shutdown();
+      }
+    }
+
+    statistics.notifyListeners();
+    statistics.runningStepNumber = -1;
+    OTeleporterContext.getInstance().getMessageHandler().info(this, "\n");
+  }
+
+  private Map<String, Object> readDeadLetterKey(ODocument row) {
+
+    Object keyField = row.field("key");
+    Map<String, Object> key = new LinkedHashMap<String, Object>();
+    if (keyField instanceof ODocument) {
+      for (String fieldName : ((ODocument) keyField).fieldNames()) {
+        key.put(fieldName, ((ODocument) keyField).field(fieldName));
+      }
+    } else if (keyField instanceof Map) {
+      key.putAll((Map<String, Object>) keyField);
+    }
+    return key;
+  }
+
+  /**
+   * Commits the written batch when the graph is transactional, the non-transactional graphs write each element straight away.
+   */
+  protected void commitBatch(OrientBaseGraph orientGraph, OGraphEngineForDB graphEngine) {
+    if (orientGraph instanceof TransactionalGraph) {
+      ((TransactionalGraph) orientGraph).commit();
+      graphEngine.endBatch();
+    }
+  }
+
+  /**
+   * Builds the controller of the batches in which the records of a result set are fetched and written, setting its fetch size.
+   */
+  private OAdaptiveBatchController newBatchController(ResultSet records) throws SQLException {
+    OTeleporterSettings settings = OTeleporterContext.getInstance().getSettings();
+    OAdaptiveBatchController batchController = new OAdaptiveBatchController(settings.getMinBatchSize(),
+        settings.getMaxBatchSize());
+    records.setFetchSize(batchController.getFetchSize());
+    return batchController;
+  }
+
+  /**
+   * Counts a written record, committing the batch when it's complete.
+   */
+  private void recordWritten(OAdaptiveBatchController batchController, ResultSet records, OrientBaseGraph orientGraph,
+      OGraphEngineForDB graphEngine) throws SQLException {
+    if (batchController.recordWritten()) {
+      this.commitBatch(orientGraph, graphEngine);
+      batchController.endBatch();
+      records.setFetchSize(batchController.getFetchSize());
+    }
+  }
+
+  private void updateBatchStatistics(OVertexType vertexType, OAdaptiveBatchController batchController) {
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    statistics.vertexType2fetchSize.put(vertexType.getName(), batchController.getFetchSize());
+    statistics.vertexType2commitSize.put(vertexType.getName(), batchController.getCommitSize());
+    statistics.vertexType2batches.put(vertexType.getName(), batchController.getBatches());
+  }
+
+  /**
+   * Opens the graph the import is written through: transactional with the remote sink, so that each batch is sent to the server
+   * in a single request when committed, non-transactional otherwise.
+   */
+  protected OrientBaseGraph openGraph(OrientGraphFactory factory) {
+    if (OTeleporterSettings.REMOTE_SINK.equals(OTeleporterContext.getInstance().getSettings().getSink())) {
+      return ORemoteGraphSink.openGraph(factory);
+    }
+    return factory.getNoTx();
   }
 
   /**
@@ -229,122 +560,235 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
    * It imports all the records from a split entity into all the Vertex Classes mapped with it (so 1 entity mapped with several
    * vertex classes). It's used to import all the vertices and all the "splitting-edges" belonging to an Edge Class that connects
    * those vertices coming from the same record.
+   * The decisions on the vertex and edge classes are taken once for the entity in its import plan; the records are written by
+   * several writers when more worker threads are set.
    *
    * @param mappedVertices
    * @param dbQueryEngine
    * @param graphEngine
+   * @param factory
    * @param orientGraph
    */
 
   public void importRecordsFromSplitEntityIntoVertexClasses(List<OEntity> mappedEntities, List<OVertexType> mappedVertices,
-      ODBQueryEngine dbQueryEngine, OGraphEngineForDB graphEngine, OrientBaseGraph orientGraph) throws SQLException {
+      ODBQueryEngine dbQueryEngine, OGraphEngineForDB graphEngine, OrientGraphFactory factory, OrientBaseGraph orientGraph)
+      throws SQLException, InterruptedException {
 
-    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
     OEntity entity = mappedEntities.get(0);     // we have just a mapped entity in the splitting case
-    OQueryResult queryResult;
-    ResultSet records;
+    OSplitEntityImportPlan plan = new OSplitEntityImportPlan(entity, mappedVertices, this.mapper);
 
-    queryResult = dbQueryEngine.getRecordsByEntity(entity);
-    records = queryResult.getResult();
-    ResultSet currentRecord = null;
+    int workerThreads = OTeleporterContext.getInstance().getSettings().getWorkerThreads();
+    if (workerThreads > 1) {
+      this.importSplitEntityRecordsInParallel(plan, workerThreads, dbQueryEngine, graphEngine, factory, orientGraph);
+    } else {
+      this.importSplitEntityRecords(plan, dbQueryEngine, graphEngine, orientGraph);
+    }
+
+    // setting the vertex types as 'analyzed'
+    plan.setAnalyzed();
+  }
+
+  private void importSplitEntityRecords(OSplitEntityImportPlan plan, ODBQueryEngine dbQueryEngine, OGraphEngineForDB graphEngine,
+      OrientBaseGraph orientGraph) throws SQLException {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    OEntity entity = plan.getEntity();
+    OQueryResult queryResult = dbQueryEngine.getRecordsByEntity(entity, this.mapper.getAttributesToImportByEntity(entity));
+    ResultSet records = queryResult.getResult();
+
+    // records are fetched and written in batches sized according to the observed latency and heap headroom
+    OAdaptiveBatchController batchController = this.newBatchController(records);
 
     // each record is imported as many vertices in the orient graph
+    OrientVertex[] vertices = plan.newVertexBuffer();
     while (records.next()) {
+      plan.importRecord(orientGraph, graphEngine, records, vertices, this.deadLetterSink);
 
-      currentRecord = records;
+      // Statistics updated
+      statistics.analyzedRecords += 1;
 
-      // building vertices from the record
-      Map<String, OrientVertex> className2insertedVertex = new LinkedHashMap<String, OrientVertex>();
-      for (OVertexType currentVertexType : mappedVertices) {
-        OrientVertex currentOutVertex = (OrientVertex) graphEngine
-            .upsertVisitedVertex(orientGraph, currentRecord, currentVertexType, currentVertexType.getExternalKey());
-
-        boolean navigate = false;
-        for (ORelationship currentRelationship : entity.getAllOutCanonicalRelationships()) {
-          OEdgeType currEdgeType = mapper.getRelationship2edgeType().get(currentRelationship);
-          if (currEdgeType != null) {
-            if (currentRelationship.getDirection().equals("direct") && currentVertexType.getOutEdgesType().contains(currEdgeType)) {
-              navigate = true;
-              break;
-            } else if (currentRelationship.getDirection().equals("inverse") && currentVertexType.getInEdgesType()
-                .contains(currEdgeType)) {
-              navigate = true;
-              break;
-            }
-          }
-        }
+      this.recordWritten(batchController, records, orientGraph, graphEngine);
+    }
+    this.commitBatch(orientGraph, graphEngine);
 
-        // navigating relationships outgoing from the current mapped entities and for each of them all the correspondent edges are built
-        // and all the in-vertices are upserted in the graph database
-        if (navigate) {
-          this.navigateRelationshipsAndInsertReachableVertices(orientGraph, graphEngine, mappedEntities, currentRecord,
-              currentVertexType, currentOutVertex);
-        }
+    // closing resultset, connection and statement
+    queryResult.closeAll();
+  }
 
-        className2insertedVertex.put(currentVertexType.getName(), currentOutVertex);
+  /**
+   * Imports the records of a split entity using several writers. The records are read in chunks, each of them taken by the first
+   * free writer: the vertices reached from records of different writers are upserted atomically by the graph engine.
+   */
+  private void importSplitEntityRecordsInParallel(OSplitEntityImportPlan plan, int workerThreads, ODBQueryEngine dbQueryEngine,
+      OGraphEngineForDB graphEngine, OrientGraphFactory factory, OrientBaseGraph orientGraph)
+      throws SQLException, InterruptedException {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    OEntity entity = plan.getEntity();
+    List<String> attributes = this.mapper.getAttributesToImportByEntity(entity);
+    if (attributes == null) {
+      // whole records are needed: the writers receive all the columns of the entity
+      attributes = new ArrayList<String>();
+      for (OAttribute attribute : entity.getAllAttributes()) {
+        attributes.add(attribute.getName());
       }
+    }
+    String[] columns = attributes.toArray(new String[attributes.size()]);
+
+    // the writers look the vertices up through their own graphs
+    this.commitBatch(orientGraph, graphEngine);
+
+    // starting the writers
+    BlockingQueue<List<Object[]>> chunks = new ArrayBlockingQueue<List<Object[]>>(2 * workerThreads);
+    List<OSplitRecordWriter> writers = new ArrayList<OSplitRecordWriter>(workerThreads);
+    List<Thread> writerThreads = new ArrayList<Thread>(workerThreads);
+    graphEngine.setParallelWriters(true);
+    for (int i = 0; i < workerThreads; i++) {
+      OSplitRecordWriter writer = new OSplitRecordWriter(chunks, columns, factory, graphEngine, plan, i,
+          this.deadLetterSink);
+      Thread writerThread = new Thread(writer, "teleporter-split-entity-writer-" + i);
+      writers.add(writer);
+      writerThreads.add(writerThread);
+      writerThread.start();
+    }
 
-      /*
-       * Adding coherently the splitting edges between the just added vertices
-       */
-
-      List<OEEClassMapper> classMappers = ((OER2GraphMapper) this.mapper).getEEClassMappersByEntity(entity);
-
-      // checking that: total number of edges = number of mapped vertices -1
-      int numberOfEdges = classMappers.size();
-      int numberOfVertices = mappedVertices.size();
-      if (numberOfEdges != numberOfVertices - 1) {
-        OTeleporterContext.getInstance().getMessageHandler().error(this,
-            "There are %s edges-type and %s vertices-type detected for the split entity %s. "
-                + "For a correct splitting you must have: total number of edges = number of mapped vertices -1.", numberOfEdges,
-            numberOfVertices, entity.getName());
-        throw new OTeleporterRuntimeException();
+    try {
+      OQueryResult queryResult = dbQueryEngine.getRecordsByEntity(entity, attributes);
+      ResultSet records = queryResult.getResult();
+      List<Object[]> currentChunk = new ArrayList<Object[]>(SPLIT_CHUNK_SIZE);
+      while (records.next()) {
+        currentChunk.add(this.readRecordValues(records, columns));
+        if (currentChunk.size() == SPLIT_CHUNK_SIZE) {
+          this.offerChunk(chunks, currentChunk, writers, writerThreads);
+          statistics.analyzedRecords += currentChunk.size();
+          currentChunk = new ArrayList<Object[]>(SPLIT_CHUNK_SIZE);
+        }
+      }
+      if (!currentChunk.isEmpty()) {
+        this.offerChunk(chunks, currentChunk, writers, writerThreads);
+        statistics.analyzedRecords += currentChunk.size();
       }
 
-      for (OEEClassMapper classMapper : classMappers) {
-        OEdgeType currentEdgeType = classMapper.getEdgeType();
-        String currentOutVertexName = currentEdgeType.getOutVertexType().getName();
-        String currentInVertexName = currentEdgeType.getInVertexType().getName();
-        OrientVertex currentOutVertex = className2insertedVertex.get(currentOutVertexName);
-        OrientVertex currentInVertex = className2insertedVertex.get(currentInVertexName);
+      // closing resultset, connection and statement
+      queryResult.closeAll();
+    } finally {
 
-        Map<String, Object> properties = new LinkedHashMap<String, Object>();
+      // stopping the writers and waiting for the pending records
+      for (int i = 0; i < workerThreads; i++) {
+        boolean endOfRecordsSent = false;
+        while (!endOfRecordsSent && this.isAnyAlive(writerThreads)) {
+          endOfRecordsSent = chunks.offer(OSplitRecordWriter.END_OF_RECORDS, 1, TimeUnit.SECONDS);
+        }
+      }
+      for (Thread writerThread : writerThreads) {
+        writerThread.join();
+      }
+      graphEngine.setParallelWriters(false);
+    }
 
-        // filling properties
-        for (OModelProperty currentProperty : currentEdgeType.getAllProperties()) {
-          if (currentProperty.isIncludedInMigration()) {
-            String currentPropertyName = currentProperty.getName();
-            String currentPropertyType = OTeleporterContext.getInstance().getDataTypeHandler()
-                .resolveType(currentProperty.getOriginalType().toLowerCase(Locale.ENGLISH)).toString();
-            String currentOriginalType = currentProperty.getOriginalType();
+    for (OSplitRecordWriter writer : writers) {
+      if (writer.getFailure() != null) {
+        throw new OTeleporterRuntimeException(writer.getFailure());
+      }
+    }
+  }
 
-            try {
-              graphEngine.extractPropertiesFromRecordIntoEdge(currentRecord, properties, currentPropertyType, currentPropertyName,
-                  currentOriginalType, currentEdgeType);
-            } catch (Exception e) {
-              String mess =
-                  "Problem encountered during the extraction of the values from the records. Edge Type: " + currentEdgeType
-                      .getName() + ";\tProperty: " + currentPropertyName;
-              OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
-              OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
-            }
-          }
-        }
-        graphEngine.upsertEdge(orientGraph, currentOutVertex, currentInVertex, currentEdgeType.getName(), properties, "direct");
+  private void offerChunk(BlockingQueue<List<Object[]>> chunks, List<Object[]> chunk, List<OSplitRecordWriter> writers,
+      List<Thread> writerThreads) throws InterruptedException {
+
+    boolean enqueued = chunks.offer(chunk, 1, TimeUnit.SECONDS);
+    while (!enqueued && this.isAnyAlive(writerThreads)) {
+      enqueued = chunks.offer(chunk, 1, TimeUnit.SECONDS);
+    }
+    for (OSplitRecordWriter writer : writers) {
+      if (writer.getFailure() != null) {
+        throw new OTeleporterRuntimeException(writer.getFailure());
       }
+    }
+    if (!enqueued) {
+      throw new OTeleporterRuntimeException("The split entity writers stopped before all the records were written.");
+    }
+  }
 
-      // Statistics updated
-      statistics.analyzedRecords += 1;
+  private boolean isAnyAlive(List<Thread> threads) {
+    for (Thread thread : threads) {
+      if (thread.isAlive()) {
+        return true;
+      }
     }
+    return false;
+  }
 
-    // closing resultset, connection and statement
-    queryResult.closeAll();
+  /**
+   * Copies the values of the current record, so that it can be imported by another thread. Strings, numbers, booleans, dates and
+   * binary values are kept as typed by the driver, so that the writers don't parse them again (e.g. a timestamp with time zone
+   * keeps its instant). Large objects are read, while the driver specific values (e.g. geometries or arrays) are copied as strings.
+   */
+  private Object[] readRecordValues(ResultSet record, String[] columns) throws SQLException {
+
+    Object[] values = new Object[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Object value = record.getObject(columns[i]);
+      if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+          || value instanceof Date || value instanceof byte[]) {
+        values[i] = value;
+      } else if (value instanceof Blob) {
+        values[i] = ((Blob) value).getBytes(1, (int) ((Blob) value).length());
+      } else if (value instanceof Clob) {
+        values[i] = ((Clob) value).getSubString(1, (int) ((Clob) value).length());
+      } else {
+        values[i] = record.getString(columns[i]);
+      }
+    }
+    return values;
+  }
 
-    // setting the vertex type as 'analyzed'
-    for (OVertexType currentVertexType : mappedVertices) {
-      currentVertexType.setAnalyzedInLastMigration(true);
+  /**
+   * Builds the edges corresponding to the logical relationships of the source database schema.
+   * Must be invoked after all the vertices were imported, as each relationship is resolved through a join on the vertex classes.
+   *
+   * @param graphEngine
+   * @param orientGraph
+   */
+
+  protected void importLogicalRelationships(OGraphEngineForDB graphEngine, OrientBaseGraph orientGraph) {
+
+    List<OLogicalRelationship> logicalRelationships = this.mapper.getDataBaseSchema().getLogicalRelationships();
+    if (logicalRelationships.isEmpty()) {
+      return;
     }
 
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    statistics.notifyListeners();
+    statistics.startWork5Time = new Date();
+    statistics.runningStepNumber = 5;
+    statistics.totalNumberOfLogicalRelationships = logicalRelationships.size();
+    statistics.doneLogicalRelationships = 0;
+
+    for (OLogicalRelationship currentRelationship : logicalRelationships) {
+      OEdgeType currentEdgeType = this.mapper.getRelationship2edgeType().get(currentRelationship);
+
+      // relationships involving entities excluded from the migration are not mapped
+      if (currentEdgeType != null && this.mapper.getEVClassMappersByEntity(currentRelationship.getForeignEntity()) != null
+          && this.mapper.getEVClassMappersByEntity(currentRelationship.getParentEntity()) != null) {
+        OVertexType foreignVertexType = this.mapper.getVertexTypeByEntity(currentRelationship.getForeignEntity());
+        OVertexType parentVertexType = this.mapper
+            .getVertexTypeByEntityAndRelationship(currentRelationship.getParentEntity(), currentRelationship);
+        try {
+          graphEngine.connectVerticesOfLogicalRelationship(orientGraph, currentRelationship, foreignVertexType, parentVertexType,
+              currentEdgeType.getName());
+        } catch (RuntimeException e) {
+          if (this.deadLetterSink == null) {
+            throw e;
+          }
+          // the relationship is resolved on the graph, so it's recorded as a whole, without a source row key
+          this.deadLetterSink.write(Arrays.asList(currentRelationship.getForeignEntity().getName(),
+              currentRelationship.getParentEntity().getName()), null, ODeadLetterSink.EDGES_PHASE,
+              Collections.<String, String>emptyMap(), e);
+        }
+      }
+      statistics.doneLogicalRelationships++;
+    }
   }
 
   /**
@@ -379,6 +823,8 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
   /**
    * Performs import of all records of the entities contained in the hierarchical bag passed as parameter.
    * Adopted in case of "Table per Hierarchy" inheritance strategy.
+   * The physical table is scanned once and each record is routed to the vertex type of the entity mapped
+   * on its discriminator value.
    *
    * @param bag
    * @param orientGraph
@@ -390,106 +836,77 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
 
       OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
 
-      OEntity currentParentEntity = null;
-
-      OVertexType currentOutVertexType = null;
-      OVertexType currentInVertexType = null;
-      OrientVertex currentOutVertex = null;
-      OEdgeType edgeType = null;
-
-      String currentDiscriminatorValue;
       Iterator<OEntity> it = bag.getDepth2entities().get(0).iterator();
       OEntity physicalCurrentEntity = it.next();
 
-      OQueryResult queryResult = null;
-      ResultSet records = null;
-
+      // discriminator value -> entity and discriminator value -> vertex type, computed once for the whole scan
+      Map<String, OEntity> discriminatorValue2entity = new HashMap<String, OEntity>();
+      Map<String, OVertexType> discriminatorValue2vertexType = new HashMap<String, OVertexType>();
       for (int i = bag.getDepth2entities().size() - 1; i >= 0; i--) {
         for (OEntity currentEntity : bag.getDepth2entities().get(i)) {
-          currentDiscriminatorValue = bag.getEntityName2discriminatorValue().get(currentEntity.getName());
+          String currentDiscriminatorValue = bag.getEntityName2discriminatorValue().get(currentEntity.getName());
+          if (currentDiscriminatorValue != null) {
+            discriminatorValue2entity.put(currentDiscriminatorValue, currentEntity);
+            discriminatorValue2vertexType.put(currentDiscriminatorValue, mapper.getVertexTypeByEntity(currentEntity));
+          }
+        }
+      }
 
-          // for each entity in dbSchema all records are retrieved
-          queryResult = dbQueryEngine
-              .getRecordsFromSingleTableByDiscriminatorValue(bag.getDiscriminatorColumn(), currentDiscriminatorValue,
-                  physicalCurrentEntity);
-          records = queryResult.getResult();
-          ResultSet currentRecord = null;
+      // all the records of the hierarchy are retrieved with a single query and written in batches
+      OQueryResult queryResult = dbQueryEngine.getRecordsByEntity(physicalCurrentEntity);
+      ResultSet records = queryResult.getResult();
+      OVertexType rootVertexType = mapper.getVertexTypeByEntity(physicalCurrentEntity);
 
-          currentOutVertexType = mapper.getVertexTypeByEntity(currentEntity);
+      try {
+        OAdaptiveBatchController batchController = this.newBatchController(records);
+        while (records.next()) {
 
-          // each record is imported as vertex in the orient graph
-          while (records.next()) {
+          String currentDiscriminatorValue = records.getString(bag.getDiscriminatorColumn());
+          if (currentDiscriminatorValue == null) {
+            continue;
+          }
+          OEntity currentEntity = discriminatorValue2entity.get(currentDiscriminatorValue);
+          if (currentEntity == null) {
+            // fixed-length columns are padded with trailing blanks
+            currentDiscriminatorValue = currentDiscriminatorValue.trim();
+            currentEntity = discriminatorValue2entity.get(currentDiscriminatorValue);
+            if (currentEntity == null) {
+              continue;
+            }
+          }
+          OVertexType currentOutVertexType = discriminatorValue2vertexType.get(currentDiscriminatorValue);
 
+          String phase = ODeadLetterSink.VERTEX_PHASE;
+          try {
             // upsert of the vertex
-            currentRecord = records;
-            currentOutVertex = (OrientVertex) graphDBCommandEngine
-                .upsertVisitedVertex(orientGraph, currentRecord, currentOutVertexType, currentOutVertexType.getExternalKey());
-
-            // for each attribute of the entity belonging to the primary key, correspondent relationship is
-            // built as edge and for the referenced record a vertex is built (only id)
-            for (OCanonicalRelationship currentRelation : currentEntity.getAllOutCanonicalRelationships()) {
-
-              currentParentEntity = mapper.getDataBaseSchema()
-                  .getEntityByNameIgnoreCase(currentRelation.getParentEntity().getName());
-
-              // checking if parent table belongs to a hierarchical bag
-              if (currentParentEntity.getHierarchicalBag() == null) {
-                currentInVertexType = mapper.getVertexTypeByEntity(currentRelation.getParentEntity());
-              }
-
-              // if the parent entity belongs to hierarchical bag, we need to know which is it the more stringent subclass of the record with a certain id
-              else {
-                String[] propertyOfKey = new String[currentRelation.getFromColumns().size()];
-                String[] valueOfKey = new String[currentRelation.getFromColumns().size()];
-
-                int index = 0;
-                for (OAttribute foreignAttribute : currentRelation.getFromColumns()) {
-                  propertyOfKey[index] = currentRelation.getToColumns().get(index).getName();
-                  valueOfKey[index] = currentRecord.getString((foreignAttribute.getName()));
-                  index++;
-                }
-
-                // search is performed only if all the values in the foreign key are different from null (the relationship is inherited and is also consistent)
-                boolean ok = true;
-
-                for (int j = 0; j < valueOfKey.length; j++) {
-                  if (valueOfKey[j] == null) {
-                    ok = false;
-                    break;
-                  }
-                }
-                if (ok) {
-                  it = currentParentEntity.getHierarchicalBag().getDepth2entities().get(0).iterator();
-                  OEntity physicalArrivalEntity = it.next();
-                  String currentArrivalEntityName = searchParentEntityType(currentParentEntity, propertyOfKey, valueOfKey,
-                      physicalArrivalEntity, dbQueryEngine);
-                  OEntity currentArrivalEntity = mapper.getDataBaseSchema().getEntityByName(currentArrivalEntityName);
-                  currentInVertexType = mapper.getVertexTypeByEntity(currentArrivalEntity);
-                }
-              }
+            OrientVertex currentOutVertex = (OrientVertex) graphDBCommandEngine
+                .upsertVisitedVertex(orientGraph, records, currentOutVertexType, currentOutVertexType.getExternalKey());
+
+            phase = ODeadLetterSink.EDGES_PHASE;
+            this.importHierarchicalRecordRelationships(currentEntity, records, currentOutVertex, mapper, dbQueryEngine,
+                graphDBCommandEngine, orientGraph);
+          } catch (Exception e) {
+            this.writeFailedHierarchicalRecord(e, currentEntity, physicalCurrentEntity, currentOutVertexType, phase, records);
+          }
 
-              // if currentInVertexType is null then there isn't a relationship between to records, thus the edge will not be added.
-              if (currentInVertexType != null) {
-                edgeType = mapper.getRelationship2edgeType().get(currentRelation);
-                graphDBCommandEngine
-                    .upsertReachedVertexWithEdge(orientGraph, currentRecord, currentRelation, currentOutVertex, currentInVertexType,
-                        edgeType.getName());
-              }
-            }
+          // Statistics updated
+          statistics.analyzedRecords++;
 
-            // Statistics updated
-            statistics.analyzedRecords++;
-          }
-          // closing resultset, connection and statement
-          queryResult.closeAll();
+          this.recordWritten(batchController, records, orientGraph, graphDBCommandEngine);
         }
+        this.commitBatch(orientGraph, graphDBCommandEngine);
+        this.updateBatchStatistics(rootVertexType, batchController);
+      } finally {
+        // closing resultset, connection and statement
+        queryResult.closeAll();
       }
+
       statistics.notifyListeners();
       statistics.runningStepNumber = -1;
       OTeleporterContext.getInstance().getMessageHandler().info(this, "\n");
 
       // setting the vertex type as 'analyzed'
-      currentOutVertexType.setAnalyzedInLastMigration(true);
+      rootVertexType.setAnalyzedInLastMigration(true);
 
     } catch (Exception e) {
       String mess = "";
@@ -500,6 +917,73 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
 
   }
 
+  /**
+   * For each relationship of the entity the current record belongs to, the correspondent edge is built
+   * and for the referenced record a vertex is built (only id).
+   *
+   * @param currentEntity
+   * @param currentRecord
+   * @param currentOutVertex
+   * @param mapper
+   * @param dbQueryEngine
+   * @param graphDBCommandEngine
+   * @param orientGraph
+   */
+  private void importHierarchicalRecordRelationships(OEntity currentEntity, ResultSet currentRecord, OrientVertex currentOutVertex,
+      OER2GraphMapper mapper, ODBQueryEngine dbQueryEngine, OGraphEngineForDB graphDBCommandEngine, OrientBaseGraph orientGraph)
+      throws SQLException {
+
+    for (OCanonicalRelationship currentRelation : currentEntity.getAllOutCanonicalRelationships()) {
+
+      OVertexType currentInVertexType = null;
+      OEntity currentParentEntity = mapper.getDataBaseSchema().getEntityByNameIgnoreCase(currentRelation.getParentEntity().getName());
+
+      // checking if parent table belongs to a hierarchical bag
+      if (currentParentEntity.getHierarchicalBag() == null) {
+        currentInVertexType = mapper.getVertexTypeByEntity(currentRelation.getParentEntity());
+      }
+
+      // if the parent entity belongs to hierarchical bag, we need to know which is it the more stringent subclass of the record with a certain id
+      else {
+        String[] propertyOfKey = new String[currentRelation.getFromColumns().size()];
+        String[] valueOfKey = new String[currentRelation.getFromColumns().size()];
+
+        int index = 0;
+        for (OAttribute foreignAttribute : currentRelation.getFromColumns()) {
+          propertyOfKey[index] = currentRelation.getToColumns().get(index).getName();
+          valueOfKey[index] = currentRecord.getString((foreignAttribute.getName()));
+          index++;
+        }
+
+        // search is performed only if all the values in the foreign key are different from null (the relationship is inherited and is also consistent)
+        boolean ok = true;
+
+        for (int j = 0; j < valueOfKey.length; j++) {
+          if (valueOfKey[j] == null) {
+            ok = false;
+            break;
+          }
+        }
+        if (ok) {
+          Iterator<OEntity> it = currentParentEntity.getHierarchicalBag().getDepth2entities().get(0).iterator();
+          OEntity physicalArrivalEntity = it.next();
+          String currentArrivalEntityName = searchParentEntityType(currentParentEntity, propertyOfKey, valueOfKey,
+              physicalArrivalEntity, dbQueryEngine);
+          OEntity currentArrivalEntity = mapper.getDataBaseSchema().getEntityByName(currentArrivalEntityName);
+          currentInVertexType = mapper.getVertexTypeByEntity(currentArrivalEntity);
+        }
+      }
+
+      // if currentInVertexType is null then there isn't a relationship between to records, thus the edge will not be added.
+      if (currentInVertexType != null) {
+        OEdgeType edgeType = mapper.getRelationship2edgeType().get(currentRelation);
+        graphDBCommandEngine
+            .upsertReachedVertexWithEdge(orientGraph, currentRecord, currentRelation, currentOutVertex, currentInVertexType,
+                edgeType.getName());
+      }
+    }
+  }
+
   /**
    * Performs import of all records of the entities contained in the hierarchical bag passed as parameter.
    * Adopted in case of "Table per Type" inheritance strategy.
@@ -542,6 +1026,7 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
           queryResult1 = dbQueryEngine.getRecordsByEntity(currentEntity);
           records = queryResult1.getResult();
           currentRecord = null;
+          OAdaptiveBatchController batchController = this.newBatchController(records);
 
           currentOutVertexType = mapper.getVertexTypeByEntity(currentEntity);
 
@@ -550,87 +1035,94 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
             queryResult2 = dbQueryEngine.buildAggregateTableFromHierarchicalBag(bag);
             aggregateTableRecords = queryResult2.getResult();
 
-            // upsert of the vertex
-            currentRecord = records;
+            String phase = ODeadLetterSink.VERTEX_PHASE;
+            try {
+              // upsert of the vertex
+              currentRecord = records;
 
-            // lookup in the aggregateTable
-            String[] propertyOfKey = new String[rootEntity.getPrimaryKey().getInvolvedAttributes().size()];
-            String[] valueOfKey = new String[rootEntity.getPrimaryKey().getInvolvedAttributes().size()];
-            String[] aggregateTablePropertyOfKey = new String[rootEntity.getPrimaryKey().getInvolvedAttributes().size()];
+              // lookup in the aggregateTable
+              String[] propertyOfKey = new String[rootEntity.getPrimaryKey().getInvolvedAttributes().size()];
+              String[] valueOfKey = new String[rootEntity.getPrimaryKey().getInvolvedAttributes().size()];
+              String[] aggregateTablePropertyOfKey = new String[rootEntity.getPrimaryKey().getInvolvedAttributes().size()];
 
-            for (int k = 0; k < propertyOfKey.length; k++) {
-              propertyOfKey[k] = currentEntity.getPrimaryKey().getInvolvedAttributes().get(k).getName();
-            }
+              for (int k = 0; k < propertyOfKey.length; k++) {
+                propertyOfKey[k] = currentEntity.getPrimaryKey().getInvolvedAttributes().get(k).getName();
+              }
 
-            for (int k = 0; k < propertyOfKey.length; k++) {
-              valueOfKey[k] = currentRecord.getString(propertyOfKey[k]);
-            }
+              for (int k = 0; k < propertyOfKey.length; k++) {
+                valueOfKey[k] = currentRecord.getString(propertyOfKey[k]);
+              }
 
-            for (int k = 0; k < aggregateTablePropertyOfKey.length; k++) {
-              aggregateTablePropertyOfKey[k] = rootEntity.getPrimaryKey().getInvolvedAttributes().get(k).getName();
-            }
-            // lookup
-            fullRecord = this.getFullRecordByAggregateTable(aggregateTableRecords, aggregateTablePropertyOfKey, valueOfKey);
+              for (int k = 0; k < aggregateTablePropertyOfKey.length; k++) {
+                aggregateTablePropertyOfKey[k] = rootEntity.getPrimaryKey().getInvolvedAttributes().get(k).getName();
+              }
+              // lookup
+              fullRecord = this.getFullRecordByAggregateTable(aggregateTableRecords, aggregateTablePropertyOfKey, valueOfKey);
 
-            // record imported if is not present in OrientDB
-            Set<String> propertiesOfIndex = this.transformAggregateTablePropertyOfKey(aggregateTablePropertyOfKey, currentEntity);
+              // record imported if is not present in OrientDB
+              Set<String> propertiesOfIndex = this
+                  .transformAggregateTablePropertyOfKey(aggregateTablePropertyOfKey, currentEntity);
 
-            if (!graphDBCommandEngine
-                .alreadyFullImportedInOrient(orientGraph, fullRecord, currentOutVertexType, propertiesOfIndex)) {
+              if (!graphDBCommandEngine
+                  .alreadyFullImportedInOrient(orientGraph, fullRecord, currentOutVertexType, propertiesOfIndex)) {
 
-              currentOutVertex = (OrientVertex) graphDBCommandEngine
-                  .upsertVisitedVertex(orientGraph, fullRecord, currentOutVertexType, propertiesOfIndex);
+                currentOutVertex = (OrientVertex) graphDBCommandEngine
+                    .upsertVisitedVertex(orientGraph, fullRecord, currentOutVertexType, propertiesOfIndex);
+                phase = ODeadLetterSink.EDGES_PHASE;
 
-              // for each attribute of the entity belonging to the primary key, correspondent relationship is
-              // built as edge and for the referenced record a vertex is built (only id)
-              for (OCanonicalRelationship currentRelation : currentEntity.getAllOutCanonicalRelationships()) {
+                // for each attribute of the entity belonging to the primary key, correspondent relationship is
+                // built as edge and for the referenced record a vertex is built (only id)
+                for (OCanonicalRelationship currentRelation : currentEntity.getAllOutCanonicalRelationships()) {
 
-                currentParentEntity = mapper.getDataBaseSchema()
-                    .getEntityByNameIgnoreCase(currentRelation.getParentEntity().getName());
-                currentInVertexType = null; // reset for the current iteration
+                  currentParentEntity = mapper.getDataBaseSchema()
+                      .getEntityByNameIgnoreCase(currentRelation.getParentEntity().getName());
+                  currentInVertexType = null; // reset for the current iteration
 
-                // checking if parent table belongs to a hierarchical bag
-                if (currentParentEntity.getHierarchicalBag() == null) {
-                  currentInVertexType = mapper.getVertexTypeByEntity(currentRelation.getParentEntity());
-                }
+                  // checking if parent table belongs to a hierarchical bag
+                  if (currentParentEntity.getHierarchicalBag() == null) {
+                    currentInVertexType = mapper.getVertexTypeByEntity(currentRelation.getParentEntity());
+                  }
 
-                // if the parent entity belongs to hierarchical bag, we need to know which is it the more stringent subclass of the record with a certain id
-                else if (!currentEntity.getHierarchicalBag().equals(currentParentEntity.getHierarchicalBag())) {
-                  propertyOfKey = new String[currentRelation.getFromColumns().size()];
-                  valueOfKey = new String[currentRelation.getFromColumns().size()];
+                  // if the parent entity belongs to hierarchical bag, we need to know which is it the more stringent subclass of the record with a certain id
+                  else if (!currentEntity.getHierarchicalBag().equals(currentParentEntity.getHierarchicalBag())) {
+                    propertyOfKey = new String[currentRelation.getFromColumns().size()];
+                    valueOfKey = new String[currentRelation.getFromColumns().size()];
 
-                  int index = 0;
-                  for (OAttribute foreignAttribute : currentRelation.getFromColumns()) {
-                    propertyOfKey[index] = currentRelation.getToColumns().get(index).getName();
-                    valueOfKey[index] = fullRecord.getString((foreignAttribute.getName()));
-                    index++;
-                  }
+                    int index = 0;
+                    for (OAttribute foreignAttribute : currentRelation.getFromColumns()) {
+                      propertyOfKey[index] = currentRelation.getToColumns().get(index).getName();
+                      valueOfKey[index] = fullRecord.getString((foreignAttribute.getName()));
+                      index++;
+                    }
 
-                  // search is performed only if all the values in the foreign key are different from null (the relationship is inherited and is also consistent)
-                  boolean ok = true;
+                    // search is performed only if all the values in the foreign key are different from null (the relationship is inherited and is also consistent)
+                    boolean ok = true;
 
-                  for (int j = 0; j < valueOfKey.length; j++) {
-                    if (valueOfKey[j] == null) {
-                      ok = false;
-                      break;
+                    for (int j = 0; j < valueOfKey.length; j++) {
+                      if (valueOfKey[j] == null) {
+                        ok = false;
+                        break;
+                      }
+                    }
+                    if (ok) {
+                      String currentArrivalEntityName = searchParentEntityType(currentParentEntity, propertyOfKey, valueOfKey,
+                          null, dbQueryEngine);
+                      OEntity currentArrivalEntity = mapper.getDataBaseSchema().getEntityByName(currentArrivalEntityName);
+                      currentInVertexType = mapper.getVertexTypeByEntity(currentArrivalEntity);
                     }
                   }
-                  if (ok) {
-                    String currentArrivalEntityName = searchParentEntityType(currentParentEntity, propertyOfKey, valueOfKey, null,
-                        dbQueryEngine);
-                    OEntity currentArrivalEntity = mapper.getDataBaseSchema().getEntityByName(currentArrivalEntityName);
-                    currentInVertexType = mapper.getVertexTypeByEntity(currentArrivalEntity);
-                  }
-                }
 
-                // if currentInVertexType is null then there isn't a relationship between to records, thus the edge will not be added.
-                if (currentInVertexType != null) {
-                  edgeType = mapper.getRelationship2edgeType().get(currentRelation);
-                  graphDBCommandEngine
-                      .upsertReachedVertexWithEdge(orientGraph, fullRecord, currentRelation, currentOutVertex, currentInVertexType,
-                          edgeType.getName());
+                  // if currentInVertexType is null then there isn't a relationship between to records, thus the edge will not be added.
+                  if (currentInVertexType != null) {
+                    edgeType = mapper.getRelationship2edgeType().get(currentRelation);
+                    graphDBCommandEngine
+                        .upsertReachedVertexWithEdge(orientGraph, fullRecord, currentRelation, currentOutVertex,
+                            currentInVertexType, edgeType.getName());
+                  }
                 }
               }
+            } catch (Exception e) {
+              this.writeFailedHierarchicalRecord(e, currentEntity, currentEntity, currentOutVertexType, phase, records);
             }
 
             // closing aggregateTable result
@@ -639,7 +1131,11 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
             // Statistics updated
             statistics.analyzedRecords++;
 
+            this.recordWritten(batchController, records, orientGraph, graphDBCommandEngine);
           }
+          this.commitBatch(orientGraph, graphDBCommandEngine);
+          this.updateBatchStatistics(currentOutVertexType, batchController);
+
           // closing resultset, connection and statement
           queryResult1.closeAll();
         }
@@ -692,85 +1188,98 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
           queryResult = dbQueryEngine.getRecordsByEntity(currentEntity);
           records = queryResult.getResult();
           currentRecord = null;
+          OAdaptiveBatchController batchController = this.newBatchController(records);
 
           currentOutVertexType = mapper.getVertexTypeByEntity(currentEntity);
 
           // each record is imported as vertex in the orient graph
           while (records.next()) {
 
-            // upsert of the vertex
-            currentRecord = records;
+            String phase = ODeadLetterSink.VERTEX_PHASE;
+            try {
+              // upsert of the vertex
+              currentRecord = records;
 
-            // record imported if is not present in OrientDB
-            String[] propertyOfKey = new String[currentEntity.getPrimaryKey().getInvolvedAttributes().size()];
+              // record imported if is not present in OrientDB
+              String[] propertyOfKey = new String[currentEntity.getPrimaryKey().getInvolvedAttributes().size()];
 
-            for (int k = 0; k < propertyOfKey.length; k++) {
-              propertyOfKey[k] = currentEntity.getPrimaryKey().getInvolvedAttributes().get(k).getName();
-            }
+              for (int k = 0; k < propertyOfKey.length; k++) {
+                propertyOfKey[k] = currentEntity.getPrimaryKey().getInvolvedAttributes().get(k).getName();
+              }
 
-            Set<String> propertiesOfIndex = this.transformAggregateTablePropertyOfKey(propertyOfKey,
-                currentEntity);  // we need the key of original table, because we are working on it
+              Set<String> propertiesOfIndex = this.transformAggregateTablePropertyOfKey(propertyOfKey,
+                  currentEntity);  // we need the key of original table, because we are working on it
 
-            if (!graphDBCommandEngine
-                .alreadyFullImportedInOrient(orientGraph, currentRecord, currentOutVertexType, propertiesOfIndex)) {
+              if (!graphDBCommandEngine
+                  .alreadyFullImportedInOrient(orientGraph, currentRecord, currentOutVertexType, propertiesOfIndex)) {
 
-              currentOutVertex = (OrientVertex) graphDBCommandEngine
-                  .upsertVisitedVertex(orientGraph, currentRecord, currentOutVertexType, propertiesOfIndex);
+                currentOutVertex = (OrientVertex) graphDBCommandEngine
+                    .upsertVisitedVertex(orientGraph, currentRecord, currentOutVertexType, propertiesOfIndex);
+                phase = ODeadLetterSink.EDGES_PHASE;
 
-              // for each attribute of the entity belonging to the primary key, correspondent relationship is
-              // built as edge and for the referenced record a vertex is built (only id)
-              for (OCanonicalRelationship currentRelation : currentEntity.getAllOutCanonicalRelationships()) {
+                // for each attribute of the entity belonging to the primary key, correspondent relationship is
+                // built as edge and for the referenced record a vertex is built (only id)
+                for (OCanonicalRelationship currentRelation : currentEntity.getAllOutCanonicalRelationships()) {
 
-                currentParentEntity = mapper.getDataBaseSchema()
-                    .getEntityByNameIgnoreCase(currentRelation.getParentEntity().getName());
-                currentInVertexType = null; // reset for the current iteration
+                  currentParentEntity = mapper.getDataBaseSchema()
+                      .getEntityByNameIgnoreCase(currentRelation.getParentEntity().getName());
+                  currentInVertexType = null; // reset for the current iteration
 
-                // checking if parent table belongs to a hierarchical bag
-                if (currentParentEntity.getHierarchicalBag() == null) {
-                  currentInVertexType = mapper.getVertexTypeByEntity(currentRelation.getParentEntity());
-                }
+                  // checking if parent table belongs to a hierarchical bag
+                  if (currentParentEntity.getHierarchicalBag() == null) {
+                    currentInVertexType = mapper.getVertexTypeByEntity(currentRelation.getParentEntity());
+                  }
 
-                // if the parent entity belongs to hierarchical bag, we need to know which is it the more stringent subclass of the record with a certain id
-                else if (!currentEntity.getHierarchicalBag().equals(currentParentEntity.getHierarchicalBag())) {
-                  propertyOfKey = new String[currentRelation.getFromColumns().size()];
-                  String[] valueOfKey = new String[currentRelation.getFromColumns().size()];
+                  // if the parent entity belongs to hierarchical bag, we need to know which is it the more stringent subclass of the record with a certain id
+                  else if (!currentEntity.getHierarchicalBag().equals(currentParentEntity.getHierarchicalBag())) {
+                    propertyOfKey = new String[currentRelation.getFromColumns().size()];
+                    String[] valueOfKey = new String[currentRelation.getFromColumns().size()];
 
-                  int index = 0;
-                  for (OAttribute foreignAttribute : currentRelation.getFromColumns()) {
-                    propertyOfKey[index] = currentRelation.getToColumns().get(index).getName();
-                    valueOfKey[index] = currentRecord.getString((foreignAttribute.getName()));
-                    index++;
-                  }
+                    int index = 0;
+                    for (OAttribute foreignAttribute : currentRelation.getFromColumns()) {
+                      propertyOfKey[index] = currentRelation.getToColumns().get(index).getName();
+                      valueOfKey[index] = currentRecord.getString((foreignAttribute.getName()));
+                      index++;
+                    }
 
-                  // search is performed only if all the values in the foreign key are different from null (the relationship is inherited and is also consistent)
-                  boolean ok = true;
+                    // search is performed only if all the values in the foreign key are different from null (the relationship is inherited and is also consistent)
+                    boolean ok = true;
 
-                  for (int j = 0; j < valueOfKey.length; j++) {
-                    if (valueOfKey[j] == null) {
-                      ok = false;
-                      break;
+                    for (int j = 0; j < valueOfKey.length; j++) {
+                      if (valueOfKey[j] == null) {
+                        ok = false;
+                        break;
+                      }
+                    }
+                    if (ok) {
+                      String currentArrivalEntityName = searchParentEntityType(currentParentEntity, propertyOfKey, valueOfKey,
+                          null, dbQueryEngine);
+                      OEntity currentArrivalEntity = mapper.getDataBaseSchema().getEntityByName(currentArrivalEntityName);
+                      currentInVertexType = mapper.getVertexTypeByEntity(currentArrivalEntity);
                     }
                   }
-                  if (ok) {
-                    String currentArrivalEntityName = searchParentEntityType(currentParentEntity, propertyOfKey, valueOfKey, null,
-                        dbQueryEngine);
-                    OEntity currentArrivalEntity = mapper.getDataBaseSchema().getEntityByName(currentArrivalEntityName);
-                    currentInVertexType = mapper.getVertexTypeByEntity(currentArrivalEntity);
-                  }
-                }
 
-                // if currentInVertexType is null then there isn't a relationship between to records, thus the edge will not be added.
-                if (currentInVertexType != null) {
-                  edgeType = mapper.getRelationship2edgeType().get(currentRelation);
-                  graphDBCommandEngine.upsertReachedVertexWithEdge(orientGraph, currentRecord, currentRelation, currentOutVertex,
-                      currentInVertexType, edgeType.getName());
+                  // if currentInVertexType is null then there isn't a relationship between to records, thus the edge will not be added.
+                  if (currentInVertexType != null) {
+                    edgeType = mapper.getRelationship2edgeType().get(currentRelation);
+                    graphDBCommandEngine
+                        .upsertReachedVertexWithEdge(orientGraph, currentRecord, currentRelation, currentOutVertex,
+                            currentInVertexType, edgeType.getName());
+                  }
                 }
               }
+            } catch (Exception e) {
+              this.writeFailedHierarchicalRecord(e, currentEntity, currentEntity, currentOutVertexType, phase, records);
             }
 
             // Statistics updated
             statistics.analyzedRecords++;
+
+            this.recordWritten(batchController, records, orientGraph, graphDBCommandEngine);
           }
+          this.commitBatch(orientGraph, graphDBCommandEngine);
+          this.updateBatchStatistics(currentOutVertexType, batchController);
+
           // closing resultset, connection and statement
           queryResult.closeAll();
         }
@@ -790,6 +1299,19 @@ public abstract class OAbstractDBMSImportStrategy implements OWorkflowStrategy {
     }
   }
 
+  /**
+   * Writes a record of a hierarchy whose import failed in the dead-letter file, keyed by the primary key of the entity the record
+   * was read from. The failure is rethrown if no dead-letter file is collecting the failed rows.
+   */
+  private void writeFailedHierarchicalRecord(Exception e, OEntity currentEntity, OEntity keyEntity, OVertexType vertexType,
+      String phase, ResultSet record) throws Exception {
+    if (this.deadLetterSink == null) {
+      throw e;
+    }
+    this.deadLetterSink.write(Collections.singletonList(currentEntity.getName()), vertexType.getName(), phase,
+        ODeadLetterSink.readPrimaryKey(record, keyEntity), e);
+  }
+
   private Set<String> transformAggregateTablePropertyOfKey(String[] aggregateTablePropertyOfKey, OEntity currentEntity) {
     Set<String> propertiesOfKey = new LinkedHashSet<String>();
 
@@ -0,0 +1,128 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.strategy.rdbms;
+
+/**
+ * Chooses the size of the batches in which the records of a table are fetched and written, starting from the middle of the
+ * configured range and adapting after each batch:
+ * - the write batch is resized so that a batch takes about TARGET_BATCH_MILLIS, shrinking it right away when it's slower and
+ * growing it when it's much faster;
+ * - the fetch size, that bounds the rows buffered by the JDBC driver, is halved when the free heap goes under
+ * LOW_HEAP_HEADROOM and doubled when it's over HIGH_HEAP_HEADROOM. The write batch is halved too when the heap is short.
+ * When min and max are equal the sizes are fixed.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OAdaptiveBatchController {
+
+  private static final long   TARGET_BATCH_MILLIS = 1000;
+  private static final double LOW_HEAP_HEADROOM   = 0.2;
+  private static final double HIGH_HEAP_HEADROOM  = 0.5;
+
+  private int  minSize;
+  private int  maxSize;
+  private int  commitSize;
+  private int  fetchSize;
+  private int  recordsInBatch;
+  private long batchStart;
+  private int  batches;           // batches closed so far
+
+  public OAdaptiveBatchController(int minSize, int maxSize) {
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    int initialSize = (int) Math.sqrt((double) minSize * maxSize);    // geometric middle of the range
+    this.commitSize = initialSize;
+    this.fetchSize = initialSize;
+    this.recordsInBatch = 0;
+    this.batchStart = System.nanoTime();
+  }
+
+  /**
+   * Counts a written record.
+   *
+   * @return true if the batch is complete: the caller commits it, applies the new sizes and calls startBatch
+   */
+  public boolean recordWritten() {
+    this.recordsInBatch++;
+    return this.recordsInBatch >= this.commitSize;
+  }
+
+  /**
+   * Closes the current batch adapting the sizes to its latency and to the current heap headroom.
+   */
+  public void endBatch() {
+
+    long batchMillis = (System.nanoTime() - this.batchStart) / 1000000;
+    Runtime runtime = Runtime.getRuntime();
+    long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+    double heapHeadroom = 1 - (double) usedHeap / runtime.maxMemory();
+    this.adapt(batchMillis, heapHeadroom);
+    this.batches++;
+    this.startBatch();
+  }
+
+  void adapt(long batchMillis, double heapHeadroom) {
+
+    if (this.recordsInBatch == 0) {
+      return;
+    }
+
+    if (heapHeadroom < LOW_HEAP_HEADROOM) {
+      this.fetchSize = this.fetchSize / 2;
+      this.commitSize = this.commitSize / 2;
+    } else {
+      if (heapHeadroom > HIGH_HEAP_HEADROOM) {
+        this.fetchSize = this.fetchSize * 2;
+      }
+      if (batchMillis > TARGET_BATCH_MILLIS) {
+        this.commitSize = (int) (this.recordsInBatch * TARGET_BATCH_MILLIS / batchMillis);
+      } else if (batchMillis < TARGET_BATCH_MILLIS / 2) {
+        this.commitSize = this.commitSize * 2;
+      }
+    }
+    this.fetchSize = this.bound(this.fetchSize);
+    this.commitSize = this.bound(this.commitSize);
+  }
+
+  private int bound(int size) {
+    return Math.max(this.minSize, Math.min(this.maxSize, size));
+  }
+
+  public void startBatch() {
+    this.recordsInBatch = 0;
+    this.batchStart = System.nanoTime();
+  }
+
+  public int getCommitSize() {
+    return this.commitSize;
+  }
+
+  public int getFetchSize() {
+    return this.fetchSize;
+  }
+
+  public int getBatches() {
+    return this.batches;
+  }
+
+}
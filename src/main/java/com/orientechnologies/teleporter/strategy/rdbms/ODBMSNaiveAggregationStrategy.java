@@ -26,11 +26,17 @@ import com.orientechnologies.teleporter.configuration.OConfigurationHandler;
 import com.orientechnologies.teleporter.configuration.api.OConfiguration;
 import com.orientechnologies.teleporter.configuration.api.OConfiguredVertexClass;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
 import com.orientechnologies.teleporter.factory.OMapperFactory;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
 import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphEngineForDB;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphPartitioner;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OJoinTableRow;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OJoinTableRowWriter;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OVertexResolver;
 import com.orientechnologies.teleporter.mapper.OSource2GraphMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.OAggregatorEdge;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
@@ -48,9 +54,14 @@ import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A strategy that performs a "naive" import of the data source. The data source schema is
@@ -63,6 +74,8 @@ import java.util.List;
 
 public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
 
+  private static final int WRITER_QUEUE_CAPACITY = 1000;
+
   public ODBMSNaiveAggregationStrategy() {
   }
 
@@ -127,6 +140,8 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
   public void executeImport(OSourceDatabaseInfo sourceDBInfo, String outOrientGraphUri, OSource2GraphMapper genericMapper,
       ODBMSDataTypeHandler handler) {
 
+    // the graph is shut down here even on failure, as the graph engine leaves it to its owner
+    OrientBaseGraph orientGraph = null;
     try {
 
       OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
@@ -136,16 +151,18 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
       OER2GraphMapper mapper = (OER2GraphMapper) genericMapper;
       ODBQueryEngine dbQueryEngine = OTeleporterContext.getInstance().getDbQueryEngine();
       OGraphEngineForDB graphEngine = new OGraphEngineForDB((OER2GraphMapper) mapper, handler);
+      OGraphPartitioner partitioner = super.buildGraphPartitioner(outOrientGraphUri);
+      graphEngine.setPartitioner(partitioner);
 
       // OrientDB graph initialization/connection
-      OrientBaseGraph orientGraph = null;
       OrientGraphFactory factory = new OrientGraphFactory(outOrientGraphUri, "admin", "admin");
-      orientGraph = factory.getNoTx();
+      orientGraph = super.openGraph(factory);
       orientGraph.getRawGraph().declareIntent(new OIntentMassiveInsert());
       orientGraph.setStandardElementConstraints(false);
 
       // Importing from Entities belonging to hierarchical bags
       super.importEntitiesBelongingToHierarchies(dbQueryEngine, graphEngine, orientGraph);
+      super.commitBatch(orientGraph, graphEngine);
 
       // Importing from Entities NOT belonging to hierarchical bags NOR corresponding to join tables
       for (OVertexType currentOutVertexType : mapper.getVertexType2EVClassMappers().keySet()) {
@@ -200,7 +217,7 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
               }
               if (!currentOutVertexType.isAnalyzedInLastMigration()) {
                 super.importRecordsFromSplitEntityIntoVertexClasses(mappedEntities, mappedVertices, dbQueryEngine, graphEngine,
-                    orientGraph);
+                    factory, orientGraph);
               }
             }
 
@@ -208,7 +225,12 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
         }
       }
 
+      // the parallel writers of the join tables look the vertices up through their own graphs
+      super.commitBatch(orientGraph, graphEngine);
+
       // Importing from Entities NOT belonging to hierarchical bags and corresponding to join tables
+      int workerThreads = OTeleporterContext.getInstance().getSettings().getWorkerThreads();
+      List<OEntity> joinTablesToImportInParallel = new LinkedList<OEntity>();
       for (OVertexType currentOutVertexType : mapper.getVertexType2EVClassMappers().keySet()) {
 
         List<OEVClassMapper> classMappers = ((OER2GraphMapper) super.mapper).getEVClassMappersByVertex(currentOutVertexType);
@@ -234,13 +256,30 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
         }
 
         if (allEntitiesAggregableAndNotBelongingToHierarchies) {
-          this.importJoinTableRecordIntoEdgeClass(mappedEntities, dbQueryEngine, graphEngine, orientGraph);
+          if (workerThreads > 1) {
+            joinTablesToImportInParallel.addAll(mappedEntities);
+          } else {
+            this.importJoinTableRecordIntoEdgeClass(mappedEntities, dbQueryEngine, graphEngine, orientGraph);
+          }
         }
       }
+      if (!joinTablesToImportInParallel.isEmpty()) {
+        this.importJoinTablesRecordsIntoEdgeClassesInParallel(joinTablesToImportInParallel, workerThreads, dbQueryEngine,
+            graphEngine, factory);
+      }
+
+      // the logical relationships are resolved through queries, which see only the committed vertices
+      super.commitBatch(orientGraph, graphEngine);
+
+      // Building edges from logical relationships
+      super.importLogicalRelationships(graphEngine, orientGraph);
 
       statistics.notifyListeners();
       statistics.runningStepNumber = -1;
       orientGraph.shutdown();
+      if (partitioner != null) {
+        partitioner.shutdown();
+      }
       OTeleporterContext.getInstance().getMessageHandler().info(this, "\n");
 
     } catch (OTeleporterRuntimeException e) {
@@ -249,6 +288,10 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
       String mess = "";
       OTeleporterContext.getInstance().printExceptionMessage(e, mess, "error");
       OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+    } finally {
+      if (orientGraph != null && !orientGraph.isClosed()) {
+        orientGraph.shutdown();
+      }
     }
   }
 
@@ -261,30 +304,157 @@ public class ODBMSNaiveAggregationStrategy extends OAbstractDBMSImportStrategy {
 
     // for each entity in dbSchema all records are retrieved
 
-    //if(handler.geospatialImplemented && super.hasGeospatialAttributes(entity, handler)) {
-    //  String query = handler.buildGeospatialQuery(entity);
-    //  queryResult = dbQueryEngine.executeQuery(query);
-    //}
-
     OEntity joinTable = mappedEntities.get(0);
-    queryResult = dbQueryEngine.getRecordsByEntity(joinTable);
+    queryResult = dbQueryEngine.getRecordsByEntity(joinTable, this.mapper.getAttributesToImportByEntity(joinTable));
     records = queryResult.getResult();
     ResultSet currentRecord = null;
 
     OAggregatorEdge aggregatorEdge = this.mapper
         .getAggregatorEdgeByJoinVertexTypeName(this.mapper.getVertexTypeByEntity(joinTable).getName());
 
+    // vertices are resolved through a cache, as each of them is usually referenced by several rows
+    OVertexResolver resolver = new OVertexResolver(false);
+
+    // edges are committed in batches when the graph is transactional
+    OTeleporterSettings settings = OTeleporterContext.getInstance().getSettings();
+    OAdaptiveBatchController batchController = new OAdaptiveBatchController(settings.getMinBatchSize(),
+        settings.getMaxBatchSize());
+
     // each record of the join table used to add an edge
-    while (records.next()) {
-      currentRecord = records;
-      graphEngine.upsertAggregatorEdge(orientGraph, currentRecord, joinTable, aggregatorEdge);
+    try {
+      while (records.next()) {
+        currentRecord = records;
+        try {
+          OJoinTableRow currentRow = graphEngine.extractJoinTableRow(currentRecord, joinTable, aggregatorEdge);
+          graphEngine.upsertAggregatorEdge(orientGraph, currentRow, resolver);
+        } catch (RuntimeException e) {
+          this.writeFailedJoinTableRow(e, joinTable, currentRecord);
+        }
+
+        // Statistics updated
+        statistics.analyzedRecords++;
 
-      // Statistics updated
-      statistics.analyzedRecords++;
+        if (batchController.recordWritten()) {
+          super.commitBatch(orientGraph, graphEngine);
+          batchController.endBatch();
+        }
+      }
+      super.commitBatch(orientGraph, graphEngine);
+    } finally {
+      resolver.close();
 
+      // closing resultset, connection and statement
+      queryResult.closeAll();
+    }
+  }
+
+  /**
+   * Imports the records of the passed join tables as aggregator edges using several writers.
+   * The join tables are read one at a time, each row is routed to a writer according to the key of its out-vertex, so the rows
+   * of all the join tables, and different partitions of the same join table, are written in parallel.
+   * Vertices are resolved through a resolver shared among the writers, which also coordinates the writes on the same vertex.
+   *
+   * @param joinTables
+   * @param workerThreads
+   * @param dbQueryEngine
+   * @param graphEngine
+   * @param factory
+   */
+  protected void importJoinTablesRecordsIntoEdgeClassesInParallel(List<OEntity> joinTables, int workerThreads,
+      ODBQueryEngine dbQueryEngine, OGraphEngineForDB graphEngine, OrientGraphFactory factory)
+      throws SQLException, InterruptedException {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    OVertexResolver resolver = new OVertexResolver(true);
+
+    // starting the writers
+    List<OJoinTableRowWriter> writers = new ArrayList<OJoinTableRowWriter>(workerThreads);
+    List<Thread> writerThreads = new ArrayList<Thread>(workerThreads);
+    for (int i = 0; i < workerThreads; i++) {
+      OJoinTableRowWriter writer = new OJoinTableRowWriter(new ArrayBlockingQueue<OJoinTableRow>(WRITER_QUEUE_CAPACITY), factory,
+          graphEngine, resolver, i, super.deadLetterSink);
+      Thread writerThread = new Thread(writer, "teleporter-join-table-writer-" + i);
+      writers.add(writer);
+      writerThreads.add(writerThread);
+      writerThread.start();
+    }
+
+    try {
+      for (OEntity joinTable : joinTables) {
+        OQueryResult queryResult = dbQueryEngine
+            .getRecordsByEntity(joinTable, this.mapper.getAttributesToImportByEntity(joinTable));
+        ResultSet records = queryResult.getResult();
+
+        OAggregatorEdge aggregatorEdge = this.mapper
+            .getAggregatorEdgeByJoinVertexTypeName(this.mapper.getVertexTypeByEntity(joinTable).getName());
+
+        try {
+
+          // rows with the same out-vertex are always routed to the same writer
+          while (records.next()) {
+            OJoinTableRow currentRow;
+            try {
+              currentRow = graphEngine.extractJoinTableRow(records, joinTable, aggregatorEdge);
+            } catch (RuntimeException e) {
+              this.writeFailedJoinTableRow(e, joinTable, records);
+              statistics.analyzedRecords++;
+              continue;
+            }
+            int writerIndex = (Arrays.hashCode(currentRow.getValuesOutVertex()) & 0x7fffffff) % workerThreads;
+            OJoinTableRowWriter writer = writers.get(writerIndex);
+            boolean enqueued = writer.getRows().offer(currentRow, 1, TimeUnit.SECONDS);
+            while (!enqueued && writer.getFailure() == null && writerThreads.get(writerIndex).isAlive()) {
+              enqueued = writer.getRows().offer(currentRow, 1, TimeUnit.SECONDS);
+            }
+            if (writer.getFailure() != null) {
+              throw new OTeleporterRuntimeException(writer.getFailure());
+            }
+            if (!enqueued) {
+              throw new OTeleporterRuntimeException(
+                  "The join table writer " + writerIndex + " stopped before all the rows were written.");
+            }
+
+            // Statistics updated
+            statistics.analyzedRecords++;
+          }
+        } finally {
+
+          // closing resultset, connection and statement
+          queryResult.closeAll();
+        }
+      }
+    } finally {
+
+      // stopping the writers and waiting for the pending rows
+      for (int i = 0; i < workerThreads; i++) {
+        boolean endOfRowsSent = false;
+        while (!endOfRowsSent && writerThreads.get(i).isAlive()) {
+          endOfRowsSent = writers.get(i).getRows().offer(OJoinTableRowWriter.END_OF_ROWS, 1, TimeUnit.SECONDS);
+        }
+      }
+      for (Thread writerThread : writerThreads) {
+        writerThread.join();
+      }
+      resolver.close();
+    }
+
+    for (OJoinTableRowWriter writer : writers) {
+      if (writer.getFailure() != null) {
+        throw new OTeleporterRuntimeException(writer.getFailure());
+      }
+    }
+  }
+
+  /**
+   * Writes a join table row whose edge couldn't be built in the dead-letter file, or rethrows the failure if no dead-letter file
+   * is collecting the failed rows.
+   */
+  private void writeFailedJoinTableRow(RuntimeException e, OEntity joinTable, ResultSet record) {
+    if (super.deadLetterSink == null) {
+      throw e;
     }
-    // closing resultset, connection and statement
-    queryResult.closeAll();
+    super.deadLetterSink.write(Collections.singletonList(joinTable.getName()), null, ODeadLetterSink.EDGES_PHASE,
+        ODeadLetterSink.readPrimaryKey(record, joinTable), e);
   }
 
 }
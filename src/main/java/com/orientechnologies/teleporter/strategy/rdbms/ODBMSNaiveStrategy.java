@@ -31,6 +31,7 @@ import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
 import com.orientechnologies.teleporter.factory.OMapperFactory;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
 import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphEngineForDB;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphPartitioner;
 import com.orientechnologies.teleporter.mapper.OSource2GraphMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEVClassMapper;
@@ -122,16 +123,19 @@ public class ODBMSNaiveStrategy extends OAbstractDBMSImportStrategy {
       OER2GraphMapper mapper = (OER2GraphMapper) genericMapper;
       ODBQueryEngine dbQueryEngine = OTeleporterContext.getInstance().getDbQueryEngine();
       OGraphEngineForDB graphEngine = new OGraphEngineForDB((OER2GraphMapper) mapper, handler);
+      OGraphPartitioner partitioner = super.buildGraphPartitioner(outOrientGraphUri);
+      graphEngine.setPartitioner(partitioner);
 
       // OrientDB graph initialization/connection
       OrientBaseGraph orientGraph = null;
       OrientGraphFactory factory = new OrientGraphFactory(outOrientGraphUri, "admin", "admin");
-      orientGraph = factory.getNoTx();
+      orientGraph = super.openGraph(factory);
       orientGraph.getRawGraph().declareIntent(new OIntentMassiveInsert());
       orientGraph.setStandardElementConstraints(false);
 
       // Importing from Entities belonging to hierarchical bags
       super.importEntitiesBelongingToHierarchies(dbQueryEngine, graphEngine, orientGraph);
+      super.commitBatch(orientGraph, graphEngine);
 
       // Importing from Entities NOT belonging to hierarchical bags
       for (OVertexType currentOutVertexType : mapper.getVertexType2EVClassMappers().keySet()) {
@@ -186,16 +190,25 @@ public class ODBMSNaiveStrategy extends OAbstractDBMSImportStrategy {
               }
               if (!currentOutVertexType.isAnalyzedInLastMigration()) {
                 super.importRecordsFromSplitEntityIntoVertexClasses(mappedEntities, mappedVertices, dbQueryEngine, graphEngine,
-                    orientGraph);
+                    factory, orientGraph);
               }
             }
           }
         }
       }
 
+      // the logical relationships are resolved through queries, which see only the committed vertices
+      super.commitBatch(orientGraph, graphEngine);
+
+      // Building edges from logical relationships
+      super.importLogicalRelationships(graphEngine, orientGraph);
+
       statistics.notifyListeners();
       statistics.runningStepNumber = -1;
       orientGraph.shutdown();
+      if (partitioner != null) {
+        partitioner.shutdown();
+      }
       OTeleporterContext.getInstance().getMessageHandler().info(this, "\n");
 
     } catch (OTeleporterRuntimeException e) {
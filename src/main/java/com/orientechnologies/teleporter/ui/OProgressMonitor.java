@@ -53,6 +53,7 @@ public class OProgressMonitor implements OStatisticsListener {
   private final String  work4Title;
   private final String  work5Title;
   private       boolean firstPrint;
+  private       long    smoothedRemainingTime;   // remaining time estimated by the progress sampler, -1 if not available
 
   /**
    * initialize progress bar properties.
@@ -64,6 +65,7 @@ public class OProgressMonitor implements OStatisticsListener {
     this.work4Title = String.format("%-35s", "(4/4) OrientDB importing:");
     this.work5Title = String.format("%-35s", "Building accessory edges in OrientDB:");
     this.firstPrint = true;
+    this.smoothedRemainingTime = -1;
   }
 
   /**
@@ -80,6 +82,14 @@ public class OProgressMonitor implements OStatisticsListener {
       this.firstPrint = false;
     }
 
+    // the sampler's estimate is used only if it refers to the step being rendered
+    OProgressSnapshot snapshot = statistics.getProgressSnapshot();
+    if (snapshot != null && snapshot.getStepNumber() == statistics.runningStepNumber) {
+      this.smoothedRemainingTime = snapshot.getEtaMillis();
+    } else {
+      this.smoothedRemainingTime = -1;
+    }
+
     String message = null;
 
     switch (statistics.runningStepNumber) {
@@ -234,25 +244,22 @@ public class OProgressMonitor implements OStatisticsListener {
     Date currentTime = new Date();
     int numberOfLogicalRelationships = statistics.totalNumberOfLogicalRelationships;
 
-    // TO CHECK
-
     int work5DonePercentage;
     if (numberOfLogicalRelationships > 0) {
 
-      int work5percentage1;
+      double currentRelationshipRatio;
       if (statistics.leftVerticesCurrentLogicalRelationship > 0) {
-        work5percentage1 =
-            statistics.doneLeftVerticesCurrentLogicalRelationship / statistics.leftVerticesCurrentLogicalRelationship;
+        currentRelationshipRatio = (double) statistics.doneLeftVerticesCurrentLogicalRelationship
+            / (double) statistics.leftVerticesCurrentLogicalRelationship;
       } else {
-        work5percentage1 = 0;
-
+        currentRelationshipRatio = 0;
       }
-      int work5percentage2 = statistics.doneLogicalRelationships / statistics.totalNumberOfLogicalRelationships;
+      double doneRelationshipsRatio = (double) statistics.doneLogicalRelationships / (double) numberOfLogicalRelationships;
 
-      if (work5percentage2 == 1) {
+      if (statistics.doneLogicalRelationships >= numberOfLogicalRelationships) {
         work5DonePercentage = 100;
       } else {
-        work5DonePercentage = (work5percentage2 + (work5percentage1 / numberOfLogicalRelationships)) * 100;
+        work5DonePercentage = (int) ((doneRelationshipsRatio + (currentRelationshipRatio / numberOfLogicalRelationships)) * 100);
       }
 
     } else {
@@ -286,7 +293,9 @@ public class OProgressMonitor implements OStatisticsListener {
     String elapsedHMSTime = OFunctionsHandler.getHMSFormat(elapsedTime);
 
     long remainingTime;
-    if (workDonePercentage > 0)
+    if (this.smoothedRemainingTime >= 0)
+      remainingTime = this.smoothedRemainingTime;
+    else if (workDonePercentage > 0)
       remainingTime = (elapsedTime * (long) (100 - workDonePercentage)) / (long) workDonePercentage;
     else
       remainingTime = 0;
@@ -0,0 +1,245 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.ui;
+
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterStatistics;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Samples the migration statistics from a dedicated daemon thread at a fixed interval, so that the threads performing the
+ * migration never render the progress themselves. At each sample it computes the throughput of the running step, smoothed
+ * with an exponentially weighted moving average, and the estimated remaining time, publishes an OProgressSnapshot on the
+ * statistics and then updates the registered listeners.
+ * A phase boundary can request an immediate sample of the running step through sampleNow(), which returns without waiting: the
+ * requested steps are sampled in order by the sampler thread, so the last state of each step is rendered even if the next step
+ * already started.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OProgressSampler implements Runnable {
+
+  private static final double SMOOTHING_FACTOR = 0.3;
+
+  private final OTeleporterStatistics statistics;
+  private final long                  intervalMillis;
+  private final Object                lock;
+  private       Thread                thread;
+  private       boolean               running;             // guarded by lock
+  private       List<Integer>         requestedSteps;      // steps to sample immediately, guarded by lock
+
+  // sampler thread state
+  private int    lastStepNumber;
+  private long   lastDoneUnits;
+  private long   lastSampleTime;
+  private double smoothedThroughput;
+  private int    failedSamples;
+
+  public OProgressSampler(OTeleporterStatistics statistics, long intervalMillis) {
+    this.statistics = statistics;
+    this.intervalMillis = intervalMillis;
+    this.lock = new Object();
+    this.requestedSteps = new ArrayList<Integer>();
+    this.lastStepNumber = -1;
+    this.smoothedThroughput = -1;
+  }
+
+  public void start() {
+    synchronized (this.lock) {
+      this.running = true;
+    }
+    this.thread = new Thread(this, "Teleporter progress sampler");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Stops the sampler after a last sample, waiting for the sampler thread to end.
+   */
+  public void stop() {
+    synchronized (this.lock) {
+      this.running = false;
+      this.lock.notifyAll();
+    }
+    try {
+      this.thread.join(this.intervalMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Requests an immediate sample of the running step and returns without waiting for it.
+   */
+  public void sampleNow() {
+
+    if (Thread.currentThread() == this.thread) {
+      return;
+    }
+
+    synchronized (this.lock) {
+      this.requestedSteps.add(this.statistics.runningStepNumber);
+      this.lock.notifyAll();
+    }
+  }
+
+  @Override
+  public void run() {
+
+    while (true) {
+      boolean stopping;
+      List<Integer> steps;
+      synchronized (this.lock) {
+        if (this.running && this.requestedSteps.isEmpty()) {
+          try {
+            this.lock.wait(this.intervalMillis);
+          } catch (InterruptedException e) {
+            this.running = false;
+          }
+        }
+        stopping = !this.running;
+        steps = this.requestedSteps;
+        this.requestedSteps = new ArrayList<Integer>();
+      }
+
+      if (steps.isEmpty()) {
+        this.sampleSafely(this.statistics.runningStepNumber);
+      }
+      for (int stepNumber : steps) {
+        this.sampleSafely(stepNumber);
+      }
+
+      if (stopping) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * A failed sample must not stop the sampling, the next sample will try again: the first failure is reported as a warning, the
+   * following ones just in debug.
+   */
+  private void sampleSafely(int stepNumber) {
+    try {
+      this.sample(stepNumber);
+    } catch (RuntimeException e) {
+      String mess = "Problem encountered while sampling the progress of the migration.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, this.failedSamples == 0 ? "warn" : "debug");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+      this.failedSamples++;
+    }
+  }
+
+  private void sample(int stepNumber) {
+
+    if (stepNumber < 1) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    long[] units = this.progressUnits(stepNumber);
+    long doneUnits = units[0];
+    long totalUnits = units[1];
+
+    if (stepNumber != this.lastStepNumber) {
+      // throughput is measured per step, so a new step starts without any estimate
+      this.smoothedThroughput = -1;
+      this.lastStepNumber = stepNumber;
+    } else if (now > this.lastSampleTime) {
+      double throughput = (doneUnits - this.lastDoneUnits) * 1000.0 / (now - this.lastSampleTime);
+      if (this.smoothedThroughput < 0) {
+        this.smoothedThroughput = throughput;
+      } else {
+        this.smoothedThroughput = SMOOTHING_FACTOR * throughput + (1 - SMOOTHING_FACTOR) * this.smoothedThroughput;
+      }
+    }
+    this.lastDoneUnits = doneUnits;
+    this.lastSampleTime = now;
+
+    long etaMillis;
+    if (doneUnits >= totalUnits) {
+      etaMillis = 0;
+    } else if (this.smoothedThroughput > 0) {
+      etaMillis = (long) ((totalUnits - doneUnits) * 1000 / this.smoothedThroughput);
+    } else {
+      etaMillis = -1;
+    }
+
+    Date startTime = this.startTime(stepNumber);
+    long elapsedMillis = startTime != null ? now - startTime.getTime() : 0;
+
+    this.statistics.setProgressSnapshot(
+        new OProgressSnapshot(stepNumber, doneUnits, totalUnits, elapsedMillis, this.smoothedThroughput, etaMillis,
+            this.statistics.warningMessages.size(), now));
+    this.statistics.publishToListeners();
+  }
+
+  /**
+   * Returns the units done and the total units of the passed step.
+   */
+  private long[] progressUnits(int stepNumber) {
+
+    OTeleporterStatistics s = this.statistics;
+    switch (stepNumber) {
+    case 1:
+      return new long[] { s.builtEntities + s.entitiesAnalyzedForRelationship, 2L * s.totalNumberOfEntities };
+    case 2:
+      return new long[] { s.builtModelVertexTypes + s.builtModelEdgeTypes, s.totalNumberOfModelVertices + s.totalNumberOfModelEdges };
+    case 3:
+      return new long[] { s.wroteVertexType + s.wroteEdgeType + s.wroteIndexes,
+          s.totalNumberOfVertexTypes + s.totalNumberOfEdgeTypes + s.totalNumberOfIndices };
+    case 4:
+      return new long[] { s.analyzedRecords, s.totalNumberOfRecords };
+    case 5:
+      // per mille of each logical relationship, so that the current relationship contributes too
+      long currentRelationship = 0;
+      if (s.leftVerticesCurrentLogicalRelationship > 0) {
+        currentRelationship = 1000L * s.doneLeftVerticesCurrentLogicalRelationship / s.leftVerticesCurrentLogicalRelationship;
+      }
+      return new long[] { 1000L * s.doneLogicalRelationships + currentRelationship, 1000L * s.totalNumberOfLogicalRelationships };
+    default:
+      return new long[] { 0, 0 };
+    }
+  }
+
+  private Date startTime(int stepNumber) {
+
+    switch (stepNumber) {
+    case 1:
+      return this.statistics.startWork1Time;
+    case 2:
+      return this.statistics.startWork2Time;
+    case 3:
+      return this.statistics.startWork3Time;
+    case 4:
+      return this.statistics.startWork4Time;
+    case 5:
+      return this.statistics.startWork5Time;
+    default:
+      return null;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.ui;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.util.OFunctionsHandler;
+
+/**
+ * Immutable picture of the migration progress taken by the OProgressSampler. It carries the units done in the running step,
+ * the smoothed throughput and the estimated remaining time, and it's read both by the CLI progress monitor and by the HTTP
+ * status.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OProgressSnapshot {
+
+  private final int    stepNumber;
+  private final long   doneUnits;
+  private final long   totalUnits;
+  private final long   elapsedMillis;
+  private final double throughput;   // units per second, smoothed. Negative when not known yet.
+  private final long   etaMillis;    // -1 when not known yet
+  private final int    warnings;
+  private final long   timestamp;
+
+  public OProgressSnapshot(int stepNumber, long doneUnits, long totalUnits, long elapsedMillis, double throughput, long etaMillis,
+      int warnings, long timestamp) {
+    this.stepNumber = stepNumber;
+    this.doneUnits = doneUnits;
+    this.totalUnits = totalUnits;
+    this.elapsedMillis = elapsedMillis;
+    this.throughput = throughput;
+    this.etaMillis = etaMillis;
+    this.warnings = warnings;
+    this.timestamp = timestamp;
+  }
+
+  public int getStepNumber() {
+    return this.stepNumber;
+  }
+
+  public long getDoneUnits() {
+    return this.doneUnits;
+  }
+
+  public long getTotalUnits() {
+    return this.totalUnits;
+  }
+
+  public long getElapsedMillis() {
+    return this.elapsedMillis;
+  }
+
+  public double getThroughput() {
+    return this.throughput;
+  }
+
+  public long getEtaMillis() {
+    return this.etaMillis;
+  }
+
+  public int getWarnings() {
+    return this.warnings;
+  }
+
+  public long getTimestamp() {
+    return this.timestamp;
+  }
+
+  public ODocument toDocument() {
+    ODocument progress = new ODocument();
+    progress.field("step", this.stepNumber);
+    progress.field("done", this.doneUnits);
+    progress.field("total", this.totalUnits);
+    progress.field("elapsed", OFunctionsHandler.getHMSFormat(this.elapsedMillis));
+    if (this.throughput >= 0) {
+      progress.field("throughput", Math.round(this.throughput * 100) / 100.0);
+    }
+    if (this.etaMillis >= 0) {
+      progress.field("remaining", OFunctionsHandler.getHMSFormat(this.etaMillis));
+    }
+    progress.field("warnings", this.warnings);
+    progress.field("timestamp", this.timestamp);
+    return progress;
+  }
+
+  @Override
+  public String toString() {
+    return "Step " + this.stepNumber + ": " + this.doneUnits + "/" + this.totalUnits + " (" + this.throughput + " units/s)";
+  }
+}
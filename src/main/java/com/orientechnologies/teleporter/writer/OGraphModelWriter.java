@@ -26,20 +26,28 @@ import com.orientechnologies.orient.core.index.OIndexManagerProxy;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.output.OOutputStreamManager;
+import com.orientechnologies.teleporter.configuration.OConfigurationHandler;
 import com.orientechnologies.teleporter.configuration.api.OConfiguration;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphPartitioner;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
 import com.orientechnologies.teleporter.model.dbschema.OAttribute;
 import com.orientechnologies.teleporter.model.dbschema.ODataBaseSchema;
 import com.orientechnologies.teleporter.model.dbschema.OLogicalRelationship;
 import com.orientechnologies.teleporter.model.graphmodel.*;
+import com.orientechnologies.teleporter.persistence.handler.ODBMSDataTypeHandler;
 import com.orientechnologies.teleporter.persistence.handler.ODriverDataTypeHandler;
+import com.orientechnologies.teleporter.util.OFileManager;
+import com.orientechnologies.teleporter.util.OMigrationConfigManager;
 import com.tinkerpop.blueprints.impls.orient.*;
 
+import java.io.File;
 import java.util.*;
 
 /**
@@ -52,8 +60,16 @@ import java.util.*;
 
 public class OGraphModelWriter {
 
+  // sources migrated concurrently into the same graph write their schemas one at a time
+  private static final Object SCHEMA_WRITING_LOCK = new Object();
+
+  // properties included by the models of the sources migrated concurrently, by target database and class, guarded by the lock
+  private static final Map<String, Map<String, Set<String>>> MERGED_PROPERTIES = new HashMap<String, Map<String, Set<String>>>();
+
   private Map<String, OType> orientdbTypeName2orientdbType;
   private OConfiguration     previousConfiguration;
+  private OSchemaScript      schemaScript;    // collects the schema commands when they are batched, null if they are executed one at a time
+  private OSchemaDelta       schemaDelta;     // changes since the previous configuration, null if there is no previous configuration
 
   public OGraphModelWriter() {
     this.init();
@@ -82,6 +98,82 @@ public class OGraphModelWriter {
   }
 
   public boolean writeModelOnOrient(OER2GraphMapper mapper, ODriverDataTypeHandler handler, String outOrientGraphUri) {
+    synchronized (SCHEMA_WRITING_LOCK) {
+      OConfiguration lastWrittenConfiguration = this.loadLastWrittenConfiguration(outOrientGraphUri);
+      if (lastWrittenConfiguration != null) {
+        this.schemaDelta = OSchemaDelta.plan(mapper.getGraphModel(), lastWrittenConfiguration, handler, this);
+        OTeleporterContext.getInstance().getMessageHandler().info(this, "\n%s", this.schemaDelta.toString());
+      } else {
+        this.schemaDelta = null;
+      }
+      boolean success = this.writeModel(mapper, handler, outOrientGraphUri);
+      List<String> partitionUrls = OTeleporterContext.getInstance().getSettings().getPartitionUrls();
+      if (success && !partitionUrls.isEmpty()) {
+        success = this.writeModelOnPartitions(mapper, handler, outOrientGraphUri, partitionUrls);
+      }
+      return success;
+    }
+  }
+
+  /**
+   * Loads the configuration written in the target database by the previous migration, which describes the schema written then.
+   * The configuration passed to the current execution can't be used, as the graph model already reflects it.
+   *
+   * @return the configuration of the previous migration, null if it's not available
+   */
+  private OConfiguration loadLastWrittenConfiguration(String outOrientGraphUri) {
+
+    String configurationPath = OMigrationConfigManager
+        .buildConfigurationFilePath(outOrientGraphUri, OMigrationConfigManager.getConfigFileName());
+    if (!new File(configurationPath).exists()) {
+      return null;
+    }
+    try {
+      ODocument configurationDoc = OFileManager.buildJsonFromFile(configurationPath);
+      return new OConfigurationHandler(false).buildConfigurationFromJSONDoc(configurationDoc, false);
+    } catch (Exception e) {
+      String mess = "The previous configuration can't be read, all the classes will be checked against the schema.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "warn");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+      return null;
+    }
+  }
+
+  /**
+   * Writes the schema on the further databases the output is partitioned over, then adds the class of the cross-partition edges to
+   * all the partitions. The statistics count the schema elements written on the target database only.
+   */
+  private boolean writeModelOnPartitions(OER2GraphMapper mapper, ODriverDataTypeHandler handler, String outOrientGraphUri,
+      List<String> partitionUrls) {
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    int wroteVertexType = statistics.wroteVertexType;
+    int wroteEdgeType = statistics.wroteEdgeType;
+    int wroteIndexes = statistics.wroteIndexes;
+
+    boolean success = true;
+    for (String partitionUrl : partitionUrls) {
+      success = this.writeModel(mapper, handler, partitionUrl) && success;
+    }
+    statistics.wroteVertexType = wroteVertexType;
+    statistics.wroteEdgeType = wroteEdgeType;
+    statistics.wroteIndexes = wroteIndexes;
+
+    List<String> allPartitionUrls = new ArrayList<String>();
+    allPartitionUrls.add(outOrientGraphUri);
+    allPartitionUrls.addAll(partitionUrls);
+    for (String partitionUrl : allPartitionUrls) {
+      OrientBaseGraph orientGraph = new OrientGraphFactory(partitionUrl, "admin", "admin").getNoTx();
+      try {
+        OGraphPartitioner.createCrossPartitionEdgeClass(orientGraph);
+      } finally {
+        orientGraph.shutdown();
+      }
+    }
+    return success;
+  }
+
+  private boolean writeModel(OER2GraphMapper mapper, ODriverDataTypeHandler handler, String outOrientGraphUri) {
     boolean success = false;
 
     OGraphModel graphModel = mapper.getGraphModel();
@@ -107,15 +199,32 @@ public class OGraphModelWriter {
     statistics.totalNumberOfEdgeTypes = numberOfEdges;
     statistics.totalNumberOfIndices = numberOfVertices;
 
-    // deleting orient classes not present in the current graph model
-    Collection<OClass> orientClasses = orientGraph.getRawGraph().getMetadata().getSchema().getClasses();
-    for (OClass currOrientClass : orientClasses) {
-      String orientClassName = currOrientClass.getName();
-      if (!(orientClassName.startsWith("O") || orientClassName.startsWith("V") || orientClassName.startsWith("E") || orientClassName
-          .startsWith("_"))) {
-        if (graphModel.getVertexTypeByNameIgnoreCase(orientClassName) == null
-            && graphModel.getEdgeTypeByNameIgnoreCase(orientClassName) == null) {
-          orientGraph.getRawGraph().getMetadata().getSchema().dropClass(orientClassName);
+    // against remote targets the new classes, properties and indexes are batched in scripts to save the round trips
+    String schemaWriting = OTeleporterContext.getInstance().getSettings().getSchemaWriting();
+    if (OTeleporterSettings.BATCHED_SCHEMA_WRITING.equals(schemaWriting) || (schemaWriting == null && outOrientGraphUri
+        .startsWith("remote:"))) {
+      this.schemaScript = new OSchemaScript(orientGraph);
+    } else {
+      this.schemaScript = null;
+    }
+
+    // parallel writers are pinned each to its own cluster of the class they write into
+    int workerThreads = OTeleporterContext.getInstance().getSettings().getWorkerThreads();
+    int writerClusters = workerThreads > 1 ? workerThreads : 0;
+
+    // deleting orient classes not present in the current graph model (unless they belong to other sources imported concurrently)
+    if (OTeleporterContext.getInstance().getSettings().isConcurrentSources()) {
+      this.mergeModelProperties(graphModel, outOrientGraphUri);
+    } else {
+      Collection<OClass> orientClasses = orientGraph.getRawGraph().getMetadata().getSchema().getClasses();
+      for (OClass currOrientClass : orientClasses) {
+        String orientClassName = currOrientClass.getName();
+        if (!(orientClassName.startsWith("O") || orientClassName.startsWith("V") || orientClassName.startsWith("E") || orientClassName
+            .startsWith("_"))) {
+          if (graphModel.getVertexTypeByNameIgnoreCase(orientClassName) == null
+              && graphModel.getEdgeTypeByNameIgnoreCase(orientClassName) == null) {
+            orientGraph.getRawGraph().getMetadata().getSchema().dropClass(orientClassName);
+          }
         }
       }
     }
@@ -148,7 +257,10 @@ public class OGraphModelWriter {
           // check if vertex type is already present in the orient schema
           OrientVertexType newVertexType = orientGraph.getVertexType(currentVertexType.getName());
 
-          if (newVertexType == null) {
+          if (newVertexType == null && this.schemaScript != null) {
+            String superClassName = currentVertexType.getParentType() != null ? currentVertexType.getParentType().getName() : "V";
+            this.writeClassInScript(currentVertexType, superClassName, handler, writerClusters);
+          } else if (newVertexType == null) {
 
             // inheritance case
             if (currentVertexType.getParentType() != null)
@@ -192,6 +304,11 @@ public class OGraphModelWriter {
             if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
               OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nVertex-type '%s' wrote.\n", currentVertexType.getName());
             }
+          } else if (this.schemaDelta != null && this.schemaDelta.isUnchanged(currentVertexType.getName())) {
+            if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+              OTeleporterContext.getInstance().getMessageHandler()
+                  .debug(this, "\nVertex-type '%s' unchanged since the previous migration.\n", currentVertexType.getName());
+            }
           } else {
             boolean updated = this.checkAndUpdateClass(orientGraph, currentVertexType, handler);
 
@@ -205,8 +322,13 @@ public class OGraphModelWriter {
             }
           }
 
+          this.addWriterClusters(orientGraph, currentVertexType.getName(), writerClusters);
           iteration++;
-          statistics.wroteVertexType++;
+          if (this.schemaScript != null) {
+            this.schemaScript.vertexTypeWritten();
+          } else {
+            statistics.wroteVertexType++;
+          }
         }
 
         /*
@@ -230,7 +352,9 @@ public class OGraphModelWriter {
           // check if edge type is already present in the orient schema
           newEdgeType = orientGraph.getEdgeType(currentEdgeType.getName());
 
-          if (newEdgeType == null) {
+          if (newEdgeType == null && this.schemaScript != null) {
+            this.writeClassInScript(currentEdgeType, "E", handler, writerClusters);
+          } else if (newEdgeType == null) {
             newEdgeType = orientGraph.createEdgeType(currentEdgeType.getName());
             OModelProperty currentProperty = null;
             it = currentEdgeType.getProperties().iterator();
@@ -267,6 +391,11 @@ public class OGraphModelWriter {
             if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
               OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nEdge-type '%s' wrote.\n", currentEdgeType.getName());
             }
+          } else if (this.schemaDelta != null && this.schemaDelta.isUnchanged(currentEdgeType.getName())) {
+            if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+              OTeleporterContext.getInstance().getMessageHandler()
+                  .debug(this, "\nEdge-type '%s' unchanged since the previous migration.\n", currentEdgeType.getName());
+            }
           } else {
             boolean updated = this.checkAndUpdateClass(orientGraph, currentEdgeType, handler);
 
@@ -279,8 +408,13 @@ public class OGraphModelWriter {
               }
             }
           }
+          this.addWriterClusters(orientGraph, currentEdgeType.getName(), writerClusters);
           iteration++;
-          statistics.wroteEdgeType++;
+          if (this.schemaScript != null) {
+            this.schemaScript.edgeTypeWritten();
+          } else {
+            statistics.wroteEdgeType++;
+          }
         }
 
         /*
@@ -299,17 +433,31 @@ public class OGraphModelWriter {
         for (OVertexType currentVertexType : graphModel.getVerticesType()) {
 
           currentType = currentVertexType.getName();
-          properties = new ArrayList<String>();
-          for (OModelProperty currentProperty : currentVertexType.getProperties()) {
-            if (currentProperty.isFromPrimaryKey()) {
-              properties.add(currentProperty.getName());
+
+          // the index of an unchanged external key is left as it is, without checking its definition
+          if (this.schemaDelta != null && this.schemaDelta.isIndexUnchanged(currentType) && indexManager
+              .existsIndex(currentType + ".pkey")) {
+            if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+              OTeleporterContext.getInstance().getMessageHandler()
+                  .debug(this, "\nIndex for %s unchanged since the previous migration.\n", currentType);
             }
+          } else {
+            properties = new ArrayList<String>();
+            for (OModelProperty currentProperty : currentVertexType.getProperties()) {
+              if (currentProperty.isFromPrimaryKey()) {
+                properties.add(currentProperty.getName());
+              }
+            }
+            this.buildIndexOnExternalKey(orientGraph, numberOfVertices, iteration, currentType, properties, indexManager,
+                currentVertexType);
           }
-          this.buildIndexOnExternalKey(orientGraph, numberOfVertices, iteration, currentType, properties, indexManager,
-              currentVertexType);
 
           iteration++;
-          statistics.wroteIndexes++;
+          if (this.schemaScript != null) {
+            this.schemaScript.indexWritten();
+          } else {
+            statistics.wroteIndexes++;
+          }
         }
 
 
@@ -330,13 +478,17 @@ public class OGraphModelWriter {
           String indexClassName = currentType + ".";
           for (OAttribute attribute : logicalRelationship.getToColumns()) {
             String correspondentPropertyName = mapper
-                .getPropertyNameByVertexTypeAndAttribute(currentInVertexType, attribute.getName());
+                .getIncludedPropertyNameByVertexTypeAndAttribute(currentInVertexType, attribute.getName());
             properties.add(correspondentPropertyName);
             indexClassName += correspondentPropertyName + "_";
           }
           indexClassName = indexClassName.substring(0, indexClassName.lastIndexOf("_"));
-          this.buildLogicalIndex(orientGraph, numberOfVertices, iteration, currentType, properties, indexManager,
-              currentInVertexType, indexClassName);
+
+          // join columns excluded by the configuration are not in the schema: the relationship is skipped when the edges are built
+          if (!properties.contains(null)) {
+            this.buildLogicalIndex(orientGraph, numberOfVertices, iteration, currentType, properties, indexManager,
+                currentInVertexType, indexClassName);
+          }
 
           // index on out-vertex type
           OVertexType currentOutVertexType = mapper.getVertexTypeByEntity(logicalRelationship.getForeignEntity());
@@ -347,13 +499,19 @@ public class OGraphModelWriter {
           indexClassName = currentType + ".";
           for (OAttribute attribute : logicalRelationship.getFromColumns()) {
             String correspondentPropertyName = mapper
-                .getPropertyNameByVertexTypeAndAttribute(currentOutVertexType, attribute.getName());
+                .getIncludedPropertyNameByVertexTypeAndAttribute(currentOutVertexType, attribute.getName());
             properties.add(correspondentPropertyName);
             indexClassName += correspondentPropertyName + "_";
           }
           indexClassName = indexClassName.substring(0, indexClassName.lastIndexOf("_"));
-          this.buildLogicalIndex(orientGraph, numberOfVertices, iteration, currentType, properties, indexManager,
-              currentInVertexType, indexClassName);
+          if (!properties.contains(null)) {
+            this.buildLogicalIndex(orientGraph, numberOfVertices, iteration, currentType, properties, indexManager,
+                currentInVertexType, indexClassName);
+          }
+        }
+
+        if (this.schemaScript != null) {
+          this.schemaScript.flush();
         }
 
       } catch (OException e) {
@@ -381,7 +539,8 @@ public class OGraphModelWriter {
   /**
    * It builds an index on the properties correspondent to the columns belonging to the original primary key (external key).
    * If the index is already defined no more indexes will be added.
-   * During the sync if the properties changed names, the old index will be dropped.
+   * During the sync if the properties changed, the old index will be dropped: the same properties in a different order don't
+   * require a new index.
    *
    * @param orientGraph
    * @param numberOfVertices
@@ -396,19 +555,14 @@ public class OGraphModelWriter {
       List<String> properties, OIndexManagerProxy indexManager, OVertexType currentVertexType) {
     boolean isPresent;
     String statement;
-    OCommandSQL sqlCommand;
 
     // checking if the old index is based on the same properties of the current Class, if not it will be deleted
     String indexClassName = currentType + ".pkey";
     OIndex<?> classIndex = indexManager.getClassIndex(currentType, indexClassName);
     if (classIndex != null) {
-      List<String> fieldNames = classIndex.getDefinition().getFields();
-
-      for (String field : fieldNames) {
-        if (!properties.contains(field)) {
-          indexManager.dropIndex(indexClassName);
-          break;
-        }
+      Set<String> fieldNames = new HashSet<String>(classIndex.getDefinition().getFields());
+      if (!fieldNames.equals(new HashSet<String>(properties))) {
+        indexManager.dropIndex(indexClassName);
       }
     }
 
@@ -437,8 +591,7 @@ public class OGraphModelWriter {
 
         statement =
             "create index `" + currentType + ".pkey`" + " on `" + currentType + "` (" + propertiesList + ") unique_hash_index";
-        sqlCommand = new OCommandSQL(statement);
-        orientGraph.getRawGraph().command(sqlCommand).execute();
+        this.executeSchemaCommand(orientGraph, statement);
         if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
           OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nIndex for %s built.\n", currentVertexType.getName());
         }
@@ -473,7 +626,6 @@ public class OGraphModelWriter {
 
     boolean isPresent;
     String statement;
-    OCommandSQL sqlCommand;
 
     // check if vertex type is already present in the orient schema
     isPresent = indexManager.existsIndex(indexClassName);
@@ -497,8 +649,7 @@ public class OGraphModelWriter {
                   numberOfVertices);
         }
         statement = "create index `" + indexClassName + "` on `" + currentType + "` (" + propertiesList + ") notunique_hash_index";
-        sqlCommand = new OCommandSQL(statement);
-        orientGraph.getRawGraph().command(sqlCommand).execute();
+        this.executeSchemaCommand(orientGraph, statement);
         if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
           OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nIndex for %s built.\n", currentVertexType.getName());
         }
@@ -515,6 +666,165 @@ public class OGraphModelWriter {
     }
   }
 
+  /**
+   * @return the changes since the previous configuration computed by the last writing, null if there was no previous configuration
+   */
+  public OSchemaDelta getSchemaDelta() {
+    return this.schemaDelta;
+  }
+
+  /**
+   * Builds a spatial index on each geospatial property of the vertex classes, on the target database and on the further databases
+   * the output is partitioned over. It's invoked after the records are loaded, so that the index is filled in a single pass
+   * instead of being updated at each insert. The indexes already present are skipped, and a failure (e.g. when the spatial module
+   * is not installed on the server) is reported as a warning, as the migrated data are not affected.
+   *
+   * @param graphModel
+   * @param handler
+   * @param outOrientGraphUri
+   */
+  public void writeSpatialIndexes(OGraphModel graphModel, ODBMSDataTypeHandler handler, String outOrientGraphUri) {
+
+    if (!handler.geospatialImplemented) {
+      return;
+    }
+
+    List<String> allPartitionUrls = new ArrayList<String>();
+    allPartitionUrls.add(outOrientGraphUri);
+    allPartitionUrls.addAll(OTeleporterContext.getInstance().getSettings().getPartitionUrls());
+
+    for (String partitionUrl : allPartitionUrls) {
+      OrientBaseGraph orientGraph = new OrientGraphFactory(partitionUrl, "admin", "admin").getNoTx();
+      try {
+        OIndexManagerProxy indexManager = orientGraph.getRawGraph().getMetadata().getIndexManager();
+        for (OVertexType currentVertexType : graphModel.getVerticesType()) {
+          for (OModelProperty currentProperty : currentVertexType.getProperties()) {
+            if (currentProperty.isIncludedInMigration() && handler.isGeospatial(currentProperty.getOriginalType())) {
+              this.buildSpatialIndex(orientGraph, indexManager, currentVertexType.getName(), currentProperty.getName());
+            }
+          }
+        }
+      } finally {
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  private void buildSpatialIndex(OrientBaseGraph orientGraph, OIndexManagerProxy indexManager, String currentType,
+      String propertyName) {
+
+    String indexName = currentType + "." + propertyName;
+    if (indexManager.existsIndex(indexName)) {
+      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+        OTeleporterContext.getInstance().getMessageHandler()
+            .debug(this, "\nSpatial index %s already present in the Orient schema.\n", indexName);
+      }
+      return;
+    }
+
+    String statement = "create index `" + indexName + "` on `" + currentType + "` (" + propertyName + ") spatial engine lucene";
+    try {
+      orientGraph.getRawGraph().command(new OCommandSQL(statement)).execute();
+      OTeleporterContext.getInstance().getStatistics().wroteIndexes++;
+      if(OTeleporterContext.getInstance().getMessageHandler().getOutputManagerLevel() == OOutputStreamManager.DEBUG_LEVEL) {
+        OTeleporterContext.getInstance().getMessageHandler().debug(this, "\nSpatial index %s built.\n", indexName);
+      }
+    } catch (Exception e) {
+      String mess = "The spatial index " + indexName + " can't be built.";
+      OTeleporterContext.getInstance().printExceptionMessage(e, mess, "warn");
+      OTeleporterContext.getInstance().printExceptionStackTrace(e, "debug");
+      OTeleporterContext.getInstance().getStatistics().warningMessages.add(mess);
+    }
+  }
+
+  /**
+   * Executes the schema command, or adds it to the schema script when the schema commands are batched.
+   */
+  private void executeSchemaCommand(OrientBaseGraph orientGraph, String statement) {
+    if (this.schemaScript != null) {
+      this.schemaScript.add(statement);
+    } else {
+      orientGraph.getRawGraph().command(new OCommandSQL(statement)).execute();
+    }
+  }
+
+  /**
+   * Adds to the schema script the statements creating the class, its properties and the clusters of the parallel writers.
+   * The properties whose type can't be resolved are dropped from the element type, as when the class is written directly.
+   */
+  private void writeClassInScript(OElementType currentElementType, String superClassName, ODriverDataTypeHandler handler,
+      int writerClusters) {
+
+    String className = currentElementType.getName();
+    this.schemaScript.createClass(className, superClassName);
+
+    Iterator<OModelProperty> it = currentElementType.getProperties().iterator();
+    while (it.hasNext()) {
+      OModelProperty currentProperty = it.next();
+      if (currentProperty.isIncludedInMigration()) {
+        OType type;
+        if (currentProperty.getOrientdbType() == null) {
+          type = handler.resolveType(currentProperty.getOriginalType().toLowerCase(Locale.ENGLISH));
+        } else {
+          type = this.resolveOrientDBType(currentProperty.getOrientdbType());
+        }
+        if (type != null) {
+          this.schemaScript.createProperty(className, currentProperty.getName(), type, currentProperty.isMandatory(),
+              currentProperty.isReadOnly(), currentProperty.isNotNull());
+        } else {
+          it.remove();
+          OTeleporterContext.getInstance().getStatistics().warningMessages
+              .add(currentProperty.getOriginalType() + " type is not supported, the correspondent property will be dropped.");
+        }
+      }
+    }
+
+    for (int i = 0; i < writerClusters; i++) {
+      this.schemaScript.addCluster(className, getWriterClusterName(className, i));
+    }
+  }
+
+  /**
+   * Adds to the class the clusters dedicated to the parallel writers, if not present yet.
+   *
+   * @param orientGraph
+   * @param className
+   * @param writerClusters number of writer clusters the class must have
+   */
+  private void addWriterClusters(OrientBaseGraph orientGraph, String className, int writerClusters) {
+
+    OClass orientClass = orientGraph.getRawGraph().getMetadata().getSchema().getClass(className);
+    if (orientClass == null) {
+      return;
+    }
+    for (int i = 0; i < writerClusters; i++) {
+      String clusterName = getWriterClusterName(className, i);
+      int clusterId = orientGraph.getRawGraph().getClusterIdByName(clusterName);
+      if (clusterId == -1 || !this.containsClusterId(orientClass.getClusterIds(), clusterId)) {
+        orientClass.addCluster(clusterName);
+      }
+    }
+  }
+
+  private boolean containsClusterId(int[] clusterIds, int clusterId) {
+    for (int currentClusterId : clusterIds) {
+      if (currentClusterId == clusterId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the name of the cluster of the class dedicated to the writer with the given index.
+   *
+   * @param className
+   * @param writerIndex
+   */
+  public static String getWriterClusterName(String className, int writerIndex) {
+    return className.toLowerCase(Locale.ENGLISH) + "_writer_" + writerIndex;
+  }
+
   /**
    * @param orientGraph
    * @param currentElementType
@@ -585,6 +895,12 @@ public class OGraphModelWriter {
       }
     }
 
+    // properties not present in the model can belong to the models of other sources imported concurrently, so they are dropped
+    // once all the source models are merged
+    if (OTeleporterContext.getInstance().getSettings().isConcurrentSources()) {
+      return updated;
+    }
+
     // checking from orientdb schema properties
     OProperty orientSchemaProperty2;
     Iterator<OProperty> it2 = orientElementType.declaredProperties().iterator();
@@ -607,6 +923,82 @@ public class OGraphModelWriter {
     return updated;
   }
 
+  /**
+   * Adds the properties included by the graph model of a source to the ones included by the other sources migrated concurrently
+   * into the same database.
+   */
+  private void mergeModelProperties(OGraphModel graphModel, String outOrientGraphUri) {
+
+    Map<String, Set<String>> class2properties = MERGED_PROPERTIES.get(outOrientGraphUri);
+    if (class2properties == null) {
+      class2properties = new HashMap<String, Set<String>>();
+      MERGED_PROPERTIES.put(outOrientGraphUri, class2properties);
+    }
+
+    List<OElementType> elementTypes = new ArrayList<OElementType>();
+    elementTypes.addAll(graphModel.getVerticesType());
+    elementTypes.addAll(graphModel.getEdgesType());
+    for (OElementType currentElementType : elementTypes) {
+      Set<String> properties = class2properties.get(currentElementType.getName());
+      if (properties == null) {
+        properties = new HashSet<String>();
+        class2properties.put(currentElementType.getName(), properties);
+      }
+      for (OModelProperty currentModelProperty : currentElementType.getProperties()) {
+        if (currentModelProperty.isIncludedInMigration()) {
+          properties.add(currentModelProperty.getName());
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops the properties that none of the sources migrated concurrently into the database includes in its graph model. Each source
+   * doesn't drop them while writing its own schema, as they could belong to the model of another source.
+   *
+   * @param outOrientGraphUri
+   */
+  public static void dropPropertiesOutOfMergedModels(String outOrientGraphUri) {
+
+    Map<String, Set<String>> class2properties;
+    synchronized (SCHEMA_WRITING_LOCK) {
+      class2properties = MERGED_PROPERTIES.remove(outOrientGraphUri);
+    }
+    if (class2properties == null) {
+      return;
+    }
+
+    OrientBaseGraph orientGraph = new OrientGraphFactory(outOrientGraphUri, "admin", "admin").getNoTx();
+    try {
+      for (Map.Entry<String, Set<String>> entry : class2properties.entrySet()) {
+        OClass orientClass = orientGraph.getRawGraph().getMetadata().getSchema().getClass(entry.getKey());
+        if (orientClass == null) {
+          continue;
+        }
+        List<String> toDrop = new LinkedList<String>();
+        for (OProperty orientSchemaProperty : orientClass.declaredProperties()) {
+          if (!entry.getValue().contains(orientSchemaProperty.getName())) {
+            toDrop.add(orientSchemaProperty.getName());
+          }
+        }
+        for (String propertyName : toDrop) {
+          orientClass.dropProperty(propertyName);
+        }
+      }
+    } finally {
+      orientGraph.shutdown();
+    }
+  }
+
+  /**
+   * Forgets the properties merged from the sources migrated concurrently, when the migration didn't complete.
+   */
+  public static void discardMergedModels() {
+    synchronized (SCHEMA_WRITING_LOCK) {
+      MERGED_PROPERTIES.clear();
+    }
+  }
+
   public boolean inheritanceChangesPresent(OGraphModel graphModel, OrientBaseGraph orientGraph) {
 
     for (OVertexType currentVertexType : graphModel.getVerticesType()) {
@@ -0,0 +1,238 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.writer;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.teleporter.configuration.api.OConfiguration;
+import com.orientechnologies.teleporter.configuration.api.OConfiguredClass;
+import com.orientechnologies.teleporter.configuration.api.OConfiguredEdgeClass;
+import com.orientechnologies.teleporter.configuration.api.OConfiguredProperty;
+import com.orientechnologies.teleporter.configuration.api.OConfiguredVertexClass;
+import com.orientechnologies.teleporter.model.graphmodel.OEdgeType;
+import com.orientechnologies.teleporter.model.graphmodel.OElementType;
+import com.orientechnologies.teleporter.model.graphmodel.OGraphModel;
+import com.orientechnologies.teleporter.model.graphmodel.OModelProperty;
+import com.orientechnologies.teleporter.model.graphmodel.OVertexType;
+import com.orientechnologies.teleporter.persistence.handler.ODriverDataTypeHandler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Differences between the graph model of the current execution and the configuration written by the previous one: the schema
+ * writer applies only the classes, properties and indexes changed since then and leaves the others untouched.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OSchemaDelta {
+
+  private final Set<String>               newClasses;
+  private final Map<String, List<String>> changedClasses;      // class name -> description of its changes
+  private final Set<String>               unchangedClasses;
+  private final Set<String>               droppedClasses;
+  private final Set<String>               changedIndexes;      // classes whose external key index is built on different properties
+
+  private OSchemaDelta() {
+    this.newClasses = new LinkedHashSet<String>();
+    this.changedClasses = new LinkedHashMap<String, List<String>>();
+    this.unchangedClasses = new HashSet<String>();
+    this.droppedClasses = new LinkedHashSet<String>();
+    this.changedIndexes = new LinkedHashSet<String>();
+  }
+
+  /**
+   * Compares the graph model with the previous configuration.
+   *
+   * @param writer resolves the OrientDB types declared in the model and in the configuration
+   */
+  public static OSchemaDelta plan(OGraphModel graphModel, OConfiguration previousConfiguration, ODriverDataTypeHandler handler,
+      OGraphModelWriter writer) {
+
+    OSchemaDelta delta = new OSchemaDelta();
+
+    for (OVertexType currentVertexType : graphModel.getVerticesType()) {
+      OConfiguredVertexClass previousClass = previousConfiguration.getVertexClassByName(currentVertexType.getName());
+      delta.compareClass(currentVertexType, previousClass, handler, writer);
+
+      if (previousClass != null) {
+        Set<String> previousExternalKey = new HashSet<String>(previousClass.getExternalKeyProps());
+        Set<String> currentExternalKey = new HashSet<String>();
+        for (OModelProperty currentProperty : currentVertexType.getProperties()) {
+          if (currentProperty.isFromPrimaryKey()) {
+            currentExternalKey.add(currentProperty.getName());
+          }
+        }
+        if (!previousExternalKey.equals(currentExternalKey)) {
+          delta.changedIndexes.add(currentVertexType.getName());
+        }
+      }
+    }
+    for (OEdgeType currentEdgeType : graphModel.getEdgesType()) {
+      OConfiguredEdgeClass previousClass = previousConfiguration.getEdgeClassByName(currentEdgeType.getName());
+      delta.compareClass(currentEdgeType, previousClass, handler, writer);
+    }
+
+    for (OConfiguredVertexClass previousClass : previousConfiguration.getConfiguredVertices()) {
+      if (graphModel.getVertexTypeByName(previousClass.getName()) == null) {
+        delta.droppedClasses.add(previousClass.getName());
+      }
+    }
+    for (OConfiguredEdgeClass previousClass : previousConfiguration.getConfiguredEdges()) {
+      if (graphModel.getEdgeTypeByName(previousClass.getName()) == null) {
+        delta.droppedClasses.add(previousClass.getName());
+      }
+    }
+
+    return delta;
+  }
+
+  private void compareClass(OElementType currentElementType, OConfiguredClass previousClass, ODriverDataTypeHandler handler,
+      OGraphModelWriter writer) {
+
+    String className = currentElementType.getName();
+    if (previousClass == null) {
+      this.newClasses.add(className);
+      return;
+    }
+
+    List<String> changes = new ArrayList<String>();
+    Set<String> currentPropertyNames = new HashSet<String>();
+    for (OModelProperty currentProperty : currentElementType.getProperties()) {
+      if (!currentProperty.isIncludedInMigration()) {
+        continue;
+      }
+      currentPropertyNames.add(currentProperty.getName());
+
+      OConfiguredProperty previousProperty = previousClass.getProperty(currentProperty.getName());
+      if (previousProperty == null || !previousProperty.isIncludedInMigration()) {
+        changes.add("property '" + currentProperty.getName() + "' added");
+        continue;
+      }
+
+      OType currentType;
+      if (currentProperty.getOrientdbType() != null) {
+        currentType = writer.resolveOrientDBType(currentProperty.getOrientdbType());
+      } else {
+        currentType = handler.resolveType(currentProperty.getOriginalType().toLowerCase(Locale.ENGLISH));
+      }
+      OType previousType = null;
+      if (previousProperty.getPropertyType() != null) {
+        previousType = writer.resolveOrientDBType(previousProperty.getPropertyType());
+      } else if (previousProperty.getPropertyMapping() != null && previousProperty.getPropertyMapping().getType() != null) {
+        previousType = handler.resolveType(previousProperty.getPropertyMapping().getType().toLowerCase(Locale.ENGLISH));
+      }
+      if (currentType == null || currentType != previousType) {
+        changes.add("property '" + currentProperty.getName() + "' type changed");
+      } else if (isTrue(currentProperty.isMandatory()) != previousProperty.isMandatory()
+          || isTrue(currentProperty.isReadOnly()) != previousProperty.isReadOnly()
+          || isTrue(currentProperty.isNotNull()) != previousProperty.isNotNull()) {
+        changes.add("property '" + currentProperty.getName() + "' constraints changed");
+      }
+    }
+
+    for (OConfiguredProperty previousProperty : previousClass.getConfiguredProperties()) {
+      if (previousProperty.isIncludedInMigration() && !currentPropertyNames.contains(previousProperty.getPropertyName())) {
+        changes.add("property '" + previousProperty.getPropertyName() + "' removed");
+      }
+    }
+
+    if (changes.isEmpty()) {
+      this.unchangedClasses.add(className);
+    } else {
+      this.changedClasses.put(className, changes);
+    }
+  }
+
+  private static boolean isTrue(Boolean value) {
+    return value != null && value;
+  }
+
+  /**
+   * @return true if the class and its properties are the same of the previous execution
+   */
+  public boolean isUnchanged(String className) {
+    return this.unchangedClasses.contains(className);
+  }
+
+  /**
+   * @return true if the class was in the previous execution and its external key is built on the same properties
+   */
+  public boolean isIndexUnchanged(String className) {
+    return !this.newClasses.contains(className) && !this.changedIndexes.contains(className);
+  }
+
+  public Set<String> getNewClasses() {
+    return this.newClasses;
+  }
+
+  public Map<String, List<String>> getChangedClasses() {
+    return this.changedClasses;
+  }
+
+  public Set<String> getUnchangedClasses() {
+    return this.unchangedClasses;
+  }
+
+  public Set<String> getDroppedClasses() {
+    return this.droppedClasses;
+  }
+
+  public Set<String> getChangedIndexes() {
+    return this.changedIndexes;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    s.append("Schema plan: ").append(this.newClasses.size()).append(" new, ").append(this.changedClasses.size())
+        .append(" changed, ").append(this.unchangedClasses.size()).append(" unchanged and ").append(this.droppedClasses.size())
+        .append(" dropped classes, ").append(this.changedIndexes.size()).append(" external key indexes to rebuild.\n");
+    for (String className : this.newClasses) {
+      s.append("  + ").append(className).append("\n");
+    }
+    for (Map.Entry<String, List<String>> entry : this.changedClasses.entrySet()) {
+      s.append("  ~ ").append(entry.getKey()).append(": ");
+      for (int i = 0; i < entry.getValue().size(); i++) {
+        if (i > 0) {
+          s.append(", ");
+        }
+        s.append(entry.getValue().get(i));
+      }
+      s.append("\n");
+    }
+    for (String className : this.droppedClasses) {
+      s.append("  - ").append(className).append("\n");
+    }
+    for (String className : this.changedIndexes) {
+      s.append("  * ").append(className).append(".pkey\n");
+    }
+    return s.toString();
+  }
+
+}
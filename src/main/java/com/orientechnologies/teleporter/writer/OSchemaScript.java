@@ -0,0 +1,129 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.writer;
+
+import com.orientechnologies.orient.core.command.script.OCommandScript;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterStatistics;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL script collecting the commands writing the schema, so that they are sent to the server in a few requests instead of one
+ * request for each class, property and index. The script is executed when it reaches MAX_STATEMENTS statements and when it's
+ * flushed; the schema elements it writes are counted in the statistics only once executed.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class OSchemaScript {
+
+  public static final int MAX_STATEMENTS = 500;
+
+  private final OrientBaseGraph orientGraph;
+  private final List<String>    statements;
+  private int pendingVertexTypes;
+  private int pendingEdgeTypes;
+  private int pendingIndexes;
+
+  public OSchemaScript(OrientBaseGraph orientGraph) {
+    this.orientGraph = orientGraph;
+    this.statements = new ArrayList<String>();
+  }
+
+  public void createClass(String className, String superClassName) {
+    this.add("create class `" + className + "` extends `" + superClassName + "`");
+  }
+
+  public void createProperty(String className, String propertyName, OType type, Boolean mandatory, Boolean readOnly,
+      Boolean notNull) {
+    String property = "`" + className + "`.`" + propertyName + "`";
+    this.add("create property " + property + " " + type.name());
+    if (mandatory != null) {
+      this.add("alter property " + property + " mandatory " + mandatory);
+    }
+    if (readOnly != null) {
+      this.add("alter property " + property + " readonly " + readOnly);
+    }
+    if (notNull != null) {
+      this.add("alter property " + property + " notnull " + notNull);
+    }
+  }
+
+  public void addCluster(String className, String clusterName) {
+    this.add("alter class `" + className + "` addcluster " + clusterName);
+  }
+
+  public void add(String statement) {
+    this.statements.add(statement);
+  }
+
+  public void vertexTypeWritten() {
+    this.pendingVertexTypes++;
+    this.flushIfFull();
+  }
+
+  public void edgeTypeWritten() {
+    this.pendingEdgeTypes++;
+    this.flushIfFull();
+  }
+
+  public void indexWritten() {
+    this.pendingIndexes++;
+    this.flushIfFull();
+  }
+
+  /**
+   * Executes the pending statements in a single request, then reloads the schema so that the written classes and indexes are
+   * visible to the following checks.
+   */
+  public void flush() {
+
+    if (!this.statements.isEmpty()) {
+      StringBuilder script = new StringBuilder();
+      for (String statement : this.statements) {
+        script.append(statement).append(";\n");
+      }
+      this.orientGraph.getRawGraph().command(new OCommandScript("sql", script.toString())).execute();
+      this.orientGraph.getRawGraph().getMetadata().reload();
+      this.statements.clear();
+    }
+
+    OTeleporterStatistics statistics = OTeleporterContext.getInstance().getStatistics();
+    statistics.wroteVertexType += this.pendingVertexTypes;
+    statistics.wroteEdgeType += this.pendingEdgeTypes;
+    statistics.wroteIndexes += this.pendingIndexes;
+    this.pendingVertexTypes = 0;
+    this.pendingEdgeTypes = 0;
+    this.pendingIndexes = 0;
+  }
+
+  private void flushIfFull() {
+    if (this.statements.size() >= MAX_STATEMENTS) {
+      this.flush();
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.strategy.rdbms;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks how the batch sizes adapt to the latency of the last batch and to the heap headroom.
+ * Lives in the package of the controller as adapt is not public.
+ *
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class AdaptiveBatchControllerTest {
+
+  private OAdaptiveBatchController newController(int minSize, int maxSize) {
+    OAdaptiveBatchController controller = new OAdaptiveBatchController(minSize, maxSize);
+    this.fillBatch(controller);
+    return controller;
+  }
+
+  private void fillBatch(OAdaptiveBatchController controller) {
+    controller.startBatch();
+    while (!controller.recordWritten()) {
+    }
+  }
+
+  @Test
+  /*
+   * A batch slower than the target shrinks the commit size proportionally, the fetch size is unchanged.
+   */ public void slowBatchShrinksCommitSizeTest() {
+
+    OAdaptiveBatchController controller = this.newController(10, 1000);
+    assertEquals(100, controller.getCommitSize());
+
+    controller.adapt(2000, 0.3);
+
+    assertEquals(50, controller.getCommitSize());
+    assertEquals(100, controller.getFetchSize());
+  }
+
+  @Test
+  /*
+   * A batch much faster than the target doubles the commit size, the fetch size grows only with a large heap headroom.
+   */ public void fastBatchGrowsCommitSizeTest() {
+
+    OAdaptiveBatchController controller = this.newController(10, 1000);
+
+    controller.adapt(100, 0.3);
+    assertEquals(200, controller.getCommitSize());
+    assertEquals(100, controller.getFetchSize());
+
+    this.fillBatch(controller);
+    controller.adapt(100, 0.8);
+    assertEquals(400, controller.getCommitSize());
+    assertEquals(200, controller.getFetchSize());
+
+    // a batch close to the target leaves the commit size as it is
+    this.fillBatch(controller);
+    controller.adapt(800, 0.3);
+    assertEquals(400, controller.getCommitSize());
+  }
+
+  @Test
+  /*
+   * A low heap headroom halves both the sizes, whatever the latency of the batch.
+   */ public void lowHeapHalvesBothSizesTest() {
+
+    OAdaptiveBatchController controller = this.newController(10, 1000);
+
+    controller.adapt(100, 0.1);
+
+    assertEquals(50, controller.getCommitSize());
+    assertEquals(50, controller.getFetchSize());
+  }
+
+  @Test
+  /*
+   * The adapted sizes never leave the configured range.
+   */ public void sizesClampedToRangeTest() {
+
+    OAdaptiveBatchController controller = this.newController(10, 160);
+    assertEquals(40, controller.getCommitSize());
+
+    for (int i = 0; i < 3; i++) {
+      this.fillBatch(controller);
+      controller.adapt(100, 0.8);
+    }
+    assertEquals(160, controller.getCommitSize());
+    assertEquals(160, controller.getFetchSize());
+
+    this.fillBatch(controller);
+    controller.adapt(1000000, 0.3);
+    assertEquals(10, controller.getCommitSize());
+
+    for (int i = 0; i < 6; i++) {
+      this.fillBatch(controller);
+      controller.adapt(100, 0.1);
+    }
+    assertEquals(10, controller.getCommitSize());
+    assertEquals(10, controller.getFetchSize());
+
+    // an empty batch doesn't change the sizes
+    controller.startBatch();
+    controller.adapt(100, 0.8);
+    assertEquals(10, controller.getCommitSize());
+  }
+
+}
@@ -0,0 +1,290 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.test.rdbms.configuration.importing;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
+import com.orientechnologies.teleporter.nameresolver.OJavaConventionNameResolver;
+import com.orientechnologies.teleporter.persistence.handler.OHSQLDBDataTypeHandler;
+import com.orientechnologies.teleporter.strategy.rdbms.ODBMSNaiveStrategy;
+import com.orientechnologies.teleporter.util.OFileManager;
+import com.orientechnologies.teleporter.util.OMigrationConfigManager;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphNoTx;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class ImportWithLogicalRelationshipTest {
+
+  private OTeleporterContext  context;
+  private ODBMSNaiveStrategy  naiveStrategy;
+  private String              dbParentDirectoryPath;
+  private final String configLogicalRelationshipPath = "src/test/resources/configuration-mapping/logical-relationship-mapping.json";
+  private final String configExcludedColumnPath = "src/test/resources/configuration-mapping/logical-relationship-excluded-column-mapping.json";
+  private ODBQueryEngine dbQueryEngine;
+  private String driver   = "org.hsqldb.jdbc.JDBCDriver";
+  private String jurl     = "jdbc:hsqldb:mem:mydb";
+  private String username = "SA";
+  private String password = "";
+  private String              outOrientGraphUri;
+  private OSourceDatabaseInfo sourceDBInfo;
+
+  @Before
+  public void init() {
+    this.context = OTeleporterContext.newInstance();
+    this.dbQueryEngine = new ODBQueryEngine(this.driver);
+    this.context.setDbQueryEngine(this.dbQueryEngine);
+    this.context.setMessageHandler(new OTeleporterMessageHandler(0));
+    this.context.setNameResolver(new OJavaConventionNameResolver());
+    this.context.setDataTypeHandler(new OHSQLDBDataTypeHandler());
+    this.naiveStrategy = new ODBMSNaiveStrategy();
+    this.outOrientGraphUri = "plocal:target/testOrientDB";
+    this.dbParentDirectoryPath = this.outOrientGraphUri.replace("plocal:", "");
+    this.sourceDBInfo = new OSourceDatabaseInfo("source", this.driver, this.jurl, this.username, this.password);
+  }
+
+  @Test
+
+  /*
+   *  Two tables: 1 logical relationship, the referenced column is not the primary key of the parent table.
+   *  EMPLOYEE --[WorksAtProject]--> PROJECT
+   *
+   *  Edges are built joining the two vertex classes after the import of the vertices.
+   */
+
+  public void test1() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String foreignTableBuilding = "create memory table EMPLOYEE (EMP_ID varchar(256) not null,"
+          + " FIRST_NAME varchar(256) not null, LAST_NAME varchar(256) not null, PROJECT varchar(256), primary key (EMP_ID))";
+      st = connection.createStatement();
+      st.execute(foreignTableBuilding);
+
+      String parentTableBuilding = "create memory table PROJECT (ID  varchar(256),"
+          + " CODE varchar(256) not null, TITLE varchar(256) not null, primary key (ID))";
+      st.execute(parentTableBuilding);
+
+      // Records Inserting
+
+      String employeeFilling =
+          "insert into EMPLOYEE (EMP_ID,FIRST_NAME,LAST_NAME,PROJECT) values (" + "('E001','Joe','Black','DM'),"
+              + "('E002','Thomas','Anderson','CU')," + "('E003','Tyler','Durden','DM'),"
+              + "('E004','John','McClanenei','DM')," + "('E005','Ellen','Ripley','CU')," + "('E006','Marty','McFly',NULL))";
+      st.execute(employeeFilling);
+
+      String projectFilling = "insert into PROJECT (ID,CODE,TITLE) values (" + "('P001','DM','Data Migration'),"
+          + "('P002','CU','Contracts Update'))";
+      st.execute(projectFilling);
+
+      ODocument config = OMigrationConfigManager.loadMigrationConfigFromFile(this.configLogicalRelationshipPath);
+
+      this.naiveStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, config);
+
+      /*
+       *  Testing context information
+       */
+
+      assertEquals(8, context.getStatistics().totalNumberOfRecords);
+      assertEquals(8, context.getStatistics().analyzedRecords);
+      assertEquals(8, context.getStatistics().orientAddedVertices);
+      assertEquals(5, context.getStatistics().orientAddedEdges);
+      assertEquals(1, context.getStatistics().totalNumberOfLogicalRelationships);
+      assertEquals(1, context.getStatistics().doneLogicalRelationships);
+
+      /*
+       *  Testing built OrientDB
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      int count = 0;
+      for (Edge e : orientGraph.getEdgesOfClass("WorksAtProject")) {
+        assertNotNull(e.getId());
+        count++;
+      }
+      assertEquals(5, count);
+
+      String[] keys = { "code" };
+      String[] values = { "DM" };
+      Iterator<Vertex> iterator = orientGraph.getVertices("Project", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      Vertex v = iterator.next();
+      count = 0;
+      for (Edge e : v.getEdges(Direction.IN, "WorksAtProject")) {
+        assertEquals("DM", e.getVertex(Direction.OUT).getProperty("project"));
+        count++;
+      }
+      assertEquals(3, count);
+
+      keys[0] = "empId";
+      values[0] = "E006";
+      iterator = orientGraph.getVertices("Employee", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      v = iterator.next();
+      assertFalse(v.getEdges(Direction.OUT, "WorksAtProject").iterator().hasNext());
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+
+        if (orientGraph != null) {
+          orientGraph.drop();
+          orientGraph.shutdown();
+        }
+
+        OFileManager.deleteResource(this.dbParentDirectoryPath);
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+    }
+  }
+
+  @Test
+
+  /*
+   *  Two tables: 1 logical relationship, the join column of the foreign table is excluded by the configuration.
+   *  EMPLOYEE --[WorksAtProject]--> PROJECT
+   *
+   *  No edges are built and the lost join column is reported as a warning.
+   */
+
+  public void test2() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String foreignTableBuilding = "create memory table EMPLOYEE (EMP_ID varchar(256) not null,"
+          + " FIRST_NAME varchar(256) not null, LAST_NAME varchar(256) not null, PROJECT varchar(256), primary key (EMP_ID))";
+      st = connection.createStatement();
+      st.execute(foreignTableBuilding);
+
+      String parentTableBuilding = "create memory table PROJECT (ID  varchar(256),"
+          + " CODE varchar(256) not null, TITLE varchar(256) not null, primary key (ID))";
+      st.execute(parentTableBuilding);
+
+      // Records Inserting
+
+      String employeeFilling =
+          "insert into EMPLOYEE (EMP_ID,FIRST_NAME,LAST_NAME,PROJECT) values (" + "('E001','Joe','Black','DM'),"
+              + "('E002','Thomas','Anderson','CU')," + "('E003','Tyler','Durden','DM'))";
+      st.execute(employeeFilling);
+
+      String projectFilling = "insert into PROJECT (ID,CODE,TITLE) values (" + "('P001','DM','Data Migration'),"
+          + "('P002','CU','Contracts Update'))";
+      st.execute(projectFilling);
+
+      ODocument config = OMigrationConfigManager.loadMigrationConfigFromFile(this.configExcludedColumnPath);
+
+      this.naiveStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, config);
+
+      /*
+       *  Testing context information
+       */
+
+      assertEquals(5, context.getStatistics().orientAddedVertices);
+      assertEquals(0, context.getStatistics().orientAddedEdges);
+
+      boolean warned = false;
+      for (String warning : context.getStatistics().warningMessages) {
+        if (warning.contains("EMPLOYEE.PROJECT") && warning.contains("WorksAtProject")) {
+          warned = true;
+        }
+      }
+      assertTrue(warned);
+
+      /*
+       *  Testing built OrientDB
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      assertFalse(orientGraph.getEdgesOfClass("WorksAtProject").iterator().hasNext());
+
+      String[] keys = { "empId" };
+      String[] values = { "E001" };
+      Iterator<Vertex> iterator = orientGraph.getVertices("Employee", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      assertNull(iterator.next().getProperty("project"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+
+        if (orientGraph != null) {
+          orientGraph.drop();
+          orientGraph.shutdown();
+        }
+
+        OFileManager.deleteResource(this.dbParentDirectoryPath);
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+    }
+  }
+
+}
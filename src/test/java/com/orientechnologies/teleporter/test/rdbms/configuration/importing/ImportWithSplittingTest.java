@@ -587,4 +587,132 @@ public class ImportWithSplittingTest {
     }
   }
 
+  @Test
+  /*
+   *  Same source and configuration of test1, imported by 2 parallel writers: the vertices reached from records taken by
+   *  different writers (same employee, same project, same department) are inserted just once.
+   */
+
+  public void test2() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String employeeTableBuilding = "create memory table EMPLOYEE_PROJECT (FIRST_NAME varchar(256) not null,"
+          + " LAST_NAME varchar(256) not null, SALARY double not null, DEPARTMENT varchar(256) not null,"
+          + " PROJECT varchar(256) not null, BALANCE double not null, ROLE varchar(256), primary key (FIRST_NAME,LAST_NAME,PROJECT))";
+      st = connection.createStatement();
+      st.execute(employeeTableBuilding);
+
+      String departmentTableBuilding = "create memory table DEPARTMENT (ID varchar(256),"
+          + " NAME varchar(256) not null, LOCATION varchar(256) not null, UPDATED_ON date not null, primary key (ID))";
+      st.execute(departmentTableBuilding);
+
+      String chiefTableBuilding =
+          "create memory table CHIEF_OFFICER (FIRST_NAME varchar(256) not null, LAST_NAME varchar(256) not null, "
+              + "PROJECT varchar(256) not null, primary key (FIRST_NAME,LAST_NAME))";
+      st.execute(chiefTableBuilding);
+
+      // Records Inserting
+
+      String personFilling = "insert into EMPLOYEE_PROJECT (FIRST_NAME,LAST_NAME,SALARY,DEPARTMENT,PROJECT,BALANCE,ROLE) values ("
+          + "('Joe','Black','20000','D001','Mars','12000','T')," + "('Thomas','Anderson','35000','D002','Venus','15000','T'),"
+          + "('Tyler','Durden','35000','D001','Iuppiter','20000','A'),"
+          + "('John','McClanenei','25000','D001','Venus','15000','S')," + "('Marty','McFly','40000','D002','Mars','12000','M'),"
+          + "('Marty','McFly','40000','D002','Mercury','5000','M'))";
+      st.execute(personFilling);
+
+      String departmentFilling =
+          "insert into DEPARTMENT (ID,NAME,LOCATION,UPDATED_ON) values (" + "('D001','Data Migration','London','2016-05-10'),"
+              + "('D002','Contracts Update','Glasgow','2016-05-10'))";
+      st.execute(departmentFilling);
+
+      String chiefOfficerFilling = "insert into CHIEF_OFFICER (FIRST_NAME,LAST_NAME,PROJECT) values (" + "('Tim','Cook','Mars'),"
+          + "('Sundar','Pichai','Venus')," + "('Satya','Nadella','Iuppiter')," + "('Chuck','Robbins','Mercury'))";
+      st.execute(chiefOfficerFilling);
+
+      ODocument configDoc = OMigrationConfigManager.loadMigrationConfigFromFile(this.configPathJson);
+
+      this.context.getSettings().setWorkerThreads(2);
+      this.naiveStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, configDoc);
+
+      /**
+       *  Testing context information
+       */
+
+      assertEquals(12, context.getStatistics().analyzedRecords);
+
+      /**
+       *  Testing built OrientDB
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      assertEquals(15, orientGraph.getRawGraph().countClass("V"));
+      assertEquals(5, orientGraph.getRawGraph().countClass("Employee"));
+      assertEquals(4, orientGraph.getRawGraph().countClass("Project"));
+      assertEquals(2, orientGraph.getRawGraph().countClass("Department"));
+      assertEquals(4, orientGraph.getRawGraph().countClass("ChiefOfficer"));
+
+      int count = 0;
+      for (Edge e : orientGraph.getEdges()) {
+        count++;
+      }
+      assertEquals(15, count);
+
+      count = 0;
+      for (Edge e : orientGraph.getEdgesOfClass("WorksAt")) {
+        count++;
+      }
+      assertEquals(5, count);
+
+      count = 0;
+      for (Edge e : orientGraph.getEdgesOfClass("HasProject")) {
+        count++;
+      }
+      assertEquals(6, count);
+
+      String[] projectKeys = { "project" };
+      String[] projectValues = { "Mars" };
+      Vertex v = orientGraph.getVertices("Project", projectKeys, projectValues).iterator().next();
+
+      // the values copied by the parallel writers are imported as the ones read from the source database
+      assertEquals(12000, ((BigDecimal) v.getProperty("balance")).intValue());
+      count = 0;
+      for (Edge e : v.getEdges(Direction.IN, "HasProject")) {
+        assertNotNull(e.getProperty("role"));
+        count++;
+      }
+      assertEquals(2, count);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+
+        if (orientGraph != null) {
+          orientGraph.drop();
+          orientGraph.shutdown();
+        }
+
+        OFileManager.deleteResource(this.dbParentDirectoryPath);
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+    }
+  }
+
 }
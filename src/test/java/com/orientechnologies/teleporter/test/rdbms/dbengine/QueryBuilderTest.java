@@ -0,0 +1,64 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.test.rdbms.dbengine;
+
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.OCommonQueryBuilder;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.OMysqlQueryBuilder;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.OQueryBuilder;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class QueryBuilderTest {
+
+  @Test
+  public void columnProjectionTest() {
+
+    OQueryBuilder queryBuilder = new OCommonQueryBuilder();
+    OEntity entity = new OEntity("DOCUMENT", null, null);
+
+    // no columns: all the columns are fetched
+    assertEquals("select * from \"DOCUMENT\"", queryBuilder.getRecordsByEntity(entity, null));
+    assertEquals("select * from \"DOCUMENT\"", queryBuilder.getRecordsByEntity(entity, new LinkedList<String>()));
+
+    // projection on the passed columns
+    assertEquals("select \"ID\", \"TITLE\" from \"DOCUMENT\"",
+        queryBuilder.getRecordsByEntity(entity, Arrays.asList("ID", "TITLE")));
+
+    entity.setSchemaName("PUBLIC");
+    assertEquals("select \"ID\" from PUBLIC.\"DOCUMENT\"", queryBuilder.getRecordsByEntity(entity, Arrays.asList("ID")));
+
+    // dbms-specific quoting
+    queryBuilder = new OMysqlQueryBuilder();
+    entity.setSchemaName(null);
+    assertEquals("select `ID`, `TITLE` from `DOCUMENT`", queryBuilder.getRecordsByEntity(entity, Arrays.asList("ID", "TITLE")));
+  }
+
+}
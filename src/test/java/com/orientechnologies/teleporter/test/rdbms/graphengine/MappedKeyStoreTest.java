@@ -0,0 +1,117 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.test.rdbms.graphengine;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.teleporter.exception.OTeleporterRuntimeException;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OMappedKeyStore;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class MappedKeyStoreTest {
+
+  @Test
+  /*
+   * Storing and reading back the RIDs of the keys, and deleting the files.
+   */ public void putAndGetTest() {
+
+    File directory = new File("target/key-store");
+    OMappedKeyStore store = new OMappedKeyStore(directory, 10000);
+
+    try {
+      assertTrue(store.capacity() >= 10000);
+
+      for (int i = 0; i < 10000; i++) {
+        assertTrue(store.put("Film\u0000F" + i, new ORecordId(12, i)));
+      }
+      assertEquals(10000, store.size());
+
+      for (int i = 0; i < 10000; i++) {
+        List<ORID> rids = store.get("Film\u0000F" + i);
+        assertEquals(1, rids.size());
+        assertEquals(12, rids.get(0).getClusterId());
+        assertEquals(i, rids.get(0).getClusterPosition());
+      }
+      assertTrue(store.get("Film\u0000F10000").isEmpty());
+
+      // the same RID stored again keeps its slot
+      assertTrue(store.put("Film\u0000F0", new ORecordId(12, 0)));
+      assertEquals(10000, store.size());
+
+      // a different RID for the same fingerprint, as for a colliding key, doesn't overwrite the stored one
+      assertTrue(store.put("Film\u0000F0", new ORecordId(13, 5)));
+      assertEquals(10001, store.size());
+      assertEquals(Arrays.<ORID>asList(new ORecordId(12, 0), new ORecordId(13, 5)), store.get("Film\u0000F0"));
+      assertEquals(1, store.get("Film\u0000F1").size());
+
+      assertTrue(directory.listFiles().length > 0);
+    } finally {
+      store.close();
+    }
+
+    assertEquals(0, directory.listFiles().length);
+    directory.delete();
+
+    // the unmapped segments can't be accessed anymore
+    try {
+      store.get("Film\u0000F0");
+      fail();
+    } catch (OTeleporterRuntimeException e) {
+    }
+  }
+
+  @Test
+  /*
+   * A full store doesn't accept new keys but keeps the stored ones.
+   */ public void fullStoreTest() {
+
+    File directory = new File("target/key-store");
+    OMappedKeyStore store = new OMappedKeyStore(directory, 10);
+
+    try {
+      long capacity = store.capacity();
+      int stored = 0;
+      for (int i = 0; i < capacity; i++) {
+        if (store.put("Director\u0000D" + i, new ORecordId(11, i))) {
+          stored++;
+        }
+      }
+      assertTrue(stored < capacity);
+      assertEquals(stored, store.size());
+      assertEquals(Arrays.<ORID>asList(new ORecordId(11, 0)), store.get("Director\u0000D0"));
+    } finally {
+      store.close();
+    }
+    directory.delete();
+  }
+
+}
@@ -20,13 +20,27 @@
 
 package com.orientechnologies.teleporter.test.rdbms.importing;
 
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.OSourceSnapshot;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.ODumpQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.dumpengine.OReadOnlyResultSet;
+import com.orientechnologies.teleporter.importengine.rdbms.estimator.OMigrationEstimate;
+import com.orientechnologies.teleporter.importengine.rdbms.graphengine.OGraphPartitioner;
+import com.orientechnologies.teleporter.importengine.rdbms.verifier.OMigrationVerification;
+import com.orientechnologies.teleporter.importengine.rdbms.verifier.OMigrationVerifier;
 import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
 import com.orientechnologies.teleporter.nameresolver.OJavaConventionNameResolver;
 import com.orientechnologies.teleporter.persistence.handler.OHSQLDBDataTypeHandler;
 import com.orientechnologies.teleporter.strategy.rdbms.ODBMSNaiveStrategy;
+import com.orientechnologies.teleporter.util.OFileManager;
+import com.orientechnologies.teleporter.writer.OGraphModelWriter;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -34,10 +48,23 @@ import com.tinkerpop.blueprints.impls.orient.OrientGraphNoTx;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -146,6 +173,10 @@ public class OrientDBImportingTest {
       assertEquals(29, context.getStatistics().orientAddedVertices);
       assertEquals(24, context.getStatistics().orientAddedEdges);
 
+      // tables smaller than a batch keep the initial sizes, in the middle of the default range
+      assertEquals(Integer.valueOf(1000), context.getStatistics().vertexType2fetchSize.get("Film"));
+      assertEquals(Integer.valueOf(1000), context.getStatistics().vertexType2commitSize.get("Film"));
+
 
       /*
        *  Testing built OrientDB
@@ -662,4 +693,1353 @@ public class OrientDBImportingTest {
 
   }
 
+  /*
+   * Edges without properties written as lightweight edges: no edge record is created,
+   * but the vertices are connected as in the standard import.
+   */
+  @Test
+  public void lightweightEdgesTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setLightweightEdges(true);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      assertEquals(6, context.getStatistics().analyzedRecords);
+      assertEquals(6, context.getStatistics().orientAddedVertices);
+      assertEquals(3, context.getStatistics().orientAddedEdges);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      // no edge records
+      assertEquals(0, orientGraph.getRawGraph().countClass("HasDirector"));
+
+      // vertices connected as in the standard import
+      Vertex director = orientGraph.getVertices("Director", new String[] { "id" }, new String[] { "D002" }).iterator().next();
+      Set<Object> films = new HashSet<Object>();
+      for (Edge edge : director.getEdges(Direction.IN, "HasDirector")) {
+        films.add(edge.getVertex(Direction.OUT).getProperty("id"));
+      }
+      assertEquals(2, films.size());
+      assertTrue(films.contains("F002"));
+      assertTrue(films.contains("F003"));
+
+      Vertex film = orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F001" }).iterator().next();
+      Iterator<Edge> edgesIt = film.getEdges(Direction.OUT, "HasDirector").iterator();
+      assertEquals("D001", edgesIt.next().getVertex(Direction.IN).getProperty("id"));
+      assertFalse(edgesIt.hasNext());
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Dumping the source records and loading them later, when the source database is not available anymore.
+   */
+  @Test
+  public void dumpAndLoadTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    String dumpDirectory = "target/testDump";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " RELEASE_YEAR integer, DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin',null))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,RELEASE_YEAR,DIRECTOR) values (" + "('F001','Pulp Fiction',1994,'D001'),"
+          + "('F002','Shutter Island',2010,'D002')," + "('F003','The Departed',null,'D002'))";
+      st.execute(filmFilling);
+
+      // dump
+      this.context.getSettings().setDumpDirectory(dumpDirectory);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      assertEquals(5, context.getStatistics().analyzedRecords);
+      assertEquals(0, context.getStatistics().orientAddedVertices);
+
+      // the source database is not available anymore
+      st.execute("drop schema public cascade");
+
+      // load through a new context
+      this.context = OTeleporterContext.newInstance();
+      this.context.setDbQueryEngine(new ODumpQueryEngine(this.driver, dumpDirectory));
+      this.context.setMessageHandler(new OTeleporterMessageHandler(0));
+      this.context.setNameResolver(new OJavaConventionNameResolver());
+      this.context.setDataTypeHandler(new OHSQLDBDataTypeHandler());
+      this.context.getSettings().setLoadDirectory(dumpDirectory);
+      new ODBMSNaiveStrategy()
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      assertEquals(5, context.getStatistics().totalNumberOfRecords);
+      assertEquals(5, context.getStatistics().analyzedRecords);
+      assertEquals(5, context.getStatistics().orientAddedVertices);
+      assertEquals(3, context.getStatistics().orientAddedEdges);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      Vertex film = orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F002" }).iterator().next();
+      assertEquals("Shutter Island", film.getProperty("title"));
+      assertEquals(2010, film.getProperty("releaseYear"));
+      Iterator<Edge> edgesIt = film.getEdges(Direction.OUT, "HasDirector").iterator();
+      assertEquals("D002", edgesIt.next().getVertex(Direction.IN).getProperty("id"));
+      assertFalse(edgesIt.hasNext());
+
+      film = orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F003" }).iterator().next();
+      assertNull(film.getProperty("releaseYear"));
+
+      Vertex director = orientGraph.getVertices("Director", new String[] { "id" }, new String[] { "D002" }).iterator().next();
+      assertEquals("Martin", director.getProperty("name"));
+      assertNull(director.getProperty("surname"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema, OrientGraph and dump
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+        OFileManager.deleteResource(dumpDirectory);
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Loading the records of an entity from a CSV file placed in the dump directory in place of the dumped records.
+   */
+  @Test
+  public void loadFromCsvFileTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    String dumpDirectory = "target/testDump";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " RELEASE_YEAR integer, DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      // dump
+      this.context.getSettings().setDumpDirectory(dumpDirectory);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+      st.execute("drop schema public cascade");
+
+      // the films come from a CSV export
+      OFileManager.deleteResource(dumpDirectory + "/FILM");
+      String films = "ID,TITLE,RELEASE_YEAR,DIRECTOR\n" + "F001,Pulp Fiction,1994,D001\n"
+          + "F002,\"Shutter Island, \"\"the\"\" thriller\",2010,D002\r\n" + "F003,The Departed,,D002\n";
+      OFileManager.writeFileFromText(films, dumpDirectory + "/FILM.csv", false);
+
+      // load through a new context
+      this.context = OTeleporterContext.newInstance();
+      this.context.setDbQueryEngine(new ODumpQueryEngine(this.driver, dumpDirectory));
+      this.context.setMessageHandler(new OTeleporterMessageHandler(0));
+      this.context.setNameResolver(new OJavaConventionNameResolver());
+      this.context.setDataTypeHandler(new OHSQLDBDataTypeHandler());
+      this.context.getSettings().setLoadDirectory(dumpDirectory);
+      new ODBMSNaiveStrategy()
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      assertEquals(6, context.getStatistics().analyzedRecords);
+      assertEquals(6, context.getStatistics().orientAddedVertices);
+      assertEquals(3, context.getStatistics().orientAddedEdges);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      Vertex film = orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F002" }).iterator().next();
+      assertEquals("Shutter Island, \"the\" thriller", film.getProperty("title"));
+      assertEquals(2010, film.getProperty("releaseYear"));
+      Iterator<Edge> edgesIt = film.getEdges(Direction.OUT, "HasDirector").iterator();
+      assertEquals("D002", edgesIt.next().getVertex(Direction.IN).getProperty("id"));
+      assertFalse(edgesIt.hasNext());
+
+      film = orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F003" }).iterator().next();
+      assertNull(film.getProperty("releaseYear"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema, OrientGraph and dump
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+        OFileManager.deleteResource(dumpDirectory);
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Estimating the migration: nothing is imported and, sampling the whole tables, the numbers are exact.
+   */
+  @Test
+  public void migrationEstimateTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Taxi Driver','D002'),"
+          + "('F005','Inception','D003')," + "('F006','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setEstimateSamplePercentage(10);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      OMigrationEstimate estimate = this.importStrategy.getMigrationEstimate();
+      assertNotNull(estimate);
+      assertEquals(9, estimate.getSourceRows());
+      assertEquals(9, estimate.getSampledRows());
+      assertEquals(9, estimate.getVertices());
+      assertEquals(5, estimate.getEdges());
+      assertTrue(estimate.getDiskBytes() > 0);
+      assertTrue(estimate.getKeyCacheHeapBytes() > 0);
+
+      assertEquals(1, estimate.getFanOuts().size());
+      OMigrationEstimate.ORelationshipFanOut fanOut = estimate.getFanOuts().get(0);
+      assertEquals(3, fanOut.getParents());
+      assertEquals(1, fanOut.getMedian());
+      assertEquals(3, fanOut.getMax());
+
+      // just the schema is written
+      assertEquals(0, context.getStatistics().orientAddedVertices);
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertNotNull(orientGraph.getVertexType("Film"));
+      assertEquals(0, orientGraph.countVertices());
+      assertNull(orientGraph.getVertexType("TeleporterEstimateVertex"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Two sources sharing a director imported concurrently into the same graph: the shared vertex is inserted just once.
+   */
+  @Test
+  public void concurrentSourcesTest() {
+
+    Connection connection1 = null;
+    Connection connection2 = null;
+    Statement st1 = null;
+    Statement st2 = null;
+    OrientGraphNoTx orientGraph = null;
+    String jurl1 = "jdbc:hsqldb:mem:shard1";
+    String jurl2 = "jdbc:hsqldb:mem:shard2";
+
+    try {
+
+      Class.forName(this.driver);
+      connection1 = DriverManager.getConnection(jurl1, this.username, this.password);
+      connection2 = DriverManager.getConnection(jurl2, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st1 = connection1.createStatement();
+      st1.execute(directorTableBuilding);
+      st1.execute(filmTableBuilding);
+      st2 = connection2.createStatement();
+      st2.execute(directorTableBuilding);
+      st2.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      st1.execute("insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese'))");
+      st1.execute("insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002'))");
+
+      st2.execute("insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D003','Christopher','Nolan'))");
+      st2.execute("insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F003','Reservoir Dogs','D001'),"
+          + "('F004','Inception','D003'))");
+
+      final OSourceDatabaseInfo[] sources = new OSourceDatabaseInfo[] {
+          new OSourceDatabaseInfo("shard1", this.driver, jurl1, this.username, this.password),
+          new OSourceDatabaseInfo("shard2", this.driver, jurl2, this.username, this.password) };
+      final Exception[] failures = new Exception[sources.length];
+      Thread[] threads = new Thread[sources.length];
+
+      this.context.getSettings().setConcurrentSources(true);
+      for (int i = 0; i < sources.length; i++) {
+        final int sourceIndex = i;
+        final OTeleporterContext sourceContext = this.context.buildSourceContext();
+        sourceContext.setDbQueryEngine(new ODBQueryEngine(this.driver));
+        threads[i] = new Thread() {
+
+          @Override
+          public void run() {
+            OTeleporterContext.bindSourceContext(sourceContext);
+            try {
+              new ODBMSNaiveStrategy()
+                  .executeStrategy(sources[sourceIndex], outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+            } catch (Exception e) {
+              failures[sourceIndex] = e;
+            } finally {
+              OTeleporterContext.unbindSourceContext();
+            }
+          }
+        };
+        threads[i].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      for (Exception failure : failures) {
+        if (failure != null) {
+          throw failure;
+        }
+      }
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      assertEquals(3, orientGraph.countVertices("Director"));
+      assertEquals(4, orientGraph.countVertices("Film"));
+      assertEquals(4, orientGraph.countEdges("HasDirector"));
+
+      Vertex tarantino = orientGraph.getVertices("Director", new String[] { "id" }, new String[] { "D001" }).iterator().next();
+      assertEquals("Tarantino", tarantino.getProperty("surname"));
+      int films = 0;
+      for (Edge edge : tarantino.getEdges(Direction.IN, "HasDirector")) {
+        films++;
+      }
+      assertEquals(2, films);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schemas and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st1.execute(dbDropping);
+        connection1.close();
+        st2.execute(dbDropping);
+        connection2.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Two sources with different columns for the same table imported concurrently into the same graph: the class gets the
+   * properties of both the sources, while the properties none of them includes are dropped once the source models are merged.
+   */
+  @Test
+  public void concurrentSourcesSchemaMergingTest() {
+
+    Connection connection1 = null;
+    Connection connection2 = null;
+    Statement st1 = null;
+    Statement st2 = null;
+    OrientGraphNoTx orientGraph = null;
+    String jurl1 = "jdbc:hsqldb:mem:shard1";
+    String jurl2 = "jdbc:hsqldb:mem:shard2";
+
+    try {
+
+      Class.forName(this.driver);
+      connection1 = DriverManager.getConnection(jurl1, this.username, this.password);
+      connection2 = DriverManager.getConnection(jurl2, this.username, this.password);
+
+      // Tables Building
+
+      st1 = connection1.createStatement();
+      st1.execute("create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256), BIRTH_YEAR integer, primary key (ID))");
+      st2 = connection2.createStatement();
+      st2.execute("create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256), NATIONALITY varchar(256),"
+          + " primary key (ID))");
+
+      // Records Inserting
+
+      st1.execute("insert into DIRECTOR (ID,NAME,BIRTH_YEAR) values (" + "('D001','Quentin',1963))");
+      st2.execute("insert into DIRECTOR (ID,NAME,NATIONALITY) values (" + "('D002','Christopher','British'))");
+
+      // Director class left by a previous migration with a property no source includes anymore
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      orientGraph.createVertexType("Director").createProperty("surname", OType.STRING);
+      orientGraph.shutdown();
+      orientGraph = null;
+
+      final OSourceDatabaseInfo[] sources = new OSourceDatabaseInfo[] {
+          new OSourceDatabaseInfo("shard1", this.driver, jurl1, this.username, this.password),
+          new OSourceDatabaseInfo("shard2", this.driver, jurl2, this.username, this.password) };
+      final Exception[] failures = new Exception[sources.length];
+      Thread[] threads = new Thread[sources.length];
+
+      this.context.getSettings().setConcurrentSources(true);
+      for (int i = 0; i < sources.length; i++) {
+        final int sourceIndex = i;
+        final OTeleporterContext sourceContext = this.context.buildSourceContext();
+        sourceContext.setDbQueryEngine(new ODBQueryEngine(this.driver));
+        threads[i] = new Thread() {
+
+          @Override
+          public void run() {
+            OTeleporterContext.bindSourceContext(sourceContext);
+            try {
+              new ODBMSNaiveStrategy()
+                  .executeStrategy(sources[sourceIndex], outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+            } catch (Exception e) {
+              failures[sourceIndex] = e;
+            } finally {
+              OTeleporterContext.unbindSourceContext();
+            }
+          }
+        };
+        threads[i].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      for (Exception failure : failures) {
+        if (failure != null) {
+          throw failure;
+        }
+      }
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      OClass directorClass = orientGraph.getRawGraph().getMetadata().getSchema().getClass("Director");
+      assertNotNull(directorClass.getProperty("birthYear"));
+      assertNotNull(directorClass.getProperty("nationality"));
+      assertNotNull(directorClass.getProperty("surname"));
+      orientGraph.shutdown();
+
+      OGraphModelWriter.dropPropertiesOutOfMergedModels(this.outOrientGraphUri);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      directorClass = orientGraph.getRawGraph().getMetadata().getSchema().getClass("Director");
+      assertNotNull(directorClass.getProperty("id"));
+      assertNotNull(directorClass.getProperty("name"));
+      assertNotNull(directorClass.getProperty("birthYear"));
+      assertNotNull(directorClass.getProperty("nationality"));
+      assertNull(directorClass.getProperty("surname"));
+      assertEquals(2, orientGraph.countVertices("Director"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      OGraphModelWriter.discardMergedModels();
+      try {
+
+        // Dropping Source DB Schemas and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st1.execute(dbDropping);
+        connection1.close();
+        st2.execute(dbDropping);
+        connection2.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Output partitioned over two databases: each vertex is written once in one of them and the edges between vertices of
+   * different databases are recorded as cross-partition edges.
+   */
+  @Test
+  public void partitionedOutputTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    OrientGraphNoTx partitionGraph = null;
+    String partitionUri = "plocal:target/testOrientDBPartition";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Taxi Driver','D002'),"
+          + "('F005','Inception','D003')," + "('F006','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setPartitionUrls(Arrays.asList(partitionUri));
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      partitionGraph = new OrientGraphNoTx(partitionUri);
+      this.checkPartitions(orientGraph, partitionGraph, partitionUri);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraphs
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+      if (partitionGraph != null) {
+        partitionGraph.drop();
+        partitionGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Partitioned output written through the document sink: the records saved in each database are stored in the clusters of
+   * the classes of that database, not in the ones of the database where the class was resolved first.
+   */
+  @Test
+  public void partitionedOutputWithDocumentSinkTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    OrientGraphNoTx partitionGraph = null;
+    String partitionUri = "plocal:target/testOrientDBPartition";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Taxi Driver','D002'),"
+          + "('F005','Inception','D003')," + "('F006','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setSink(OTeleporterSettings.DOCUMENT_SINK);
+      this.context.getSettings().setPartitionUrls(Arrays.asList(partitionUri));
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      partitionGraph = new OrientGraphNoTx(partitionUri);
+      this.checkPartitions(orientGraph, partitionGraph, partitionUri);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraphs
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+      if (partitionGraph != null) {
+        partitionGraph.drop();
+        partitionGraph.shutdown();
+      }
+    }
+  }
+
+  private void checkPartitions(OrientGraphNoTx orientGraph, OrientGraphNoTx partitionGraph, String partitionUri) {
+
+    // schema written on both the databases
+    assertNotNull(partitionGraph.getVertexType("Director"));
+    assertNotNull(partitionGraph.getEdgeType("HasDirector"));
+    assertNotNull(partitionGraph.getRawGraph().getMetadata().getSchema().getClass(OGraphPartitioner.CROSS_PARTITION_EDGE_CLASS));
+
+    assertEquals(3, orientGraph.countVertices("Director") + partitionGraph.countVertices("Director"));
+    assertEquals(6, orientGraph.countVertices("Film") + partitionGraph.countVertices("Film"));
+
+    // each vertex in the partition chosen by its key
+    OGraphPartitioner partitioner = new OGraphPartitioner(Arrays.asList(this.outOrientGraphUri, partitionUri));
+    for (String directorId : new String[] { "D001", "D002", "D003" }) {
+      boolean inFirstPartition = partitioner.partitionOf(new String[] { directorId }) == 0;
+      OrientGraphNoTx expectedGraph = inFirstPartition ? orientGraph : partitionGraph;
+      OrientGraphNoTx otherGraph = inFirstPartition ? partitionGraph : orientGraph;
+      assertTrue(expectedGraph.getVertices("Director", new String[] { "id" }, new String[] { directorId }).iterator().hasNext());
+      assertFalse(otherGraph.getVertices("Director", new String[] { "id" }, new String[] { directorId }).iterator().hasNext());
+    }
+
+    long edges = orientGraph.countEdges("HasDirector") + partitionGraph.countEdges("HasDirector");
+    long crossPartitionEdges = orientGraph.getRawGraph().countClass(OGraphPartitioner.CROSS_PARTITION_EDGE_CLASS) + partitionGraph
+        .getRawGraph().countClass(OGraphPartitioner.CROSS_PARTITION_EDGE_CLASS);
+    assertEquals(5, edges + crossPartitionEdges);
+  }
+
+  /*
+   * Replaying a dead-letter file: only its rows are imported, and the rows that can't be replayed are kept in the file.
+   */
+  @Test
+  public void replayDeadLetterFileTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    String deadLetterPath = "target/testDeadLetter.json";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002'))";
+      st.execute(filmFilling);
+
+      // dead-letter file left by a previous migration
+      Map<String, String> filmKey = new LinkedHashMap<String, String>();
+      filmKey.put("ID", "F002");
+      Map<String, String> ghostKey = new LinkedHashMap<String, String>();
+      ghostKey.put("ID", "G001");
+      ODeadLetterSink previousSink = new ODeadLetterSink(deadLetterPath);
+      previousSink.write(Arrays.asList("FILM"), "Film", ODeadLetterSink.EDGES_PHASE, filmKey,
+          new IllegalStateException("Film F002 failed"));
+      previousSink.write(Arrays.asList("GHOST"), "Ghost", ODeadLetterSink.VERTEX_PHASE, ghostKey,
+          new IllegalStateException("Ghost G001 failed"));
+      previousSink.close(true);
+
+      this.context.getSettings().setReplayPath(deadLetterPath);
+      this.context.getSettings().setDeadLetterPath(deadLetterPath);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      // just the film of the dead-letter file and its director are imported
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(1, orientGraph.getRawGraph().countClass("Film"));
+      assertEquals(1, orientGraph.getRawGraph().countClass("Director"));
+      assertEquals(1, orientGraph.getRawGraph().countClass("HasDirector"));
+
+      Vertex film = orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F002" }).iterator().next();
+      assertEquals("Shutter Island", film.getProperty("title"));
+      Vertex director = film.getVertices(Direction.OUT, "HasDirector").iterator().next();
+      assertEquals("D002", director.getProperty("id"));
+
+      // the row that can't be replayed is kept
+      List<ODocument> rows = ODeadLetterSink.read(deadLetterPath);
+      assertEquals(1, rows.size());
+      assertEquals("Ghost", rows.get(0).field("vertexType"));
+      assertEquals(1, context.getStatistics().deadLetterRows);
+      assertFalse(new File(deadLetterPath + ".tmp").exists());
+
+      // an interrupted migration leaves the dead-letter file as it was
+      ODeadLetterSink interruptedSink = new ODeadLetterSink(deadLetterPath);
+      interruptedSink.close(false);
+      assertEquals(1, ODeadLetterSink.read(deadLetterPath).size());
+      assertTrue(new File(deadLetterPath + ".tmp").delete());
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema, OrientGraph and dead-letter file
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+        new File(deadLetterPath).delete();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Verifying the migration: counts and checksums of the source and of the graph match, and a missing vertex is detected.
+   */
+  @Test
+  public void migrationVerificationTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Taxi Driver','D002'),"
+          + "('F005','Inception','D003')," + "('F006','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setVerify(true);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      OMigrationVerification verification = this.importStrategy.getMigrationVerification();
+      assertNotNull(verification);
+      assertTrue(verification.isSuccessful());
+      assertEquals(2, verification.getClassChecks().size());
+
+      for (OMigrationVerification.OClassCheck classCheck : verification.getClassChecks()) {
+        if (classCheck.getVertexClassName().equals("Film")) {
+          assertEquals(6, classCheck.getSourceRows());
+          assertEquals(6, classCheck.getVertices());
+        } else {
+          assertEquals("Director", classCheck.getVertexClassName());
+          assertEquals(3, classCheck.getSourceRows());
+          assertEquals(3, classCheck.getVertices());
+        }
+        assertEquals(classCheck.getSourceChecksum(), classCheck.getTargetChecksum());
+      }
+
+      assertEquals(1, verification.getEdgeChecks().size());
+      assertEquals("HasDirector", verification.getEdgeChecks().get(0).getEdgeClassName());
+      assertEquals(5, verification.getEdgeChecks().get(0).getExpectedEdges());
+      assertEquals(5, verification.getEdgeChecks().get(0).getEdges());
+
+      // verification after the loss of a film
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      orientGraph.getVertices("Film", new String[] { "id" }, new String[] { "F006" }).iterator().next().remove();
+
+      verification = new OMigrationVerifier(2)
+          .verify(this.importStrategy.getMapper(), context.getDbQueryEngine(), this.outOrientGraphUri);
+      assertFalse(verification.isSuccessful());
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Importing through the remote sink: the writes are committed in several batches and the vertices reached several times in a
+   * batch are not duplicated.
+   */
+  @Test
+  public void remoteSinkTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Taxi Driver','D002'),"
+          + "('F005','Inception','D003')," + "('F006','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setSink(OTeleporterSettings.REMOTE_SINK);
+      this.context.getSettings().setMinBatchSize(2);
+      this.context.getSettings().setMaxBatchSize(2);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      assertEquals(Integer.valueOf(2), context.getStatistics().vertexType2commitSize.get("Film"));
+      assertEquals(Integer.valueOf(3), context.getStatistics().vertexType2batches.get("Film"));
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(6, orientGraph.getRawGraph().countClass("Film"));
+      assertEquals(3, orientGraph.getRawGraph().countClass("Director"));
+      assertEquals(5, orientGraph.getRawGraph().countClass("HasDirector"));
+
+      Vertex director = orientGraph.getVertices("Director", new String[] { "id" }, new String[] { "D002" }).iterator().next();
+      assertEquals("Scorsese", director.getProperty("surname"));
+      int films = 0;
+      for (Vertex film : director.getVertices(Direction.IN, "HasDirector")) {
+        assertNotNull(film.getProperty("title"));
+        films++;
+      }
+      assertEquals(3, films);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Importing with snapshot reads on a source that can't share a snapshot among connections: the import falls back on the latest
+   * committed data, a warning is reported and the snapshot is released at the end.
+   */
+  @Test
+  public void snapshotReadsFallbackTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String directorTableBuilding = "create memory table DIRECTOR (ID varchar(256) not null, NAME varchar(256),"
+          + " SURNAME varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(directorTableBuilding);
+
+      String filmTableBuilding = "create memory table FILM (ID varchar(256) not null, TITLE varchar(256) not null,"
+          + " DIRECTOR varchar(256), primary key (ID), foreign key (DIRECTOR) references DIRECTOR(ID))";
+      st.execute(filmTableBuilding);
+
+      // Records Inserting
+
+      String directorFilling = "insert into DIRECTOR (ID,NAME,SURNAME) values (" + "('D001','Quentin','Tarantino'),"
+          + "('D002','Martin','Scorsese')," + "('D003','Christopher','Nolan'))";
+      st.execute(directorFilling);
+
+      String filmFilling = "insert into FILM (ID,TITLE,DIRECTOR) values (" + "('F001','Pulp Fiction','D001'),"
+          + "('F002','Shutter Island','D002')," + "('F003','The Departed','D002')," + "('F004','Taxi Driver','D002'),"
+          + "('F005','Inception','D003')," + "('F006','Unknown',null))";
+      st.execute(filmFilling);
+
+      this.context.getSettings().setSnapshotReads(true);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      assertNull(this.context.getDbQueryEngine().getSnapshot());
+      boolean snapshotWarning = false;
+      for (String warning : this.context.getStatistics().warningMessages) {
+        if (warning.contains("doesn't support snapshots")) {
+          snapshotWarning = true;
+        }
+      }
+      assertTrue(snapshotWarning);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(6, orientGraph.getRawGraph().countClass("Film"));
+      assertEquals(3, orientGraph.getRawGraph().countClass("Director"));
+      assertEquals(5, orientGraph.getRawGraph().countClass("HasDirector"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Dumping and loading timestamps with time zone and binary values: the instants and the bytes are kept.
+   */
+  @Test
+  public void dumpAndLoadTypedValuesTest() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    String dumpDirectory = "target/testDump";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String eventTableBuilding = "create memory table EVENT (ID varchar(256) not null, STARTS_AT timestamp(3) with time zone,"
+          + " PAYLOAD varbinary(16), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(eventTableBuilding);
+
+      // Records Inserting
+
+      String eventFilling = "insert into EVENT (ID,STARTS_AT,PAYLOAD) values ("
+          + "('E001',TIMESTAMP '2016-05-10 10:30:00.123+02:00',X'0001feff'))";
+      st.execute(eventFilling);
+
+      // dump
+      this.context.getSettings().setDumpDirectory(dumpDirectory);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      // the source database is not available anymore
+      st.execute("drop schema public cascade");
+
+      // load through a new context
+      this.context = OTeleporterContext.newInstance();
+      this.context.setDbQueryEngine(new ODumpQueryEngine(this.driver, dumpDirectory));
+      this.context.setMessageHandler(new OTeleporterMessageHandler(0));
+      this.context.setNameResolver(new OJavaConventionNameResolver());
+      this.context.setDataTypeHandler(new OHSQLDBDataTypeHandler());
+      this.context.getSettings().setLoadDirectory(dumpDirectory);
+      new ODBMSNaiveStrategy()
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(1, orientGraph.getRawGraph().countClass("Event"));
+
+      Vertex event = orientGraph.getVertices("Event", new String[] { "id" }, new String[] { "E001" }).iterator().next();
+      assertEquals(1462869000123L, ((Date) event.getProperty("startsAt")).getTime());    // 2016-05-10 08:30:00.123 UTC
+      assertArrayEquals(new byte[] { 0x00, 0x01, (byte) 0xfe, (byte) 0xff }, (byte[]) event.getProperty("payload"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema, OrientGraph and dump
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+        OFileManager.deleteResource(dumpDirectory);
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /*
+   * Snapshot shared through pg_export_snapshot(): the coordinator exports it in a repeatable read transaction, each connection
+   * adopts it and the coordinator transaction is rolled back on close. An exported id with an unexpected format is not adopted.
+   */
+  @Test
+  public void postgreSQLSnapshotTest() throws Exception {
+
+    OSourceDatabaseInfo postgreSQLSource = new OSourceDatabaseInfo("pg", "org.postgresql.Driver", "jdbc:postgresql://localhost/films",
+        this.username, this.password);
+
+    List<String> coordinatorCalls = new ArrayList<String>();
+    OSourceSnapshot snapshot = OSourceSnapshot.take(postgreSQLSource, recordingConnection(coordinatorCalls, "00000003-0000001B-1"));
+    assertTrue(snapshot.isShared());
+    assertTrue(snapshot.isSnapshotOf(postgreSQLSource));
+    assertEquals(Arrays.asList("setAutoCommit[false]", "setTransactionIsolation[4]", "select pg_export_snapshot()"),
+        coordinatorCalls);
+
+    List<String> readerCalls = new ArrayList<String>();
+    snapshot.prepare(recordingConnection(readerCalls, null));
+    assertEquals(Arrays.asList("setAutoCommit[false]", "setTransactionIsolation[4]", "SET TRANSACTION SNAPSHOT '00000003-0000001B-1'"),
+        readerCalls);
+
+    snapshot.close();
+    assertFalse(snapshot.isShared());
+    assertEquals(Arrays.asList("rollback", "close"), coordinatorCalls.subList(3, 5));
+
+    // the reads are not coordinated if the id can't be safely adopted
+    coordinatorCalls = new ArrayList<String>();
+    snapshot = OSourceSnapshot.take(postgreSQLSource, recordingConnection(coordinatorCalls, "1'; drop table FILM; --"));
+    assertFalse(snapshot.isShared());
+    assertTrue(coordinatorCalls.contains("close"));
+    readerCalls = new ArrayList<String>();
+    snapshot.prepare(recordingConnection(readerCalls, null));
+    assertTrue(readerCalls.isEmpty());
+    assertTrue(this.context.getStatistics().warningMessages.contains(
+        "The source pg doesn't support snapshots shared among connections: each query reads the data committed when it starts."));
+  }
+
+  /*
+   * Snapshot shared through Oracle flashback queries: the current SCN is read once and each connection enables the flashback
+   * queries at that SCN. The reading connection is closed right away.
+   */
+  @Test
+  public void oracleSnapshotTest() throws Exception {
+
+    OSourceDatabaseInfo oracleSource = new OSourceDatabaseInfo("oracle", "oracle.jdbc.OracleDriver",
+        "jdbc:oracle:thin:@localhost:1521:films", this.username, this.password);
+
+    List<String> scnReaderCalls = new ArrayList<String>();
+    OSourceSnapshot snapshot = OSourceSnapshot.take(oracleSource, recordingConnection(scnReaderCalls, 4815162342L));
+    assertTrue(snapshot.isShared());
+    assertEquals(Arrays.asList("select DBMS_FLASHBACK.GET_SYSTEM_CHANGE_NUMBER from DUAL", "close"), scnReaderCalls);
+
+    List<String> readerCalls = new ArrayList<String>();
+    snapshot.prepare(recordingConnection(readerCalls, null));
+    assertEquals(Arrays.asList("{call DBMS_FLASHBACK.ENABLE_AT_SYSTEM_CHANGE_NUMBER(?)}", "setLong[1, 4815162342]", "execute"),
+        readerCalls);
+
+    snapshot.close();
+    assertFalse(snapshot.isShared());
+
+    // no SCN returned
+    scnReaderCalls = new ArrayList<String>();
+    snapshot = OSourceSnapshot.take(oracleSource, recordingConnection(scnReaderCalls, null));
+    assertFalse(snapshot.isShared());
+    assertTrue(scnReaderCalls.contains("close"));
+  }
+
+  /*
+   * Connection faking a source database: it records the calls made on it and the statements executed through it, and answers
+   * each query with a row holding the passed value (no rows if the value is null).
+   */
+  private static Connection recordingConnection(final List<String> calls, final Object queryValue) {
+
+    final InvocationHandler statementHandler = new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "executeQuery":
+          calls.add((String) args[0]);
+          return new OReadOnlyResultSet() {
+            private boolean read;
+
+            @Override
+            public boolean next() {
+              boolean hasRow = queryValue != null && !this.read;
+              this.read = true;
+              return hasRow;
+            }
+
+            @Override
+            public String getString(int columnIndex) {
+              return queryValue.toString();
+            }
+
+            @Override
+            public long getLong(int columnIndex) {
+              return ((Number) queryValue).longValue();
+            }
+
+            @Override
+            public void close() {
+            }
+          };
+        case "execute":
+          calls.add(args == null ? "execute" : (String) args[0]);
+          return false;
+        case "setLong":
+          calls.add("setLong" + Arrays.toString(args));
+          return null;
+        case "close":
+          return null;
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      }
+    };
+
+    InvocationHandler connectionHandler = new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "prepareCall":
+          calls.add((String) args[0]);
+          return Proxy.newProxyInstance(CallableStatement.class.getClassLoader(), new Class<?>[] { CallableStatement.class },
+              statementHandler);
+        case "createStatement":
+          return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Statement.class }, statementHandler);
+        case "setAutoCommit":
+        case "setTransactionIsolation":
+          calls.add(method.getName() + Arrays.toString(args));
+          return null;
+        case "rollback":
+        case "close":
+          calls.add(method.getName());
+          return null;
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      }
+    };
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+        connectionHandler);
+  }
+
 }
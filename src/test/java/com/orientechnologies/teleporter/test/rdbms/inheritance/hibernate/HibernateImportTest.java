@@ -20,12 +20,17 @@
 
 package com.orientechnologies.teleporter.test.rdbms.inheritance.hibernate;
 
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.importengine.rdbms.deadletter.ODeadLetterSink;
+import com.orientechnologies.teleporter.model.dbschema.OEntity;
 import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
 import com.orientechnologies.teleporter.nameresolver.OJavaConventionNameResolver;
 import com.orientechnologies.teleporter.persistence.handler.OHSQLDBDataTypeHandler;
+import com.orientechnologies.teleporter.persistence.util.OQueryResult;
 import com.orientechnologies.teleporter.strategy.rdbms.ODBMSNaiveStrategy;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
@@ -36,10 +41,20 @@ import com.tinkerpop.blueprints.impls.orient.OrientVertexType;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -1392,4 +1407,347 @@ public class HibernateImportTest {
     }
   }
 
+  @Test
+  /*
+   * Import from tables with "table-per-hierarchy" inheritance strategy, collecting the failed rows in a dead-letter file.
+   * A record failing during the import is written in the dead-letter file with the vertex class of its discriminator value,
+   * while the other records of the hierarchy are imported.
+   */ public void test5() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    String deadLetterPath = "target/testDeadLetter.json";
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String managerTableBuilding = "create memory table MANAGER(ID varchar(256) not null, TYPE varchar(256), NAME varchar(256), PROJECT varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(managerTableBuilding);
+
+      String employeeTableBuilding = "create memory table EMPLOYEE (ID varchar(256) not null,"
+          + " TYPE varchar(256), NAME varchar(256), SALARY decimal(10,2), BONUS decimal(10,0), "
+          + "PAY_PER_HOUR decimal(10,2), CONTRACT_DURATION varchar(256), primary key (ID))";
+      st.execute(employeeTableBuilding);
+
+      // Records Inserting
+
+      String managerFilling =
+          "insert into MANAGER (ID,TYPE,NAME,PROJECT) values (" + "('M001','prj_mgr','Bill Right','New World'))";
+      st.execute(managerFilling);
+
+      String employeeFilling = "insert into EMPLOYEE (ID,TYPE,NAME,SALARY,BONUS,PAY_PER_HOUR,CONTRACT_DURATION) values ("
+          + "('E001','emp','John Black',NULL,NULL,NULL,NULL)," + "('E002','reg_emp','Broken Row','1000.00','10',NULL,NULL),"
+          + "('E003','cont_emp','Jack Johnson',NULL,NULL,'50.00','6'))";
+      st.execute(employeeFilling);
+
+      this.context.setDbQueryEngine(new FailingQueryEngine(this.driver));
+      this.context.getSettings().setDeadLetterPath(deadLetterPath);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "hibernate", HibernateImportTest.XML_TABLE_PER_CLASS, "java",
+              null, null, null);
+
+      // the other records of the hierarchy are imported
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(1, orientGraph.getRawGraph().countClass("Employee", false));
+      assertEquals(0, orientGraph.getRawGraph().countClass("RegularEmployee", false));
+      assertEquals(1, orientGraph.getRawGraph().countClass("ContractEmployee", false));
+      assertEquals(1, orientGraph.getRawGraph().countClass("ProjectManager", false));
+
+      // the failed record is in the dead-letter file
+      List<ODocument> rows = ODeadLetterSink.read(deadLetterPath);
+      assertEquals(1, rows.size());
+      assertEquals("RegularEmployee", rows.get(0).field("vertexType"));
+      assertEquals(ODeadLetterSink.VERTEX_PHASE, rows.get(0).field("phase"));
+      assertEquals(1, context.getStatistics().deadLetterRows);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema, OrientGraph and dead-letter file
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+        new File(deadLetterPath).delete();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  @Test
+  /*
+   * Import from tables with "table-per-hierarchy" inheritance strategy through the remote sink.
+   * The records of the hierarchy are committed in several batches, instead of in a single transaction.
+   */ public void test6() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String managerTableBuilding = "create memory table MANAGER(ID varchar(256) not null, TYPE varchar(256), NAME varchar(256), PROJECT varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(managerTableBuilding);
+
+      String employeeTableBuilding = "create memory table EMPLOYEE (ID varchar(256) not null,"
+          + " TYPE varchar(256), NAME varchar(256), SALARY decimal(10,2), BONUS decimal(10,0), "
+          + "PAY_PER_HOUR decimal(10,2), CONTRACT_DURATION varchar(256), primary key (ID))";
+      st.execute(employeeTableBuilding);
+
+      // Records Inserting
+
+      String managerFilling =
+          "insert into MANAGER (ID,TYPE,NAME,PROJECT) values (" + "('M001','prj_mgr','Bill Right','New World'))";
+      st.execute(managerFilling);
+
+      String employeeFilling = "insert into EMPLOYEE (ID,TYPE,NAME,SALARY,BONUS,PAY_PER_HOUR,CONTRACT_DURATION) values ("
+          + "('E001','emp','John Black',NULL,NULL,NULL,NULL)," + "('E002','reg_emp','Andrew Brown','1000.00','10',NULL,NULL),"
+          + "('E003','cont_emp','Jack Johnson',NULL,NULL,'50.00','6')," + "('E004','emp','Mary White',NULL,NULL,NULL,NULL),"
+          + "('E005','reg_emp','Paul Green','1200.00','20',NULL,NULL)," + "('E006','cont_emp','Anne Grey',NULL,NULL,'45.00','12'),"
+          + "('E007','reg_emp','Tom Red','1100.00','15',NULL,NULL)," + "('E008','emp','Lucy Blue',NULL,NULL,NULL,NULL))";
+      st.execute(employeeFilling);
+
+      this.context.getSettings().setSink(OTeleporterSettings.REMOTE_SINK);
+      this.context.getSettings().setMinBatchSize(2);
+      this.context.getSettings().setMaxBatchSize(2);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "hibernate", HibernateImportTest.XML_TABLE_PER_CLASS, "java",
+              null, null, null);
+
+      assertEquals(Integer.valueOf(2), context.getStatistics().vertexType2commitSize.get("Employee"));
+      assertEquals(Integer.valueOf(4), context.getStatistics().vertexType2batches.get("Employee"));
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(3, orientGraph.getRawGraph().countClass("Employee", false));
+      assertEquals(3, orientGraph.getRawGraph().countClass("RegularEmployee", false));
+      assertEquals(2, orientGraph.getRawGraph().countClass("ContractEmployee", false));
+      assertEquals(1, orientGraph.getRawGraph().countClass("ProjectManager", false));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  @Test
+  /*
+   * Import from tables with "table-per-hierarchy" inheritance strategy.
+   * The table of each bag is scanned once and each record is imported in the vertex class mapped on its discriminator value.
+   * Discriminators padded by a fixed-length column are matched, while records with an unmapped or a null discriminator value
+   * are skipped.
+   */ public void test7() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    ScanCountingQueryEngine dbQueryEngine = new ScanCountingQueryEngine(this.driver);
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String managerTableBuilding = "create memory table MANAGER(ID varchar(256) not null, TYPE char(10), NAME varchar(256),"
+          + " PROJECT varchar(256), primary key (ID))";
+      st = connection.createStatement();
+      st.execute(managerTableBuilding);
+
+      String employeeTableBuilding = "create memory table EMPLOYEE (ID varchar(256) not null,"
+          + " TYPE char(10), NAME varchar(256), SALARY decimal(10,2), BONUS decimal(10,0), "
+          + "PAY_PER_HOUR decimal(10,2), CONTRACT_DURATION varchar(256), primary key (ID))";
+      st.execute(employeeTableBuilding);
+
+      // Records Inserting
+
+      String managerFilling = "insert into MANAGER (ID,TYPE,NAME,PROJECT) values ("
+          + "('M001','prj_mgr','Bill Right','New World')," + "('M002','mgr','Jane Doe',NULL))";
+      st.execute(managerFilling);
+
+      String employeeFilling = "insert into EMPLOYEE (ID,TYPE,NAME,SALARY,BONUS,PAY_PER_HOUR,CONTRACT_DURATION) values ("
+          + "('E001','emp','John Black',NULL,NULL,NULL,NULL)," + "('E002','reg_emp','Andrew Brown','1000.00','10',NULL,NULL),"
+          + "('E003','cont_emp','Jack Johnson',NULL,NULL,'50.00','6')," + "('E004','emp','Mary White',NULL,NULL,NULL,NULL),"
+          + "('E005','reg_emp','Paul Green','1200.00','20',NULL,NULL)," + "('E006','intern','Anne Grey',NULL,NULL,NULL,NULL),"
+          + "('E007',NULL,'Tom Red',NULL,NULL,NULL,NULL))";
+      st.execute(employeeFilling);
+
+      this.context.setDbQueryEngine(dbQueryEngine);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "hibernate", HibernateImportTest.XML_TABLE_PER_CLASS, "java",
+              null, null, null);
+
+      // one scan for each physical table, none for the subclasses
+      assertEquals(1, dbQueryEngine.getScans("EMPLOYEE"));
+      assertEquals(1, dbQueryEngine.getScans("MANAGER"));
+      assertEquals(2, dbQueryEngine.getTotalScans());
+
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      assertEquals(2, orientGraph.getRawGraph().countClass("Employee", false));
+      assertEquals(2, orientGraph.getRawGraph().countClass("RegularEmployee", false));
+      assertEquals(1, orientGraph.getRawGraph().countClass("ContractEmployee", false));
+      assertEquals(1, orientGraph.getRawGraph().countClass("Manager", false));
+      assertEquals(1, orientGraph.getRawGraph().countClass("ProjectManager", false));
+
+      // unmapped and null discriminator values are skipped
+      assertEquals(5, orientGraph.getRawGraph().countClass("Employee"));
+
+      String[][] expectedLabels = { { "Employee", "E001", "Employee" }, { "Employee", "E002", "RegularEmployee" },
+          { "Employee", "E003", "ContractEmployee" }, { "Employee", "E004", "Employee" }, { "Employee", "E005", "RegularEmployee" },
+          { "Manager", "M001", "ProjectManager" }, { "Manager", "M002", "Manager" } };
+      for (String[] expectedLabel : expectedLabels) {
+        Iterator<Vertex> it = orientGraph.getVertices(expectedLabel[0], new String[] { "id" }, new String[] { expectedLabel[1] })
+            .iterator();
+        assertTrue(it.hasNext());
+        assertEquals(expectedLabel[2], ((OrientVertex) it.next()).getLabel());
+      }
+
+      Vertex regularEmployee = orientGraph.getVertices("Employee", new String[] { "id" }, new String[] { "E002" }).iterator()
+          .next();
+      assertEquals("Andrew Brown", regularEmployee.getProperty("name"));
+      assertEquals("1000.00", regularEmployee.getProperty("salary").toString());
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Fails the first read of the id of the record named "Broken Row", so that its import fails while its key can still be read.
+   */
+  private static class FailingQueryEngine extends ODBQueryEngine {
+
+    public FailingQueryEngine(String driver) {
+      super(driver);
+    }
+
+    @Override
+    public OQueryResult getRecordsByEntity(OEntity entity) {
+      return this.failing(super.getRecordsByEntity(entity));
+    }
+
+    @Override
+    public OQueryResult getRecordsByEntity(OEntity entity, List<String> columns) {
+      return this.failing(super.getRecordsByEntity(entity, columns));
+    }
+
+    private OQueryResult failing(OQueryResult queryResult) {
+      final ResultSet records = queryResult.getResult();
+      ResultSet failingRecords = (ResultSet) Proxy
+          .newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+
+            private boolean failed = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+              if (!this.failed && method.getName().equals("getString") && "ID".equals(args[0]) && "Broken Row"
+                  .equals(records.getString("NAME"))) {
+                this.failed = true;
+                throw new SQLException("Broken row.");
+              }
+              try {
+                return method.invoke(records, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            }
+          });
+      return new OQueryResult(queryResult.getDbConnection(), queryResult.getStatement(), failingRecords);
+    }
+  }
+
+  /**
+   * Counts the scans of the records of each source table.
+   */
+  private static class ScanCountingQueryEngine extends ODBQueryEngine {
+
+    private final Map<String, Integer> entityName2scans = new HashMap<String, Integer>();
+
+    public ScanCountingQueryEngine(String driver) {
+      super(driver);
+    }
+
+    @Override
+    public OQueryResult getRecordsByEntity(OEntity entity) {
+      this.countScan(entity);
+      return super.getRecordsByEntity(entity);
+    }
+
+    @Override
+    public OQueryResult getRecordsByEntity(OEntity entity, List<String> columns) {
+      this.countScan(entity);
+      return super.getRecordsByEntity(entity, columns);
+    }
+
+    @Override
+    public OQueryResult getRecordsFromSingleTableByDiscriminatorValue(String discriminatorColumn,
+        String currentDiscriminatorValue, OEntity entity) {
+      this.countScan(entity);
+      return super.getRecordsFromSingleTableByDiscriminatorValue(discriminatorColumn, currentDiscriminatorValue, entity);
+    }
+
+    private synchronized void countScan(OEntity entity) {
+      Integer scans = this.entityName2scans.get(entity.getName());
+      this.entityName2scans.put(entity.getName(), scans == null ? 1 : scans + 1);
+    }
+
+    public synchronized int getScans(String entityName) {
+      Integer scans = this.entityName2scans.get(entityName);
+      return scans == null ? 0 : scans;
+    }
+
+    public synchronized int getTotalScans() {
+      int totalScans = 0;
+      for (Integer scans : this.entityName2scans.values()) {
+        totalScans += scans;
+      }
+      return totalScans;
+    }
+  }
+
 }
@@ -22,6 +22,7 @@ package com.orientechnologies.teleporter.test.rdbms.jointableaggregation;
 
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
 import com.orientechnologies.teleporter.mapper.rdbms.classmapper.OEVClassMapper;
@@ -33,6 +34,7 @@ import com.orientechnologies.teleporter.model.graphmodel.OVertexType;
 import com.orientechnologies.teleporter.nameresolver.OJavaConventionNameResolver;
 import com.orientechnologies.teleporter.persistence.handler.OHSQLDBDataTypeHandler;
 import com.orientechnologies.teleporter.strategy.rdbms.ODBMSNaiveAggregationStrategy;
+import com.orientechnologies.teleporter.writer.OGraphModelWriter;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -805,4 +807,253 @@ public class AggregationStrategyTest {
     }
   }
 
+  @Test
+  /*
+   * Aggregation Strategy Test: executing import with several writers, the edges of the join table are written in parallel
+   */ public void test3() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String filmTableBuilding =
+          "create memory table film (id varchar(256) not null," + " title varchar(256) not null, primary key (id))";
+      st = connection.createStatement();
+      st.execute(filmTableBuilding);
+
+      String actorTableBuilding = "create memory table actor (id varchar(256) not null, name  varchar(256),"
+          + " surname varchar(256) not null, primary key (id))";
+      st.execute(actorTableBuilding);
+
+      String film2actorTableBuilding =
+          "create memory table film_actor (film_id varchar(256) not null, actor_id  varchar(256), PAYMENT integer, "
+              + " primary key (film_id,actor_id), foreign key (film_id) references film(id), foreign key (actor_id) references actor(id))";
+      st.execute(film2actorTableBuilding);
+
+      // Records Inserting
+
+      String filmFilling =
+          "insert into film(id,title) values (" + "('F001','The Wolf Of Wall Street')," + "('F002','Shutter Island'),"
+              + "('F003','The Departed')," + "('F004','Inception'))";
+      st.execute(filmFilling);
+
+      String actorFilling =
+          "insert into actor (id,name,surname) values (" + "('A001','Leonardo','Di Caprio')," + "('A002','Matthew', 'McConaughey'),"
+              + "('A003','Ben','Kingsley')," + "('A004','Mark','Ruffalo')," + "('A005','Jack','Nicholson'),"
+              + "('A006','Matt','Damon')," + "('A007','Michael','Caine'))";
+      st.execute(actorFilling);
+
+      String film2actorFilling = "insert into film_actor (film_id,actor_id,payment) values (" + "('F001','A001','32000000'),"
+          + "('F001','A002','20000000')," + "('F002','A001','28000000')," + "('F002','A003','18000000'),"
+          + "('F002','A004','6000000')," + "('F003','A001','25000000')," + "('F003','A005','27000000'),"
+          + "('F003','A006','14000000')," + "('F004','A001','30000000')," + "('F004','A007','12000000'))";
+      st.execute(film2actorFilling);
+
+      this.context.getSettings().setWorkerThreads(3);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+
+      /*
+       *  Testing context information
+       */
+
+      assertEquals(21, context.getStatistics().totalNumberOfRecords);
+      assertEquals(21, context.getStatistics().analyzedRecords);
+      assertEquals(11, context.getStatistics().orientAddedVertices);
+      assertEquals(10, context.getStatistics().orientAddedEdges);
+
+      /*
+       *  Testing built OrientDB
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      int count = 0;
+      for (Edge e : orientGraph.getEdgesOfClass("FilmActor")) {
+        assertNotNull(e.getId());
+        count++;
+      }
+      assertEquals(10, count);
+
+      // edge lists of the vertices shared among the writers
+      String[] keys = { "id" };
+      String[] values = { "A001" };
+      Iterator<Vertex> iterator = orientGraph.getVertices("Actor", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      count = 0;
+      for (Edge e : iterator.next().getEdges(Direction.OUT, "FilmActor")) {
+        assertNotNull(e.getVertex(Direction.IN).getProperty("id"));
+        count++;
+      }
+      assertEquals(4, count);
+
+      values[0] = "F002";
+      iterator = orientGraph.getVertices("Film", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      count = 0;
+      for (Edge e : iterator.next().getEdges(Direction.IN, "FilmActor")) {
+        assertNotNull(e.getProperty("payment"));
+        count++;
+      }
+      assertEquals(3, count);
+
+      // each writer wrote into its own cluster of the edge class
+      for (int i = 0; i < 3; i++) {
+        String clusterName = OGraphModelWriter.getWriterClusterName("FilmActor", i);
+        assertTrue(orientGraph.getRawGraph().getClusterIdByName(clusterName) != -1);
+      }
+      count = 0;
+      for (int i = 0; i < 3; i++) {
+        count += orientGraph.getRawGraph().countClusterElements(OGraphModelWriter.getWriterClusterName("FilmActor", i));
+      }
+      assertEquals(10, count);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  @Test
+  /*
+   * Aggregation Strategy Test: executing import through the document sink, the graph must be the same built through Blueprints
+   */ public void test4() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      // Tables Building
+
+      String filmTableBuilding =
+          "create memory table film (id varchar(256) not null," + " title varchar(256) not null, primary key (id))";
+      st = connection.createStatement();
+      st.execute(filmTableBuilding);
+
+      String actorTableBuilding = "create memory table actor (id varchar(256) not null, name  varchar(256),"
+          + " surname varchar(256) not null, primary key (id))";
+      st.execute(actorTableBuilding);
+
+      String film2actorTableBuilding =
+          "create memory table film_actor (film_id varchar(256) not null, actor_id  varchar(256), PAYMENT integer, "
+              + " primary key (film_id,actor_id), foreign key (film_id) references film(id), foreign key (actor_id) references actor(id))";
+      st.execute(film2actorTableBuilding);
+
+      // Records Inserting
+
+      String filmFilling =
+          "insert into film(id,title) values (" + "('F001','The Wolf Of Wall Street')," + "('F002','Shutter Island'),"
+              + "('F003','The Departed')," + "('F004','Inception'))";
+      st.execute(filmFilling);
+
+      String actorFilling =
+          "insert into actor (id,name,surname) values (" + "('A001','Leonardo','Di Caprio')," + "('A002','Matthew', 'McConaughey'),"
+              + "('A003','Ben','Kingsley')," + "('A004','Mark','Ruffalo')," + "('A005','Jack','Nicholson'),"
+              + "('A006','Matt','Damon')," + "('A007','Michael','Caine'))";
+      st.execute(actorFilling);
+
+      String film2actorFilling = "insert into film_actor (film_id,actor_id,payment) values (" + "('F001','A001','32000000'),"
+          + "('F001','A002','20000000')," + "('F002','A001','28000000')," + "('F002','A003','18000000'),"
+          + "('F002','A004','6000000')," + "('F003','A001','25000000')," + "('F003','A005','27000000'),"
+          + "('F003','A006','14000000')," + "('F004','A001','30000000')," + "('F004','A007','12000000'))";
+      st.execute(film2actorFilling);
+
+      this.context.getSettings().setSink(OTeleporterSettings.DOCUMENT_SINK);
+      this.importStrategy
+          .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+
+      /*
+       *  Testing context information
+       */
+
+      assertEquals(21, context.getStatistics().totalNumberOfRecords);
+      assertEquals(21, context.getStatistics().analyzedRecords);
+      assertEquals(11, context.getStatistics().orientAddedVertices);
+      assertEquals(10, context.getStatistics().orientAddedEdges);
+
+      /*
+       *  Testing built OrientDB
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+      int count = 0;
+      for (Edge e : orientGraph.getEdgesOfClass("FilmActor")) {
+        assertNotNull(e.getId());
+        count++;
+      }
+      assertEquals(10, count);
+
+      // edge lists and edge properties
+      String[] keys = { "id" };
+      String[] values = { "A001" };
+      Iterator<Vertex> iterator = orientGraph.getVertices("Actor", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      count = 0;
+      Vertex v = iterator.next();
+      assertEquals("Leonardo", v.getProperty("name"));
+      for (Edge e : v.getEdges(Direction.OUT, "FilmActor")) {
+        assertNotNull(e.getVertex(Direction.IN).getProperty("id"));
+        count++;
+      }
+      assertEquals(4, count);
+
+      values[0] = "F002";
+      iterator = orientGraph.getVertices("Film", keys, values).iterator();
+      assertTrue(iterator.hasNext());
+      count = 0;
+      for (Edge e : iterator.next().getEdges(Direction.IN, "FilmActor")) {
+        assertNotNull(e.getProperty("payment"));
+        count++;
+      }
+      assertEquals(3, count);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
 }
@@ -20,14 +20,18 @@
 
 package com.orientechnologies.teleporter.test.rdbms.orientWriter;
 
+import com.orientechnologies.teleporter.configuration.OConfigurationHandler;
 import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.context.OTeleporterSettings;
 import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
 import com.orientechnologies.teleporter.mapper.rdbms.OER2GraphMapper;
 import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
 import com.orientechnologies.teleporter.nameresolver.OJavaConventionNameResolver;
 import com.orientechnologies.teleporter.persistence.handler.OHSQLDBDataTypeHandler;
+import com.orientechnologies.teleporter.util.OMigrationConfigManager;
 import com.orientechnologies.teleporter.writer.OGraphModelWriter;
+import com.orientechnologies.teleporter.writer.OSchemaDelta;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.tinkerpop.blueprints.impls.orient.OrientEdgeType;
@@ -36,6 +40,7 @@ import com.tinkerpop.blueprints.impls.orient.OrientVertexType;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
@@ -969,4 +974,195 @@ public class OrientDBSchemaWritingTest {
     }
   }
 
+  @Test
+
+  /*
+   *  Two tables Foreign and Parent written through batched schema scripts, as against remote targets.
+   */
+
+  public void test8() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String parentTableBuilding = "create memory table BOOK_AUTHOR (ID varchar(256) not null,"
+          + " NAME varchar(256) not null, AGE integer not null, primary key (ID))";
+      st = connection.createStatement();
+      st.execute(parentTableBuilding);
+
+      String foreignTableBuilding = "create memory table BOOK (ID varchar(256) not null, TITLE  varchar(256),"
+          + " AUTHOR_ID varchar(256) not null, primary key (ID), foreign key (AUTHOR_ID) references BOOK_AUTHOR(ID))";
+      st.execute(foreignTableBuilding);
+
+      this.context.getSettings().setSchemaWriting(OTeleporterSettings.BATCHED_SCHEMA_WRITING);
+      this.context.getSettings().setWorkerThreads(2);
+      this.mapper = new OER2GraphMapper(this.sourceDBInfo, null, null, null);
+      mapper.buildSourceDatabaseSchema();
+      mapper.buildGraphModel(new OJavaConventionNameResolver());
+      modelWriter.writeModelOnOrient(mapper, new OHSQLDBDataTypeHandler(), this.outOrientGraphUri);
+
+
+      /*
+       *  Testing context information
+       */
+
+      assertEquals(2, context.getStatistics().wroteVertexType);
+      assertEquals(1, context.getStatistics().wroteEdgeType);
+      assertEquals(2, context.getStatistics().wroteIndexes);
+
+      /*
+       *  Testing built OrientDB schema
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      OrientVertexType authorVertexType = orientGraph.getVertexType("BookAuthor");
+      OrientVertexType bookVertexType = orientGraph.getVertexType("Book");
+      OrientEdgeType authorEdgeType = orientGraph.getEdgeType("HasAuthor");
+
+      assertNotNull(authorVertexType);
+      assertNotNull(bookVertexType);
+      assertNotNull(authorEdgeType);
+      assertEquals("V", authorVertexType.getSuperClass().getName());
+      assertEquals("E", authorEdgeType.getSuperClass().getName());
+
+      assertEquals(OType.STRING, authorVertexType.getProperty("id").getType());
+      assertEquals(OType.STRING, authorVertexType.getProperty("name").getType());
+      assertEquals(OType.INTEGER, authorVertexType.getProperty("age").getType());
+      assertEquals(OType.STRING, bookVertexType.getProperty("authorId").getType());
+
+      // clusters of the parallel writers
+      int clusterId = orientGraph.getRawGraph().getClusterIdByName(OGraphModelWriter.getWriterClusterName("Book", 1));
+      assertTrue(clusterId != -1);
+      boolean bookCluster = false;
+      for (int currentClusterId : bookVertexType.getClusterIds()) {
+        bookCluster = bookCluster || currentClusterId == clusterId;
+      }
+      assertTrue(bookCluster);
+
+      // Indices check
+      assertEquals(true, orientGraph.getRawGraph().getMetadata().getIndexManager().existsIndex("BookAuthor.pkey"));
+      assertEquals(true, orientGraph.getRawGraph().getMetadata().getIndexManager().areIndexed("BookAuthor", "id"));
+      assertEquals(true, orientGraph.getRawGraph().getMetadata().getIndexManager().existsIndex("Book.pkey"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
+  @Test
+
+  /*
+   *  Writing the schema again after a column was added to a table: only the correspondent class is updated, the other classes
+   *  and the external key indexes are left untouched.
+   */
+
+  public void test9() {
+
+    Connection connection = null;
+    Statement st = null;
+    OrientGraphNoTx orientGraph = null;
+    String configurationPath = OMigrationConfigManager
+        .buildConfigurationFilePath(this.outOrientGraphUri, OMigrationConfigManager.getConfigFileName());
+
+    try {
+
+      Class.forName(this.driver);
+      connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+      String parentTableBuilding = "create memory table BOOK_AUTHOR (ID varchar(256) not null,"
+          + " NAME varchar(256) not null, AGE integer not null, primary key (ID))";
+      st = connection.createStatement();
+      st.execute(parentTableBuilding);
+
+      String foreignTableBuilding = "create memory table BOOK (ID varchar(256) not null, TITLE  varchar(256),"
+          + " AUTHOR_ID varchar(256) not null, primary key (ID), foreign key (AUTHOR_ID) references BOOK_AUTHOR(ID))";
+      st.execute(foreignTableBuilding);
+
+      this.mapper = new OER2GraphMapper(this.sourceDBInfo, null, null, null);
+      mapper.buildSourceDatabaseSchema();
+      mapper.buildGraphModel(new OJavaConventionNameResolver());
+      modelWriter.writeModelOnOrient(mapper, new OHSQLDBDataTypeHandler(), this.outOrientGraphUri);
+      assertNull(modelWriter.getSchemaDelta());
+
+      // configuration written at the end of the first migration
+      OConfigurationHandler configurationHandler = new OConfigurationHandler(false);
+      OMigrationConfigManager.writeConfigurationInTargetDB(
+          configurationHandler.buildJSONDocFromConfiguration(configurationHandler.buildConfigurationFromMapper(mapper)),
+          this.outOrientGraphUri);
+
+      st.execute("alter table BOOK add column PRICE integer");
+
+      this.mapper = new OER2GraphMapper(this.sourceDBInfo, null, null, null);
+      mapper.buildSourceDatabaseSchema();
+      mapper.buildGraphModel(new OJavaConventionNameResolver());
+      OGraphModelWriter syncWriter = new OGraphModelWriter();
+      syncWriter.writeModelOnOrient(mapper, new OHSQLDBDataTypeHandler(), this.outOrientGraphUri);
+
+
+      /*
+       *  Testing the schema delta
+       */
+
+      OSchemaDelta schemaDelta = syncWriter.getSchemaDelta();
+      assertNotNull(schemaDelta);
+      assertEquals(0, schemaDelta.getNewClasses().size());
+      assertEquals(1, schemaDelta.getChangedClasses().size());
+      assertTrue(schemaDelta.getChangedClasses().containsKey("Book"));
+      assertTrue(schemaDelta.isUnchanged("BookAuthor"));
+      assertTrue(schemaDelta.isUnchanged("HasAuthor"));
+      assertEquals(0, schemaDelta.getDroppedClasses().size());
+      assertEquals(0, schemaDelta.getChangedIndexes().size());
+
+      /*
+       *  Testing built OrientDB schema
+       */
+      orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+      OrientVertexType bookVertexType = orientGraph.getVertexType("Book");
+      assertEquals(OType.INTEGER, bookVertexType.getProperty("price").getType());
+      assertEquals(true, orientGraph.getRawGraph().getMetadata().getIndexManager().existsIndex("BookAuthor.pkey"));
+      assertEquals(true, orientGraph.getRawGraph().getMetadata().getIndexManager().existsIndex("Book.pkey"));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      try {
+
+        // Dropping Source DB Schema and OrientGraph
+        String dbDropping = "drop schema public cascade";
+        st.execute(dbDropping);
+        connection.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+        fail();
+      }
+      new File(configurationPath).delete();
+      if (orientGraph != null) {
+        orientGraph.drop();
+        orientGraph.shutdown();
+      }
+    }
+  }
+
 }
@@ -0,0 +1,132 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.test.rdbms.types;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.context.OTeleporterContext;
+import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
+import com.orientechnologies.teleporter.importengine.rdbms.dbengine.ODBQueryEngine;
+import com.orientechnologies.teleporter.model.dbschema.OSourceDatabaseInfo;
+import com.orientechnologies.teleporter.nameresolver.OJavaConventionNameResolver;
+import com.orientechnologies.teleporter.persistence.handler.OHSQLDBDataTypeHandler;
+import com.orientechnologies.teleporter.strategy.rdbms.ODBMSNaiveStrategy;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphNoTx;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class TypedValuesTest {
+
+  private OTeleporterContext context;
+  private String driver            = "org.hsqldb.jdbc.JDBCDriver";
+  private String jurl              = "jdbc:hsqldb:mem:mydb";
+  private String username          = "SA";
+  private String password          = "";
+  private String outOrientGraphUri = "memory:testOrientDB";
+  private OSourceDatabaseInfo sourceDBInfo;
+  private Connection          connection;
+  private OrientGraphNoTx     orientGraph;
+
+  @Before
+  public void init() {
+    this.context = OTeleporterContext.newInstance();
+    this.sourceDBInfo = new OSourceDatabaseInfo("source", this.driver, this.jurl, this.username, this.password);
+    this.context.setDbQueryEngine(new ODBQueryEngine(this.driver));
+    this.context.setMessageHandler(new OTeleporterMessageHandler(0));
+    this.context.setNameResolver(new OJavaConventionNameResolver());
+    this.context.setDataTypeHandler(new OHSQLDBDataTypeHandler());
+  }
+
+  @After
+  public void cleanUp() throws Exception {
+    if (this.connection != null) {
+      this.connection.createStatement().execute("drop schema public cascade");
+      this.connection.close();
+    }
+    if (this.orientGraph != null) {
+      this.orientGraph.drop();
+      this.orientGraph.shutdown();
+    }
+  }
+
+  /*
+   * Numeric and boolean values are stored with the OrientDB type of their property, and SQL NULL values become null properties
+   * instead of the 0 or false returned by the primitive JDBC getters.
+   */
+  @Test
+  public void typedValuesTest() throws Exception {
+
+    Class.forName(this.driver);
+    this.connection = DriverManager.getConnection(this.jurl, this.username, this.password);
+
+    Statement st = this.connection.createStatement();
+    st.execute("create memory table MEASURE (ID varchar(256) not null, QUANTITY integer, TOTAL bigint, RATIO double,"
+        + " PRICE decimal(10,2), ACTIVE boolean, primary key (ID))");
+    st.execute("insert into MEASURE (ID,QUANTITY,TOTAL,RATIO,PRICE,ACTIVE) values (" + "('M001',42,9000000000,0.25,19.90,true),"
+        + "('M002',null,null,null,null,null))");
+    st.close();
+
+    new ODBMSNaiveStrategy()
+        .executeStrategy(this.sourceDBInfo, this.outOrientGraphUri, "basicDBMapper", null, "java", null, null, null);
+
+    this.orientGraph = new OrientGraphNoTx(this.outOrientGraphUri);
+
+    ODocument measure = this.getMeasure("M001");
+    assertEquals(OType.INTEGER, measure.fieldType("quantity"));
+    assertEquals(Integer.valueOf(42), measure.field("quantity"));
+    assertEquals(OType.LONG, measure.fieldType("total"));
+    assertEquals(Long.valueOf(9000000000L), measure.field("total"));
+    assertEquals(OType.DOUBLE, measure.fieldType("ratio"));
+    assertEquals(Double.valueOf(0.25), measure.field("ratio"));
+    assertEquals(OType.DECIMAL, measure.fieldType("price"));
+    assertEquals(0, new BigDecimal("19.90").compareTo((BigDecimal) measure.field("price")));
+    assertEquals(OType.BOOLEAN, measure.fieldType("active"));
+    assertEquals(Boolean.TRUE, measure.field("active"));
+
+    measure = this.getMeasure("M002");
+    assertNull(measure.field("quantity"));
+    assertNull(measure.field("total"));
+    assertNull(measure.field("ratio"));
+    assertNull(measure.field("price"));
+    assertNull(measure.field("active"));
+  }
+
+  private ODocument getMeasure(String id) {
+    OrientVertex vertex = (OrientVertex) this.orientGraph.getVertices("Measure", new String[] { "id" }, new String[] { id })
+        .iterator().next();
+    return vertex.getRecord();
+  }
+
+}
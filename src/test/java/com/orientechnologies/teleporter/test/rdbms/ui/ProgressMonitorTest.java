@@ -25,13 +25,18 @@ import com.orientechnologies.teleporter.context.OTeleporterContext;
 import com.orientechnologies.teleporter.context.OTeleporterMessageHandler;
 import com.orientechnologies.teleporter.context.OTeleporterStatistics;
 import com.orientechnologies.teleporter.ui.OProgressMonitor;
+import com.orientechnologies.teleporter.ui.OProgressSnapshot;
+import com.orientechnologies.teleporter.ui.OStatisticsListener;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * @author Gabriele Ponzi
@@ -274,4 +279,115 @@ public class ProgressMonitorTest {
 
   }
 
+  /*
+   * The sampler publishes the snapshots from its own thread: notifyListeners() returns without waiting for them, and the snapshot
+   * requested at a phase boundary describes the step that was running, even if the next step already started.
+   */
+
+  @Test
+  public void samplingTest() throws Exception {
+
+    statistics.warningMessages = new HashSet<String>();
+    statistics.runningStepNumber = 4;
+    statistics.analyzedRecords = 250;
+    statistics.totalNumberOfRecords = 1000;
+    statistics.startWork4Time = new Date();
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<String> samplingThreads = new CopyOnWriteArrayList<String>();
+    final List<OProgressSnapshot> snapshots = new CopyOnWriteArrayList<OProgressSnapshot>();
+    statistics.registerListener(new OStatisticsListener() {
+      @Override
+      public String updateOnEvent(OTeleporterStatistics statistics) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        samplingThreads.add(Thread.currentThread().getName());
+        snapshots.add(statistics.getProgressSnapshot());
+        return null;
+      }
+    });
+
+    try {
+      statistics.startProgressSampling(10000);
+
+      // the listener is blocked, yet the phase boundaries don't wait for it
+      statistics.notifyListeners();
+      statistics.analyzedRecords = 500;
+      statistics.notifyListeners();
+      statistics.runningStepNumber = 5;
+      statistics.totalNumberOfLogicalRelationships = 2;
+      assertTrue(snapshots.isEmpty());
+      release.countDown();
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (snapshots.size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(2, snapshots.size());
+      assertFalse(samplingThreads.contains(Thread.currentThread().getName()));
+
+      // the second boundary sampled step 4, already closed when it was published
+      OProgressSnapshot lastSnapshot = snapshots.get(1);
+      assertEquals(4, lastSnapshot.getStepNumber());
+      assertEquals(500, lastSnapshot.getDoneUnits());
+      assertEquals(1000, lastSnapshot.getTotalUnits());
+      assertTrue(lastSnapshot.getTimestamp() >= snapshots.get(0).getTimestamp());
+    } finally {
+      statistics.stopProgressSampling();
+    }
+  }
+
+  /*
+   * A listener failing during a sample doesn't stop the sampler: the failure is reported through the context.
+   */
+
+  @Test
+  public void failedSamplingTest() throws Exception {
+
+    final List<String> warnings = new CopyOnWriteArrayList<String>();
+    this.context.setMessageHandler(new OTeleporterMessageHandler(this.outputManager) {
+      @Override
+      public synchronized void warn(Object requester, String message) {
+        warnings.add(message);
+      }
+    });
+
+    statistics.warningMessages = new HashSet<String>();
+    statistics.runningStepNumber = 4;
+    statistics.analyzedRecords = 250;
+    statistics.totalNumberOfRecords = 1000;
+    statistics.startWork4Time = new Date();
+
+    final List<OProgressSnapshot> snapshots = new CopyOnWriteArrayList<OProgressSnapshot>();
+    statistics.registerListener(new OStatisticsListener() {
+      @Override
+      public String updateOnEvent(OTeleporterStatistics statistics) {
+        snapshots.add(statistics.getProgressSnapshot());
+        if (snapshots.size() == 1) {
+          throw new IllegalStateException("Rendering failed");
+        }
+        return null;
+      }
+    });
+
+    try {
+      statistics.startProgressSampling(10000);
+      statistics.notifyListeners();
+      statistics.notifyListeners();
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (snapshots.size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(2, snapshots.size());
+      assertEquals(1, warnings.size());
+      assertTrue(warnings.get(0).contains("Rendering failed"));
+    } finally {
+      statistics.stopProgressSampling();
+    }
+  }
+
 }
@@ -0,0 +1,117 @@
+/*
+ *
+ *  *  Copyright 2010-2017 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.teleporter.test.rdbms.util;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.teleporter.persistence.util.OWKBGeometryReader;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Gabriele Ponzi
+ * @email <g.ponzi--at--orientdb.com>
+ */
+
+public class WKBGeometryReaderTest {
+
+  @Test
+  /*
+   * Point in little endian WKB.
+   */ public void test1() {
+
+    ByteBuffer buffer = ByteBuffer.allocate(21).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put((byte) 1).putInt(1).putDouble(12.5).putDouble(41.9);
+
+    ODocument point = new OWKBGeometryReader(buffer.array()).read();
+
+    assertEquals("OPoint", point.getClassName());
+    List<Double> coordinates = point.field("coordinates");
+    assertEquals(2, coordinates.size());
+    assertEquals(12.5, coordinates.get(0), 0);
+    assertEquals(41.9, coordinates.get(1), 0);
+  }
+
+  @Test
+  /*
+   * Polygon in big endian EWKB with SRID and Z ordinates, hex-encoded as in the text form of the PostGIS geometries.
+   */ public void test2() {
+
+    ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 4 + 4 + 4 + 4 * 24).order(ByteOrder.BIG_ENDIAN);
+    buffer.put((byte) 0).putInt(3 | 0x80000000 | 0x20000000).putInt(4326).putInt(1).putInt(4);
+    double[][] ring = { { 0, 0 }, { 10, 0 }, { 10, 10 }, { 0, 0 } };
+    for (double[] point : ring) {
+      buffer.putDouble(point[0]).putDouble(point[1]).putDouble(100);
+    }
+
+    StringBuilder hex = new StringBuilder();
+    for (byte b : buffer.array()) {
+      hex.append(String.format("%02X", b));
+    }
+    byte[] value = hex.toString().getBytes();
+    assertTrue(OWKBGeometryReader.isWKB(value));
+
+    ODocument polygon = new OWKBGeometryReader(value).read();
+
+    assertEquals("OPolygon", polygon.getClassName());
+    List<List<List<Double>>> rings = polygon.field("coordinates");
+    assertEquals(1, rings.size());
+    assertEquals(4, rings.get(0).size());
+    assertEquals(2, rings.get(0).get(1).size());
+    assertEquals(10, rings.get(0).get(1).get(0), 0);
+    assertEquals(0, rings.get(0).get(1).get(1), 0);
+  }
+
+  @Test
+  /*
+   * Multi point whose parts are ISO WKB points with Z, then a truncated geometry and a value not in WKB format.
+   */ public void test3() {
+
+    ByteBuffer buffer = ByteBuffer.allocate(9 + 2 * 29).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put((byte) 1).putInt(4).putInt(2);
+    buffer.put((byte) 1).putInt(1001).putDouble(1).putDouble(2).putDouble(3);
+    buffer.put((byte) 1).putInt(1001).putDouble(4).putDouble(5).putDouble(6);
+
+    ODocument multiPoint = new OWKBGeometryReader(buffer.array()).read();
+
+    assertEquals("OMultiPoint", multiPoint.getClassName());
+    List<List<Double>> points = multiPoint.field("coordinates");
+    assertEquals(2, points.size());
+    assertEquals(4, points.get(1).get(0), 0);
+    assertEquals(5, points.get(1).get(1), 0);
+
+    byte[] truncated = new byte[buffer.capacity() - 8];
+    System.arraycopy(buffer.array(), 0, truncated, 0, truncated.length);
+    try {
+      new OWKBGeometryReader(truncated).read();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    assertFalse(OWKBGeometryReader.isWKB("POINT(1 2)".getBytes()));
+  }
+
+}